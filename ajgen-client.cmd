@@ -0,0 +1,20 @@
+@Echo OFF
+Rem Copyright 2013, Qualcomm Innovation Center, Inc.
+Rem
+Rem    Licensed under the Apache License, Version 2.0 (the "License");
+Rem    you may not use this file except in compliance with the License.
+Rem    You may obtain a copy of the License at
+Rem
+Rem        http://www.apache.org/licenses/LICENSE-2.0
+Rem
+Rem    Unless required by applicable law or agreed to in writing, software
+Rem    distributed under the License is distributed on an "AS IS" BASIS,
+Rem    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+Rem    See the License for the specific language governing permissions and
+Rem    limitations under the License.
+
+Rem Sends a request to the daemon started with "ajgen -d <port>", like
+Rem ajgen-client.sh, with ajgen-client.ps1 from the same directory.  Takes
+Rem the same options as the tool.
+powershell -NoProfile -ExecutionPolicy Bypass -File "%~dp0ajgen-client.ps1" %*
+exit /b %errorlevel%
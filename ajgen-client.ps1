@@ -0,0 +1,70 @@
+# Copyright 2013, Qualcomm Innovation Center, Inc.
+#
+#    Licensed under the Apache License, Version 2.0 (the "License");
+#    you may not use this file except in compliance with the License.
+#    You may obtain a copy of the License at
+#
+#        http://www.apache.org/licenses/LICENSE-2.0
+#
+#    Unless required by applicable law or agreed to in writing, software
+#    distributed under the License is distributed on an "AS IS" BASIS,
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+#    See the License for the specific language governing permissions and
+#    limitations under the License.
+#
+
+# The Windows version of ajgen-client.sh, run by ajgen-client.cmd.  Runs the
+# code generator in a daemon started with "ajgen -d <port>" rather than
+# starting a new JVM.  Takes the same options as the tool.  The port is
+# taken from AJGEN_PORT.  The daemon only accepts requests that start with
+# the token it wrote to AJGEN_TOKEN_FILE, by default ~\.ajgen-<port>.token.
+#
+$port = 7123
+if ($env:AJGEN_PORT) {
+    $port = [int]$env:AJGEN_PORT
+}
+$tokenFile = Join-Path $HOME ".ajgen-$port.token"
+if ($env:AJGEN_TOKEN_FILE) {
+    $tokenFile = $env:AJGEN_TOKEN_FILE
+}
+
+try {
+    $token = Get-Content -LiteralPath $tokenFile -TotalCount 1 -ErrorAction Stop
+} catch {
+    [Console]::Error.WriteLine("cannot read the daemon's token from $tokenFile")
+    exit 1
+}
+
+try {
+    $client = New-Object System.Net.Sockets.TcpClient("127.0.0.1", $port)
+} catch {
+    [Console]::Error.WriteLine("cannot connect to the daemon on port $port")
+    exit 1
+}
+$utf8 = New-Object System.Text.UTF8Encoding($false)
+$stream = $client.GetStream()
+
+# the request: the token, the working directory, one option per line, an
+# empty line
+$writer = New-Object System.IO.StreamWriter($stream, $utf8)
+$writer.NewLine = "`n"
+$writer.WriteLine($token)
+$writer.WriteLine((Get-Location).ProviderPath)
+foreach ($arg in $args) {
+    $writer.WriteLine($arg)
+}
+$writer.WriteLine()
+$writer.Flush()
+
+# copy the output until the daemon sends the exit code
+$status = 1
+$reader = New-Object System.IO.StreamReader($stream, $utf8)
+while ($null -ne ($line = $reader.ReadLine())) {
+    if ($line.StartsWith("@exit ")) {
+        $status = [int]$line.Substring(6)
+        break
+    }
+    Write-Output $line
+}
+$client.Close()
+exit $status
@@ -0,0 +1,58 @@
+#!/bin/bash
+# Copyright 2013, Qualcomm Innovation Center, Inc.
+# 
+#    Licensed under the Apache License, Version 2.0 (the "License");
+#    you may not use this file except in compliance with the License.
+#    You may obtain a copy of the License at
+# 
+#        http://www.apache.org/licenses/LICENSE-2.0
+# 
+#    Unless required by applicable law or agreed to in writing, software
+#    distributed under the License is distributed on an "AS IS" BASIS,
+#    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+#    See the License for the specific language governing permissions and
+#    limitations under the License.
+#
+
+# Runs the code generator in a daemon started with "ajgen -d <port>" rather
+# than starting a new JVM.  Takes the same options as the tool.  The port is
+# taken from AJGEN_PORT.  The daemon only accepts requests that start with
+# the token it wrote to AJGEN_TOKEN_FILE, by default ~/.ajgen-<port>.token,
+# which only the daemon's user can read.
+#
+PORT=${AJGEN_PORT:-7123}
+TOKEN_FILE=${AJGEN_TOKEN_FILE:-$HOME/.ajgen-$PORT.token}
+
+if ! IFS= read -r TOKEN < "$TOKEN_FILE"; then
+    echo "cannot read the daemon's token from $TOKEN_FILE" >&2
+    exit 1
+fi
+
+exec 3<>/dev/tcp/127.0.0.1/$PORT || exit 1
+
+# the request: the token, the working directory, one option per line, an
+# empty line
+{
+    printf '%s\n' "$TOKEN"
+    pwd
+    for arg in "$@"; do
+        printf '%s\n' "$arg"
+    done
+    echo
+} >&3
+
+# copy the output until the daemon sends the exit code
+status=1
+while IFS= read -r line <&3; do
+    case "$line" in
+        "@exit "*)
+            status=${line#@exit }
+            break
+            ;;
+        *)
+            printf '%s\n' "$line"
+            ;;
+    esac
+done
+exec 3<&-
+exit $status
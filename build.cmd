@@ -58,6 +58,15 @@ Rem it duplicates the same code build.sh which also doesn't
 Rem seem to get executed.
 if NOT %EXE_FILE%==%JAR_FILE% mklink %EXE_FILE% %JAR_FILE%
 
+Rem The client for the daemon (-d) goes next to the tool.  ajgen-client.sh
+Rem needs bash, so Windows uses ajgen-client.cmd, which runs
+Rem ajgen-client.ps1.
+if /I NOT "%OUTPUT_PATH%"=="%CD%\" (
+        echo Copying the daemon client ajgen-client.cmd
+        copy /Y ajgen-client.cmd %OUTPUT_PATH% > NUL
+        copy /Y ajgen-client.ps1 %OUTPUT_PATH% > NUL
+)
+
 echo Done creating file(s)...
 
 echo Cleaning up...
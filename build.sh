@@ -19,12 +19,9 @@
 SOURCE_PATH="src/"
 MAIN_CLASS=AJGenerateCode
 MAIN_CLASS_FILE=$SOURCE_PATH$MAIN_CLASS".java"
+CLIENT_FILE="ajgen-client.sh"
 TMP_MANIFEST="manifest"
 OUTPUT_PATH="$PWD/"
-EXE_FILE_NAME=`cat $SOURCE_PATH/config/name`
-EXE_FILE=$OUTPUT_PATH$EXE_FILE_NAME
-JAR_FILE_NAME="$EXE_FILE_NAME"
-JAR_FILE=$OUTPUT_PATH"$JAR_FILE_NAME"
 
 # if there is a command line argument it is expected to be the output path
 #
@@ -32,9 +29,14 @@ if [ -z $1 ]; then
     echo "No output path specified, creating jar file in current directory:"
     echo "$OUTPUT_PATH"
 else
-    OUTPUT_PATH="$1"
+    OUTPUT_PATH="${1%/}/"
 fi
 
+EXE_FILE_NAME=`cat $SOURCE_PATH/config/name`
+EXE_FILE=$OUTPUT_PATH$EXE_FILE_NAME
+JAR_FILE_NAME="$EXE_FILE_NAME"
+JAR_FILE=$OUTPUT_PATH"$JAR_FILE_NAME"
+
 # set -e will exit script immediately if any of the commands below it exit with
 # a non-zero status
 set -e
@@ -57,6 +59,12 @@ if [ $EXE_FILE != $JAR_FILE ]; then
     echo "Creating \"executable\" (link to jar) '$EXE_FILE_FILE'"
     ln -s $JAR_FILE $EXE_FILE
 fi
+# the client for the daemon (-d) goes next to the tool
+if [ ! "$CLIENT_FILE" -ef "$OUTPUT_PATH$CLIENT_FILE" ]; then
+    echo "Copying the daemon client '$CLIENT_FILE'"
+    cp "$CLIENT_FILE" "$OUTPUT_PATH$CLIENT_FILE"
+    chmod a+x "$OUTPUT_PATH$CLIENT_FILE"
+fi
 echo "Done creating file(s)..."
 
 echo "cleaning up..."
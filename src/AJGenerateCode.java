@@ -15,8 +15,16 @@
  ******************************************************************************/
 
 import java.awt.event.KeyEvent;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.regex.Pattern;
 
 import org.xml.sax.ErrorHandler;
@@ -30,15 +38,88 @@ import java.io.InputStream;
 public class AJGenerateCode {
     
     /**
-     * The main function of the program.  It parses the command line and causes
-     * the XML file(s) to be read and code to be output.
+     * The main function of the program.  It either runs the generator daemon,
+     * runs the jobs of a batch manifest or generates code for the command
+     * line.
      * @param args
      */
     public static void main(String[] args) {
-        ArrayList<String> inputFileNames = new ArrayList<String>();
-        CodeGenConfig codeGenConfig = CodeGenConfig.getInstance();
+        CodeGenConfig codeGenConfig = CodeGenConfig.newInstance();
 	LogOutput UIOutput = new LogOutput("AJGenerateCode", codeGenConfig.programName);
 
+        // -d
+        if(args.length > 0 &&
+           (args[0].equals("-d") || args[0].equals("--daemon"))){
+            int port = 0;
+            try {
+                port = Integer.parseInt(args[1]);
+            } catch(Exception e) {
+                port = 0;
+            }
+            if(port < 1 || port > 65535 || args.length > 2){
+                UIOutput.LogFatal("[-d option] the port must be a number " +
+                    "from 1 to 65535 and no other options may be given.", 0);
+            }
+            try {
+                new CodeGenDaemon(port).serve();
+            } catch(Exception e) {
+                UIOutput.LogFatal(e.toString(), 1);
+            }
+            return;
+        }
+
+        // -B
+        if(args.length > 0 &&
+           (args[0].equals("-B") || args[0].equals("--batch"))){
+            int jobs = codeGenConfig.jobs;
+            if(args.length == 4 &&
+               (args[2].equals("-j") || args[2].equals("--jobs"))){
+                try {
+                    jobs = Integer.parseInt(args[3]);
+                } catch(NumberFormatException e) {
+                    jobs = 0;
+                }
+            }else if(args.length != 2){
+                jobs = 0;
+            }
+            if(jobs < 1){
+                UIOutput.LogFatal("[-B option] the batch manifest may only " +
+                    "be followed by -j and a positive number of jobs.", 0);
+            }
+            int exitCode = 1;
+            try {
+                exitCode = new CodeGenBatch(new File(args[1]), jobs).run();
+            } catch(Exception e) {
+                UIOutput.LogFatal(e.getMessage(), 1);
+            }
+            LogOutput.Exit(exitCode);
+            return;
+        }
+
+        generate(codeGenConfig, args);
+    } // main()
+
+    /**
+     * Parse the command line and cause the XML file(s) to be read and code
+     * to be output.
+     * @param codeGenConfig: the configuration the options are parsed into
+     * @param args: the command line
+     */
+    public static void generate(CodeGenConfig codeGenConfig, String[] args) {
+        generate(codeGenConfig, parseCommandLine(codeGenConfig, args));
+    } // generate()
+
+    /**
+     * Parse the command line options into the configuration.
+     * @param codeGenConfig: the configuration the options are parsed into
+     * @param args: the command line
+     * @return the names of the input XML files
+     */
+    public static ArrayList<String> parseCommandLine(CodeGenConfig codeGenConfig,
+                                                     String[] args) {
+        ArrayList<String> inputFileNames = new ArrayList<String>();
+	LogOutput UIOutput = new LogOutput("AJGenerateCode");
+
         /*
          * If there are no command line arguments print the usage message as
          * some are required.
@@ -129,6 +210,10 @@ public class AJGenerateCode {
             else if (args[i].equals("-p") || args[i].equals("--output-path")){
                 i++;
                 temp = args[i];
+                if(codeGenConfig.workingDir != null &&
+                   !new File(temp).isAbsolute()){
+                    temp = new File(codeGenConfig.workingDir, temp).getPath();
+                }
                 if(!temp.endsWith("/")){
                     temp += "/";
                 }
@@ -157,6 +242,71 @@ public class AJGenerateCode {
             else if(args[i].equals("-R") || args[i].equals("--runnable")){
                 codeGenConfig.runnable = true;
             }
+            // -s
+            else if(args[i].equals("-s") || args[i].equals("--streaming-parse")){
+                codeGenConfig.streamingParse = true;
+            }
+            // -i
+            else if(args[i].equals("-i") || args[i].equals("--incremental")){
+                codeGenConfig.incremental = true;
+                codeGenConfig.writeIfChanged = true;
+                codeGenConfig.overWrite = true;
+            }
+            // -k
+            else if(args[i].equals("-k") ||
+                    args[i].equals("--keep-unchanged")){
+                codeGenConfig.writeIfChanged = true;
+                codeGenConfig.overWrite = true;
+            }
+            // -a
+            else if(args[i].equals("-a") || args[i].equals("--async")){
+                codeGenConfig.asyncMethods = true;
+            }
+            // -z
+            else if(args[i].equals("-z") || args[i].equals("--zero-copy")){
+                codeGenConfig.arrayViews = true;
+            }
+            // -t
+            else if(args[i].equals("-t") ||
+                    args[i].equals("--worker-threads")){
+                i++;
+                try {
+                    codeGenConfig.workerThreads = Integer.parseInt(args[i]);
+                } catch(NumberFormatException e) {
+                    codeGenConfig.workerThreads = 0;
+                }
+                if(codeGenConfig.workerThreads < 1){
+                    UIOutput.LogFatal("[-t option] the number of worker " +
+                        "threads must be a positive number.", 0);
+                }
+            }
+            // -q
+            else if(args[i].equals("-q") || args[i].equals("--queue-depth")){
+                i++;
+                try {
+                    codeGenConfig.workerQueueDepth =
+                        Integer.parseInt(args[i]);
+                } catch(NumberFormatException e) {
+                    codeGenConfig.workerQueueDepth = 0;
+                }
+                if(codeGenConfig.workerQueueDepth < 1){
+                    UIOutput.LogFatal("[-q option] the queue depth " +
+                        "must be a positive number.", 0);
+                }
+            }
+            // -j
+            else if(args[i].equals("-j") || args[i].equals("--jobs")){
+                i++;
+                try {
+                    codeGenConfig.jobs = Integer.parseInt(args[i]);
+                } catch(NumberFormatException e) {
+                    codeGenConfig.jobs = 0;
+                }
+                if(codeGenConfig.jobs < 1){
+                    UIOutput.LogFatal("[-j option] the number of jobs " +
+                        "must be a positive number.", 0);
+                }
+            }
             // -w
             else if(args[i].equals("-w") ||
                     args[i].equals("--well-known-name")){
@@ -191,52 +341,220 @@ public class AJGenerateCode {
         if (inputFileNames.isEmpty()){
             UIOutput.LogFatal("Must include an input file name.\n", 0);
         }
+        return inputFileNames;
+    } // parseCommandLine()
 
+    /**
+     * Cause the XML file(s) to be read and code to be output.
+     * @param codeGenConfig: the parsed command line options
+     * @param inputFileNames: the names of the input XML files
+     */
+    public static void generate(CodeGenConfig codeGenConfig,
+                                ArrayList<String> inputFileNames) {
+	LogOutput UIOutput = new LogOutput("AJGenerateCode");
         codeGenConfig.errorHandler = new AJNErrorHandler(codeGenConfig, UIOutput);
         try{
-            //the AllJoynXMLParser takes in the string buffer of xml file and
+            //the AllJoynXMLParser streams each xml file from disk and
             //creates the interface data structures 
-            ParseAJXML alljoynParser = new ParseAJXML();
+            ParseAJXML alljoynParser = new ParseAJXML(codeGenConfig);
             
-            String XMLClassDef; 
-            for(i = 0; i < inputFileNames.size(); i++){
-                XMLClassDef = ReadFiles.getStringFromFileSys(inputFileNames.get(i));
-                alljoynParser.parseXML(XMLClassDef);            
+            ArrayList<Path> inputFiles = new ArrayList<Path>();
+            for(int i = 0; i < inputFileNames.size(); i++){
+                if(codeGenConfig.workingDir != null){
+                    inputFiles.add(Paths.get(codeGenConfig.workingDir)
+                                   .resolve(inputFileNames.get(i)));
+                }else{
+                    inputFiles.add(Paths.get(inputFileNames.get(i)));
+                }
             } 
+            alljoynParser.parseXML(inputFiles);
+            codeGenConfig.freezeModel();
             
             //create and write the output files
-            for(int j = 0; j < codeGenConfig.interfaces.size(); j++) {
-                WriteCode.config = codeGenConfig;
-                WriteCode.inter = codeGenConfig.interfaces.get(j);
-                WriteClientCode clientWriter = new WriteClientCode();
-                clientWriter.writeHeaderFile();
-                clientWriter.writeDevCCFile();
-                clientWriter.writeCCFile();
-                if(!codeGenConfig.clientOnly){
-                    WriteServiceCode serviceWriter = new WriteServiceCode();
-                    serviceWriter.writeHeaderFile();
-                    serviceWriter.writeDevCCFile();
-                    serviceWriter.writeCCFile();
-                    if(j == 0) {
-                        serviceWriter.writeMainFile();
-                    }
-                }
-                
-                if(j == 0) {
-                    clientWriter.writeMainFile();
-                    clientWriter.writeBusMgrFile(".h");
-                    clientWriter.writeBusMgrFile(".cc");
-                    clientWriter.writeMakeFiles();
-                }
-            }
+            writeFiles(codeGenConfig);
             
         }catch(SAXParseException e){
             codeGenConfig.errorHandler.error(e);
+        }catch(LogFatalException e){
+            throw e;
         }catch(Exception e){
-            e.printStackTrace();
+            e.printStackTrace(LogOutput.GetErrStream());
             UIOutput.LogFatal(e.getMessage(), 1);
         }
-    } // main()
+    } // generate()
+
+    /**
+     * Write the client and service files for every interface.  Each
+     * interface is generated from its own WriteContext, so the .h, .cc and
+     * dev .cc files of up to codeGenConfig.jobs interfaces are generated at
+     * the same time on a fork-join pool.  The main files, BusAttachmentMgr,
+     * ServiceWorkerPool (with -t), MsgArgViews (with -z) and makefiles are
+     * written from the first interface once all of the interfaces are done.
+     * The messages logged for each interface are printed in the order of the
+     * interfaces, whichever order they were generated in, and the messages
+     * of the main files after them.
+     * In incremental mode the interfaces, and the main files, whose inputs
+     * have not changed since the last run are skipped.  A failure to write a
+     * file ends the run before the manifest is saved, and only the hashes
+     * of the files that were written are recorded in it.
+     * @param codeGenConfig: the parsed interfaces and command line options
+     * @throws Exception
+     */
+    private static void writeFiles(CodeGenConfig codeGenConfig)
+        throws Exception {
+        if(codeGenConfig.interfaces.isEmpty()){
+            return;
+        }
+
+        CodeGenManifest manifest = null;
+        if(codeGenConfig.incremental){
+            manifest = new CodeGenManifest(codeGenConfig);
+        }
+        LogOutput UIOutput = new LogOutput("AJGenerateCode");
+
+        ArrayList<WriteClientCode> clientWriters =
+            new ArrayList<WriteClientCode>();
+        ArrayList<WriteServiceCode> serviceWriters =
+            new ArrayList<WriteServiceCode>();
+        // each task logs to its own buffer with the caller's log levels, and
+        // the buffers are printed in the order of the interfaces
+        ArrayList<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        ArrayList<ByteArrayOutputStream> taskOutput =
+            new ArrayList<ByteArrayOutputStream>();
+        ArrayList<InterfaceDescription> taskInterfaces =
+            new ArrayList<InterfaceDescription>();
+        for(InterfaceDescription inter : codeGenConfig.interfaces) {
+            WriteContext context = new WriteContext(codeGenConfig, inter);
+            final WriteClientCode clientWriter = new WriteClientCode(context);
+            final WriteServiceCode serviceWriter = codeGenConfig.clientOnly ?
+                null : new WriteServiceCode(context);
+            clientWriters.add(clientWriter);
+            serviceWriters.add(serviceWriter);
+            if(manifest != null){
+                ArrayList<String> fileNames = clientWriter.getFileNames();
+                if(serviceWriter != null){
+                    fileNames.addAll(serviceWriter.getFileNames());
+                }
+                if(manifest.isUnchanged(inter, fileNames)){
+                    UIOutput.LogInform(inter.getFullName()
+                                       + " has not changed, skipping.");
+                    continue;
+                }
+            }
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            final LogOutput.Settings logSettings =
+                LogOutput.BufferedSettings(output);
+            taskOutput.add(output);
+            taskInterfaces.add(inter);
+            tasks.add(new Callable<Void>() {
+                public Void call() {
+                    LogOutput.Settings previous =
+                        LogOutput.GetThreadSettings();
+                    LogOutput.SetThreadSettings(logSettings);
+                    try {
+                        clientWriter.writeHeaderFile();
+                        clientWriter.writeDevCCFile();
+                        clientWriter.writeCCFile();
+                        if(serviceWriter != null){
+                            serviceWriter.writeHeaderFile();
+                            serviceWriter.writeDevCCFile();
+                            serviceWriter.writeCCFile();
+                        }
+                    } finally {
+                        LogOutput.SetThreadSettings(previous);
+                    }
+                    return null;
+                }
+            });
+        }
+
+        if(codeGenConfig.jobs <= 1 || tasks.size() <= 1){
+            for(int i = 0; i < tasks.size(); i++) {
+                try {
+                    tasks.get(i).call();
+                } catch(LogFatalException e) {
+                    LogOutput.PrintBuffer(taskOutput.get(i));
+                    LogOutput.Exit(e.exitCode);
+                }
+                LogOutput.PrintBuffer(taskOutput.get(i));
+                if(manifest != null){
+                    manifest.written(taskInterfaces.get(i));
+                }
+            }
+        }else{
+            ForkJoinPool pool = new ForkJoinPool(
+                Math.min(codeGenConfig.jobs, tasks.size()));
+            try {
+                List<Future<Void>> results = pool.invokeAll(tasks);
+                for(int i = 0; i < results.size(); i++) {
+                    LogOutput.PrintBuffer(taskOutput.get(i));
+                    try {
+                        results.get(i).get();
+                    } catch(ExecutionException e) {
+                        //report a fatal error in a task as if it happened
+                        //here
+                        if(e.getCause() instanceof LogFatalException){
+                            LogOutput.Exit(
+                                ((LogFatalException)e.getCause()).exitCode);
+                        }
+                        if(e.getCause() instanceof RuntimeException){
+                            throw (RuntimeException)e.getCause();
+                        }
+                        throw e;
+                    }
+                    if(manifest != null){
+                        manifest.written(taskInterfaces.get(i));
+                    }
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+
+        // every file written below, so that a missing one is written again
+        ArrayList<String> mainFileNames = new ArrayList<String>();
+        mainFileNames.add("ClientMain.cc");
+        if(!codeGenConfig.clientOnly){
+            mainFileNames.add("ServiceMain.cc");
+        }
+        mainFileNames.add("BusAttachmentMgr.h");
+        mainFileNames.add("BusAttachmentMgr.cc");
+        if(!codeGenConfig.clientOnly && codeGenConfig.workerThreads > 0){
+            mainFileNames.add("ServiceWorkerPool.h");
+            mainFileNames.add("ServiceWorkerPool.cc");
+        }
+        if(codeGenConfig.arrayViews){
+            mainFileNames.add("MsgArgViews.h");
+        }
+        mainFileNames.add("makefile");
+        mainFileNames.add("makefile.nmake");
+        WriteClientCode clientWriter = clientWriters.get(0);
+        if(manifest == null || !manifest.isMainUnchanged(mainFileNames)){
+            if(!codeGenConfig.clientOnly){
+                serviceWriters.get(0).writeMainFile();
+            }
+            clientWriter.writeMainFile();
+            clientWriter.writeBusMgrFile(".h");
+            clientWriter.writeBusMgrFile(".cc");
+            if(!codeGenConfig.clientOnly && codeGenConfig.workerThreads > 0){
+                clientWriter.writeWorkerPoolFile(".h");
+                clientWriter.writeWorkerPoolFile(".cc");
+            }
+            if(codeGenConfig.arrayViews){
+                clientWriter.writeArrayViewsFile();
+            }
+            clientWriter.writeMakeFiles();
+            if(manifest != null){
+                manifest.mainWritten();
+            }
+        }else{
+            UIOutput.LogInform("the main files have not changed, skipping.");
+        }
+
+        if(manifest != null){
+            manifest.save();
+        }
+    } // writeFiles()
 
     /**
      * Print the usage message for the tool
@@ -254,9 +572,9 @@ public class AJGenerateCode {
         usage += ReadFiles.getStringFromJAR("src/config/usage");
 
         // print the usage and exit with the value passed in
-        System.out.println(usage);
+        LogOutput.GetOutStream().println(usage);
 
-        System.exit(exitValue);
+        LogOutput.Exit(exitValue);
 
     } // printUsage()
 
@@ -349,19 +667,24 @@ class AJNErrorHandler implements ErrorHandler {
     }
 
     public void error(SAXParseException e) {
+        if(isFatal(e)){
+            fatalError(e);
+        }else{
+            warning(e);
+        }
+    }
+
+    /**
+     * @return true if reporting the error with error() will stop the tool.
+     */
+    public boolean isFatal(SAXParseException e) {
         if(e.getMessage().contains("The content of element 'node'") ||
            e.getMessage().contains("The content of element 'interface'")){
-            if(allowEmpty){
-                warning(e);        		
-            }else{
-                fatalError(e);
-            }
+            return !allowEmpty;
         }else if(e.getMessage().contains("CodeGen warning:")){
-            warning(e);
-
-        }else{
-            fatalError(e);
+            return false;
         }
+        return true;
     }
 
     public void fatalError(SAXParseException e) {
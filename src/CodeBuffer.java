@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright 2010 - 2011, 2013 Qualcomm Innovation Center, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ ******************************************************************************/
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * A growable buffer that the generated C++ code is appended to.  The writers
+ * append code to a CodeBuffer and hand it to WriteCode.writeCode() which
+ * writes it out and empties it so the buffer can be reused, rather than
+ * building up the code with String concatenation.  The formatting methods
+ * produce the same text as the matching FormatCode methods but append it
+ * directly to the buffer.
+ */
+public class CodeBuffer {
+    private StringBuilder code;
+    private char[] chunk;
+
+    public CodeBuffer() {
+        code = new StringBuilder(1024);
+    }
+
+    public CodeBuffer append(String s) {
+        code.append(s);
+        return this;
+    }
+
+    public CodeBuffer append(char c) {
+        code.append(c);
+        return this;
+    }
+
+    public CodeBuffer append(int i) {
+        code.append(i);
+        return this;
+    }
+
+    /**
+     * Append the contents of another buffer starting at the given offset.
+     * @param other - the buffer to copy from
+     * @param start - the offset of the first character to copy
+     */
+    public CodeBuffer append(CodeBuffer other, int start) {
+        code.append(other.code, start, other.code.length());
+        return this;
+    }
+
+    /**
+     * Append indentation for the specified depth.
+     * @param indentDepth - the number of indents
+     */
+    public CodeBuffer indent(int indentDepth) {
+        FormatCode.indent(code, indentDepth);
+        return this;
+    }
+
+    /**
+     * Append a single line of code indented to the specified depth followed
+     * by a new line.
+     * @param line - the line of code
+     * @param indentDepth - the number of indents the line will have
+     */
+    public CodeBuffer line(String line, int indentDepth) {
+        FormatCode.indentln(code, line, indentDepth);
+        return this;
+    }
+
+    /**
+     * Append a C++ comment.  See FormatCode.comment().
+     */
+    public CodeBuffer comment(String input, int indentDepth) {
+        FormatCode.comment(code, input, indentDepth, 80);
+        return this;
+    }
+
+    /**
+     * Append a C++ block comment.  See FormatCode.blockComment().
+     */
+    public CodeBuffer blockComment(String input, int indentDepth) {
+        FormatCode.blockComment(code, input, indentDepth, 80);
+        return this;
+    }
+
+    public int length() {
+        return code.length();
+    }
+
+    public boolean isEmpty() {
+        return code.length() == 0;
+    }
+
+    /**
+     * Empty the buffer, keeping its storage for reuse.
+     */
+    public void clear() {
+        code.setLength(0);
+    }
+
+    /**
+     * Write the contents of the buffer without making a String of them.
+     * @param out - where to write the code
+     * @throws IOException
+     */
+    public void writeTo(Writer out) throws IOException {
+        if(chunk == null) {
+            chunk = new char[4096];
+        }
+        for(int i = 0; i < code.length(); i += chunk.length) {
+            int end = Math.min(i + chunk.length, code.length());
+            code.getChars(i, end, chunk, 0);
+            out.write(chunk, 0, end - i);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return code.toString();
+    }
+} // class CodeBuffer
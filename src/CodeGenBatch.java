@@ -0,0 +1,177 @@
+/*******************************************************************************
+ * Copyright 2013 Qualcomm Innovation Center, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ ******************************************************************************/
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * The batch mode (-B).  It generates the code for many bus applications in
+ * one process from a batch manifest, so the JVM start up, class loading and
+ * schema compilation are paid once.  Each line of the manifest is one job:
+ * the command line options for the tool separated by white space, such as
+ *
+ *   -w org.example.one -p one one/service.xml
+ *
+ * Empty lines and lines starting with '#' are skipped.  Relative paths are
+ * resolved against the manifest's directory, which is also the output path
+ * of a job without -p.  Each job has its own CodeGenConfig and log levels,
+ * and up to -j jobs are run at the same time; the interfaces of a job are
+ * generated one after another.  The output of each job is printed once all
+ * of the jobs are done, in the order of the manifest, followed by how long
+ * each job took.
+ */
+class CodeGenBatch {
+    private File manifest;
+    private int jobs;
+    private LogOutput UIOutput;
+
+    /**
+     * The result of one job.
+     */
+    private static class Job {
+        int lineNumber;
+        String[] args;
+        boolean failed;
+        long nanos;
+        String output;
+    }
+
+    /**
+     * @param manifest - the batch manifest
+     * @param jobs - the number of jobs to run at the same time
+     */
+    public CodeGenBatch(File manifest, int jobs) {
+        this.manifest = manifest;
+        this.jobs = jobs;
+        UIOutput = new LogOutput("CodeGenBatch");
+    }
+
+    /**
+     * Run all of the jobs in the manifest and print their output and the
+     * summary.
+     * @return 0 if every job succeeded, otherwise 1.
+     * @throws Exception
+     */
+    public int run() throws Exception {
+        ArrayList<Job> batch = readManifest();
+
+        final File workingDir = manifest.getAbsoluteFile().getParentFile();
+        ArrayList<Callable<Job>> tasks = new ArrayList<Callable<Job>>();
+        for(final Job job : batch) {
+            tasks.add(new Callable<Job>() {
+                public Job call() {
+                    generate(workingDir, job);
+                    return job;
+                }
+            });
+        }
+
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(
+            Math.max(1, Math.min(jobs, tasks.size())));
+        try {
+            for(Future<Job> task : pool.invokeAll(tasks)) {
+                task.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        long total = System.nanoTime() - start;
+
+        int failed = 0;
+        for(Job job : batch) {
+            System.out.println("job " + describe(job) + ":");
+            System.out.print(job.output);
+        }
+        System.out.println("batch summary:");
+        for(Job job : batch) {
+            System.out.println(String.format("  %-6s %8.1f ms  %s",
+                job.failed ? "failed" : "ok",
+                job.nanos / 1e6,
+                describe(job)));
+            if(job.failed) {
+                failed++;
+            }
+        }
+        System.out.println(String.format("%d jobs, %d failed, %.1f ms",
+                                         batch.size(), failed, total / 1e6));
+        return failed == 0 ? 0 : 1;
+    }
+
+    /**
+     * @return the jobs listed in the manifest.
+     */
+    private ArrayList<Job> readManifest() throws IOException {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(manifest.toPath(),
+                                       StandardCharsets.UTF_8);
+        } catch(IOException e) {
+            throw new IOException("could not read the batch manifest '"
+                                  + manifest + "'", e);
+        }
+        ArrayList<Job> batch = new ArrayList<Job>();
+        for(int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if(line.length() == 0 || line.startsWith("#")) {
+                continue;
+            }
+            Job job = new Job();
+            job.lineNumber = i + 1;
+            job.args = line.split("\\s+");
+            batch.add(job);
+        }
+        if(batch.isEmpty()) {
+            UIOutput.LogWarning("the batch manifest '" + manifest
+                                + "' has no jobs.");
+        }
+        return batch;
+    }
+
+    /**
+     * Generate the code for one job on the calling thread through the
+     * library API and keep its output.
+     * @param workingDir - the directory relative paths are resolved against
+     * @param job - the job
+     */
+    private static void generate(File workingDir, Job job) {
+        long start = System.nanoTime();
+        CodeGenConfig config = CodeGenConfig.newInstance();
+        config.workingDir = workingDir.getPath();
+        config.outputPath = workingDir.getPath() + File.separator;
+        // the jobs are run at the same time rather than the interfaces of
+        // each job
+        config.jobs = 1;
+        CodeGenResult result = CodeGenerator.generate(config, job.args);
+        job.nanos = System.nanoTime() - start;
+        job.failed = result.failed;
+        job.output = result.output;
+    }
+
+    private static String describe(Job job) {
+        String args = Arrays.toString(job.args);
+        return "line " + job.lineNumber + " "
+            + args.substring(1, args.length() - 1).replace(",", "");
+    }
+} // class CodeGenBatch
@@ -16,19 +16,25 @@
 
 import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.List;
 
 /**
  * 
  * Data-structure class that stores configurations from cmd line and 
  * the XML data structure from the XML parser
  *
+ * There is one configuration for each generation: it is handed to the parser
+ * and to the writers, and nothing else holds the state of a generation, so
+ * any number of generations can run at the same time, each with its own
+ * configuration (see CodeGenerator).
+ *
  */
 public class CodeGenConfig {
-    private static CodeGenConfig instance = null;
     public ArrayList<ObjectData> objects;
     public ArrayList<InterfaceDescription> interfaces;
     public AJNErrorHandler errorHandler;
@@ -37,27 +43,41 @@ public class CodeGenConfig {
     public String className;
     public String outputPath;
     public String wellKnownName;
-    public String cLicense;
-    public String shLicense;
     public boolean overWrite;
     public boolean clientOnly;
     public boolean useStrict;
     public boolean allowEmpty;
     public boolean runnable;
+    public boolean streamingParse;
+    public boolean incremental;
+    public boolean writeIfChanged;
+    public boolean asyncMethods;
+    // pass the received string arrays to the developer's handlers as views
+    // of the message rather than copies
+    public boolean arrayViews;
+    // the number of worker threads that run the service method handlers,
+    // 0 to run them on the AllJoyn dispatcher thread, and how many method
+    // calls can wait for a worker
+    public int workerThreads;
+    public int workerQueueDepth;
+    public int jobs;
+    public String workingDir;
+    // use the full names of the interfaces and the full paths of the objects
+    // in the names of the generated classes, set by the parser when the short
+    // names collide
+    public boolean useFullNames;
+    public boolean useFullPath;
 
-    public static CodeGenConfig getInstance() {
-        if(instance == null){
-            instance = new CodeGenConfig();
-        }
-
-        return instance;
+    /**
+     * @return a new configuration holding the default options, for one
+     * generation.  It must not be shared with another generation, as the
+     * parser adds the parsed objects and interfaces to it.
+     */
+    public static CodeGenConfig newInstance() {
+        return new CodeGenConfig();
     }
 
     private CodeGenConfig() {
-        // buffer to read the file name into - note the name will be truncated
-        // to 64 characters.
-        byte[] buffer = new byte[64];
-
         objects = new ArrayList<ObjectData>();
         interfaces = new ArrayList<InterfaceDescription>();
         errorHandler = null;
@@ -70,12 +90,52 @@ public class CodeGenConfig {
         useStrict = true;
         allowEmpty = false;
         runnable = false;
+        streamingParse = false;
+        incremental = false;
+        writeIfChanged = false;
+        asyncMethods = false;
+        arrayViews = false;
+        workerThreads = 0;
+        workerQueueDepth = 64;
+        jobs = Runtime.getRuntime().availableProcessors();
+        workingDir = null;
+        useFullNames = false;
+        useFullPath = false;
         programName = getConfigFromFile("name");
-        cLicense = getConfigFromFile("c-license");
-        shLicense = getConfigFromFile("sh-license");
  
     } /* CodeGenData() */
 
+    /**
+     * @return the license text for the C++ files, read from the JAR the first
+     * time it is needed.
+     */
+    public String getCLicense() {
+        return getConfigFromFile("c-license");
+    }
+
+    /**
+     * @return the license text for the makefiles, read from the JAR the first
+     * time it is needed.
+     */
+    public String getSHLicense() {
+        return getConfigFromFile("sh-license");
+    }
+
+    /**
+     * Freeze the parsed objects and interfaces once all of the input files
+     * have been parsed, see InterfaceDescription.freeze().
+     */
+    public void freezeModel() {
+        objects.trimToSize();
+        interfaces.trimToSize();
+        for(InterfaceDescription inter : interfaces) {
+            inter.freeze();
+        }
+        for(ObjectData obj : objects) {
+            obj.inter.freeze();
+        }
+    }
+
     /**
      * Return the contents of a config file (in src/config) as a string.  this
      * is used to get the application name, and the license terms from a file
@@ -105,6 +165,9 @@ class InterfaceDescription {
     public ArrayList<PropertyDef> properties;
     public ArrayList<InterfaceDescription> parents;
     public boolean isDerived;
+    private HashMap<String, InterfaceDescription> methodOwners;
+    private HashMap<String, InterfaceDescription> signalOwners;
+    private boolean frozen;
     private LogOutput UIOutput;
 
     /**
@@ -211,6 +274,53 @@ class InterfaceDescription {
         return properties;
     }
 
+    /**
+     * @return The parent interface the named method comes from, or null if
+     * none of the parents has a method with that name.
+     */
+    public synchronized InterfaceDescription getMethodOwner(String name) {
+        if(methodOwners == null) {
+            indexParentMembers();
+        }
+        return methodOwners.get(name);
+    }
+
+    /**
+     * @return The parent interface the named signal comes from, or null if
+     * none of the parents has a signal with that name.
+     */
+    public synchronized InterfaceDescription getSignalOwner(String name) {
+        if(signalOwners == null) {
+            indexParentMembers();
+        }
+        return signalOwners.get(name);
+    }
+
+    /**
+     * Map the names of the parents' methods and signals to the parent they
+     * come from.  If more than one parent has a member with the same name
+     * the first parent is used.  This is done on the first lookup, once
+     * parsing is finished, rather than when the interfaces are merged:
+     * merging the interfaces of a later object can rename members that are
+     * shared with this interface (see updateMemberNames()).
+     */
+    private void indexParentMembers() {
+        methodOwners = new HashMap<String, InterfaceDescription>();
+        signalOwners = new HashMap<String, InterfaceDescription>();
+        for(InterfaceDescription parent : parents) {
+            for(MethodDef method : parent.methods) {
+                if(!methodOwners.containsKey(method.getName())) {
+                    methodOwners.put(method.getName(), parent);
+                }
+            }
+            for(SignalDef signal : parent.signals) {
+                if(!signalOwners.containsKey(signal.getName())) {
+                    signalOwners.put(signal.getName(), parent);
+                }
+            }
+        }
+    }
+
     public void updateMemberNames() {
         HashMap<String, Integer> names = new HashMap<String, Integer>();
         for(MethodDef method : methods) {
@@ -267,45 +377,13 @@ class InterfaceDescription {
             if(isSecure != other.isSecure) {
                 return false;
             }
-            Collections.sort(methods, new Comparator<MethodDef>() {
-                public int compare(MethodDef one, MethodDef two){
-                    return one.getName().compareTo(two.getName());
-                }
-            });
-            Collections.sort(other.methods, new Comparator<MethodDef>() {
-                public int compare(MethodDef one, MethodDef two){
-                    return one.getName().compareTo(two.getName());
-                }
-            });
-            if(!methods.equals(other.methods)) {
+            if(!sameMembers(methods, other.methods)) {
                 return false;
             }
-
-            Collections.sort(signals, new Comparator<SignalDef>() {
-                public int compare(SignalDef one, SignalDef two){
-                    return one.getName().compareTo(two.getName());
-                }
-            });
-            Collections.sort(other.signals, new Comparator<SignalDef>() {
-                public int compare(SignalDef one, SignalDef two){
-                    return one.getName().compareTo(two.getName());
-                }
-            });
-            if(!signals.equals(other.signals)) {
+            if(!sameMembers(signals, other.signals)) {
                 return false;
             }
-
-            Collections.sort(properties, new Comparator<PropertyDef>() {
-                public int compare(PropertyDef one, PropertyDef two){
-                    return one.getName().compareTo(two.getName());
-                }
-            });
-            Collections.sort(other.properties, new Comparator<PropertyDef>() {
-                public int compare(PropertyDef one, PropertyDef two){
-                    return one.getName().compareTo(two.getName());
-                }
-            });
-            if(!properties.equals(other.properties)) {
+            if(!sameMembers(properties, other.properties)) {
                 return false;
             }
 
@@ -315,6 +393,107 @@ class InterfaceDescription {
         return false;
     }
 
+    public int hashCode() {
+        return interfaceFullName.hashCode();
+    }
+
+    /**
+     * Shrink the interface and its members once parsing is finished.  The
+     * names are interned so that the copies repeated in every member are
+     * shared, and signatures share the text of their parsed Signature.  The
+     * lists are trimmed to their size, and the members' fingerprints are
+     * worked out so they can be compared from any thread.  After this the
+     * members' setters throw IllegalStateException.
+     */
+    public void freeze() {
+        if(frozen) {
+            return;
+        }
+        frozen = true;
+        interfaceName = intern(interfaceName);
+        className = intern(className);
+        interfaceFullName = intern(interfaceFullName);
+        methods.trimToSize();
+        for(MethodDef method : methods) {
+            method.freeze();
+        }
+        signals.trimToSize();
+        for(SignalDef signal : signals) {
+            signal.freeze();
+        }
+        properties.trimToSize();
+        for(PropertyDef property : properties) {
+            property.freeze();
+        }
+        parents.trimToSize();
+        for(InterfaceDescription parent : parents) {
+            parent.freeze();
+        }
+    }
+
+    static String intern(String s) {
+        return s == null ? null : s.intern();
+    }
+
+    static String internSignature(String s) {
+        if(s == null) {
+            return null;
+        }
+        Signature sig = Signature.get(s);
+        return sig != null ? sig.getText() : s.intern();
+    }
+
+    /**
+     * Put the methods, signals and properties in order of their names.  The
+     * generated code lists the members in this order for an interface that
+     * has been validated more than once (see ParseAJXML.validateInterface()).
+     * The arguments are left in the order they were declared in.
+     */
+    public void sortMembers() {
+        Collections.sort(methods, new Comparator<MethodDef>() {
+            public int compare(MethodDef one, MethodDef two){
+                return one.getName().compareTo(two.getName());
+            }
+        });
+        Collections.sort(signals, new Comparator<SignalDef>() {
+            public int compare(SignalDef one, SignalDef two){
+                return one.getName().compareTo(two.getName());
+            }
+        });
+        Collections.sort(properties, new Comparator<PropertyDef>() {
+            public int compare(PropertyDef one, PropertyDef two){
+                return one.getName().compareTo(two.getName());
+            }
+        });
+    }
+
+    /**
+     * @return true if the two lists hold the same members in any order.  The
+     * members' fingerprints make this a hash lookup per member.
+     */
+    private static boolean sameMembers(ArrayList<?> one, ArrayList<?> two) {
+        if(one.size() != two.size()) {
+            return false;
+        }
+        HashMap<Object, Integer> counts = new HashMap<Object, Integer>();
+        for(Object member : one) {
+            Integer count = counts.get(member);
+            counts.put(member, count == null ? 1 : count + 1);
+        }
+        for(Object member : two) {
+            Integer count = counts.get(member);
+            if(count == null) {
+                return false;
+            }
+            if(count == 1) {
+                counts.remove(member);
+            } else {
+                counts.put(member, count - 1);
+            }
+        }
+        return true;
+    }
+
     /**
      * Prints out the interface's methods, signals, and properties for debug
      * purposes.
@@ -377,9 +556,12 @@ class MethodDef {
     private String interfaceName;
     public int inArgCount;
     public int outArgCount;
-    public ArrayList<ArgDef> argList;
-    public boolean noReply;    //no-reply annotation
-    public boolean isSecure; //secure annotation
+    private ArrayList<ArgDef> argList;
+    private List<ArgDef> argView;
+    private boolean noReply;    //no-reply annotation
+    private boolean isSecure; //secure annotation
+    private String fingerprint;
+    private boolean frozen;
 
     public MethodDef() {
         type = "NULL";
@@ -392,6 +574,7 @@ class MethodDef {
         inArgCount = 0;
         outArgCount = 0;
         argList = new ArrayList<ArgDef>();
+        argView = Collections.unmodifiableList(argList);
         noReply = false;
         isSecure = false;
     }
@@ -408,31 +591,79 @@ class MethodDef {
     }
 
     public void setRetNames(String outArgsNames) {
+        checkNotFrozen();
         return_names = outArgsNames;
+        fingerprint = null;
     }
 
     public void setType(String t) {
+        checkNotFrozen();
         type = t;
+        fingerprint = null;
     }
 
     public void setName(String n) {
+        checkNotFrozen();
         name = n;
+        fingerprint = null;
     }
 
     public void setInterfaceName(String n) {
+        checkNotFrozen();
         interfaceName = n;
+        fingerprint = null;
     }
 
     public void setParams(String p) {
+        checkNotFrozen();
         params = p;
+        fingerprint = null;
     }
 
     public void setRetType(String rt) {
+        checkNotFrozen();
         return_type = rt;
+        fingerprint = null;
     }
 
     public void setParamNames(String pn) {
+        checkNotFrozen();
         param_names = pn;
+        fingerprint = null;
+    }
+
+    public void addArg(ArgDef arg) {
+        checkNotFrozen();
+        argList.add(arg);
+        fingerprint = null;
+    }
+
+    public void setNoReply(boolean b) {
+        checkNotFrozen();
+        noReply = b;
+        fingerprint = null;
+    }
+
+    public void setSecure(boolean b) {
+        checkNotFrozen();
+        isSecure = b;
+        fingerprint = null;
+    }
+
+    /**
+     * @return the arguments in the order they were declared.  The list can
+     * not be changed, use addArg().
+     */
+    public List<ArgDef> getArgList() {
+        return argView;
+    }
+
+    public boolean isNoReply() {
+        return noReply;
+    }
+
+    public boolean isSecure() {
+        return isSecure;
     }
 
     public String getRetNames() {
@@ -466,51 +697,65 @@ class MethodDef {
     public boolean equals(Object obj) {
         if(obj instanceof MethodDef) {
             MethodDef other = (MethodDef)obj;
-            if(!type.equals(other.getType())){
-                return false;
-            }
-            if(!name.equals(other.getName())){
-                return false;
-            }
-            if(!interfaceName.equals(other.getInterfaceName())){
-                return false;
-            }
-            if(!params.equals(other.getParams())){
-                return false;
-            }
-            if(!return_type.equals(other.getRetType())){
-                return false;
-            }
-            if(!param_names.equals(other.getParamNames())){
-                return false;
-            }
-            if(!return_names.equals(other.getRetNames())){
-                return false;
-            }
-            if(noReply != other.noReply){
-                return false;
-            }
-            if(isSecure != other.isSecure){
-                return false;
-            }
+            return hashCode() == other.hashCode() &&
+                getFingerprint().equals(other.getFingerprint());
+        }
+        return false;
+    }
 
-            Collections.sort(argList, new Comparator<ArgDef>() {
-                public int compare(ArgDef one, ArgDef two){
-                    return one.getArgName().compareTo(two.getArgName());
-                }
-            });
-            Collections.sort(other.argList, new Comparator<ArgDef>() {
-                public int compare(ArgDef one, ArgDef two){
-                    return one.getArgName().compareTo(two.getArgName());
-                }
-            });
-            if(!argList.equals(other.argList)) {
-                return false;
-            }
+    public int hashCode() {
+        return getFingerprint().hashCode();
+    }
 
-            return true;
+    /**
+     * See InterfaceDescription.freeze().
+     */
+    public void freeze() {
+        if(frozen) {
+            return;
         }
-        return false;
+        type = InterfaceDescription.intern(type);
+        name = InterfaceDescription.intern(name);
+        interfaceName = InterfaceDescription.intern(interfaceName);
+        params = InterfaceDescription.internSignature(params);
+        return_type = InterfaceDescription.internSignature(return_type);
+        param_names = InterfaceDescription.intern(param_names);
+        return_names = InterfaceDescription.intern(return_names);
+        argList.trimToSize();
+        for(ArgDef arg : argList) {
+            arg.freeze();
+        }
+        getFingerprint();
+        frozen = true;
+    }
+
+    private void checkNotFrozen() {
+        if(frozen) {
+            throw new IllegalStateException("method " + name + " is frozen");
+        }
+    }
+
+    /**
+     * @return everything that equals() compares in one string: the
+     * method's fields and its arguments in order of their names.  It is
+     * worked out on first use, once the method has been parsed, and again
+     * after a change through one of the setters or addArg().
+     */
+    private String getFingerprint() {
+        if(fingerprint == null) {
+            StringBuilder text = new StringBuilder();
+            text.append(type).append('\n')
+                .append(name).append('\n')
+                .append(interfaceName).append('\n')
+                .append(params).append('\n')
+                .append(return_type).append('\n')
+                .append(param_names).append('\n')
+                .append(return_names).append('\n')
+                .append(noReply).append(' ').append(isSecure).append('\n');
+            ArgDef.appendSortedArgs(text, argList);
+            fingerprint = text.toString();
+        }
+        return fingerprint;
     }
 } // class MethodDef
 
@@ -523,6 +768,8 @@ class PropertyDef{
     private String access;
     private String interfaceName;
     private  ArgDef arg;
+    private String fingerprint;
+    private boolean frozen;
     
     public PropertyDef(){
         name = "NULL";
@@ -533,21 +780,29 @@ class PropertyDef{
     }
     
     public void setName(String s){
+        checkNotFrozen();
         name = s;
         arg.argName = s;
+        fingerprint = null;
     }
 
     public void setInterfaceName(String s){
+        checkNotFrozen();
         interfaceName = s;
+        fingerprint = null;
     }
     
     public void setSignature(String s){
+        checkNotFrozen();
         signature = s;
         arg.argType = s;
+        fingerprint = null;
     }
     
     public void setAccess(String s){
+        checkNotFrozen();
         access = s;
+        fingerprint = null;
     }
     
     public String getName(){
@@ -572,22 +827,49 @@ class PropertyDef{
     public boolean equals(Object obj) {
         if(obj instanceof PropertyDef) {
             PropertyDef other = (PropertyDef)obj;
-            if(!name.equals(other.getName())) {
-                return false;
-            }
-            if(!signature.equals(other.getSignature())) {
-                return false;
-            }
-            if(!access.equals(other.getAccess())) {
-                return false;
-            }
-            if(!arg.equals(other.getArg())) {
-                return false;
-            }
-            return true;
+            return hashCode() == other.hashCode() &&
+                getFingerprint().equals(other.getFingerprint());
         }
         return false;
     }
+
+    public int hashCode() {
+        return getFingerprint().hashCode();
+    }
+
+    /**
+     * See InterfaceDescription.freeze().
+     */
+    public void freeze() {
+        if(frozen) {
+            return;
+        }
+        name = InterfaceDescription.intern(name);
+        signature = InterfaceDescription.internSignature(signature);
+        access = InterfaceDescription.intern(access);
+        interfaceName = InterfaceDescription.intern(interfaceName);
+        arg.freeze();
+        getFingerprint();
+        frozen = true;
+    }
+
+    private void checkNotFrozen() {
+        if(frozen) {
+            throw new IllegalStateException("property " + name + " is frozen");
+        }
+    }
+
+    /**
+     * @return everything that equals() compares in one string.  The
+     * property's arg is made from its name and signature so it is not added
+     * separately.
+     */
+    private String getFingerprint() {
+        if(fingerprint == null) {
+            fingerprint = name + '\n' + signature + '\n' + access;
+        }
+        return fingerprint;
+    }
 } // class PropertyDef
 
 /**
@@ -600,8 +882,11 @@ class SignalDef {
     private String return_type;
     private String param_names;
     private String interfaceName;
-    public boolean isSecure;
-    public ArrayList<ArgDef> argList;
+    private boolean isSecure;
+    private ArrayList<ArgDef> argList;
+    private List<ArgDef> argView;
+    private String fingerprint;
+    private boolean frozen;
 
     public SignalDef() {
         type = "NULL";
@@ -612,6 +897,7 @@ class SignalDef {
         param_names = "NULL";
         isSecure = false;
         argList = new ArrayList<ArgDef>();
+        argView = Collections.unmodifiableList(argList);
     }
     
     public boolean hasArgName(String name){
@@ -626,27 +912,63 @@ class SignalDef {
     }
 
     public void setType(String t) {
+        checkNotFrozen();
         type = t;
+        fingerprint = null;
     }
 
     public void setName(String n) {
+        checkNotFrozen();
         name = n;
+        fingerprint = null;
     }
 
     public void setInterfaceName(String n) {
+        checkNotFrozen();
         interfaceName = n;
+        fingerprint = null;
     }
 
     public void setParams(String p) {
+        checkNotFrozen();
         params = p;
+        fingerprint = null;
     }
 
     public void setRetType(String rt) {
+        checkNotFrozen();
         return_type = rt;
+        fingerprint = null;
     }
 
     public void setParamNames(String pn) {
+        checkNotFrozen();
         param_names = pn;
+        fingerprint = null;
+    }
+
+    public void addArg(ArgDef arg) {
+        checkNotFrozen();
+        argList.add(arg);
+        fingerprint = null;
+    }
+
+    public void setSecure(boolean b) {
+        checkNotFrozen();
+        isSecure = b;
+        fingerprint = null;
+    }
+
+    /**
+     * @return the arguments in the order they were declared, see
+     * MethodDef.getArgList().
+     */
+    public List<ArgDef> getArgList() {
+        return argView;
+    }
+
+    public boolean isSecure() {
+        return isSecure;
     }
 
     public String getType() {
@@ -676,45 +998,61 @@ class SignalDef {
     public boolean equals(Object obj) {
         if(obj instanceof SignalDef) {
             SignalDef other = (SignalDef)obj;
-            if(!type.equals(other.getType())) {
-                return false;
-            }
-            if(!name.equals(other.getName())) {
-                return false;
-            }
-            if(!interfaceName.equals(other.getInterfaceName())){
-                return false;
-            }
-            if(!params.equals(other.getParams())) {
-                return false;
-            }
-            if(!return_type.equals(other.getRetType())) {
-                return false;
-            }
-            if(!param_names.equals(other.getParamNames())) {
-                return false;
-            }
-            if(isSecure != other.isSecure) {
-                return false;
-            }
+            return hashCode() == other.hashCode() &&
+                getFingerprint().equals(other.getFingerprint());
+        }
+        return false;
+    }
 
-            Collections.sort(argList, new Comparator<ArgDef>() {
-                public int compare(ArgDef one, ArgDef two){
-                    return one.getArgName().compareTo(two.getArgName());
-                }
-            });
-            Collections.sort(other.argList, new Comparator<ArgDef>() {
-                public int compare(ArgDef one, ArgDef two){
-                    return one.getArgName().compareTo(two.getArgName());
-                }
-            });
-            if(!argList.equals(other.argList)) {
-                return false;
-            }
+    public int hashCode() {
+        return getFingerprint().hashCode();
+    }
 
-            return true;
+    /**
+     * See InterfaceDescription.freeze().
+     */
+    public void freeze() {
+        if(frozen) {
+            return;
         }
-        return false;
+        type = InterfaceDescription.intern(type);
+        name = InterfaceDescription.intern(name);
+        interfaceName = InterfaceDescription.intern(interfaceName);
+        params = InterfaceDescription.internSignature(params);
+        return_type = InterfaceDescription.internSignature(return_type);
+        param_names = InterfaceDescription.intern(param_names);
+        argList.trimToSize();
+        for(ArgDef arg : argList) {
+            arg.freeze();
+        }
+        getFingerprint();
+        frozen = true;
+    }
+
+    private void checkNotFrozen() {
+        if(frozen) {
+            throw new IllegalStateException("signal " + name + " is frozen");
+        }
+    }
+
+    /**
+     * @return everything that equals() compares in one string, see
+     * MethodDef.getFingerprint().
+     */
+    private String getFingerprint() {
+        if(fingerprint == null) {
+            StringBuilder text = new StringBuilder();
+            text.append(type).append('\n')
+                .append(name).append('\n')
+                .append(interfaceName).append('\n')
+                .append(params).append('\n')
+                .append(return_type).append('\n')
+                .append(param_names).append('\n')
+                .append(isSecure).append('\n');
+            ArgDef.appendSortedArgs(text, argList);
+            fingerprint = text.toString();
+        }
+        return fingerprint;
     }
 } // class SignalDef
 
@@ -808,4 +1146,43 @@ class ArgDef {
         return true;
     }
 
+    /**
+     * The direction is left out because equals() ignores it when either
+     * argument has none.
+     */
+    @Override
+    public int hashCode()
+    {
+        return 31 * argName.hashCode() + argType.hashCode();
+    }
+
+    /**
+     * Intern the argument's strings, see InterfaceDescription.freeze().
+     * The fields are public so they can't be made read-only.
+     */
+    public void freeze()
+    {
+        argName = InterfaceDescription.intern(argName);
+        argType = InterfaceDescription.internSignature(argType);
+        argDirection = InterfaceDescription.intern(argDirection);
+        variantTypes = InterfaceDescription.intern(variantTypes);
+    }
+
+    /**
+     * Append the arguments to a method's or signal's fingerprint in order of
+     * their names, so that the order they were declared in does not matter.
+     */
+    static void appendSortedArgs(StringBuilder text, List<ArgDef> args)
+    {
+        String[] sorted = new String[args.size()];
+        for(int i = 0; i < sorted.length; i++) {
+            ArgDef arg = args.get(i);
+            sorted[i] = arg.argName + ' ' + arg.argType + ' ' + arg.argDirection;
+        }
+        Arrays.sort(sorted);
+        for(String arg : sorted) {
+            text.append(arg).append('\n');
+        }
+    }
+
 } // class ArgDef
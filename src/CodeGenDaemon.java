@@ -0,0 +1,209 @@
+/*******************************************************************************
+ * Copyright 2010 - 2011, 2013 Qualcomm Innovation Center, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ ******************************************************************************/
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+
+/**
+ * The generator daemon (-d).  It keeps one process running so the JVM start
+ * up, class loading, schema compilation and reading of the licenses are paid
+ * once rather than for every run of the tool.  The daemon only listens on
+ * the loopback address.  ajgen-client.sh sends it a request, one line each:
+ * the daemon's token, then the client's working directory, then the command
+ * line options as they would be given to the tool, then an empty line.  The
+ * token is a random string the daemon writes to a file only its user can
+ * read (see getTokenFile()), so other local users can't have the daemon
+ * write files for them.  The daemon generates the
+ * code, sends back the tool's output and ends with the line "@exit <code>".
+ * The requests are handled one at a time because the tool's output, stack
+ * traces included, is taken from System.out and System.err; the code for a
+ * request is still generated by up to -j threads.  So that a client that
+ * stops sending can't hold up the others, a request is dropped when the
+ * daemon has waited REQUEST_TIMEOUT milliseconds for more of it.
+ */
+class CodeGenDaemon {
+    public static final String EXIT_PREFIX = "@exit ";
+    public static final int REQUEST_TIMEOUT = 10000;
+
+    private int port;
+    private String token;
+    private LogOutput UIOutput;
+
+    /**
+     * @param port - the loopback port to listen on
+     */
+    public CodeGenDaemon(int port) {
+        this.port = port;
+        UIOutput = new LogOutput("CodeGenDaemon");
+    }
+
+    /**
+     * Handle requests until the process is killed.
+     * @throws Exception
+     */
+    public void serve() throws Exception {
+        // compile the schema before the first request needs it
+        AJNBuilderPool.getSchema();
+        LogOutput.SetExitOnFailure(false);
+
+        ServerSocket server =
+            new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        // written once the port is open, so a client that finds the token
+        // can connect
+        File tokenFile = getTokenFile(port);
+        token = writeToken(tokenFile);
+        UIOutput.LogInform("listening on port " + port + ", token in " +
+                           tokenFile.getPath());
+        while(true) {
+            Socket client = server.accept();
+            try {
+                handle(client);
+            } catch(IOException e) {
+                UIOutput.LogError("request failed: " + e.toString());
+            } finally {
+                client.close();
+            }
+        }
+    }
+
+    private void handle(Socket client) throws IOException {
+        // a read that times out throws SocketTimeoutException, an IOException
+        client.setSoTimeout(REQUEST_TIMEOUT);
+        BufferedReader in = new BufferedReader(
+            new InputStreamReader(client.getInputStream(), "UTF-8"));
+        String requestToken = in.readLine();
+        if(requestToken == null ||
+           !MessageDigest.isEqual(requestToken.getBytes(StandardCharsets.UTF_8),
+                                  token.getBytes(StandardCharsets.UTF_8))) {
+            throw new IOException("request without the daemon's token");
+        }
+        String workingDir = in.readLine();
+        ArrayList<String> args = new ArrayList<String>();
+        String line = in.readLine();
+        while(line != null && line.length() > 0) {
+            args.add(line);
+            line = in.readLine();
+        }
+        if(workingDir == null || line == null) {
+            throw new IOException("incomplete request");
+        }
+
+        PrintStream out = new PrintStream(
+            new BufferedOutputStream(client.getOutputStream()), false, "UTF-8");
+        int exitCode = generate(new File(workingDir),
+                                args.toArray(new String[args.size()]),
+                                out);
+        out.println(EXIT_PREFIX + exitCode);
+        out.flush();
+    }
+
+    /**
+     * @return the file the token of the daemon listening on port is written
+     * to: AJGEN_TOKEN_FILE if it is set, otherwise .ajgen-<port>.token in the
+     * user's home directory.  ajgen-client.sh and ajgen-client.ps1 read the
+     * same file.
+     */
+    public static File getTokenFile(int port) {
+        String path = System.getenv("AJGEN_TOKEN_FILE");
+        if(path != null && path.length() > 0) {
+            return new File(path);
+        }
+        return new File(System.getProperty("user.home"),
+                        ".ajgen-" + port + ".token");
+    }
+
+    /**
+     * Write a new random token to a file only the user can read and write.
+     * The file is created with those permissions, so the token is never
+     * readable by anyone else, and removed when the daemon exits.
+     * @param tokenFile - the file to write the token to
+     * @return the token
+     * @throws IOException
+     */
+    private static String writeToken(File tokenFile) throws IOException {
+        byte[] bytes = new byte[16];
+        new SecureRandom().nextBytes(bytes);
+        StringBuilder token = new StringBuilder();
+        for(byte b : bytes) {
+            token.append(String.format("%02x", b & 0xff));
+        }
+
+        Path path = tokenFile.toPath();
+        Files.deleteIfExists(path);
+        if(Files.getFileStore(path.toAbsolutePath().getParent())
+               .supportsFileAttributeView("posix")) {
+            Files.createFile(path, PosixFilePermissions.asFileAttribute(
+                PosixFilePermissions.fromString("rw-------")));
+        } else {
+            Files.createFile(path);
+            tokenFile.setReadable(false, false);
+            tokenFile.setWritable(false, false);
+            tokenFile.setReadable(true, true);
+            tokenFile.setWritable(true, true);
+        }
+        tokenFile.deleteOnExit();
+        Files.write(path, (token + "\n").getBytes(StandardCharsets.UTF_8));
+        return token.toString();
+    }
+
+    /**
+     * Generate the code for one request from a new configuration, after
+     * putting the log levels back to their defaults, and send the tool's
+     * output to the client.
+     * @param workingDir - the directory relative paths are resolved against
+     * @param args - the command line options
+     * @param out - where the output of the tool goes
+     * @return the exit code the tool would have exited with
+     */
+    private int generate(File workingDir, String[] args, PrintStream out) {
+        CodeGenConfig config = CodeGenConfig.newInstance();
+        config.workingDir = workingDir.getPath();
+        config.outputPath = workingDir.getPath() + File.separator;
+        LogOutput.ResetLogLevels();
+
+        PrintStream stdout = System.out;
+        PrintStream stderr = System.err;
+        System.setOut(out);
+        System.setErr(out);
+        try {
+            AJGenerateCode.generate(config, args);
+            return 0;
+        } catch(LogFatalException e) {
+            return e.exitCode;
+        } catch(RuntimeException e) {
+            e.printStackTrace();
+            return 1;
+        } finally {
+            System.out.flush();
+            System.setOut(stdout);
+            System.setErr(stderr);
+        }
+    }
+} // class CodeGenDaemon
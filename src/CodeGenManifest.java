@@ -0,0 +1,320 @@
+/*******************************************************************************
+ * Copyright 2010 - 2011, 2013 Qualcomm Innovation Center, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ ******************************************************************************/
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * The manifest used by the incremental (-i) mode.  It is stored in the output
+ * directory and records a hash of everything that each interface's files are
+ * generated from: the interface's methods, signals and properties with their
+ * arguments, the command line options that change the generated code and
+ * the generator itself, so a new version of the tool generates everything
+ * again.
+ * The main files are recorded the same way from the objects and all of the
+ * interfaces.  On the next run only the files whose hash changed, or that
+ * are missing, are generated again; the other files are not touched.  A
+ * hash is only recorded once its files have been written, so files that
+ * failed to be written are generated again on the next run.
+ */
+class CodeGenManifest {
+    public static final String FILE_NAME = ".ajgen-manifest";
+
+    // changing the layout of the hashed text must change this as well
+    private static final String VERSION = "5";
+
+    // the parts of the tool that the generated code comes from: the files
+    // bundled in the JAR and the classes that parse and write the code
+    private static final String[] GENERATOR_FILES = {
+        "src/c++/BusAttachmentMgr.cc",
+        "src/c++/BusAttachmentMgr.h",
+        "src/c++/ClientCode.tmpl",
+        "src/c++/MsgArgViews.h",
+        "src/c++/ServiceCode.tmpl",
+        "src/c++/ServiceWorkerPool.cc",
+        "src/c++/ServiceWorkerPool.h",
+        "src/c++/makefile",
+        "src/c++/makefile.nmake",
+        "src/config/c-license",
+        "src/config/introspect.xsd",
+        "src/config/name",
+        "src/config/sh-license",
+        "src/config/usage",
+        "CodeBuffer.class",
+        "CodeGenConfig.class",
+        "CodeTemplate.class",
+        "CodeTemplates.class",
+        "FormatCode.class",
+        "GenerateRunnableCode.class",
+        "ParseAJXML.class",
+        "ResourceEmitter.class",
+        "Signature.class",
+        "WriteClientCode.class",
+        "WriteCode.class",
+        "WriteServiceCode.class",
+    };
+
+    // the hash of GENERATOR_FILES, worked out once
+    private static volatile String generatorHash;
+
+    private static final String MAIN_KEY = "main";
+    private static final String INTERFACE_KEY = "interface.";
+
+    private CodeGenConfig config;
+    private File file;
+    private Properties previous;
+    private Properties current;
+    private Properties hashes;
+    private String optionsHash;
+    private LogOutput UIOutput;
+
+    /**
+     * Load the manifest left in the output directory by the last run, if
+     * there is one.
+     * @param config - the command line options and parsed interfaces
+     */
+    public CodeGenManifest(CodeGenConfig config) {
+        this.config = config;
+        UIOutput = new LogOutput("CodeGenManifest");
+        file = new File(config.outputPath + FILE_NAME);
+        previous = new Properties();
+        current = new Properties();
+        hashes = new Properties();
+        if(file.exists()) {
+            try {
+                InputStream in = new FileInputStream(file);
+                try {
+                    previous.load(in);
+                } finally {
+                    in.close();
+                }
+            } catch(IOException e) {
+                UIOutput.LogWarning("could not read " + file.getPath()
+                                    + ", regenerating all files.");
+                previous.clear();
+            }
+            if(!VERSION.equals(previous.getProperty("version"))) {
+                previous.clear();
+            }
+        }
+        current.setProperty("version", VERSION);
+        optionsHash = hashOptions();
+    }
+
+    /**
+     * Record the hash of an interface and check it against the last run.
+     * @param inter - the interface
+     * @param fileNames - the files generated from the interface
+     * @return true if the interface has not changed since the last run and
+     * all of its files are still in the output directory.  The hash is
+     * recorded then, or by written() once the files have been written.
+     */
+    public boolean isUnchanged(InterfaceDescription inter,
+                               ArrayList<String> fileNames) {
+        return check(INTERFACE_KEY + inter.getFullName(),
+                     hashInterface(inter),
+                     fileNames);
+    }
+
+    /**
+     * Record the hash of the main files and check it against the last run.
+     * The main files depend on the objects and on every interface.
+     * @param fileNames - the main files
+     * @return true if none of their inputs have changed since the last run
+     * and all of the files are still in the output directory.  The hash is
+     * recorded then, or by mainWritten() once the files have been written.
+     */
+    public boolean isMainUnchanged(ArrayList<String> fileNames) {
+        StringBuilder text = new StringBuilder();
+        for(ObjectData obj : config.objects) {
+            text.append("object ").append(obj.objPath)
+                .append(' ').append(obj.objName)
+                .append(' ').append(obj.inter.getFullName()).append('\n');
+        }
+        for(InterfaceDescription inter : config.interfaces) {
+            text.append(hashes.getProperty(INTERFACE_KEY
+                                           + inter.getFullName()))
+                .append('\n');
+        }
+        return check(MAIN_KEY, hash(text), fileNames);
+    }
+
+    /**
+     * Record the hash of an interface whose files have been written.
+     * @param inter - the interface
+     */
+    public void written(InterfaceDescription inter) {
+        record(INTERFACE_KEY + inter.getFullName());
+    }
+
+    /**
+     * Record the hash of the main files once they have been written.
+     */
+    public void mainWritten() {
+        record(MAIN_KEY);
+    }
+
+    /**
+     * Write the manifest for this run to the output directory, unless it is
+     * the same as the last run's.
+     * @throws IOException
+     */
+    public void save() throws IOException {
+        if(current.equals(previous)) {
+            return;
+        }
+        OutputStream out = new FileOutputStream(file);
+        try {
+            current.store(out, config.programName + " generated files");
+        } finally {
+            out.close();
+        }
+    }
+
+    private boolean check(String key, String hash,
+                          ArrayList<String> fileNames) {
+        hashes.setProperty(key, hash);
+        if(!hash.equals(previous.getProperty(key))) {
+            return false;
+        }
+        for(String fileName : fileNames) {
+            if(!new File(config.outputPath + fileName).exists()) {
+                return false;
+            }
+        }
+        record(key);
+        return true;
+    }
+
+    private void record(String key) {
+        current.setProperty(key, hashes.getProperty(key));
+    }
+
+    /**
+     * Hash the command line options that change the generated code.
+     */
+    private String hashOptions() {
+        StringBuilder text = new StringBuilder();
+        text.append(hashGenerator()).append('\n')
+            .append(config.programName).append('\n')
+            .append(config.wellKnownName).append('\n')
+            .append(config.objPath).append('\n')
+            .append(config.className).append('\n')
+            .append(config.runnable).append('\n')
+            .append(config.clientOnly).append('\n')
+            .append(config.asyncMethods).append('\n')
+            .append(config.arrayViews).append('\n')
+            .append(config.workerThreads).append('\n')
+            .append(config.workerQueueDepth).append('\n')
+            .append(config.useFullNames).append('\n')
+            .append(config.useFullPath).append('\n')
+            .append(config.getCLicense()).append('\n')
+            .append(config.getSHLicense()).append('\n');
+        return hash(text);
+    }
+
+    /**
+     * Hash the files that make up the generator, see GENERATOR_FILES.
+     */
+    private static String hashGenerator() {
+        String hash = generatorHash;
+        if(hash == null) {
+            StringBuilder text = new StringBuilder();
+            for(String file : GENERATOR_FILES) {
+                text.append(file).append(' ')
+                    .append(hash(ReadFiles.getBytesFromJAR(file)))
+                    .append('\n');
+            }
+            hash = hash(text);
+            generatorHash = hash;
+        }
+        return hash;
+    }
+
+    private String hashInterface(InterfaceDescription inter) {
+        StringBuilder text = new StringBuilder();
+        text.append(optionsHash).append('\n');
+        text.append("interface ").append(inter.getFullName())
+            .append(' ').append(inter.getName())
+            .append(' ').append(inter.getClassName())
+            .append(' ').append(inter.isSecure)
+            .append(' ').append(inter.isDerived).append('\n');
+        for(InterfaceDescription parent : inter.getParents()) {
+            text.append("parent ").append(parent.getFullName()).append('\n');
+        }
+        for(MethodDef method : inter.getMethods()) {
+            text.append("method ").append(method.getInterfaceName())
+                .append(' ').append(method.getName())
+                .append(' ').append(method.isNoReply())
+                .append(' ').append(method.isSecure()).append('\n');
+            appendArgs(text, method.getArgList());
+        }
+        for(SignalDef signal : inter.getSignals()) {
+            text.append("signal ").append(signal.getInterfaceName())
+                .append(' ').append(signal.getName())
+                .append(' ').append(signal.isSecure()).append('\n');
+            appendArgs(text, signal.getArgList());
+        }
+        for(PropertyDef prop : inter.getProperties()) {
+            text.append("property ").append(prop.getInterfaceName())
+                .append(' ').append(prop.getName())
+                .append(' ').append(prop.getSignature())
+                .append(' ').append(prop.getAccess()).append('\n');
+        }
+        return hash(text);
+    }
+
+    private static void appendArgs(StringBuilder text,
+                                   List<ArgDef> argList) {
+        for(ArgDef arg : argList) {
+            text.append("  arg ").append(arg.getArgName())
+                .append(' ').append(arg.getArgType())
+                .append(' ').append(arg.getArgDirection())
+                .append(' ').append(arg.getVariantTypes()).append('\n');
+        }
+    }
+
+    private static String hash(CharSequence text) {
+        return hash(text.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String hash(byte[] bytes) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch(NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+        bytes = digest.digest(bytes);
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for(byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16))
+               .append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+} // class CodeGenManifest
@@ -0,0 +1,34 @@
+/*******************************************************************************
+ * Copyright 2013 Qualcomm Innovation Center, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ ******************************************************************************/
+
+/**
+ * The result of a generation run through the library API, see CodeGenerator.
+ */
+public class CodeGenResult {
+    // true if the generation ended with a fatal error, even one the tool
+    // exits with 0 for
+    public final boolean failed;
+    // the exit code the tool would have exited with
+    public final int exitCode;
+    // the messages logged by the generation
+    public final String output;
+
+    public CodeGenResult(boolean failed, int exitCode, String output) {
+        this.failed = failed;
+        this.exitCode = exitCode;
+        this.output = output;
+    }
+} // class CodeGenResult
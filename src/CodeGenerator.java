@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright 2013 Qualcomm Innovation Center, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ ******************************************************************************/
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The library API of the tool, for generating code from another program,
+ * such as a build plugin, rather than from the command line.  Each call
+ * generates the code on the calling thread from the configuration it is
+ * given, with its own log levels, and returns the messages it logged rather
+ * than printing them.  A fatal error ends the call, not the process.  As
+ * nothing else holds the state of a generation, any number of calls can run
+ * at the same time as long as each has its own configuration, e.g.
+ *
+ *   CodeGenConfig options = CodeGenConfig.newInstance();
+ *   options.wellKnownName = "org.example.one";
+ *   options.outputPath = "one/";
+ *   CodeGenResult result =
+ *       CodeGenerator.generate(options, Arrays.asList("one/service.xml"));
+ */
+public class CodeGenerator {
+
+    /**
+     * Parse a command line into the options and generate the code for it,
+     * as the tool would.
+     * @param options - a new configuration, see CodeGenConfig.newInstance();
+     * the options on the command line replace the ones already set
+     * @param args - the command line options and input files
+     * @return the result of the generation
+     */
+    public static CodeGenResult generate(CodeGenConfig options,
+                                         String... args) {
+        return generate(options, args, null);
+    }
+
+    /**
+     * Generate the code for the input files with the options already set.
+     * @param options - a new configuration, see CodeGenConfig.newInstance(),
+     * with wellKnownName and the other options set
+     * @param inputFileNames - the input XML files
+     * @return the result of the generation
+     */
+    public static CodeGenResult generate(CodeGenConfig options,
+                                         List<String> inputFileNames) {
+        return generate(options, null, inputFileNames);
+    }
+
+    private static CodeGenResult generate(CodeGenConfig options,
+                                          String[] args,
+                                          List<String> inputFileNames) {
+        LogOutput.Initialize(options.programName);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, true);
+        boolean failed = false;
+        int exitCode = 0;
+        LogOutput.RedirectThread(out);
+        try {
+            if(args != null){
+                inputFileNames =
+                    AJGenerateCode.parseCommandLine(options, args);
+            }
+            AJGenerateCode.generate(options,
+                                    new ArrayList<String>(inputFileNames));
+        } catch(LogFatalException e) {
+            failed = true;
+            exitCode = e.exitCode;
+        } catch(RuntimeException e) {
+            e.printStackTrace(out);
+            failed = true;
+            exitCode = 1;
+        } finally {
+            LogOutput.EndRedirectThread();
+            out.flush();
+        }
+        return new CodeGenResult(failed, exitCode, bytes.toString());
+    }
+} // class CodeGenerator
@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright 2010 - 2011, 2013 Qualcomm Innovation Center, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ ******************************************************************************/
+
+/**
+ * A template for a piece of the generated C++ code.  The templates are kept
+ * in the .tmpl files with the other C++ resources in src/c++ and each file is
+ * parsed once, see CodeTemplates, into a list of instructions per template.
+ * Rendering a template runs the instructions straight into a CodeBuffer, so
+ * unlike a String.format() format string the text is not parsed again every
+ * time it is used.  Comments without parameters are formatted when the
+ * template is parsed.  Templates are immutable and can be rendered from
+ * several threads.
+ */
+class CodeTemplate {
+    private final String name;
+    private final String[] params;
+    private final Instruction[] instructions;
+
+    CodeTemplate(String name, String[] params, Instruction[] instructions) {
+        this.name = name;
+        this.params = params;
+        this.instructions = instructions;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Append the template to the buffer.
+     * @param out - the buffer the code is appended to
+     * @param values - the values of the template's parameters in the order
+     * they are declared.  Strings and Integers are appended as they are, the
+     * parameters tested with @@if must be Booleans.
+     */
+    public void render(CodeBuffer out, Object... values) {
+        if(values.length != params.length) {
+            throw new IllegalArgumentException(
+                "template " + name + " takes " + params.length
+                + " values, got " + values.length);
+        }
+        render(instructions, out, values);
+    }
+
+    static void render(Instruction[] instructions, CodeBuffer out,
+                       Object[] values) {
+        for(int i = 0; i < instructions.length; i++) {
+            instructions[i].render(out, values);
+        }
+    }
+
+    /**
+     * One step of a parsed template.
+     */
+    abstract static class Instruction {
+        abstract void render(CodeBuffer out, Object[] values);
+    }
+
+    /**
+     * Append fixed text.
+     */
+    static class Text extends Instruction {
+        final String text;
+
+        Text(String text) {
+            this.text = text;
+        }
+
+        void render(CodeBuffer out, Object[] values) {
+            out.append(text);
+        }
+    }
+
+    /**
+     * Append the value of a parameter.
+     */
+    static class Value extends Instruction {
+        final int param;
+
+        Value(int param) {
+            this.param = param;
+        }
+
+        void render(CodeBuffer out, Object[] values) {
+            Object value = values[param];
+            if(value instanceof String) {
+                out.append((String)value);
+            } else if(value instanceof Integer) {
+                out.append(((Integer)value).intValue());
+            } else {
+                out.append(String.valueOf(value));
+            }
+        }
+    }
+
+    /**
+     * Format text that uses parameters as a C++ comment.
+     */
+    static class Comment extends Instruction {
+        final boolean block;
+        final int indentDepth;
+        final Instruction[] text;
+
+        Comment(boolean block, int indentDepth, Instruction[] text) {
+            this.block = block;
+            this.indentDepth = indentDepth;
+            this.text = text;
+        }
+
+        void render(CodeBuffer out, Object[] values) {
+            CodeBuffer comment = new CodeBuffer();
+            CodeTemplate.render(text, comment, values);
+            if(block) {
+                out.blockComment(comment.toString(), indentDepth);
+            } else {
+                out.comment(comment.toString(), indentDepth);
+            }
+        }
+    }
+
+    /**
+     * Choose between two lists of instructions with a Boolean parameter.
+     */
+    static class If extends Instruction {
+        final int param;
+        final Instruction[] then;
+        final Instruction[] otherwise;
+
+        If(int param, Instruction[] then, Instruction[] otherwise) {
+            this.param = param;
+            this.then = then;
+            this.otherwise = otherwise;
+        }
+
+        void render(CodeBuffer out, Object[] values) {
+            if(((Boolean)values[param]).booleanValue()) {
+                CodeTemplate.render(then, out, values);
+            } else {
+                CodeTemplate.render(otherwise, out, values);
+            }
+        }
+    }
+} // class CodeTemplate
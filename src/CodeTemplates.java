@@ -0,0 +1,290 @@
+/*******************************************************************************
+ * Copyright 2010 - 2011, 2013 Qualcomm Innovation Center, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ ******************************************************************************/
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * The templates of one template file.  The file is made up of these lines:
+ *
+ *   @@# ...                     - a comment, ignored
+ *   @@template name p1 p2 ...   - starts the template "name" which takes the
+ *                                 parameters p1, p2, ...
+ *   @@blockComment depth        - the text up to the matching @@end is
+ *   @@comment depth               formatted with FormatCode.blockComment() or
+ *                                 FormatCode.comment() at the given depth
+ *   @@if p                      - the lines up to the matching @@else or
+ *   @@else                        @@end are only used if parameter p is true,
+ *                                 the lines after @@else only if it is false
+ *   @@end                       - ends the innermost template, comment or if
+ *
+ * The other lines of a template are its text, kept exactly as they are
+ * including their indentation.  "@p@" in the text is replaced by the value
+ * of parameter p and a line ending in "@@" is joined to the next line without
+ * a new line.  In a comment the new line after the last line is left out.
+ * A mistake in a template file is a bug in the tool, so it is reported with
+ * an IllegalStateException.
+ */
+class CodeTemplates {
+    private static final String DIRECTIVE = "@@";
+
+    private final String resource;
+    private final HashMap<String, CodeTemplate> templates;
+
+    // parser state
+    private String[] lines;
+    private int lineNo;
+    private String[] params;
+
+    private CodeTemplates(String resource) {
+        this.resource = resource;
+        templates = new HashMap<String, CodeTemplate>();
+    }
+
+    /**
+     * Read and parse a template file.
+     * @param resource - the name of the file in the jar, e.g.
+     * "src/c++/ClientCode.tmpl"
+     */
+    public static CodeTemplates load(String resource) {
+        CodeTemplates file = new CodeTemplates(resource);
+        file.parse(ReadFiles.getStringFromJAR(resource));
+        file.lines = null;
+        file.params = null;
+        return file;
+    }
+
+    /**
+     * @return the template with the given name.
+     */
+    public CodeTemplate get(String name) {
+        CodeTemplate template = templates.get(name);
+        if(template == null) {
+            throw new IllegalStateException(
+                resource + ": there is no template " + name);
+        }
+        return template;
+    }
+
+    private void parse(String text) {
+        lines = text.split("\r?\n", -1);
+        for(lineNo = 0; lineNo < lines.length; lineNo++) {
+            String line = lines[lineNo];
+            if(line.length() == 0 || line.startsWith(DIRECTIVE + "#")) {
+                continue;
+            }
+            String[] words = directive(line);
+            if(words == null || !words[0].equals("template")
+               || words.length < 2) {
+                throw error("expected @@template");
+            }
+            String name = words[1];
+            if(templates.containsKey(name)) {
+                throw error("template " + name + " is defined twice");
+            }
+            params = new String[words.length - 2];
+            System.arraycopy(words, 2, params, 0, params.length);
+            lineNo++;
+            CodeTemplate.Instruction[] body =
+                parseLines("template " + name, false);
+            expectEnd("template " + name);
+            templates.put(name, new CodeTemplate(name, params, body));
+        }
+    }
+
+    /**
+     * Parse lines up to the @@end (or @@else) that closes the current
+     * template, comment or if.  lineNo is left on that line.
+     * @param what - what is being parsed, for the error messages
+     * @param comment - true for the text of a comment
+     */
+    private CodeTemplate.Instruction[] parseLines(String what,
+                                                  boolean comment) {
+        ArrayList<CodeTemplate.Instruction> instructions =
+            new ArrayList<CodeTemplate.Instruction>();
+        boolean joined = true;
+        for(; lineNo < lines.length; lineNo++) {
+            String line = lines[lineNo];
+            String[] words = directive(line);
+            if(words == null) {
+                if(comment && !joined) {
+                    addText(instructions, "\n");
+                }
+                joined = line.endsWith(DIRECTIVE);
+                if(joined) {
+                    line = line.substring(0, line.length() - 2);
+                }
+                parseText(instructions, line);
+                if(!comment && !joined) {
+                    addText(instructions, "\n");
+                }
+            } else if(words[0].startsWith("#")) {
+                continue;
+            } else if(words[0].equals("end") || words[0].equals("else")) {
+                return toArray(instructions);
+            } else if(comment) {
+                throw error("@@" + words[0] + " in a comment");
+            } else if(words[0].equals("comment")
+                      || words[0].equals("blockComment")) {
+                boolean block = words[0].equals("blockComment");
+                int depth = parseDepth(words);
+                lineNo++;
+                CodeTemplate.Instruction[] text =
+                    parseLines(words[0], true);
+                expectEnd(words[0]);
+                addComment(instructions, block, depth, text);
+            } else if(words[0].equals("if") && words.length == 2) {
+                int param = paramIndex(words[1]);
+                lineNo++;
+                CodeTemplate.Instruction[] then = parseLines("if", false);
+                CodeTemplate.Instruction[] otherwise =
+                    new CodeTemplate.Instruction[0];
+                if(lines[lineNo].trim().equals(DIRECTIVE + "else")) {
+                    lineNo++;
+                    otherwise = parseLines("else", false);
+                }
+                expectEnd("if");
+                instructions.add(new CodeTemplate.If(param, then, otherwise));
+            } else {
+                throw error("unknown directive " + line.trim());
+            }
+        }
+        throw error("missing @@end for " + what);
+    }
+
+    private void expectEnd(String what) {
+        if(lineNo >= lines.length
+           || !lines[lineNo].trim().equals(DIRECTIVE + "end")) {
+            throw error("missing @@end for " + what);
+        }
+    }
+
+    /**
+     * @return the words of a directive line, without the @@, or null if the
+     * line is text.
+     */
+    private static String[] directive(String line) {
+        String trimmed = line.trim();
+        if(!trimmed.startsWith(DIRECTIVE) || trimmed.equals(DIRECTIVE)) {
+            return null;
+        }
+        return trimmed.substring(2).trim().split("\\s+");
+    }
+
+    private int parseDepth(String[] words) {
+        try {
+            if(words.length == 2) {
+                return Integer.parseInt(words[1]);
+            }
+        } catch(NumberFormatException e) {
+        }
+        throw error("@@" + words[0] + " needs an indent depth");
+    }
+
+    /**
+     * Split a line of text into fixed text and parameters.
+     */
+    private void parseText(ArrayList<CodeTemplate.Instruction> instructions,
+                           String line) {
+        int start = 0;
+        int at = line.indexOf('@');
+        while(at >= 0) {
+            int end = line.indexOf('@', at + 1);
+            if(end < 0) {
+                break;
+            }
+            String name = line.substring(at + 1, end);
+            if(!isIdentifier(name)) {
+                // not a parameter, keep the first @ as text
+                at = end;
+                continue;
+            }
+            addText(instructions, line.substring(start, at));
+            instructions.add(new CodeTemplate.Value(paramIndex(name)));
+            start = end + 1;
+            at = line.indexOf('@', start);
+        }
+        addText(instructions, line.substring(start));
+    }
+
+    private static boolean isIdentifier(String name) {
+        if(name.length() == 0) {
+            return false;
+        }
+        for(int i = 0; i < name.length(); i++) {
+            if(!Character.isJavaIdentifierPart(name.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int paramIndex(String name) {
+        for(int i = 0; i < params.length; i++) {
+            if(params[i].equals(name)) {
+                return i;
+            }
+        }
+        throw error("unknown parameter " + name);
+    }
+
+    /**
+     * Add fixed text, merging it with the text before it.
+     */
+    private static void addText(
+        ArrayList<CodeTemplate.Instruction> instructions, String text) {
+        if(text.length() == 0) {
+            return;
+        }
+        int last = instructions.size() - 1;
+        if(last >= 0 && instructions.get(last) instanceof CodeTemplate.Text) {
+            text = ((CodeTemplate.Text)instructions.get(last)).text + text;
+            instructions.remove(last);
+        }
+        instructions.add(new CodeTemplate.Text(text));
+    }
+
+    /**
+     * Add a comment.  A comment without parameters is formatted now.
+     */
+    private static void addComment(
+        ArrayList<CodeTemplate.Instruction> instructions,
+        boolean block, int depth, CodeTemplate.Instruction[] text) {
+        for(CodeTemplate.Instruction instruction : text) {
+            if(!(instruction instanceof CodeTemplate.Text)) {
+                instructions.add(
+                    new CodeTemplate.Comment(block, depth, text));
+                return;
+            }
+        }
+        CodeBuffer comment = new CodeBuffer();
+        CodeTemplate.Comment constant =
+            new CodeTemplate.Comment(block, depth, text);
+        constant.render(comment, new Object[0]);
+        addText(instructions, comment.toString());
+    }
+
+    private static CodeTemplate.Instruction[] toArray(
+        ArrayList<CodeTemplate.Instruction> instructions) {
+        return instructions.toArray(
+            new CodeTemplate.Instruction[instructions.size()]);
+    }
+
+    private IllegalStateException error(String message) {
+        return new IllegalStateException(
+            resource + ":" + (lineNo + 1) + ": " + message);
+    }
+} // class CodeTemplates
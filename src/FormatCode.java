@@ -23,6 +23,26 @@ public class FormatCode {
     //tabSize is the same as indent size if the indentChar is a space
     static int tabSize = indentSize; 
     static char indentChar = ' ';
+
+    //indent strings for the common depths, built once and shared
+    private static final String[] indents = new String[16];
+    static {
+        for(int i = 0; i < indents.length; i++){
+            indents[i] = buildIndent(i).intern();
+        }
+    }
+
+    private static String buildIndent(int count){
+        StringBuilder output = new StringBuilder(count * indentSize);
+        appendRepeated(output, indentChar, count * indentSize);
+        return output.toString();
+    }
+
+    private static void appendRepeated(StringBuilder output, char c, int count){
+        for(int i = 0; i < count; i++){
+            output.append(c);
+        }
+    }
 	
     /**
      * used to generate an indented line 
@@ -30,13 +50,23 @@ public class FormatCode {
      * @return a string representing the indented line
      */
     public static String indent(int count){
-        String output = "";
-        for(int i=0; i < count; i++){
-            for(int j=0; j < indentSize; j++){
-                output += indentChar;
-            }
+        if(count < indents.length){
+            return indents[Math.max(count, 0)];
+        }
+        return buildIndent(count);
+    }
+
+    /**
+     * Append the indentation for the given depth to output.
+     * @param output the buffer to append to
+     * @param count the number of indents
+     */
+    public static void indent(StringBuilder output, int count){
+        if(count < indents.length){
+            output.append(indents[Math.max(count, 0)]);
+        } else {
+            appendRepeated(output, indentChar, count * indentSize);
         }
-        return output;
     }
 	
 	
@@ -47,10 +77,7 @@ public class FormatCode {
      * @return return an indented line.
      */
     public static String indent(String code, int indentDepth){
-        String output = "";
-        output += indent(indentDepth);
-        output += code;
-        return output;
+        return indent(indentDepth) + code;
     }
 	
     /**
@@ -61,7 +88,20 @@ public class FormatCode {
      * @return return an indented line.
      */
     public static String indentln(String code, int indentDepth){
-        return indent(code, indentDepth) + "\n";
+        return indent(indentDepth) + code + "\n";
+    }
+
+    /**
+     * Append a single line of code indented to the specified depth followed
+     * by a new line.
+     * @param output - the buffer to append to
+     * @param code - the line of code that needs indenting
+     * @param indentDepth - the number of indents the line will have
+     */
+    public static void indentln(StringBuilder output, String code,
+                                int indentDepth){
+        indent(output, indentDepth);
+        output.append(code).append('\n');
     }
 	
     public static String blockComment(String input){
@@ -86,23 +126,28 @@ public class FormatCode {
      * @return the formated sting in a block comment
      */
     public static String blockComment(String input, int indentDepth, int column){
-        String output="";
-        output += indent(indentDepth) ;
-        output += "/*";
-        for (int i=2; i < (column - tabSize * indentDepth); i++){
-			
-            output +="-";
-        }
-        output += "\n";
+        StringBuilder output = new StringBuilder(2 * column + input.length());
+        blockComment(output, input, indentDepth, column);
+        return output.toString();
+    }
+
+    /**
+     * Append a C++ comment block, see blockComment(String, int, int).
+     * @param output the buffer to append to
+     */
+    public static void blockComment(StringBuilder output, String input,
+                                    int indentDepth, int column){
+        indent(output, indentDepth);
+        output.append("/*");
+        appendRepeated(output, '-', column - tabSize * indentDepth - 2);
+        output.append('\n');
 		
-        output += starPrefixedStrings(input, indentDepth,column);
+        starPrefixedStrings(output, input, indentDepth, column);
 		
-        output += indent(indentDepth) + " *";
-        for (int i=3; i < (column - tabSize * indentDepth); i++){
-            output +="-";
-        } 
-        output += "*/\n";
-        return output;
+        indent(output, indentDepth);
+        output.append(" *");
+        appendRepeated(output, '-', column - tabSize * indentDepth - 3);
+        output.append("*/\n");
     }
 	
     public static String comment(String input){
@@ -124,31 +169,42 @@ public class FormatCode {
      * @return the formated sting in a block comment
      */
     public static String comment(String input, int indentDepth, int column){
-        String output = "";
+        StringBuilder output = new StringBuilder(column + input.length());
+        comment(output, input, indentDepth, column);
+        return output.toString();
+    }
+
+    /**
+     * Append a C++ comment, see comment(String, int, int).
+     * @param output the buffer to append to
+     */
+    public static void comment(StringBuilder output, String input,
+                               int indentDepth, int column){
         int adjustedColumn = column - 6 - (tabSize * indentDepth);
-        if(input.length() > adjustedColumn || input.indexOf("\n") > -1){
-            output += indent("/*\n", indentDepth);
-            output += starPrefixedStrings(input, indentDepth,column);
-            output += indent(" */\n", indentDepth);
+        indent(output, indentDepth);
+        if(input.length() > adjustedColumn || input.indexOf('\n') > -1){
+            output.append("/*\n");
+            starPrefixedStrings(output, input, indentDepth, column);
+            indent(output, indentDepth);
+            output.append(" */\n");
         } else {
-            output += indent("/* " + input + " */\n", indentDepth);
+            output.append("/* ").append(input).append(" */\n");
         }
-        return output;            
     }
     
     /**
-     * Take a string of unknown length and return a string that no line is 
+     * Take a string of unknown length and append it so that no line is 
      * longer than the specified character column and each line is prefixed by
      * a '*' character that is common in C++ multi-line comments. 
      * 
+     * @param output the buffer to append to
      * @param input the comment that belongs in the comment
      * @param indentDepth how far this comment will be indented from the left 
      *                    edge of the screen.
      * @param column - the column width of the comment in number of characters
-     * @return the formated sting in a block comment
      */
-    private static String starPrefixedStrings(String input, int indentDepth, int column){
-        String output ="";
+    private static void starPrefixedStrings(StringBuilder output, String input,
+                                            int indentDepth, int column){
         // Column length adjusted for white space and the "*" characters
         int adjustedColumn = column - 3 - (tabSize * indentDepth);
         int startindex =0;
@@ -156,15 +212,16 @@ public class FormatCode {
         int stringPointer;
 
         //only process the input if it is larger then the specified width
-        while ((input.substring(startindex)).length() > adjustedColumn || 
-               input.indexOf("\n", startindex) > -1 ) {
+        while ((input.length() - startindex) > adjustedColumn || 
+               input.indexOf('\n', startindex) > -1 ) {
             
-            output += indent(indentDepth) + " * "; //add star to block comment
+            indent(output, indentDepth);
+            output.append(" * "); //add star to block comment
             //check to see if a new line is within the string width
-            stringPointer = input.indexOf("\n", startindex)+1;
+            stringPointer = input.indexOf('\n', startindex)+1;
             if((stringPointer - startindex) <= adjustedColumn && 
                (stringPointer - startindex) > 0){
-                output += input.substring(startindex, stringPointer);
+                output.append(input, startindex, stringPointer);
                 startindex = stringPointer;
                 endindex = stringPointer + adjustedColumn;
                 continue;
@@ -173,33 +230,33 @@ public class FormatCode {
              * find the character after the space closest to the end of the
              * string width
              */ 
-            stringPointer = input.lastIndexOf(" ", endindex) + 1;
+            stringPointer = input.lastIndexOf(' ', endindex) + 1;
             // Check to see it the string is greater then <width>
             if (stringPointer <= startindex) {
                 //find character after the first found space.
-                stringPointer = input.indexOf(" ", endindex) + 1;
+                stringPointer = input.indexOf(' ', endindex) + 1;
                 if (stringPointer == 0){ 
                     //this code should never run
-                    output += input.substring(startindex) + "\n";
+                    output.append(input, startindex, input.length()).append('\n');
                     continue;
                 } else {
-                    output += input.substring(startindex, stringPointer) + "\n";
+                    output.append(input, startindex, stringPointer).append('\n');
                     startindex = stringPointer;
                     endindex = stringPointer + adjustedColumn;
                 }
                 
             } else {
-                output += input.substring(startindex, stringPointer) + "\n";
+                output.append(input, startindex, stringPointer).append('\n');
                 startindex = stringPointer;
                 endindex = stringPointer + adjustedColumn;
             }
         }
         
-        if ((input.substring(startindex)).length() > 0) {
-            output += indent(indentDepth) + " * "; //add star to block comment
-            output += input.substring(startindex) + "\n";
+        if (startindex < input.length()) {
+            indent(output, indentDepth);
+            output.append(" * "); //add star to block comment
+            output.append(input, startindex, input.length()).append('\n');
         }
-        return output;
     }
     
 }
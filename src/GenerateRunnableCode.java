@@ -16,6 +16,7 @@
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Random;
 
 class GenerateRunnableCode {
@@ -38,14 +39,28 @@ class GenerateRunnableCode {
                                                   "\"i\"", "\"n\"", "\"o\"", "\"q\"", "\"s\"", "\"t\"", "\"u\"", "\"v\"", 
                                                   "\"x\"", "\"y\""};
 
-    public static int counterIndex = -1;
+    // the nesting depth of the generated for loops; kept per thread since
+    // the interfaces may be generated at the same time
+    private static ThreadLocal<int[]> counterIndex = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[] {-1};
+        }
+    };
     public static final char[] counters = {'i', 'j', 'k', 'l', 'm', 'n', 'o', 'p'};
 
-    public static HashMap<String, Boolean> argNames = new HashMap<String, Boolean>();
+    // the variables already declared in the client main function; kept per
+    // thread since the jobs of a batch may be generated at the same time
+    private static ThreadLocal<HashMap<String, Boolean>> declaredArgNames =
+        new ThreadLocal<HashMap<String, Boolean>>() {
+        @Override
+        protected HashMap<String, Boolean> initialValue() {
+            return new HashMap<String, Boolean>();
+        }
+    };
     
-    protected static String generateClientMethodCalls(ArrayList<MethodDef> methodList,
+    protected static void generateClientMethodCalls(CodeBuffer output, ArrayList<MethodDef> methodList,
                                                       String objName) {
-        String output = "";
         String code;
         MethodDef tempMeth;
         ArgDef tempArg;
@@ -53,149 +68,140 @@ class GenerateRunnableCode {
             tempMeth = methodList.get(i);
             code = String.format("printf(\"Making %s method call....\\n\");", 
                                  tempMeth.getName()); 
-            output += FormatCode.indentln(code, 1);
-            output +=
-                GenerateRunnableCode.generateRunnableArgs(tempMeth.argList,
+            output.line(code, 1);
+            GenerateRunnableCode.generateRunnableArgs(output, tempMeth.getArgList(),
                                                           true,
                                                           tempMeth.getName());
-            output += WriteCode.indentDepth 
+            output.append(WriteCode.indentDepth 
                 + objName + "->"
                 + tempMeth.getName() 
-                + "(";
+                + "(");
 			
             //print out all the argument names that is passed to the method call
-            for(int j = 0; j < tempMeth.argList.size(); j++){
-                tempArg = tempMeth.argList.get(j);
-                output += tempMeth.getName() 
+            for(int j = 0; j < tempMeth.getArgList().size(); j++){
+                tempArg = tempMeth.getArgList().get(j);
+                output.append(tempMeth.getName() 
                     + tempArg.getArgName()
-                    + appendArgType(tempArg.getArgType());
+                    + appendArgType(tempArg.getArgType()));
                 if(tempArg.argType.charAt(0) == 'a' && tempArg.argType.charAt(1) != 'a'){
-                    output += ", " 
+                    output.append(", " 
                         + tempMeth.getName() 
                         + tempArg.getArgName()
                         + appendArgType(tempArg.getArgType())
-                        + "NumElements";
+                        + "NumElements");
                 }
-                if(j != tempMeth.argList.size()-1){
-                    output += ", ";
+                if(j != tempMeth.getArgList().size()-1){
+                    output.append(", ");
                 }
             }
-            output += ");\n";
-            output += GenerateRunnableCode.generatePrintfRunnable(
-                tempMeth.argList,
+            output.append(");\n");
+            GenerateRunnableCode.generatePrintfRunnable(output,
+                tempMeth.getArgList(),
                 false,
                 tempMeth.getInterfaceName() + "::" + tempMeth.getName(),
                 tempMeth.getName(),
                 false);
-            output += "\n";
+            output.append("\n");
         }
 		
-        return output;
     }
 	
-    protected static String generateMethodHandler(MethodDef method){
-        String output = "";
+    protected static void generateMethodHandler(CodeBuffer output, MethodDef method){
 
         String commentStr = "Below is the code generated by the -R flag.";
-        output += FormatCode.blockComment(commentStr, 1);
+        output.blockComment(commentStr, 1);
 		
-        output += FormatCode.indent(1);
-        output += "printf(\"Handling " 
+        output.indent(1);
+        output.append("printf(\"Handling " 
             + method.getName() 
-            + " method call...\\n\");\n";
-        output += generateRunnableArgs(method.argList, false, method.getName());
-        output += generatePrintfRunnable(method.argList, 
+            + " method call...\\n\");\n");
+        generateRunnableArgs(output, method.getArgList(), false, method.getName());
+        generatePrintfRunnable(output, method.getArgList(), 
                                          true, 
                                          method.getInterfaceName() + "::" + method.getName(), 
                                          "",
                                          false);
 		
-        return output;
     }
 	
-    protected static String generateSignalHandler(SignalDef signal){
-        String output = "";
+    protected static void generateSignalHandler(CodeBuffer output, SignalDef signal){
 
         String commentStr = "Below is the code generated by the -R flag.";
-        output += FormatCode.blockComment(commentStr, 1);
+        output.blockComment(commentStr, 1);
         String code = String.format(
             "printf(\"Received %s signal...\\n\");",
             signal.getName());
-        output +=  FormatCode.indentln(code, 1);		
-        output += GenerateRunnableCode.generatePrintfRunnable(signal.argList, 
+        output.line(code, 1);		
+        GenerateRunnableCode.generatePrintfRunnable(output, signal.getArgList(), 
                                                               true, 
                                                               signal.getInterfaceName() + "::" + signal.getName(), 
                                                               "",
                                                               true);
-        return output;
     }
 	
     /**
      * This is called to generate the code that calls the "SendSignal" methods
      * @param signalList
-     * @return
+     * @param output - the buffer the generated code is appended to
      */
-    protected static String generateSendSignals(ArrayList<SignalDef> signalList){
-        String output = "";
+    protected static void generateSendSignals(CodeBuffer output, ArrayList<SignalDef> signalList){
         if(signalList.isEmpty()) {
-            return output;
+            return;
         }
         SignalDef tempSig;
         ArgDef tempArg;
         String commentStr;
         commentStr = "The following code is added to this method handler so the " +
             "runnable service sends all the signals.";
-        output += FormatCode.comment(commentStr, 1);
+        output.comment(commentStr, 1);
         for(int i = 0; i < signalList.size(); i++){
             tempSig = signalList.get(i);
-            output += WriteCode.indentDepth 
+            output.append(WriteCode.indentDepth 
                 + "printf(\"\\nSending " 
                 + tempSig.getName() 
-                + " signal...\\n\");\n";
-            output += generateRunnableArgs(tempSig.argList,
+                + " signal...\\n\");\n");
+            generateRunnableArgs(output, tempSig.getArgList(),
                                            true,
                                            tempSig.getName());
-            output += WriteCode.indentDepth 
+            output.append(WriteCode.indentDepth 
                 + "Send" 
                 + tempSig.getName() 
-                + "(";
+                + "(");
 			
-            for(int j = 0; j < tempSig.argList.size(); j++){
-                tempArg = tempSig.argList.get(j);
-                output += tempSig.getName() 
+            for(int j = 0; j < tempSig.getArgList().size(); j++){
+                tempArg = tempSig.getArgList().get(j);
+                output.append(tempSig.getName() 
                     + tempArg.getArgName()
-                    + appendArgType(tempArg.getArgType());
+                    + appendArgType(tempArg.getArgType()));
                 if(tempArg.argType.charAt(0) == 'a' && tempArg.argType.charAt(1) != 'a'){
-                    output += ", " 
+                    output.append(", " 
                         + tempSig.getName() 
                         + tempArg.getArgName() 
                         + appendArgType(tempArg.getArgType())
-                        + "NumElements";
+                        + "NumElements");
                 }
-                if(j != tempSig.argList.size()-1){
-                    output += ", ";
+                if(j != tempSig.getArgList().size()-1){
+                    output.append(", ");
                 }
             }
 			
-            output += ");\n";
-            output += generatePrintfRunnable(tempSig.argList, 
+            output.append(");\n");
+            generatePrintfRunnable(output, tempSig.getArgList(), 
                                              false, 
                                              tempSig.getInterfaceName() + "::" + tempSig.getName(), 
                                              tempSig.getName(),
                                              true);
         }
 		
-        return output;
     }
     
     /**
      * Generate the client main code that does Set and Get for each property
      * @param properties
-     * @return
+     * @param output - the buffer the generated code is appended to
      */
-    protected static String generateClientProperties(
+    protected static void generateClientProperties(CodeBuffer output,
         ArrayList<PropertyDef> properties, String iface, String objName){
-    	String output = "";
     	PropertyDef prop;
     	String inputPacking;
     	
@@ -205,48 +211,48 @@ class GenerateRunnableCode {
             ArrayList<ArgDef> tempList = new ArrayList<ArgDef>();
             tempList.add(prop.getArg());
             //write the code for calling SetProperty
-            if(!argNames.containsKey(prop.getName() + "SetVal")){
-                output += String.format("%sMsgArg %sSetVal;\n",
+            if(!declaredArgNames.get().containsKey(prop.getName() + "SetVal")){
+                output.append(String.format("%sMsgArg %sSetVal;\n",
                                     FormatCode.indent(1),
-                                    prop.getName());
-                argNames.put(prop.getName() + "SetVal", true);
+                                    prop.getName()));
+                declaredArgNames.get().put(prop.getName() + "SetVal", true);
             }
-            output += generateRunnableArgs(tempList, true, "");
-            output += WriteCode.generateSetMsgArg(prop.getName() + "SetVal", 
+            generateRunnableArgs(output, tempList, true, "");
+            WriteCode.generateSetMsgArg(output, prop.getName() + "SetVal", 
                                                   prop.getSignature(), 
                                                   prop.getName() + appendArgType(prop.getSignature()), 
                                                   1);
             //make the SetProperty call
-            output += String.format(
+            output.append(String.format(
                 "%sstatus = (%s->proxyBusObj)->SetProperty(\"%s\", \"%s\", %sSetVal);\n",
                 FormatCode.indent(1),
                 objName,
                 iface,
                 prop.getName(),
-                prop.getName());
+                prop.getName()));
             //print out the value that will be set
-            output += WriteCode.indentDepth 
+            output.append(WriteCode.indentDepth 
                 + "printf(\"SetProperty: "
                 + prop.getName() + "(" + prop.getAccess() + ")"
                 + " = %s returned with status(%s)\\n\", "
                 + prop.getName()
-                + "SetVal.ToString().c_str(), QCC_StatusText(status));\n";
+                + "SetVal.ToString().c_str(), QCC_StatusText(status));\n");
             //write the code for calling GetProperty
-            if(!argNames.containsKey(prop.getName() + "GetVal")) {
-                output += String.format("%sMsgArg %sGetVal;\n", 
+            if(!declaredArgNames.get().containsKey(prop.getName() + "GetVal")) {
+                output.append(String.format("%sMsgArg %sGetVal;\n", 
                                     FormatCode.indent(1),
-                                    prop.getName());
-                 argNames.put(prop.getName() + "GetVal", true);
+                                    prop.getName()));
+                 declaredArgNames.get().put(prop.getName() + "GetVal", true);
             }
-            output += String.format(
+            output.append(String.format(
                 "%sstatus = (%s->proxyBusObj)->GetProperty(\"%s\", \"%s\", %sGetVal);\n",
                 FormatCode.indent(1),
                 objName,
                 iface,
                 prop.getName(),
-                prop.getName());
+                prop.getName()));
             //print out the value from GetProperty
-            output += WriteCode.indentDepth
+            output.append(WriteCode.indentDepth
                 + "if(status == ER_OK){\n"
                 + WriteCode.indentDepth + WriteCode.indentDepth
                 + "printf(\"GetProperty: "
@@ -260,46 +266,43 @@ class GenerateRunnableCode {
                 + "printf(\"GetProperty: "
                 + prop.getName() + "(" + prop.getAccess() + ")"
                 + " failed with status(%s)\\n\", QCC_StatusText(status));\n"
-                + WriteCode.indentDepth + "}\n";
+                + WriteCode.indentDepth + "}\n");
 			
-            output += "\n";
+            output.append("\n");
     	}
     	
-    	return output;
     }
 	
     /**
      * 
      * @param argList list of args
      * @param isClient if this call was made by a client
-     * @return string containing code for instantiating/initializing args
+     * @param output - the buffer the generated code is appended to
      */
-    protected static String generateRunnableArgs(ArrayList<ArgDef> argList,
+    protected static void generateRunnableArgs(CodeBuffer output, List<ArgDef> argList,
                                                  boolean isClient,
                                                  String methName){
-        String output = "";
         ArgDef arg;
         for(int i = 0; i < argList.size(); i++){
             arg = argList.get(i);
             if(isClient){
-                if(!argNames.containsKey(methName + arg.getArgName() + appendArgType(arg.getArgType()))) {
+                if(!declaredArgNames.get().containsKey(methName + arg.getArgName() + appendArgType(arg.getArgType()))) {
                     if(!WriteCode.isArgContainerType(arg)){
-                        output += generateRunnableArgClientBasicType(arg, methName + arg.getArgName() + appendArgType(arg.getArgType()));
+                        generateRunnableArgClientBasicType(output, arg, methName + arg.getArgName() + appendArgType(arg.getArgType()));
                     } else {
-                        output += generateRunnableArgClientContainerType(arg, methName + arg.getArgName() + appendArgType(arg.getArgType()));
-                        argNames.put(methName + arg.getArgName() + appendArgType(arg.getArgType()) + "NumElements", true);
+                        generateRunnableArgClientContainerType(output, arg, methName + arg.getArgName() + appendArgType(arg.getArgType()));
+                        declaredArgNames.get().put(methName + arg.getArgName() + appendArgType(arg.getArgType()) + "NumElements", true);
                     } 
-                    argNames.put(methName + arg.getArgName() + appendArgType(arg.getArgType()), true);
+                    declaredArgNames.get().put(methName + arg.getArgName() + appendArgType(arg.getArgType()), true);
                 }
             }else{ //generate code for service
            	if(!WriteCode.isArgContainerType(arg)){
-                    output += generateRunnableArgServiceBasicType(arg, arg.getArgName());
+                    generateRunnableArgServiceBasicType(output, arg, arg.getArgName());
             	} else {
-                    output += generateRunnableArgServiceContainerType(arg, arg.getArgName());
+                    generateRunnableArgServiceContainerType(output, arg, arg.getArgName());
             	}
             }
         }
-        return output;
     }
     /**
      * This will take the list of arguments and produce a print statment that
@@ -312,14 +315,13 @@ class GenerateRunnableCode {
      * @param namePrefix - if the name has a prefix to the name found in the
      *                     ArgDef then it must be passed in.
      * @param isSignal - is the item to be printed a signal.
-     * @return
+     * @param output - the buffer the generated code is appended to
      */
-    protected static String generatePrintfRunnable(ArrayList<ArgDef> argList,
+    protected static void generatePrintfRunnable(CodeBuffer output, List<ArgDef> argList,
                                                    boolean isHandlerCode,
                                                    String methodName, 
                                                    String namePrefix,
                                                    boolean isSignal){
-    	String output = "";
     	ArgDef arg;
 
         if(argList.isEmpty())
@@ -341,31 +343,30 @@ class GenerateRunnableCode {
                     code = String.format("printf(\"\\tReturned %s \\\"null\\\": null\\n\");", methodName);
                 }
             }
-            output += FormatCode.indentln(code, 1);
+            output.line(code, 1);
         } 
 
     	for(int i = 0; i < argList.size(); i++){
             arg = argList.get(i);
             if (isHandlerCode){
                 if(WriteCode.isArgContainerType(arg)){
-                    output += generatePrintfRunnableHandlerContainerType(
+                    generatePrintfRunnableHandlerContainerType(output,
                         arg, methodName, namePrefix + arg.getArgName());
                 } else {
-                    output += generatePrintfRunnableHandlerBasicType(
+                    generatePrintfRunnableHandlerBasicType(output,
                         arg, methodName, namePrefix + arg.getArgName());
                 }
             }else {
                 if(WriteCode.isArgContainerType(arg)){
-                    output += generatePrintfRunnableCallerContainerType(
+                    generatePrintfRunnableCallerContainerType(output,
                         arg, methodName, namePrefix + arg.getArgName() + appendArgType(arg.getArgType()));
                 } else {
-                    output += generatePrintfRunnableCallerBasicType(
+                    generatePrintfRunnableCallerBasicType(output,
                         arg, methodName, namePrefix + arg.getArgName() + appendArgType(arg.getArgType()));
                 }
 
             }
     	}
-    	return output;
     }
     
     /**
@@ -374,28 +375,26 @@ class GenerateRunnableCode {
      * the variable.
      * @param arg a ArgDef argument that contains an element with a BasicType
      * @param varName the name of the varible
-     * @return
+     * @param output - the buffer the generated code is appended to
      */
-    protected static String generateRunnableArgClientBasicType(ArgDef arg, String varName ){
-    	String output = "";
+    protected static void generateRunnableArgClientBasicType(CodeBuffer output, ArgDef arg, String varName ){
     	
     	String type;
     	type = arg.getArgType();
         char c = type.charAt(0);
     	if(arg.getArgDirection().equals("in")){
-            output += String.format("%s%s %s = %s;\n", 
+            output.append(String.format("%s%s %s = %s;\n", 
                                     FormatCode.indent(1),
                                     WriteCode.mapType(c),
                                     varName,
-                                    getDefault(c));
+                                    getDefault(c)));
     	} else {
             //a value will be assigned to this variable when making a method call.
-            output += String.format("%s%s %s;\n", 
+            output.append(String.format("%s%s %s;\n", 
                                     FormatCode.indent(1),
                                     WriteCode.mapType(c),
-                                    varName);
+                                    varName));
     	}
-    	return output;
     }
     
     /**
@@ -405,18 +404,17 @@ class GenerateRunnableCode {
      * 
      * @param arg a ArgDef argument that contains an element with a BasicType
      * @param name the name of the varible
-     * @return
+     * @param output - the buffer the generated code is appended to
      */
-    protected static String generateRunnableArgClientContainerType(ArgDef arg, String name){
-    	String output = "";
+    protected static void generateRunnableArgClientContainerType(CodeBuffer output, ArgDef arg, String name){
     	String code;
     	char c = arg.getArgType().charAt(0);
     	switch(c){
     	case '(':
             code = arg.getArgName() + "Struct " + name + ";";
-            output += FormatCode.indentln(code, 1);
+            output.line(code, 1);
             if(arg.getArgDirection().equals("in")){
-                output += generateRunnableArgStructContainerType(name, 
+                generateRunnableArgStructContainerType(output, name, 
                                                                  arg.getArgType(),  
                                                                  arg.getArgName() + "Struct", 
                                                                  2);
@@ -425,13 +423,13 @@ class GenerateRunnableCode {
     	case 'a': {
     	    if(arg.getArgType().charAt(1) == '{'){
     	    	code = String.format("size_t %sNumElements;", name);
-    	    	output += FormatCode.indentln(code, 1);
+    	    	output.line(code, 1);
     	    	code = String.format("%sDictEntry *%s;", 
                                      arg.getArgName(),
                                      name);
-    	    	output += FormatCode.indentln(code, 1);
+    	    	output.line(code, 1);
     	    	if(arg.getArgDirection().equals("in")){
-                    output += generateRunnableArgDictContainerType(
+                    generateRunnableArgDictContainerType(output,
                         name, 
                         arg.getArgType(),  
                         arg.getArgName() + "DictEntry",
@@ -447,42 +445,42 @@ class GenerateRunnableCode {
                         name,
                         arg.getArgName(),
                         defaultArrayLen);
-                    output += FormatCode.indentln(code, 1);
+                    output.line(code, 1);
                     code = String.format(
                         "size_t %sNumElements = %d;",
                         name,
                         defaultArrayLen);
-                    output += FormatCode.indentln(code, 1);
+                    output.line(code, 1);
                     char counter = getCounterVar();
                     code = String.format(
                         "for(unsigned int " + counter + " = 0; " + counter + " < %sNumElements; " + counter + "++){",
                         name);
-                    output += FormatCode.indentln(code, 1);
-                    output += generateRunnableArgStructContainerType(name+"[" + counter + "]", 
+                    output.line(code, 1);
+                    generateRunnableArgStructContainerType(output, name+"[" + counter + "]", 
                                                                      arg.getArgType().substring(1), 
                                                                      arg.getArgName() + "Struct",
                                                                      2);
-                    output += FormatCode.indentln("}", 1);
+                    output.line("}", 1);
                     endForLoop();
     	    	} else {
                     code = String.format(
                         "%sStruct* %s;", 
                         arg.getArgName(),
                         name);
-                    output += FormatCode.indentln(code, 1);
+                    output.line(code, 1);
                     code = String.format(
                         "size_t %sNumElements;",
                         name);
-                    output += FormatCode.indentln(code, 1);
+                    output.line(code, 1);
     	    	}
     	    }else{ //single dimensional array type
     	    	code = String.format("%s *%s;", 
                                      WriteCode.mapType(arg.getArgType().charAt(1)),
                                      name);
-    	    	output += FormatCode.indentln(code, 1);
+    	    	output.line(code, 1);
     	    	code = String.format("size_t %sNumElements;", name);
-    	    	output += FormatCode.indentln(code, 1);
-    	    	output += generateRunnableArgArrayContainerType(
+    	    	output.line(code, 1);
+    	    	generateRunnableArgArrayContainerType(output,
                     name,   
                     arg.getArgType(),
                     WriteCode.mapType(arg.getArgType().charAt(1)),
@@ -495,7 +493,6 @@ class GenerateRunnableCode {
     	default:
             break;
     	}
-    	return output;
     }
     
     /**
@@ -507,10 +504,9 @@ class GenerateRunnableCode {
      * @param varName the name used to access the varaible.
      * @param structSignature the full signature found inside a struct 
      *                        i.e. the struct signature without the outer parentheses.
-     * @return
+     * @param output - the buffer the generated code is appended to
      */
-    protected static String generateRunnableArgStructContainerType(String varName, String structSignature, String dataType, int indentDepth){
-    	String output = "";
+    protected static void generateRunnableArgStructContainerType(CodeBuffer output, String varName, String structSignature, String dataType, int indentDepth){
     	int structCount = 0;
     	int dictCount = 0;
     	int memberCount = 0;
@@ -519,7 +515,7 @@ class GenerateRunnableCode {
             switch(c){
             case '(' : {
                 String innerStructSig = WriteCode.innerStructSignature(structSignature.substring(i, structSignature.length()-1));
-                output += generateRunnableArgStructContainerType(
+                generateRunnableArgStructContainerType(output,
                     varName + ".s" + structCount, 
                     innerStructSig,
                     dataType + "::s" + structCount + "Struct",
@@ -534,7 +530,7 @@ class GenerateRunnableCode {
             case 'a' :{
                 if(structSignature.charAt(i+1) == '{'){
                     String innerSig = WriteCode.innerDictSignature(structSignature.substring(i));
-                    output += generateRunnableArgDictContainerType(
+                    generateRunnableArgDictContainerType(output,
                         varName+".d"+ dictCount,
                         innerSig,  
                         dataType +"::d"+ dictCount + "DictEntry",
@@ -544,7 +540,7 @@ class GenerateRunnableCode {
                     dictCount++;
                 }else if(structSignature.charAt(i+1) == '('){
                     String innerSig = WriteCode.innerStructSignature(structSignature.substring(i+1)); 
-                    output += generateRunnableArgArrayContainerType(
+                    generateRunnableArgArrayContainerType(output,
                         varName+".s"+ structCount,
                         "a" + innerSig,
                         dataType + "::s" + structCount + "Struct",
@@ -552,7 +548,7 @@ class GenerateRunnableCode {
                     i += innerSig.length() - 1;
                     structCount++;
                 }else{
-                    output += generateRunnableArgArrayContainerType(
+                    generateRunnableArgArrayContainerType(output,
                         varName + ".member" + memberCount,
                         "a" + structSignature.charAt(i+1),
                         WriteCode.mapType(structSignature.charAt(i+1)),
@@ -563,45 +559,42 @@ class GenerateRunnableCode {
                 break;
             }	
             default:
-                output += FormatCode.indent(indentDepth) 
-                    + varName 
+                output.indent(indentDepth).append(varName 
                     + ".member" 
                     + memberCount 
                     + " = " 
                     + getDefault(structSignature.charAt(i)) 
-                    + ";\n"; 
+                    + ";\n"); 
                 memberCount++;
             }
     		
     	}
-    	return output;
     }
     
-    protected static String generateRunnableArgDictContainerType(String varName, String signature, String dataType, int loopDepth, int indentDepth){
-    	String output = "";
+    protected static void generateRunnableArgDictContainerType(CodeBuffer output, String varName, String signature, String dataType, int loopDepth, int indentDepth){
     	String code;
     	code = String.format("%sNumElements = %d;",
                              varName,
                              defaultArrayLen);
-    	output += FormatCode.indentln(code, indentDepth);
+    	output.line(code, indentDepth);
     	code = String.format("%s = new %s[%sNumElements];",
                              varName,
                              dataType,
                              varName);
-    	output += FormatCode.indentln(code, indentDepth);
+    	output.line(code, indentDepth);
     	code = String.format("for(unsigned int i%1$d = 0; i%1$d < %2$sNumElements; i%1$d++){",
                              loopDepth,
                              varName);
-    	output += FormatCode.indentln(code, indentDepth);
+    	output.line(code, indentDepth);
     	code = String.format("%s[i%d].key = %s;", 
                              varName,
                              loopDepth,
                              getDefault(signature.charAt(2)));
-    	output += FormatCode.indentln(code, indentDepth+1);
+    	output.line(code, indentDepth+1);
     	switch(signature.charAt(3)){
         case '(':{
             String innerStruct = WriteCode.innerStructSignature(signature.substring(3));
-            output += generateRunnableArgStructContainerType(
+            generateRunnableArgStructContainerType(output,
                 varName + "[i" + loopDepth + "].value", 
                 innerStruct, 
                 dataType + "::valueStruct", 
@@ -614,38 +607,38 @@ class GenerateRunnableCode {
                                      varName,
                                      loopDepth,
                                      defaultArrayLen);
-                output += FormatCode.indentln(code, indentDepth + 1);
+                output.line(code, indentDepth + 1);
                 code = String.format("%s[i%d].value = new %s::valueStruct[%s[i%d].valueNumElements];", 
                                      varName,
                                      loopDepth,
                                      dataType,
                                      varName,
                                      loopDepth);
-                output += FormatCode.indentln(code, indentDepth + 1);
+                output.line(code, indentDepth + 1);
                 code = String.format("for(unsigned int i%d = 0; i%d < %s[i%d].valueNumElements; i%d++){",
                                      loopDepth + 1,
                                      loopDepth + 1,
                                      varName,
                                      loopDepth,
                                      loopDepth +1);
-                output += FormatCode.indentln(code, indentDepth + 1);
+                output.line(code, indentDepth + 1);
                 String innerStruct = WriteCode.innerStructSignature(signature.substring(4));
-                output += generateRunnableArgStructContainerType(
+                generateRunnableArgStructContainerType(output,
                     varName + "[i" + loopDepth + "].value[i" + (loopDepth+1) + "]", 
                     innerStruct, 
                     dataType + "::valueStruct", 
                     indentDepth+2);
-                output += FormatCode.indentln("}", indentDepth + 1);	
+                output.line("}", indentDepth + 1);	
             }else if(signature.charAt(4) == '{'){
                 String innerDict = WriteCode.innerDictSignature(signature.substring(3));
-                output += generateRunnableArgDictContainerType(
+                generateRunnableArgDictContainerType(output,
                     varName + "[i" + loopDepth + "].value",
                     innerDict,
                     dataType + "::valueDictEntry",
                     loopDepth + 1,
                     indentDepth + 1);	
             }else{
-                output += generateRunnableArgArrayContainerType(
+                generateRunnableArgArrayContainerType(output,
                     varName + "[i" + loopDepth + "].value",
                     signature.substring(3, 5),
                     WriteCode.mapType(signature.charAt(4)), 
@@ -659,45 +652,43 @@ class GenerateRunnableCode {
                                  varName,
                                  loopDepth,
                                  getDefault(signature.charAt(3)));
-            output += FormatCode.indentln(code, indentDepth+1);
+            output.line(code, indentDepth+1);
         }		
     	}
-    	output += FormatCode.indentln("}", indentDepth);
-    	return output;
+    	output.line("}", indentDepth);
     }
     
-    protected static String generateRunnableArgArrayContainerType(String varName,
+    protected static void generateRunnableArgArrayContainerType(CodeBuffer output, String varName,
                                                                   String signature,
                                                                   String dataType, 
                                                                   int indentDepth){
-    	String output = "";
     	String code;
     	code = String.format("%sNumElements = %d;",
                              varName,
                              defaultArrayLen);
-    	output += FormatCode.indentln(code, indentDepth);
+    	output.line(code, indentDepth);
     	code = String.format("%s = new %s[%sNumElements];",
                              varName,
                              dataType,
                              varName);
-    	output += FormatCode.indentln(code, indentDepth);
+    	output.line(code, indentDepth);
         char counter = getCounterVar();
     	code = String.format("for(unsigned int " + counter + " = 0; " + counter + " < %sNumElements; " + counter + "++){", 
                              varName);
-    	output += FormatCode.indentln(code, indentDepth);
+    	output.line(code, indentDepth);
     	switch(signature.charAt(1)){
         case '{':
             code = String.format("%s[" + counter + "].key = %s;", 
                                  varName,
                                  getDefault(signature.charAt(2)));
-            output += FormatCode.indentln(code, indentDepth+1);
+            output.line(code, indentDepth+1);
             code = String.format("%s[" + counter + "].value = %s;", 
                                  varName,
                                  getDefault(signature.charAt(3)));
-            output += FormatCode.indentln(code, indentDepth+1);
+            output.line(code, indentDepth+1);
             break;
         case '(':{
-            output += generateRunnableArgStructContainerType(varName+"[" + counter + "]",
+            generateRunnableArgStructContainerType(output, varName+"[" + counter + "]",
                                                              signature.substring(1),
                                                              dataType,
                                                              indentDepth+1);
@@ -707,15 +698,14 @@ class GenerateRunnableCode {
             code = String.format("%s[" + counter + "] = %s;", 
                                  varName,
                                  getDefault(signature.charAt(1)));
-            output += FormatCode.indentln(code, indentDepth+1);
+            output.line(code, indentDepth+1);
             break;
         }
     			
     	}
 
-    	output += FormatCode.indentln("}", indentDepth);
+    	output.line("}", indentDepth);
         endForLoop();
-    	return output;
     }
     
     /**
@@ -725,22 +715,20 @@ class GenerateRunnableCode {
      * 
      * @param arg a ArgDef argument that contains an element with a BasicType
      * @param name the name of the varible
-     * @return
+     * @param output - the buffer the generated code is appended to
      */
-    protected static String generateRunnableArgServiceBasicType(ArgDef arg, String name){
-    	String output = "";
+    protected static void generateRunnableArgServiceBasicType(CodeBuffer output, ArgDef arg, String name){
     	String type = arg.getArgType();
     	char c;
     	
     	if(arg.getArgDirection().equals("out")){
     	    c = type.charAt(0);
-    	    output += WriteCode.indentDepth 
+    	    output.append(WriteCode.indentDepth 
     	        + name 
     	        + " = " 
     	        + getDefault(c) 
-    	        + ";\n";
+    	        + ";\n");
     	}    		
-    	return output;
     }
     
     /**
@@ -749,23 +737,22 @@ class GenerateRunnableCode {
      * 
      * @param arg a ArgDef argument that contains an element with a BasicType
      * @param name the name of the varible
-     * @return
+     * @param output - the buffer the generated code is appended to
      */
-    protected static String generateRunnableArgServiceContainerType(ArgDef arg, String name){
-    	String output = "";
+    protected static void generateRunnableArgServiceContainerType(CodeBuffer output, ArgDef arg, String name){
     	String code;
     	if(arg.getArgDirection().equals("out")){
             char c = arg.getArgType().charAt(0);
             switch(c){
             case '(':
-                output += generateRunnableArgStructContainerType(name, 
+                generateRunnableArgStructContainerType(output, name, 
                                                                  arg.getArgType(),
                                                                  arg.getArgName() + "Struct",
                                                                  1);
                 break;
             case 'a': {
                 if(arg.getArgType().charAt(1) == '{'){
-                    output += generateRunnableArgDictContainerType(name, 
+                    generateRunnableArgDictContainerType(output, name, 
                                                                    arg.getArgType(), 
                                                                    name + "DictEntry",
                                                                    0,
@@ -781,49 +768,49 @@ class GenerateRunnableCode {
                         name,
                         name,
                         defaultArrayLen);
-                    output += FormatCode.indentln(code, 1);
+                    output.line(code, 1);
                     code = String.format(
                         "%sNumElements = %d;",
                         name,
                         defaultArrayLen);
-                    output += FormatCode.indentln(code, 1);
+                    output.line(code, 1);
                     char counter = getCounterVar();
                     code = String.format(
                         "for(unsigned int " + counter + " = 0; " + counter + " < %sNumElements; " + counter + "++){",
                         name);
-                    output += FormatCode.indentln(code, 1);
-                    output += generateRunnableArgStructContainerType(name+"[" + counter + "]", 
+                    output.line(code, 1);
+                    generateRunnableArgStructContainerType(output, name+"[" + counter + "]", 
                                                                      arg.getArgType().substring(1),
                                                                      arg.getArgName() + "Struct",
                                                                      2);
-                    output += FormatCode.indentln("}", 1);
+                    output.line("}", 1);
                     endForLoop();
                 }else{
-                    output += WriteCode.indentDepth 
+                    output.append(WriteCode.indentDepth 
     		        + name 
     		        + " = new " 
     		        + WriteCode.mapType(arg.getArgType().charAt(1)) 
     		        + "[" 
     		        + defaultArrayLen 
-    		        + "];\n";
-                    output += WriteCode.indentDepth 
+    		        + "];\n");
+                    output.append(WriteCode.indentDepth 
     		        + name 
     		        + "NumElements = " 
     		        + defaultArrayLen 
-    		        + ";\n";
+    		        + ";\n");
                     char counter = getCounterVar();
-                    output += WriteCode.indentDepth 
+                    output.append(WriteCode.indentDepth 
     		        + "for(unsigned int " + counter + " = 0; " + counter + " < " 
     		        + name 
-    		        + "NumElements; " + counter + "++){\n";
-                    output += WriteCode.indentDepth 
+    		        + "NumElements; " + counter + "++){\n");
+                    output.append(WriteCode.indentDepth 
     		        + WriteCode.indentDepth 
     		        + name 
     		        + "[" + counter + "] = " 
     		        + getDefault(arg.getArgType().charAt(1)) 
-    		        + ";\n";
-                    output += WriteCode.indentDepth 
-    		        + "}\n";
+    		        + ";\n");
+                    output.append(WriteCode.indentDepth 
+    		        + "}\n");
                     endForLoop();
                 }
                 break;
@@ -834,12 +821,10 @@ class GenerateRunnableCode {
                 break;
             }
     	}
-    	return output;
     }
 
-    protected static String generatePrintfRunnableHandlerContainerType(ArgDef arg, String methodName, String varName)
+    protected static void generatePrintfRunnableHandlerContainerType(CodeBuffer output, ArgDef arg, String methodName, String varName)
     {
-        String output = "";
         String code;
 
         if(arg.getArgDirection().equals("in")){
@@ -848,18 +833,18 @@ class GenerateRunnableCode {
         else {
             code = String.format("printf(\"\\tReturning %s \\\"%s\\\": \");", methodName, arg.getArgName());
         }
-        output += FormatCode.indentln(code, 1);
+        output.line(code, 1);
         char c = arg.getArgType().charAt(0);
         switch(c){
         case '(':
-            output += generatePrintfForStruct(varName, arg.getArgType());
+            generatePrintfForStruct(output, varName, arg.getArgType());
             break;
         case 'a': {
             if(arg.getArgType().charAt(1) == '{'){
-                output += generatePrintfForDictionary(varName, arg.getArgType(), varName + "NumElements");
+                generatePrintfForDictionary(output, varName, arg.getArgType(), varName + "NumElements");
             }
             else{
-                output += generatePrintfForArray(varName, arg.getArgType(), varName + "NumElements");
+                generatePrintfForArray(output, varName, arg.getArgType(), varName + "NumElements");
             }
             break;
         }
@@ -867,21 +852,19 @@ class GenerateRunnableCode {
             break;
         }
         code = String.format("printf(\"\\n\");");
-        output += FormatCode.indentln(code, 1);
+        output.line(code, 1);
 
-        return output;
     }
 
-    protected static String generatePrintfForStruct(String varName, String structSignature)
+    protected static void generatePrintfForStruct(CodeBuffer output, String varName, String structSignature)
     {
-        String output = "";
         String code;
         int structCount = 0;
         int dictCount = 0;
         int memberCount = 0;
 
         code = String.format("printf(\"(\");");
-        output += FormatCode.indentln(code, 1);
+        output.line(code, 1);
  
         for(int i = 1; i < structSignature.length() - 1; i++)
         {
@@ -889,7 +872,7 @@ class GenerateRunnableCode {
             switch(c){
             case '(':{
                 String innerStructSignature = WriteCode.innerStructSignature(structSignature.substring(i, structSignature.length()-1));
-                output += generatePrintfForStruct(varName + ".s" + structCount, innerStructSignature);
+                generatePrintfForStruct(output, varName + ".s" + structCount, innerStructSignature);
                 i += innerStructSignature.length() - 1;
                 structCount++;
                 break;
@@ -900,7 +883,7 @@ class GenerateRunnableCode {
                 if(structSignature.charAt(i + 1) == '{'){
                     String innerDictSignature = structSignature.substring(i, structSignature.indexOf('}')+1);
                     String memberName = varName + ".d" + dictCount;
-                    output += generatePrintfForDictionary(memberName, innerDictSignature, memberName + "NumElements");
+                    generatePrintfForDictionary(output, memberName, innerDictSignature, memberName + "NumElements");
                     i += innerDictSignature.length()-1;
                     dictCount++;
                 }
@@ -923,7 +906,7 @@ class GenerateRunnableCode {
                         numElements = varName + ".member" + memberCount + "NumElements";
                         isMember = 1;
                     } 
-                    output += generatePrintfForArray(memberName, innerArraySignature, numElements);
+                    generatePrintfForArray(output, memberName, innerArraySignature, numElements);
                     i += innerArraySignature.length()-1;
                     memberCount += isMember;
                     structCount += isStruct;
@@ -931,89 +914,85 @@ class GenerateRunnableCode {
                 break;
             }
             default:
-                output += generatePrintfBasicType(varName + ".member" + memberCount, c);
+                generatePrintfBasicType(output, varName + ".member" + memberCount, c);
                 memberCount++;
                 break; 
             }
             if(i != structSignature.length()-2){
                 code = String.format("printf(\",\");");
-                output += FormatCode.indentln(code, 1);
+                output.line(code, 1);
             }
         }
 
         code = String.format("printf(\")\");");
-        output += FormatCode.indentln(code, 1);
+        output.line(code, 1);
 
-        return output;
     }
 
-    protected static String generatePrintfForDictionary(String varName, String varType, String varNameNumElements)
+    protected static void generatePrintfForDictionary(CodeBuffer output, String varName, String varType, String varNameNumElements)
     {
-        String output = "";
         String code;
 
         char counter = getCounterVar();
-        output += WriteCode.indentDepth
-            + "for(unsigned int " + counter + " = 0; " + counter + " < " + varNameNumElements + "; " + counter + "++){\n";
-        output += WriteCode.indentDepth;
+        output.append(WriteCode.indentDepth
+            + "for(unsigned int " + counter + " = 0; " + counter + " < " + varNameNumElements + "; " + counter + "++){\n");
+        output.append(WriteCode.indentDepth);
         code = String.format("printf(\"{\");");
-        output += FormatCode.indentln(code, 1);
-        output += WriteCode.indentDepth;
+        output.line(code, 1);
+        output.append(WriteCode.indentDepth);
         char key = varType.charAt(varType.indexOf('{') + 1);
         //char value = varType.charAt(varType.indexOf('{') + 2);
-        output += generatePrintfBasicType(varName + "[" + counter + "].key", key);
-        output += WriteCode.indentDepth;
+        generatePrintfBasicType(output, varName + "[" + counter + "].key", key);
+        output.append(WriteCode.indentDepth);
         code = String.format("printf(\",\");");
-        output += FormatCode.indentln(code, 1);
-        output += WriteCode.indentDepth
-            + WriteCode.indentDepth;
+        output.line(code, 1);
+        output.append(WriteCode.indentDepth
+            + WriteCode.indentDepth);
         String value = varType.substring(varType.indexOf('{') + 2, varType.indexOf('}'));
         char valueType = value.charAt(0);
         switch(valueType){
         case '(':{
-            output += generatePrintfForStruct(varName + "[" + counter + "].value", value);
+            generatePrintfForStruct(output, varName + "[" + counter + "].value", value);
             break;
         }
         case 'a':{
             if(value.charAt(1) == '{'){
-                output += generatePrintfForDictionary(varName + "[" + counter + "].value", value, varName + "[" + counter + "].valueNumElements");
+                generatePrintfForDictionary(output, varName + "[" + counter + "].value", value, varName + "[" + counter + "].valueNumElements");
             }
             else{
-                output += generatePrintfForArray(varName + "[" + counter + "].value", value, varName + "[" + counter + "].valueNumElements");
+                generatePrintfForArray(output, varName + "[" + counter + "].value", value, varName + "[" + counter + "].valueNumElements");
             }
             break;
         }
         default:
-            output += generatePrintfBasicType(varName + "[" + counter + "].value", valueType);
+            generatePrintfBasicType(output, varName + "[" + counter + "].value", valueType);
             break;
         }
-        output += WriteCode.indentDepth;
+        output.append(WriteCode.indentDepth);
         code = String.format("printf(\"}\");");
-        output += FormatCode.indentln(code, 1);
-        output += WriteCode.indentDepth
-            + "}\n";
+        output.line(code, 1);
+        output.append(WriteCode.indentDepth
+            + "}\n");
         endForLoop();
 
-        return output;
     }
 
-    protected static String generatePrintfForArray(String varName, String varType, String varNameNumElements)
+    protected static void generatePrintfForArray(CodeBuffer output, String varName, String varType, String varNameNumElements)
     {
-        String output = "";
         String code;
  
         char counter = getCounterVar();
-        output += WriteCode.indentDepth
-            + "for(unsigned int " + counter + " = 0; " + counter + " < " + varNameNumElements + "; " + counter + "++){\n";
-        output += WriteCode.indentDepth;
+        output.append(WriteCode.indentDepth
+            + "for(unsigned int " + counter + " = 0; " + counter + " < " + varNameNumElements + "; " + counter + "++){\n");
+        output.append(WriteCode.indentDepth);
         code = String.format("printf(\"[\");");
-        output += FormatCode.indentln(code, 1);
-        output += WriteCode.indentDepth;
+        output.line(code, 1);
+        output.append(WriteCode.indentDepth);
         char c = varType.charAt(1);
         switch(c){
         case '(':{ //STRUCTo
             String innerStructSignature = WriteCode.innerStructSignature(varType.substring(1, varType.length()));
-            output += generatePrintfForStruct(varName + "[" + counter + "]", innerStructSignature);
+            generatePrintfForStruct(output, varName + "[" + counter + "]", innerStructSignature);
             break;
         }
         case 'a':{
@@ -1021,17 +1000,16 @@ class GenerateRunnableCode {
             break;
         }
         default:
-            output += generatePrintfBasicType(varName + "[" + counter + "]", c);
+            generatePrintfBasicType(output, varName + "[" + counter + "]", c);
             break;
         }
-        output += WriteCode.indentDepth;
+        output.append(WriteCode.indentDepth);
         code = String.format("printf(\"]\");");
-        output += FormatCode.indentln(code, 1);
-        output += WriteCode.indentDepth
-            + "}\n";
+        output.line(code, 1);
+        output.append(WriteCode.indentDepth
+            + "}\n");
         endForLoop();
  
-        return output;
     }
     
     /**
@@ -1041,10 +1019,9 @@ class GenerateRunnableCode {
      * @param methodName - The name of the Method, Signal, or Property that 
      *                     called this printf statment is associated with. 
      * @param varName
-     * @return
+     * @param output - the buffer the generated code is appended to
      */
-    protected static String generatePrintfRunnableHandlerBasicType(ArgDef arg, String methodName, String varName){
-        String output = "";
+    protected static void generatePrintfRunnableHandlerBasicType(CodeBuffer output, ArgDef arg, String methodName, String varName){
         String code;
 
         if(arg.getArgDirection().equals("in")){
@@ -1053,24 +1030,22 @@ class GenerateRunnableCode {
         else {
             code = String.format("printf(\"\\tReturning %s \\\"%s\\\": \");", methodName, arg.getArgName());
         }
-        output += FormatCode.indentln(code, 1);
-        output += generatePrintfBasicType(varName, arg.getArgType().charAt(0));
+        output.line(code, 1);
+        generatePrintfBasicType(output, varName, arg.getArgType().charAt(0));
 
         code = String.format("printf(\"\\n\");");
-        output += FormatCode.indentln(code, 1);
+        output.line(code, 1);
 
-        return output; 
     }
 
-    protected static String generatePrintfBasicType(String varName, char varType)
+    protected static void generatePrintfBasicType(CodeBuffer output, String varName, char varType)
     {
-        String output = "";
         String code;
 
         switch(varType){
         case 'b':{ //BOOLEAN
             code = String.format("printf(\"%%s\", (%s) ? \"true\" : \"false\");", varName);
-            output += FormatCode.indentln(code, 1);
+            output.line(code, 1);
             break;
         }
         case 'y': //fall through BITE
@@ -1079,13 +1054,13 @@ class GenerateRunnableCode {
         case 'i': //fall through INT_32
         case 'u':{ //UINT_32
             code = String.format("printf(\"%%d\", %s);", varName);
-            output += FormatCode.indentln(code, 1);
+            output.line(code, 1);
             break;
         }
         case 'x': //fall through INT_64
         case 't':{ //UINT_64
             code = String.format("printf(\"%%lld\", %s);", varName);
-            output += FormatCode.indentln(code, 1);
+            output.line(code, 1);
             break;
         }
         case 'v': {//VARIANT
@@ -1093,26 +1068,24 @@ class GenerateRunnableCode {
         }
         case 'd':{ //DOUBLE;
             code = String.format("printf(\"%%f\", %s);", varName);
-            output += FormatCode.indentln(code, 1);
+            output.line(code, 1);
             break;
         }
         case 'o': //fall through OBJECT PATH
         case 'g': //fall through ALLJOYN SIGNATURE
         case 's':{ //STRING
             code = String.format("printf(\"%%s\", %s.c_str());", varName);
-            output += FormatCode.indentln(code, 1);
+            output.line(code, 1);
             break;
         }
         default:
         }
 
-        return output;
     }
     
 
-    protected static String generatePrintfRunnableCallerContainerType(ArgDef arg, String methodName, String varName)
+    protected static void generatePrintfRunnableCallerContainerType(CodeBuffer output, ArgDef arg, String methodName, String varName)
     {
-        String output = "";
         String code;
 
         if(arg.getArgDirection().equals("in")){
@@ -1121,19 +1094,19 @@ class GenerateRunnableCode {
         else {
             code = String.format("printf(\"\\tReturned %s \\\"%s\\\": \");", methodName, arg.getArgName());
         }
-        output += FormatCode.indentln(code, 1);
+        output.line(code, 1);
         char c = arg.getArgType().charAt(0);
         switch(c){
         case '(':{
-            output += generatePrintfForStruct(varName, arg.getArgType());
+            generatePrintfForStruct(output, varName, arg.getArgType());
             break;
         }
         case 'a': {
             if(arg.getArgType().charAt(1) == '{'){
-                output += generatePrintfForDictionary(varName, arg.getArgType(), varName + "NumElements");
+                generatePrintfForDictionary(output, varName, arg.getArgType(), varName + "NumElements");
             }
             else{
-                output += generatePrintfForArray(varName, arg.getArgType(), varName + "NumElements");
+                generatePrintfForArray(output, varName, arg.getArgType(), varName + "NumElements");
             }
             break;
         }
@@ -1141,9 +1114,8 @@ class GenerateRunnableCode {
             break;
         }
         code = String.format("printf(\"\\n\");");
-        output += FormatCode.indentln(code, 1);
+        output.line(code, 1);
 
-        return output;
     }
 
     
@@ -1155,10 +1127,9 @@ class GenerateRunnableCode {
      * @param methodName - the method, signal, or property the value is being
      *                     printed for
      * @param name
-     * @return
+     * @param output - the buffer the generated code is appended to
      */
-    protected static String generatePrintfRunnableCallerBasicType(ArgDef arg, String methodName, String varName){
-        String output = "";
+    protected static void generatePrintfRunnableCallerBasicType(CodeBuffer output, ArgDef arg, String methodName, String varName){
         String code;
 
         if(arg.getArgDirection().equals("in")){
@@ -1167,22 +1138,31 @@ class GenerateRunnableCode {
         else {
             code = String.format("printf(\"\\tReturned %s \\\"%s\\\": \");", methodName, arg.getArgName());
         }
-        output += FormatCode.indentln(code, 1);
-        output += generatePrintfBasicType(varName, arg.getArgType().charAt(0));
+        output.line(code, 1);
+        generatePrintfBasicType(output, varName, arg.getArgType().charAt(0));
 
         code = String.format("printf(\"\\n\");");
-        output += FormatCode.indentln(code, 1);
-        return output;
+        output.line(code, 1);
     }
   
     protected static char getCounterVar()
     {
-        counterIndex++;
-        return counters[counterIndex];
+        int[] index = counterIndex.get();
+        index[0]++;
+        return counters[index[0]];
     }
     protected static void endForLoop()
     {
-        counterIndex--;
+        counterIndex.get()[0]--;
+    }
+
+    /**
+     * Forget the variables declared in the last client main function, before
+     * the next one is generated.
+     */
+    protected static void resetDeclaredArgs()
+    {
+        declaredArgNames.get().clear();
     }
     
 
@@ -1192,10 +1172,9 @@ class GenerateRunnableCode {
      * 
      * @param propList - list of properties, could be empty
      * @param indentDepth - depth to which each line should be indented by
-     * @return the String with the property variable initializations
+     * @param output - the buffer the generated code is appended to
      */
-    protected static String generatePropertyInitialization(ArrayList<PropertyDef> propList, int indentDepth) {
-        String output = "";
+    protected static void generatePropertyInitialization(CodeBuffer output, ArrayList<PropertyDef> propList, int indentDepth) {
         String code = "";
         PropertyDef prop;
         ArgDef propArg;
@@ -1213,15 +1192,14 @@ class GenerateRunnableCode {
                                             propArg.getArgType(),
                                             "out", 
                                             propArg.getVariantTypes());
-                output += generateRunnableArgServiceContainerType(tempArg, prop.getName());
+                generateRunnableArgServiceContainerType(output, tempArg, prop.getName());
             }
             // Initialize Properties of Basic Types
             else {
                 code = String.format("%s = %s;", prop.getName(), getDefault(prop.getSignature().charAt(0)));
-                output += FormatCode.indentln(code, indentDepth);
+                output.line(code, indentDepth);
             }
         }
-        return output;
     }
 
     /**
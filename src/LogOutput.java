@@ -14,6 +14,10 @@
  *    limitations under the License.
  ******************************************************************************/
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+
 /** ****************************************************************************
  * This file consolidates the logging output for the rest of the tool.
  * It provides a configurable logging level.  Every class that wants to generate
@@ -37,24 +41,53 @@ public class LogOutput {
 
 
     /** ------------------------------------------------------------------------
-     * data member containing  the current log output level - default is warning
-     * this is a singleton value: all instances of this object share this value
+     * the log levels and where the messages go.  Every instance of this class
+     * uses the shared settings, except on a thread that has its own settings,
+     * see RedirectThread().
      -------------------------------------------------------------------------*/
-    static private LogLevel outputLevel = LogLevel.warning;
+    static class Settings
+    {
+        // the current log output level - default is warning
+        LogLevel outputLevel = LogLevel.warning;
+
+        // the log level that will cause a failure.  Set method defines the
+        // semantics.  Default value is 'fatal'
+        LogLevel failOnLogLevel = LogLevel.fatal;
+
+        // the stream the messages are printed to, null for System.out
+        PrintStream out = null;
+    }
 
 
     /** ------------------------------------------------------------------------
-     * data member indicating the log level that will cause a failure.
-     * Set method defines the semantics.  Default value is 'fatal'
+     * data member containing the settings shared by all instances of this
+     * object
      -------------------------------------------------------------------------*/
-    static private LogLevel failOnLogLevel = LogLevel.fatal;
+    static private Settings sharedSettings = new Settings();
+
+
+    /** ------------------------------------------------------------------------
+     * data member containing the settings of the threads that have their own,
+     * such as the threads running the jobs of a batch.
+     -------------------------------------------------------------------------*/
+    static private ThreadLocal<Settings> threadSettings =
+        new ThreadLocal<Settings>();
 
 
     /** ------------------------------------------------------------------------
      * data member that contains the name of the executable - is static as this
      * should be consistent for all instances of this class.
      -------------------------------------------------------------------------*/
-    static private String exeName = null;
+    static private volatile String exeName = null;
+
+
+    /** ------------------------------------------------------------------------
+     * data member indicating whether a failure exits the program.  The daemon
+     * clears it so a failure only ends the request that caused it, by
+     * throwing a LogFatalException.  A thread that has its own settings never
+     * exits the program.
+     -------------------------------------------------------------------------*/
+    static private boolean exitOnFailure = true;
 
 
     /** ------------------------------------------------------------------------
@@ -106,6 +139,21 @@ public class LogOutput {
     } /* LogOutput() */
 
 
+    /** ------------------------------------------------------------------------
+     * Method to give the name of the executable when the tool is used as a
+     * library, where there is no top level to create the first instance.  It
+     * does nothing if the name has already been given.
+     *
+     * @param progName: name of the program it is a part of
+     -------------------------------------------------------------------------*/
+    public static synchronized void Initialize(String progName)
+    {
+        if(exeName == null)
+            exeName = progName;
+
+    } /* Initialize() */
+
+
     /** ------------------------------------------------------------------------
      * Method to change the current logging level.  this will output a message
      * based on the previous log level setting.
@@ -124,9 +172,9 @@ public class LogOutput {
         LogInform( "setting new logging level to '"
                    + newLevel.toString()
                    + "' from '"
-                   + outputLevel.toString()
+                   + CurrentSettings().outputLevel.toString()
                    + "'");
-        outputLevel = newLevel;
+        CurrentSettings().outputLevel = newLevel;
 	return 0;
 
     } /* SetLogLevel() */
@@ -152,13 +200,197 @@ public class LogOutput {
         LogInform( "Setting new logging failure to "
                    + newLevel.toString()
                    + " from "
-                   + failOnLogLevel.toString() );
-        failOnLogLevel = newLevel;
+                   + CurrentSettings().failOnLogLevel.toString() );
+        CurrentSettings().failOnLogLevel = newLevel;
         return 0;
 
     } /* SetFailOnLogLevel() */
 
 
+    /** ------------------------------------------------------------------------
+     * Method to choose whether a failure exits the program or throws a
+     * LogFatalException.
+     *
+     * @param exit: true to exit the program, false to throw
+     -------------------------------------------------------------------------*/
+    public static void SetExitOnFailure(boolean exit)
+    {
+        exitOnFailure = exit;
+
+    } /* SetExitOnFailure() */
+
+
+    /** ------------------------------------------------------------------------
+     * Method to put the logging and failure levels back to their defaults.
+     -------------------------------------------------------------------------*/
+    public static void ResetLogLevels()
+    {
+        CurrentSettings().outputLevel = LogLevel.warning;
+        CurrentSettings().failOnLogLevel = LogLevel.fatal;
+
+    } /* ResetLogLevels() */
+
+
+    /** ------------------------------------------------------------------------
+     * Method to give the calling thread its own log levels, starting at the
+     * defaults, and print the messages it logs to the stream provided.  A
+     * failure on the thread throws a LogFatalException rather than exiting.
+     * The library API uses this so the generations it runs at the same time
+     * each have their own options and output.
+     *
+     * @param out: the stream the thread's messages are printed to
+     -------------------------------------------------------------------------*/
+    public static void RedirectThread(PrintStream out)
+    {
+        Settings settings = new Settings();
+        settings.out = out;
+        threadSettings.set(settings);
+
+    } /* RedirectThread() */
+
+
+    /** ------------------------------------------------------------------------
+     * Method to put the calling thread back on the shared settings.
+     -------------------------------------------------------------------------*/
+    public static void EndRedirectThread()
+    {
+        threadSettings.remove();
+
+    } /* EndRedirectThread() */
+
+
+    /** ------------------------------------------------------------------------
+     * Method to get the calling thread's own settings, so a thread doing part
+     * of its work can be given them with SetThreadSettings().
+     *
+     * @return: the thread's own settings, null if it uses the shared ones
+     -------------------------------------------------------------------------*/
+    static Settings GetThreadSettings()
+    {
+        return threadSettings.get();
+
+    } /* GetThreadSettings() */
+
+
+    /** ------------------------------------------------------------------------
+     * Method to give the calling thread the settings of another thread, as
+     * returned by GetThreadSettings(), so its messages go to the same place
+     * and a failure on it ends the same generation.  A task run for another
+     * thread calls it first, and again with its previous settings when done.
+     *
+     * @param settings: the settings, null for the shared ones
+     -------------------------------------------------------------------------*/
+    static void SetThreadSettings(Settings settings)
+    {
+        if(settings == null)
+            threadSettings.remove();
+        else
+            threadSettings.set(settings);
+
+    } /* SetThreadSettings() */
+
+
+    /** ------------------------------------------------------------------------
+     * Method to make settings for a task run for the calling thread, to be
+     * given to it with SetThreadSettings().  They have the calling thread's
+     * log levels but print the messages to the buffer provided, so tasks run
+     * at the same time can have their messages printed in a fixed order with
+     * PrintBuffer().  A failure on the task throws a LogFatalException.
+     *
+     * @param buffer: the buffer the task's messages are printed to
+     * @return: the settings for the task
+     -------------------------------------------------------------------------*/
+    static Settings BufferedSettings(ByteArrayOutputStream buffer)
+    {
+        Settings current = CurrentSettings();
+        Settings settings = new Settings();
+        settings.outputLevel = current.outputLevel;
+        settings.failOnLogLevel = current.failOnLogLevel;
+        settings.out = new PrintStream(buffer, true);
+        return settings;
+
+    } /* BufferedSettings() */
+
+
+    /** ------------------------------------------------------------------------
+     * Method to print the messages a task logged with BufferedSettings() to
+     * where the calling thread's messages go.
+     *
+     * @param buffer: the buffer the task's messages were printed to
+     -------------------------------------------------------------------------*/
+    static void PrintBuffer(ByteArrayOutputStream buffer)
+    {
+        PrintStream out = GetOutStream();
+        try
+        {
+            buffer.writeTo(out);
+        }
+        catch(IOException e)
+        {
+            // a PrintStream does not throw, it sets its error flag instead
+        }
+        out.flush();
+
+    } /* PrintBuffer() */
+
+
+    /** ------------------------------------------------------------------------
+     * Method to get the stream the calling thread's messages are printed to,
+     * for output that is not a log message, such as the usage text.
+     *
+     * @return: the stream
+     -------------------------------------------------------------------------*/
+    public static PrintStream GetOutStream()
+    {
+        PrintStream out = CurrentSettings().out;
+        return out != null ? out : System.out;
+
+    } /* GetOutStream() */
+
+
+    /** ------------------------------------------------------------------------
+     * Method to get the stream for the calling thread's error output, such as
+     * stack traces.  It is System.err unless the thread's messages are
+     * printed somewhere else, see RedirectThread(), in which case it is the
+     * same stream as the messages.
+     *
+     * @return: the stream
+     -------------------------------------------------------------------------*/
+    public static PrintStream GetErrStream()
+    {
+        PrintStream out = CurrentSettings().out;
+        return out != null ? out : System.err;
+
+    } /* GetErrStream() */
+
+
+    /** ------------------------------------------------------------------------
+     * @return: the settings of the calling thread
+     -------------------------------------------------------------------------*/
+    static private Settings CurrentSettings()
+    {
+        Settings settings = threadSettings.get();
+        return settings != null ? settings : sharedSettings;
+
+    } /* CurrentSettings() */
+
+
+    /** ------------------------------------------------------------------------
+     * Method to stop the program with the exit code provided, or only the
+     * current request when running as the daemon or as a library.
+     *
+     * @param exitCode: the exit code
+     -------------------------------------------------------------------------*/
+    public static void Exit(int exitCode)
+    {
+        if(exitOnFailure && threadSettings.get() == null)
+            System.exit(exitCode);
+
+        throw new LogFatalException(exitCode);
+
+    } /* Exit() */
+
+
     /** ------------------------------------------------------------------------
      * Method callers should use for logging Fatal events, it will also exit
      * using the exit code provided.
@@ -240,7 +472,7 @@ public class LogOutput {
         }
 
         if(IsFailable(level))
-            System.exit(exitCode);
+            Exit(exitCode);
 
     } /* Log() */
 
@@ -259,7 +491,7 @@ public class LogOutput {
      -------------------------------------------------------------------------*/
     private void Output(String message)
     {
-        System.out.println( exeName + "(" + callingClass + ") " + message );
+        GetOutStream().println( exeName + "(" + callingClass + ") " + message );
     } /* Output() */
     
     
@@ -283,7 +515,7 @@ public class LogOutput {
      -------------------------------------------------------------------------*/
     private boolean ShouldGenerateOutput(LogLevel level)
     {
-        if(level.ordinal() <= outputLevel.ordinal())
+        if(level.ordinal() <= CurrentSettings().outputLevel.ordinal())
             return true;
         else
             return false;
@@ -299,10 +531,28 @@ public class LogOutput {
      -------------------------------------------------------------------------*/
     private boolean IsFailable(LogLevel level)
     {
-        if(level.ordinal() <= failOnLogLevel.ordinal())
+        if(level.ordinal() <= CurrentSettings().failOnLogLevel.ordinal())
             return true;
         else
             return false;
     } /* isFailable() */
 
 } /* class LogOutput() */
+
+
+/** ----------------------------------------------------------------------------
+ * Thrown in place of exiting the program when a failure is logged while exit
+ * on failure is off.
+ -----------------------------------------------------------------------------*/
+class LogFatalException extends RuntimeException
+{
+    private static final long serialVersionUID = 1L;
+
+    public final int exitCode;
+
+    public LogFatalException(int exitCode)
+    {
+        super("exit code " + exitCode);
+        this.exitCode = exitCode;
+    }
+} /* class LogFatalException */
@@ -36,9 +36,6 @@ public class ObjectData {
             if(objPath.equals(other.objPath)) {
                 return true;
             }
-            if(objName.equals(other.objName)) {
-                ParseAJXML.useFullPath = true;
-            }
         }
 
         return false;
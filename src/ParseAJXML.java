@@ -15,16 +15,25 @@
  ******************************************************************************/
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.StringReader;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.StringTokenizer;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import javax.xml.XMLConstants;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
 import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
 
@@ -33,10 +42,15 @@ import org.w3c.dom.Element;
 import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
 import org.xml.sax.EntityResolver;
+import org.xml.sax.ErrorHandler;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
 
 import java.net.URL;
 
@@ -46,19 +60,21 @@ import java.net.URL;
  */
 public class ParseAJXML {
         
-    private static InterfaceDescription inter = new InterfaceDescription();
+    private InterfaceDescription inter = new InterfaceDescription();
     private String currentNodeName;
     private String currentObjectPath;
-    private static boolean isUnnamedRoot = false;
+    private boolean isUnnamedRoot = false;
     private CodeGenConfig config;
     private AJNErrorHandler errorHandler;
-    public static boolean useFullNames = false;
-    public static boolean useFullPath = false;
     private HashMap<String, InterfaceDescription> interfaceNames = new HashMap<String, InterfaceDescription>();
     private HashMap<String, Boolean> shortNames = new HashMap<String, Boolean>();
 
-    public ParseAJXML(){
-        config = CodeGenConfig.getInstance();
+    /**
+     * @param config - the configuration the parsed objects and interfaces are
+     * added to
+     */
+    public ParseAJXML(CodeGenConfig config){
+        this.config = config;
         errorHandler = config.errorHandler;
     }
 
@@ -69,39 +85,213 @@ public class ParseAJXML {
      * @throws Exception 
      */
     public void parseXML(String XMLClassDef) throws Exception {
-        // Parse the XML so we can process it
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder builder;
-        Document document;
-        //create a schemaFactory to create a new schema
-        URL url = this.getClass().getResource("src/config/introspect.xsd");
-        SchemaFactory schemaFactory =
-            SchemaFactory.newInstance( XMLConstants.W3C_XML_SCHEMA_NS_URI );
-        Schema s = schemaFactory.newSchema(url);
+        parseXML(new InputSource(new StringReader(XMLClassDef)));
+    }
 
-        //set the DocumentBuilderFactory's schema to introspect.xsd
-        factory.setSchema(s);
+    /**
+     * Parse the XML read from a byte stream.  The parser decodes the bytes
+     * itself so the document is never held in memory as a String.  The stream
+     * is not closed.
+     * @param XMLStream The input XML stream
+     * @throws Exception 
+     */
+    public void parseXML(InputStream XMLStream) throws Exception {
+        parseXML(new InputSource(XMLStream));
+    }
 
-        builder = factory.newDocumentBuilder();
+    /**
+     * Parse the XML file at the given path.
+     * @param XMLFile The path of the input XML file
+     * @throws Exception 
+     */
+    public void parseXML(Path XMLFile) throws Exception {
+        InputStream s = openXMLFile(XMLFile);
+        try {
+            InputSource source = new InputSource(s);
+            source.setSystemId(XMLFile.toUri().toString());
+            parseXML(source);
+        } finally {
+            s.close();
+        }
+    }
 
-        /*
-         * Overwrite the builder's entity resolver so it doesn't try to look up
-         * external introspect.dtd
-         */
-        AJNEntityResolver resolver = new AJNEntityResolver();
-        builder.setEntityResolver(resolver);
+    /**
+     * Parse several XML files.  Reading and validating the files is the
+     * expensive part of parsing, so that is done for all of the files at the
+     * same time on a fork-join pool, each file into its own ParsedFile.  The
+     * parsed files are then added to the data structure one at a time in the
+     * order given, so the result, including any warnings and errors, is the
+     * same as parsing the files one after another, which is what is done
+     * with -j 1.  When streaming (-s), each ParsedFile holds all of the
+     * file's element events until its turn, so the streaming parser's
+     * bounded memory use only holds with -j 1.
+     * @param XMLFiles The paths of the input XML files
+     * @throws Exception 
+     */
+    public void parseXML(List<Path> XMLFiles) throws Exception {
+        if(XMLFiles.size() == 1 || config.jobs <= 1) {
+            for(Path XMLFile : XMLFiles) {
+                parseXML(XMLFile);
+            }
+            return;
+        }
 
-        //set the parser's error handler to the custom error handler
-        builder.setErrorHandler(errorHandler);
+        ForkJoinPool pool =
+            new ForkJoinPool(Math.min(config.jobs, XMLFiles.size()));
+        try {
+            ArrayList<ForkJoinTask<ParsedFile>> parsedFiles =
+                new ArrayList<ForkJoinTask<ParsedFile>>();
+            for(final Path XMLFile : XMLFiles) {
+                parsedFiles.add(pool.submit(new Callable<ParsedFile>() {
+                    public ParsedFile call() {
+                        return readXML(XMLFile);
+                    }
+                }));
+            }
+
+            for(ForkJoinTask<ParsedFile> parsedFile : parsedFiles) {
+                mergeXML(parsedFile.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private InputStream openXMLFile(Path XMLFile) throws IOException {
+        InputStream s = ReadFiles.getStreamFromFileSys(XMLFile);
+        if(s == null){
+            throw new IOException("could not read the '" + XMLFile + "' file");
+        }
+        return s;
+    }
+
+    /**
+     * Read and validate one XML file without touching any of the parser's
+     * state, so it can be run on any thread.  Errors are recorded in the
+     * returned ParsedFile rather than reported.
+     * @param XMLFile The path of the input XML file
+     * @return the document (or SAX events, when streaming) and the recorded
+     * warnings and errors.
+     */
+    private ParsedFile readXML(Path XMLFile) {
+        ParsedFile parsed = new ParsedFile(config.streamingParse);
+        try {
+            InputStream s = openXMLFile(XMLFile);
+            try {
+                InputSource source = new InputSource(s);
+                source.setSystemId(XMLFile.toUri().toString());
+                if(config.streamingParse) {
+                    SAXParser parser = AJNBuilderPool.acquireSAXParser();
+                    try {
+                        parser.parse(source, parsed);
+                    } finally {
+                        AJNBuilderPool.release(parser);
+                    }
+                }
+                else {
+                    DocumentBuilder builder = AJNBuilderPool.acquire(parsed);
+                    try {
+                        parsed.document = builder.parse(source);
+                    } finally {
+                        AJNBuilderPool.release(builder);
+                    }
+                }
+            } finally {
+                s.close();
+            }
+        } catch(Exception e) {
+            parsed.failure = e;
+        }
+        return parsed;
+    }
+
+    /**
+     * Add a file read by readXML() to the data structure, reporting its
+     * warnings and errors in the order they would have been reported had the
+     * file been parsed directly.
+     * @param parsed the file to add
+     * @throws Exception 
+     */
+    private void mergeXML(ParsedFile parsed) throws Exception {
+        if(config.streamingParse) {
+            StreamingHandler handler = new StreamingHandler();
+            parsed.replay(handler, handler);
+            if(parsed.failure != null) {
+                throw parsed.failure;
+            }
+            finishDocument();
+        }
+        else {
+            parsed.replay(null, errorHandler);
+            if(parsed.failure != null) {
+                throw parsed.failure;
+            }
+            parseDocument(parsed.document);
+        }
+    }
+
+    private void parseXML(InputSource XMLSource) throws Exception {
+        if(config.streamingParse) {
+            parseXMLStreaming(XMLSource);
+            return;
+        }
 
-        document =
-            builder.parse(new InputSource(new StringReader(XMLClassDef)));
+        // Parse the XML so we can process it, the builder validates against
+        // the cached introspect.xsd schema
+        DocumentBuilder builder = AJNBuilderPool.acquire(errorHandler);
+        Document document;
+        try {
+            document = builder.parse(XMLSource);
+        } finally {
+            AJNBuilderPool.release(builder);
+        }
+        parseDocument(document);
+    }
+
+    /**
+     * Walk a parsed document and add its objects and interfaces to the data
+     * structure.
+     * @param document the validated document
+     * @throws Exception 
+     */
+    private void parseDocument(Document document) throws Exception {
         document.getDocumentElement().normalize();
 
         Element root = document.getDocumentElement();
 
-        String nodeName = root.getNodeName();
-        currentNodeName = root.getAttribute("name");
+        checkRootNode(root.getAttribute("name"));
+
+        parseNode(root, false);
+
+        finishDocument();
+    }
+
+    /**
+     * Parse the XML in a single pass with a validating SAX parser, building
+     * the interface data structures as the elements are read instead of
+     * building a DOM tree first.  Validation and error reporting are the same
+     * as for the DOM parser.
+     * @param XMLSource The input XML
+     * @throws Exception 
+     */
+    private void parseXMLStreaming(InputSource XMLSource) throws Exception {
+        SAXParser parser = AJNBuilderPool.acquireSAXParser();
+        try {
+            parser.parse(XMLSource, new StreamingHandler());
+        } finally {
+            AJNBuilderPool.release(parser);
+        }
+
+        finishDocument();
+    }
+
+    /**
+     * Check the name of the top level node against the command line options.
+     * @param rootName the name attribute of the top level node
+     * @throws SAXParseException
+     */
+    private void checkRootNode(String rootName) throws SAXParseException {
+        currentNodeName = rootName;
                 
         /*
          * check to make sure the class names are consistent, exits the tool if
@@ -109,11 +299,14 @@ public class ParseAJXML {
          */
         checkObjectPath(currentNodeName);
         checkNodeName(currentNodeName);
+    }
 
-        parseNode(root, false);
-
+    /**
+     * Called once the whole document has been parsed.
+     */
+    private void finishDocument() {
         //If there has been a name collision, update each object's name
-        if(useFullPath) {
+        if(config.useFullPath) {
             for(ObjectData obj : config.objects) {
                 obj.updateObjectName();
             }
@@ -121,27 +314,8 @@ public class ParseAJXML {
     }
 
     private void parseNode(Element root, boolean isNested) throws Exception {
-        String nodeName = root.getNodeName();
-        currentNodeName = root.getAttribute("name");
-
-        ObjectData newNode = new ObjectData();
-        if(isNested) {
-            verifyNestedNodeName(currentNodeName);
-            newNode.objName = currentNodeName;
-            currentObjectPath = currentObjectPath + "/" + newNode.objName;
-            newNode.objPath = currentObjectPath;
-        }
-        else {
-            newNode.objName = config.className;
-            if(isUnnamedRoot){
-               currentObjectPath = config.objPath;
-               newNode.objPath = "/";
-            }
-            else {
-                currentObjectPath = config.objPath + "/" + config.className;
-                newNode.objPath = currentObjectPath;
-            }
-        }
+        String nodeName;
+        ObjectData newNode = startNode(root.getAttribute("name"), isNested);
 
         NodeList children = root.getChildNodes();
 
@@ -173,25 +347,68 @@ public class ParseAJXML {
                  * ignore those interfaces because they are already implemented
                  * by the API
                  */
-                if(parseNameAttr(node).equals("org.freedesktop.DBus.Introspectable") ||
-                   parseNameAttr(node).equals("org.freedesktop.DBus.Properties")){
+                if(isStandardInterface(parseNameAttr(node))){
                     continue;
                 }
                 else{
                     parseInterface(node);
-                    InterfaceDescription temp = inter;
-                    temp = validateInterface(temp);
-                    //Add the interface to the temporary list
-                    tempInterfaces.add(temp);
-                    inter = new InterfaceDescription();
+                    finishInterface(tempInterfaces);
                 }
             }
             // Handle sub node parsing
             else if ("node".equals(nodeName)) {
                 parseNode((Element)node, true);
-                currentObjectPath = currentObjectPath.substring(0, currentObjectPath.lastIndexOf("/"));
+                endNestedNode();
             }
         }
+        finishNode(newNode, isNested, tempInterfaces);
+    }
+
+    /**
+     * Create the object for a node and update the current object path.
+     * @param name the name attribute of the node
+     * @param isNested true if the node is not the top level node
+     * @return the new object
+     * @throws SAXParseException
+     */
+    private ObjectData startNode(String name, boolean isNested) throws SAXParseException {
+        currentNodeName = name;
+
+        ObjectData newNode = new ObjectData();
+        if(isNested) {
+            verifyNestedNodeName(currentNodeName);
+            newNode.objName = currentNodeName;
+            currentObjectPath = currentObjectPath + "/" + newNode.objName;
+            newNode.objPath = currentObjectPath;
+        }
+        else {
+            newNode.objName = config.className;
+            if(isUnnamedRoot){
+               currentObjectPath = config.objPath;
+               newNode.objPath = "/";
+            }
+            else {
+                currentObjectPath = config.objPath + "/" + config.className;
+                newNode.objPath = currentObjectPath;
+            }
+        }
+        return newNode;
+    }
+
+    /**
+     * Pop a nested node's name off of the current object path.
+     */
+    private void endNestedNode() {
+        currentObjectPath = currentObjectPath.substring(0, currentObjectPath.lastIndexOf("/"));
+    }
+
+    /**
+     * Once all of a node's children have been parsed, combine its interfaces
+     * and add the object to the master list.
+     * @throws SAXParseException
+     */
+    private void finishNode(ObjectData newNode, boolean isNested,
+                            ArrayList<InterfaceDescription> tempInterfaces) throws SAXParseException {
         //If the node contains 1+ interfaces...
         if(!tempInterfaces.isEmpty()) {
             //Make sure that the object name is present
@@ -209,6 +426,28 @@ public class ParseAJXML {
             config.objects.add(newNode);
         }
     }
+
+    /**
+     * Validate the interface that was just parsed, add it to the node's list
+     * of interfaces and start a new one.
+     * @throws SAXParseException
+     */
+    private void finishInterface(ArrayList<InterfaceDescription> tempInterfaces) throws SAXParseException {
+        InterfaceDescription temp = inter;
+        temp = validateInterface(temp);
+        //Add the interface to the temporary list
+        tempInterfaces.add(temp);
+        inter = new InterfaceDescription();
+    }
+
+    /**
+     * @return true for the interfaces that are already implemented by the
+     * AllJoyn API and are not generated.
+     */
+    private boolean isStandardInterface(String name) {
+        return name.equals("org.freedesktop.DBus.Introspectable") ||
+               name.equals("org.freedesktop.DBus.Properties");
+    }
   
     /**
      * Given a list of InterfaceDescriptions, this will combine them and return
@@ -257,10 +496,16 @@ public class ParseAJXML {
      * @throws SAXParseException
      */
     private void checkDuplicateNames(ObjectData obj) throws SAXParseException {
-       if(config.objects.contains(obj)) {
-            SAXParseException error =
-                new SAXParseException("CodeGen error: XML file contains nested objects with the same name.", null);
-            throw error;
+       for(ObjectData other : config.objects) {
+            if(obj.equals(other)) {
+                SAXParseException error =
+                    new SAXParseException("CodeGen error: XML file contains nested objects with the same name.", null);
+                throw error;
+            }
+            //If the names collide the objects are named by their full paths
+            if(obj.objName.equals(other.objName)) {
+                config.useFullPath = true;
+            }
        }
     }
 
@@ -362,6 +607,10 @@ public class ParseAJXML {
              * Check if the two interfaces are the same.
              * If not, throw an exception.
              */
+            curIface.sortMembers();
+            if(temp != curIface) {
+                temp.sortMembers();
+            }
             if(curIface.equals(temp)) {
                 return temp;
             }
@@ -375,7 +624,7 @@ public class ParseAJXML {
          * If so, use full names for everything.
          */ 
         if(shortNames.containsKey(curIface.getName())) {
-            useFullNames = true;
+            config.useFullNames = true;
         }
         else {
             shortNames.put(curIface.getName(), true);
@@ -458,46 +707,46 @@ public class ParseAJXML {
             String type = text.substring(0, text.indexOf('='));
             String data = text.substring(text.indexOf('=')+2,
                                          text.lastIndexOf('"'));
-
-            if(type.equals("access")){
-                newProp.setAccess(data);
-            }else if(type.equals("name")){
-                newProp.setName(data);
-            }else if(type.equals("type")){
-                if(config.runnable && data.contains("v")){
-                    data = "au";
-                    SAXParseException warning = 
-                        new SAXParseException("Variant type not supported in runnable mode.  Treating " + newProp.getName() + " as unsigned int array.", null);
-                    errorHandler.warning(warning);
-                }
-                newProp.setSignature(data);
-            }else{
-                SAXParseException error=
-                    new SAXParseException(("CodeGen error: parsing " +
-                                           newProp.getName() + "property."),
-                                          null);
-                throw error;
-            }
+            setPropertyAttr(newProp, type, data);
         }
         newProp.setInterfaceName(inter.getFullName());
         inter.addNewProperty(newProp);
     }
 
+    /**
+     * Set one attribute of a property from the XML.
+     * @throws SAXParseException 
+     */
+    private void setPropertyAttr(PropertyDef newProp, String type, String data) throws SAXParseException{
+        if(type.equals("access")){
+            newProp.setAccess(data);
+        }else if(type.equals("name")){
+            newProp.setName(data);
+        }else if(type.equals("type")){
+            if(config.runnable && data.contains("v")){
+                data = "au";
+                SAXParseException warning = 
+                    new SAXParseException("Variant type not supported in runnable mode.  Treating " + newProp.getName() + " as unsigned int array.", null);
+                errorHandler.warning(warning);
+            }
+            newProp.setSignature(data);
+        }else{
+            SAXParseException error=
+                new SAXParseException(("CodeGen error: parsing " +
+                                       newProp.getName() + "property."),
+                                      null);
+            throw error;
+        }
+    }
+
     /**
      * Parse Method
      * @throws SAXParseException 
      */
     private void parseMethod(Node node) throws SAXParseException {
         int i;
-        int count1 = 0; //used to name un-named input args
-        int count2 = 0;//used to name un-named output args
-        MethodDef newMethod = new MethodDef();
-        newMethod.setName(parseNameAttr(node));
-        newMethod.setType("alljoyn::MESSAGE_METHOD_CALL");
-        String inArgsTypes = "";
-        String inArgsNames = "";
-        String outArgsTypes = "";
-        String outArgsNames = "";
+        int[] unnamedCount = new int[2]; //used to name un-named in/out args
+        MethodDef newMethod = newMethodDef(parseNameAttr(node));
 
         NodeList children = node.getChildNodes();
         int numChildren = children.getLength();
@@ -511,71 +760,109 @@ public class ParseAJXML {
             
             String nodeName = node2.getNodeName();
             if ("arg".equals(nodeName)) {
-                ArgDef newArg = parseMethodArgList(node2);
-                if(newMethod.hasArgName(newArg.getArgName())){
-                    SAXParseException error =
-                        new SAXParseException(("CodeGen error: " +
-                                               newMethod.getName() +
-                                               " cannot have multiple args with the same name."),
-                                              null);
-                    throw error;
-                }
-
-                if (newArg.getArgDirection().equals("in")) {
-                    //if the arg is not named, check the -l option
-                    if (newArg.getArgName().equals("")) {
-                        if (config.useStrict) {
-                            SAXParseException error =
-                                new SAXParseException("CodeGen error: In "
-                                                      + newMethod.getName()
-                                                      + " method, all arguments must be named. Use the -l option for auto-generated arg names",
-                                                      null);
-                            throw error;
-                        } else {
-                            newArg.argName = "inputArg" + count1;
-                            count1++;
-                        }
-                    }
-                    
-                    newMethod.inArgCount++;
-                    inArgsTypes += newArg.getArgType();
-                    inArgsNames += newArg.getArgName() + ",";
-                } else if (newArg.getArgDirection().equals("out")) {
-                    //if arg is not named, check -l option
-                    if (newArg.getArgName().equals("")) {
-                        if (config.useStrict) {
-                            SAXParseException error =
-                                new SAXParseException("CodeGen error: In "
-                                                      + newMethod.getName()
-                                                      + " method, all arguments must be named. Use the -l option for auto-generated arg names",
-                                                      null);
-                            throw error;
-                        } else {
-                            newArg.argName = "outputArg" + count2;
-                            count2++;
-                        }
-                    }
-                    
-                    newMethod.outArgCount++;
-                    outArgsTypes += newArg.getArgType();
-                    outArgsNames += newArg.getArgName() + ",";
-                }
-                
-                //add the new argument to the method
-                newMethod.argList.add(newArg);
-                
+                addMethodArg(newMethod, parseMethodArgList(node2), unnamedCount);
             }else if("annotation".equals(nodeName)){
                 NamedNodeMap attrList = node2.getAttributes();
                 if(attrList.getNamedItem("name").getNodeValue().equals("org.freedesktop.DBus.Method.NoReply") &&
                    attrList.getNamedItem("value").getNodeValue().equals("true")){
-                    newMethod.noReply = true;
+                    newMethod.setNoReply(true);
                 }else if(attrList.getNamedItem("name").getNodeValue().equals("org.alljoyn.Bus.Item.IsSecure") &&
                          attrList.getNamedItem("value").getNodeValue().equals("true")){
-                    newMethod.isSecure = true;
+                    newMethod.setSecure(true);
                 }
             }
         }
 
+        finishMethod(newMethod);
+    }
+
+    /**
+     * Create a new, empty method with the given name.
+     */
+    private MethodDef newMethodDef(String name) {
+        MethodDef newMethod = new MethodDef();
+        newMethod.setName(name);
+        newMethod.setType("alljoyn::MESSAGE_METHOD_CALL");
+        return newMethod;
+    }
+
+    /**
+     * Validate an argument and add it to the method.  Un-named arguments are
+     * given generated names if the -l option was used.
+     * @param unnamedCount the number of un-named in [0] and out [1] args seen
+     *                     so far in this method.
+     * @throws SAXParseException 
+     */
+    private void addMethodArg(MethodDef newMethod, ArgDef newArg, int[] unnamedCount) throws SAXParseException {
+        if(newMethod.hasArgName(newArg.getArgName())){
+            SAXParseException error =
+                new SAXParseException(("CodeGen error: " +
+                                       newMethod.getName() +
+                                       " cannot have multiple args with the same name."),
+                                      null);
+            throw error;
+        }
+
+        if (newArg.getArgDirection().equals("in")) {
+            //if the arg is not named, check the -l option
+            if (newArg.getArgName().equals("")) {
+                if (config.useStrict) {
+                    SAXParseException error =
+                        new SAXParseException("CodeGen error: In "
+                                              + newMethod.getName()
+                                              + " method, all arguments must be named. Use the -l option for auto-generated arg names",
+                                              null);
+                    throw error;
+                } else {
+                    newArg.argName = "inputArg" + unnamedCount[0];
+                    unnamedCount[0]++;
+                }
+            }
+            
+            newMethod.inArgCount++;
+        } else if (newArg.getArgDirection().equals("out")) {
+            //if arg is not named, check -l option
+            if (newArg.getArgName().equals("")) {
+                if (config.useStrict) {
+                    SAXParseException error =
+                        new SAXParseException("CodeGen error: In "
+                                              + newMethod.getName()
+                                              + " method, all arguments must be named. Use the -l option for auto-generated arg names",
+                                              null);
+                    throw error;
+                } else {
+                    newArg.argName = "outputArg" + unnamedCount[1];
+                    unnamedCount[1]++;
+                }
+            }
+            
+            newMethod.outArgCount++;
+        }
+        
+        //add the new argument to the method
+        newMethod.addArg(newArg);
+    }
+
+    /**
+     * Build the in and out signatures and name lists of a method once all of
+     * its arguments have been parsed, and add it to the current interface.
+     */
+    private void finishMethod(MethodDef newMethod) {
+        String inArgsTypes = "";
+        String inArgsNames = "";
+        String outArgsTypes = "";
+        String outArgsNames = "";
+
+        for (ArgDef arg : newMethod.getArgList()) {
+            if (arg.getArgDirection().equals("in")) {
+                inArgsTypes += arg.getArgType();
+                inArgsNames += arg.getArgName() + ",";
+            } else if (arg.getArgDirection().equals("out")) {
+                outArgsTypes += arg.getArgType();
+                outArgsNames += arg.getArgName() + ",";
+            }
+        }
+
         if (inArgsNames.equals("")) {
             inArgsNames = "NULL";
             inArgsTypes = "NULL";
@@ -606,9 +893,9 @@ public class ParseAJXML {
         int numAttr;
         NamedNodeMap attrList;
         Node node2;
-        String name = "";
-        String direction = "";
-        String type = "";
+        String name = null;
+        String direction = null;
+        String type = null;
         String variantType = null;
 
         attrList = node.getAttributes();
@@ -622,22 +909,12 @@ public class ParseAJXML {
 
             node2 = attrList.getNamedItem("direction");
             if (null != node2) {
-                if(node2.getNodeValue().equals("unset")){
-                    direction = "in";
-                }else{                                        
-                    direction = node2.getNodeValue();
-                }
+                direction = node2.getNodeValue();
             }
 
             node2 = attrList.getNamedItem("type");
             if (null != node2) {
                 type = node2.getNodeValue();
-                if(config.runnable && type.contains("v")){
-                    type = "au";
-                    SAXParseException warning =
-                        new SAXParseException("Variant type not supported in runnable mode.  Treating " + name + " as unsigned int array.", null);
-                    errorHandler.warning(warning);
-                }
             }
                         
             node2 = attrList.getNamedItem("annotation");
@@ -652,6 +929,34 @@ public class ParseAJXML {
             return null;
         }
         
+        return newMethodArg(name, direction, type, variantType);
+    }
+
+    /**
+     * Create a method argument from its XML attribute values, any of which
+     * may be null if the attribute is not present.
+     * @throws SAXParseException 
+     */
+    private ArgDef newMethodArg(String name, String direction, String type, String variantType) throws SAXParseException {
+        if (null == name) {
+            name = "";
+        }
+
+        if (null == direction) {
+            direction = "";
+        } else if(direction.equals("unset")){
+            direction = "in";
+        }
+
+        if (null == type) {
+            type = "";
+        } else if(config.runnable && type.contains("v")){
+            type = "au";
+            SAXParseException warning =
+                new SAXParseException("Variant type not supported in runnable mode.  Treating " + name + " as unsigned int array.", null);
+            errorHandler.warning(warning);
+        }
+
         return new ArgDef(name, type, direction, variantType);
     }
 
@@ -660,12 +965,8 @@ public class ParseAJXML {
      * @throws SAXException 
      */
     private void parseSignal(Node node) throws SAXParseException {
-        SignalDef newSignal = new SignalDef();
-        newSignal.setName(parseNameAttr(node));
-        newSignal.setType("alljoyn::MESSAGE_SIGNAL");
-        String inArgsTypes = "";
-        String inArgsNames = "";
-        int count = 0;
+        SignalDef newSignal = newSignalDef(parseNameAttr(node));
+        int[] unnamedCount = new int[1];
 
         NodeList children = node.getChildNodes();
         int numChildren = children.getLength();
@@ -679,43 +980,75 @@ public class ParseAJXML {
 
             String nodeName = node2.getNodeName();
             if ("arg".equals(nodeName)) {
-                ArgDef newArg = parseSignalAttrList(node2);
-                if(newSignal.hasArgName(newArg.getArgName())){
-                    SAXParseException error =
-                        new SAXParseException(("CodeGen error: " +
-                                               newSignal.getName() +
-                                               " can not have multiple args with the same name."),
-                                              null);
-                    throw error;
-                }
-
-                //if the arg is not named, check the -l option
-                if (newArg.getArgName().equals("")) {
-                    if (config.useStrict) {
-                        SAXParseException error =
-                            new SAXParseException("CodeGen error: In "
-                                                  + newSignal.getName()
-                                                  + "signal, all arguments must be named. Use the -l option for auto-generated arg names",
-                                                  null);
-                        throw error;
-                    } else {
-                        newArg.argName = "signalArg" + count;
-                        count++;
-                    }
-                }
-
-                //add the arg to the signal, and add the name and type to inArgsTypes and inArgsNames
-                newSignal.argList.add(newArg);
-                inArgsTypes += newArg.getArgType();
-                inArgsNames += newArg.getArgName() + ",";
+                addSignalArg(newSignal, parseSignalAttrList(node2), unnamedCount);
             }else if("annotation".equals(nodeName)){
             	//check for the IsSecure annotation
                 if(node2.getAttributes().getNamedItem("name").getNodeValue().equals("org.alljoyn.Bus.Item.IsSecure") &&
                    node2.getAttributes().getNamedItem("value").getNodeValue().equals("true")){
-                    newSignal.isSecure = true;
+                    newSignal.setSecure(true);
                 }
             }
         }
+        finishSignal(newSignal);
+    }
+
+    /**
+     * Create a new, empty signal with the given name.
+     */
+    private SignalDef newSignalDef(String name) {
+        SignalDef newSignal = new SignalDef();
+        newSignal.setName(name);
+        newSignal.setType("alljoyn::MESSAGE_SIGNAL");
+        return newSignal;
+    }
+
+    /**
+     * Validate an argument and add it to the signal.  Un-named arguments are
+     * given generated names if the -l option was used.
+     * @param unnamedCount the number of un-named args seen so far in [0].
+     * @throws SAXParseException 
+     */
+    private void addSignalArg(SignalDef newSignal, ArgDef newArg, int[] unnamedCount) throws SAXParseException {
+        if(newSignal.hasArgName(newArg.getArgName())){
+            SAXParseException error =
+                new SAXParseException(("CodeGen error: " +
+                                       newSignal.getName() +
+                                       " can not have multiple args with the same name."),
+                                      null);
+            throw error;
+        }
+
+        //if the arg is not named, check the -l option
+        if (newArg.getArgName().equals("")) {
+            if (config.useStrict) {
+                SAXParseException error =
+                    new SAXParseException("CodeGen error: In "
+                                          + newSignal.getName()
+                                          + "signal, all arguments must be named. Use the -l option for auto-generated arg names",
+                                          null);
+                throw error;
+            } else {
+                newArg.argName = "signalArg" + unnamedCount[0];
+                unnamedCount[0]++;
+            }
+        }
+
+        //add the arg to the signal
+        newSignal.addArg(newArg);
+    }
+
+    /**
+     * Build the signature and name list of a signal once all of its arguments
+     * have been parsed, and add it to the current interface.
+     */
+    private void finishSignal(SignalDef newSignal) {
+        String inArgsTypes = "";
+        String inArgsNames = "";
+
+        for (ArgDef arg : newSignal.getArgList()) {
+            inArgsTypes += arg.getArgType();
+            inArgsNames += arg.getArgName() + ",";
+        }
         if (!inArgsNames.equals("")) {
             inArgsNames = inArgsNames.substring(0, inArgsNames.length() - 1);
         }
@@ -750,12 +1083,7 @@ public class ParseAJXML {
 
                 if ("type".equals(nodeName)) {
                     type = attrList.item(i).getNodeValue();
-                    if(config.runnable && type.contains("v")){
-                        type = "au";
-                        SAXParseException warning =
-                            new SAXParseException("Variant type not supported in runnable mode.  Treating " + name + " as unsigned int array.", null);
-                        errorHandler.warning(warning);
-                    }
+                    type = checkSignalArgType(name, type);
                 }
                                 
                 if("direction".equals(nodeName) && !attrList.item(i).getNodeValue().equals("unset")){
@@ -774,9 +1102,32 @@ public class ParseAJXML {
             return null;
         }
 
+        return newSignalArg(name, type, hasDirection, variantType);
+    }
+
+    /**
+     * Substitute the type of a signal argument in runnable mode, which doesn't
+     * support variants.
+     * @throws SAXParseException 
+     */
+    private String checkSignalArgType(String name, String type) throws SAXParseException {
+        if(config.runnable && type.contains("v")){
+            type = "au";
+            SAXParseException warning =
+                new SAXParseException("Variant type not supported in runnable mode.  Treating " + name + " as unsigned int array.", null);
+            errorHandler.warning(warning);
+        }
+        return type;
+    }
+
+    /**
+     * Create a signal argument, warning if the XML gave it a direction.
+     * @throws SAXParseException 
+     */
+    private ArgDef newSignalArg(String name, String type, boolean hasDirection, String variantType) throws SAXParseException {
         /*
-         * This is done outside the for loop because the signal name might not
-         * be parsed when direction is parsed.
+         * This is done after all attributes are read because the signal name
+         * might not be parsed when direction is parsed.
          */
         try{
             if(hasDirection){
@@ -790,11 +1141,337 @@ public class ParseAJXML {
         }catch(SAXParseException e){
             errorHandler.warning(e);
         }
-        
-        
 
         return new ArgDef(name, type, "in", variantType);
     }
+
+    /**
+     * One XML file that has been read and validated but not yet added to the
+     * data structure.  It records the warnings and errors reported while
+     * reading and, when streaming, the element events, so that they can be
+     * replayed later in order.  The element events take memory in
+     * proportion to the size of the file.  A fatal error stops the read as
+     * it would have stopped the tool.
+     */
+    private class ParsedFile extends DefaultHandler {
+        public Document document;
+        public Exception failure;
+        private boolean recordElements;
+        private ArrayList<ParseEvent> events = new ArrayList<ParseEvent>();
+
+        public ParsedFile(boolean recordElements) {
+            this.recordElements = recordElements;
+        }
+
+        /**
+         * Replay the recorded events, in order.
+         * @param content receives the element events, if any were recorded.
+         * @param errors receives the warnings and errors.
+         * @throws SAXException
+         */
+        public void replay(ContentHandler content, ErrorHandler errors) throws SAXException {
+            for(ParseEvent event : events) {
+                event.replay(content, errors);
+            }
+        }
+
+        public void startElement(String uri, String localName, String qName,
+                                 Attributes attrs) {
+            if(recordElements) {
+                events.add(new StartElement(qName, new AttributesImpl(attrs)));
+            }
+        }
+
+        public void endElement(String uri, String localName, String qName) {
+            if(recordElements) {
+                events.add(new EndElement(qName));
+            }
+        }
+
+        public InputSource resolveEntity(String publicId, String systemId)
+            throws IOException, SAXException {
+            return new AJNEntityResolver().resolveEntity(publicId, systemId);
+        }
+
+        public void warning(SAXParseException e) {
+            events.add(new ParseWarning(e));
+        }
+
+        public void error(SAXParseException e) throws SAXException {
+            events.add(new ParseError(e));
+            if(errorHandler.isFatal(e)) {
+                throw e;
+            }
+        }
+
+        public void fatalError(SAXParseException e) throws SAXException {
+            events.add(new ParseFatalError(e));
+            throw e;
+        }
+    } // class ParsedFile
+
+    /**
+     * One event recorded by a ParsedFile.
+     */
+    private abstract static class ParseEvent {
+        abstract void replay(ContentHandler content, ErrorHandler errors)
+            throws SAXException;
+    }
+
+    /**
+     * The start of an element, with its attributes.
+     */
+    private static class StartElement extends ParseEvent {
+        final String qName;
+        final Attributes attrs;
+
+        StartElement(String qName, Attributes attrs) {
+            this.qName = qName;
+            this.attrs = attrs;
+        }
+
+        void replay(ContentHandler content, ErrorHandler errors)
+            throws SAXException {
+            content.startElement("", "", qName, attrs);
+        }
+    }
+
+    /**
+     * The end of an element.
+     */
+    private static class EndElement extends ParseEvent {
+        final String qName;
+
+        EndElement(String qName) {
+            this.qName = qName;
+        }
+
+        void replay(ContentHandler content, ErrorHandler errors)
+            throws SAXException {
+            content.endElement("", "", qName);
+        }
+    }
+
+    /**
+     * A warning reported by the parser.
+     */
+    private static class ParseWarning extends ParseEvent {
+        final SAXParseException e;
+
+        ParseWarning(SAXParseException e) {
+            this.e = e;
+        }
+
+        void replay(ContentHandler content, ErrorHandler errors)
+            throws SAXException {
+            errors.warning(e);
+        }
+    }
+
+    /**
+     * An error reported by the parser.
+     */
+    private static class ParseError extends ParseEvent {
+        final SAXParseException e;
+
+        ParseError(SAXParseException e) {
+            this.e = e;
+        }
+
+        void replay(ContentHandler content, ErrorHandler errors)
+            throws SAXException {
+            errors.error(e);
+        }
+    }
+
+    /**
+     * A fatal error reported by the parser, always the last event.
+     */
+    private static class ParseFatalError extends ParseEvent {
+        final SAXParseException e;
+
+        ParseFatalError(SAXParseException e) {
+            this.e = e;
+        }
+
+        void replay(ContentHandler content, ErrorHandler errors)
+            throws SAXException {
+            errors.fatalError(e);
+        }
+    }
+
+    /**
+     * SAX content handler that builds the same data structures as the DOM
+     * code above in a single pass over the document.  A stack of element
+     * kinds tracks where in the document the parser is; elements the DOM code
+     * would not look at, and everything inside them, are ignored.
+     */
+    private class StreamingHandler extends DefaultHandler {
+        private ArrayList<String> elements = new ArrayList<String>();
+        private ArrayList<ObjectData> nodes = new ArrayList<ObjectData>();
+        private ArrayList<ArrayList<InterfaceDescription>> nodeInterfaces =
+            new ArrayList<ArrayList<InterfaceDescription>>();
+        private MethodDef method;
+        private SignalDef signal;
+        private int[] unnamedCount;
+
+        public void startElement(String uri, String localName, String qName,
+                                 Attributes attrs) throws SAXException {
+            String parent = elements.isEmpty() ? null : elements.get(elements.size() - 1);
+            String kind = "ignore";
+
+            if(parent == null) {
+                if("node".equals(qName)) {
+                    checkRootNode(attrValue(attrs, "name"));
+                    startNodeElement(attrs, false);
+                    kind = "node";
+                }
+            }else if(parent.equals("node")) {
+                if("interface".equals(qName)) {
+                    if(!isStandardInterface(attrValue(attrs, "name"))) {
+                        inter.setName(attrValue(attrs, "name"));
+                        kind = "interface";
+                    }
+                }else if("node".equals(qName)) {
+                    startNodeElement(attrs, true);
+                    kind = "node";
+                }
+            }else if(parent.equals("interface")) {
+                if("method".equals(qName)) {
+                    method = newMethodDef(attrValue(attrs, "name"));
+                    unnamedCount = new int[2];
+                    kind = "method";
+                }else if("signal".equals(qName)) {
+                    signal = newSignalDef(attrValue(attrs, "name"));
+                    unnamedCount = new int[1];
+                    kind = "signal";
+                }else if("property".equals(qName)) {
+                    PropertyDef newProp = new PropertyDef();
+                    newProp.setName(attrValue(attrs, "name"));
+                    for(int i = 0; i < attrs.getLength(); i++) {
+                        setPropertyAttr(newProp, attrs.getQName(i), attrs.getValue(i));
+                    }
+                    newProp.setInterfaceName(inter.getFullName());
+                    inter.addNewProperty(newProp);
+                    kind = "property";
+                }else if("annotation".equals(qName)) {
+                    //So far the "Secure" annotation is the only being checked for interfaces.
+                    if(isAnnotation(attrs, "org.alljoyn.Bus.Item.IsSecure")) {
+                        inter.isSecure = true;
+                    }
+                    kind = "annotation";
+                }
+            }else if(parent.equals("method")) {
+                if("arg".equals(qName)) {
+                    if(attrs.getLength() > 0) {
+                        addMethodArg(method,
+                                     newMethodArg(attrs.getValue("name"),
+                                                  attrs.getValue("direction"),
+                                                  attrs.getValue("type"),
+                                                  null),
+                                     unnamedCount);
+                    }
+                    kind = "arg";
+                }else if("annotation".equals(qName)) {
+                    if(isAnnotation(attrs, "org.freedesktop.DBus.Method.NoReply")) {
+                        method.setNoReply(true);
+                    }else if(isAnnotation(attrs, "org.alljoyn.Bus.Item.IsSecure")) {
+                        method.setSecure(true);
+                    }
+                    kind = "annotation";
+                }
+            }else if(parent.equals("signal")) {
+                if("arg".equals(qName)) {
+                    if(attrs.getLength() > 0) {
+                        String name = attrValue(attrs, "name");
+                        String type = attrValue(attrs, "type");
+                        String direction = attrs.getValue("direction");
+                        if(attrs.getIndex("type") != -1) {
+                            type = checkSignalArgType(name, type);
+                        }
+                        addSignalArg(signal,
+                                     newSignalArg(name,
+                                                  type,
+                                                  direction != null && !direction.equals("unset"),
+                                                  null),
+                                     unnamedCount);
+                    }
+                    kind = "arg";
+                }else if("annotation".equals(qName)) {
+                    //check for the IsSecure annotation
+                    if(isAnnotation(attrs, "org.alljoyn.Bus.Item.IsSecure")) {
+                        signal.setSecure(true);
+                    }
+                    kind = "annotation";
+                }
+            }
+
+            elements.add(kind);
+        }
+
+        public void endElement(String uri, String localName, String qName)
+            throws SAXException {
+            String kind = elements.remove(elements.size() - 1);
+
+            if(kind.equals("node")) {
+                ObjectData newNode = nodes.remove(nodes.size() - 1);
+                ArrayList<InterfaceDescription> tempInterfaces =
+                    nodeInterfaces.remove(nodeInterfaces.size() - 1);
+                boolean isNested = !nodes.isEmpty();
+                finishNode(newNode, isNested, tempInterfaces);
+                if(isNested) {
+                    endNestedNode();
+                }
+            }else if(kind.equals("interface")) {
+                finishInterface(nodeInterfaces.get(nodeInterfaces.size() - 1));
+            }else if(kind.equals("method")) {
+                finishMethod(method);
+                method = null;
+            }else if(kind.equals("signal")) {
+                finishSignal(signal);
+                signal = null;
+            }
+        }
+
+        private void startNodeElement(Attributes attrs, boolean isNested)
+            throws SAXException {
+            nodes.add(startNode(attrValue(attrs, "name"), isNested));
+            nodeInterfaces.add(new ArrayList<InterfaceDescription>());
+        }
+
+        /**
+         * @return the value of the attribute, or "" if it is not present.
+         */
+        private String attrValue(Attributes attrs, String name) {
+            String value = attrs.getValue(name);
+            return value == null ? "" : value;
+        }
+
+        /**
+         * @return true if the annotation has the given name and is "true"
+         */
+        private boolean isAnnotation(Attributes attrs, String name) {
+            return name.equals(attrs.getValue("name")) &&
+                   "true".equals(attrs.getValue("value"));
+        }
+
+        public InputSource resolveEntity(String publicId, String systemId)
+            throws IOException, SAXException {
+            return new AJNEntityResolver().resolveEntity(publicId, systemId);
+        }
+
+        public void warning(SAXParseException e) throws SAXException {
+            errorHandler.warning(e);
+        }
+
+        public void error(SAXParseException e) throws SAXException {
+            errorHandler.error(e);
+        }
+
+        public void fatalError(SAXParseException e) throws SAXException {
+            errorHandler.fatalError(e);
+        }
+    } // class StreamingHandler
 } // class CodeGenerator
 
 
@@ -811,3 +1488,108 @@ class AJNEntityResolver implements EntityResolver {
         return new InputSource(new StringReader(""));
     }
 }
+
+
+/**
+ * Process-wide cache of the compiled introspect.xsd schema and pools of
+ * validating DocumentBuilders and SAX parsers built from it.  Compiling the schema is the
+ * most expensive part of parsing a small file, so it is done once and shared
+ * by every parse.  Schema objects are thread-safe; parsers are not, so each
+ * parse takes a parser out of its pool and returns it when done.
+ */
+class AJNBuilderPool {
+    private static Schema schema = null;
+    private static DocumentBuilderFactory factory = null;
+    private static ConcurrentLinkedQueue<DocumentBuilder> builders =
+        new ConcurrentLinkedQueue<DocumentBuilder>();
+    private static SAXParserFactory saxFactory = null;
+    private static ConcurrentLinkedQueue<SAXParser> saxParsers =
+        new ConcurrentLinkedQueue<SAXParser>();
+
+    /**
+     * @return the compiled introspect.xsd schema, compiling it on first use.
+     * @throws SAXException if the bundled schema can't be compiled
+     */
+    public static synchronized Schema getSchema() throws SAXException {
+        if(schema == null){
+            URL url = AJNBuilderPool.class.getResource("src/config/introspect.xsd");
+            SchemaFactory schemaFactory =
+                SchemaFactory.newInstance( XMLConstants.W3C_XML_SCHEMA_NS_URI );
+            schema = schemaFactory.newSchema(url);
+        }
+        return schema;
+    }
+
+    /**
+     * Take a validating builder out of the pool, creating one if the pool is
+     * empty.
+     * @param errorHandler the error handler the builder reports to.
+     * @return a builder that must be handed back with release().
+     * @throws Exception 
+     */
+    public static DocumentBuilder acquire(ErrorHandler errorHandler) throws Exception {
+        DocumentBuilder builder = builders.poll();
+        if(builder == null){
+            builder = newBuilder();
+        }
+
+        /*
+         * Overwrite the builder's entity resolver so it doesn't try to look up
+         * external introspect.dtd
+         */
+        builder.setEntityResolver(new AJNEntityResolver());
+
+        //set the parser's error handler to the custom error handler
+        builder.setErrorHandler(errorHandler);
+        return builder;
+    }
+
+    /**
+     * Return a builder to the pool so it can be reused for the next file.
+     * @param builder the builder obtained from acquire()
+     */
+    public static void release(DocumentBuilder builder) {
+        builder.reset();
+        builders.offer(builder);
+    }
+
+    /**
+     * Take a validating SAX parser out of the pool, creating one if the pool
+     * is empty.
+     * @return a parser that must be handed back with release().
+     * @throws Exception 
+     */
+    public static SAXParser acquireSAXParser() throws Exception {
+        SAXParser parser = saxParsers.poll();
+        if(parser == null){
+            parser = newSAXParser();
+        }
+        return parser;
+    }
+
+    /**
+     * Return a SAX parser to the pool so it can be reused for the next file.
+     * @param parser the parser obtained from acquireSAXParser()
+     */
+    public static void release(SAXParser parser) {
+        parser.reset();
+        saxParsers.offer(parser);
+    }
+
+    private static synchronized SAXParser newSAXParser() throws Exception {
+        if(saxFactory == null){
+            saxFactory = SAXParserFactory.newInstance();
+            saxFactory.setSchema(getSchema());
+        }
+        return saxFactory.newSAXParser();
+    }
+
+    private static synchronized DocumentBuilder newBuilder() throws Exception {
+        if(factory == null){
+            factory = DocumentBuilderFactory.newInstance();
+            //set the DocumentBuilderFactory's schema to introspect.xsd
+            factory.setSchema(getSchema());
+        }
+        return factory.newDocumentBuilder();
+    }
+}
@@ -14,9 +14,18 @@
  *    limitations under the License.
  ******************************************************************************/
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.FileReader;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * AjnReadFiles class opens and reads the files, and returns their contents as
@@ -24,6 +33,11 @@ import java.io.InputStream;
  * which the project is contained.
  */
 public class ReadFiles {
+    // the files read from the JAR, by name
+    private static final ConcurrentHashMap<String, byte[]> jarBytes =
+        new ConcurrentHashMap<String, byte[]>();
+    private static final ConcurrentHashMap<String, String> jarStrings =
+        new ConcurrentHashMap<String, String>();
 
     /**
      * Opens a file on the file system and returns the content in a string.
@@ -32,55 +46,117 @@ public class ReadFiles {
      */
     public static String getStringFromFileSys(String file) {
         BufferedReader reader;
-        String xml = "";
+        StringBuilder xml = new StringBuilder();
         String tempStr;
         try {
             reader = new BufferedReader(new FileReader(file));
             while (true) {
                 if ((tempStr = reader.readLine()) != null) {
-                    xml += tempStr + "\n";
+                    xml.append(tempStr).append('\n');
                 } else {
                     break;
                 }
             }
+            reader.close();
         } catch (Exception e) {
-            System.err.println(e.toString());
+            LogOutput.GetErrStream().println(e.toString());
             return null;
         }
-        return xml;
+        return xml.toString();
 
     } /* getStringFromFileSys() */
 
     /**
-     * Opens a file that is contained in the executable JAR of the application
-     * and returns the contents as a string.
+     * Opens a file on the file system as a byte stream backed by a file
+     * channel.  The bytes are handed to the XML parser as they are read, so
+     * the parser does the character decoding (honouring the encoding in the
+     * XML declaration) and the content is never copied into a String.
+     * @param file The file to be read.
+     * @return a stream over the file's content, or null if it can't be opened.
+     */
+    public static InputStream getStreamFromFileSys(String file) {
+        return getStreamFromFileSys(Paths.get(file));
+    } /* getStreamFromFileSys() */
+
+    /**
+     * @see #getStreamFromFileSys(String)
+     * @param file The path of the file to be read.
+     * @return a stream over the file's content, or null if it can't be opened.
+     */
+    public static InputStream getStreamFromFileSys(Path file) {
+        try {
+            return new BufferedInputStream(
+                Channels.newInputStream(Files.newByteChannel(file)));
+        } catch (Exception e) {
+            LogOutput.GetErrStream().println(e.toString());
+            return null;
+        }
+    } /* getStreamFromFileSys() */
+
+    /**
+     * Returns the contents of a file that is contained in the executable JAR
+     * of the application as a string.  The file is decoded as UTF-8.
+     * @see #getBytesFromJAR(String)
      * @param file: name of the file to open
      * @return the contents of the file as a String.
      */
     public static String getStringFromJAR(String file) {
-        final int bufSize = 1024;
-        int len;
-        String contents = "";
-        InputStream s;
-        byte[] buffer = new byte[bufSize];
+        String contents = jarStrings.get(file);
+        if(contents == null) {
+            contents = new String(getBytesFromJAR(file),
+                                  StandardCharsets.UTF_8);
+            jarStrings.putIfAbsent(file, contents);
+        }
+        return contents;
 
-        // read the entire contents of the file into 'contents' 
-        try {
-            s = Class.forName("ReadFiles").getResourceAsStream(file);
-            do {
-                len = s.read(buffer, 0, bufSize);
-                contents += new String(buffer, 0, len);
-            } while( len == bufSize );
-            s.close();
+    } /* getStringFromJAR() */
 
-        } catch(java.lang.Exception exp) {
-            System.out.println("Failed to read the '" + file + "' file");
-            System.out.println(exp);
-            System.exit(1);
+    /**
+     * Returns the contents of a file that is contained in the executable JAR
+     * of the application.  Each file is read completely the first time it is
+     * asked for and the bytes are kept, so later calls don't open the JAR
+     * again.  The array returned is shared and must not be modified.
+     * @param file: name of the file to open
+     * @return the contents of the file.
+     * @throws IllegalStateException if the file is not in the JAR or can't
+     * be read.
+     */
+    public static byte[] getBytesFromJAR(String file) {
+        byte[] contents = jarBytes.get(file);
+        if(contents == null) {
+            contents = readFromJAR(file);
+            byte[] previous = jarBytes.putIfAbsent(file, contents);
+            if(previous != null) {
+                contents = previous;
+            }
         }
-
         return contents;
 
-    } /* getStringFromFileInJAR() */
+    } /* getBytesFromJAR() */
+
+    private static byte[] readFromJAR(String file) {
+        InputStream s = ReadFiles.class.getResourceAsStream(file);
+        if(s == null) {
+            throw new IllegalStateException(
+                "Failed to read the '" + file + "' file: it is not in the JAR");
+        }
+        ByteArrayOutputStream contents = new ByteArrayOutputStream(4096);
+        byte[] buffer = new byte[4096];
+        int len;
+        try {
+            try {
+                // read until the end of the stream, a short read is not the end
+                while((len = s.read(buffer)) != -1) {
+                    contents.write(buffer, 0, len);
+                }
+            } finally {
+                s.close();
+            }
+        } catch(IOException e) {
+            throw new IllegalStateException(
+                "Failed to read the '" + file + "' file", e);
+        }
+        return contents.toByteArray();
+    }
 
 } /* Class: AjnReadFiles */
@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright 2013 Qualcomm Innovation Center, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ ******************************************************************************/
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Copies one of the files bundled in the JAR, such as
+ * src/c++/BusAttachmentMgr.h, to the output directory, replacing tokens such
+ * as @License@ wherever they are in the file.  The file is searched for the
+ * tokens once, when the emitter is created, and the emitters are cached, so
+ * writing the file again (in the daemon, for instance) only writes.  The
+ * parts of the file between the tokens are written straight from the bytes
+ * cached by ReadFiles, in one gathering write to the file's channel, without
+ * copying them into a String or another buffer first.
+ */
+class ResourceEmitter {
+    private static final ConcurrentHashMap<String, ResourceEmitter> emitters =
+        new ConcurrentHashMap<String, ResourceEmitter>();
+
+    private final byte[] contents;
+    private final int[] tokenLengths;
+
+    // the token found at each offset, in the order they are in the file
+    private final int[] tokenOffsets;
+    private final int[] tokenIndexes;
+
+    private ResourceEmitter(String resource, String[] tokens) {
+        this.contents = ReadFiles.getBytesFromJAR(resource);
+        byte[][] tokenBytes = new byte[tokens.length][];
+        tokenLengths = new int[tokens.length];
+        for(int i = 0; i < tokens.length; i++) {
+            tokenBytes[i] = tokens[i].getBytes(StandardCharsets.UTF_8);
+            tokenLengths[i] = tokenBytes[i].length;
+        }
+        ArrayList<int[]> found = new ArrayList<int[]>();
+        int offset = 0;
+        while(offset < contents.length) {
+            int match = -1;
+            for(int i = 0; i < tokenBytes.length && match < 0; i++) {
+                if(startsWith(contents, offset, tokenBytes[i])) {
+                    match = i;
+                }
+            }
+            if(match < 0) {
+                offset++;
+            }else{
+                found.add(new int[] {offset, match});
+                offset += tokenBytes[match].length;
+            }
+        }
+        tokenOffsets = new int[found.size()];
+        tokenIndexes = new int[found.size()];
+        for(int i = 0; i < found.size(); i++) {
+            tokenOffsets[i] = found.get(i)[0];
+            tokenIndexes[i] = found.get(i)[1];
+        }
+    }
+
+    /**
+     * @param resource - the name of the file in the JAR, e.g.
+     * "src/c++/BusAttachmentMgr.h"
+     * @param tokens - the tokens to replace when the file is written, e.g.
+     * "@License@"
+     * @return the emitter for the file and tokens.
+     */
+    public static ResourceEmitter get(String resource, String... tokens) {
+        StringBuilder key = new StringBuilder(resource);
+        for(String token : tokens) {
+            key.append('\n').append(token);
+        }
+        ResourceEmitter emitter = emitters.get(key.toString());
+        if(emitter == null) {
+            emitter = new ResourceEmitter(resource, tokens);
+            ResourceEmitter previous =
+                emitters.putIfAbsent(key.toString(), emitter);
+            if(previous != null) {
+                emitter = previous;
+            }
+        }
+        return emitter;
+    }
+
+    /**
+     * Write the file, creating it or replacing its contents.
+     * @param f - the file to write
+     * @param prefix - text to write before the contents of the resource
+     * @param values - the text to write in place of each token, in the same
+     * order as the tokens given to get()
+     * @throws IOException
+     */
+    public void write(File f, String prefix, String... values)
+        throws IOException {
+        if(values.length != tokenLengths.length) {
+            throw new IllegalArgumentException(
+                tokenLengths.length + " values are needed, not "
+                + values.length);
+        }
+        ByteBuffer[] valueBytes = new ByteBuffer[values.length];
+        for(int i = 0; i < values.length; i++) {
+            valueBytes[i] = ByteBuffer.wrap(values[i].getBytes());
+        }
+
+        ByteBuffer[] buffers = new ByteBuffer[2 * tokenOffsets.length + 2];
+        int count = 0;
+        buffers[count++] = ByteBuffer.wrap(prefix.getBytes());
+        int offset = 0;
+        for(int i = 0; i < tokenOffsets.length; i++) {
+            buffers[count++] = ByteBuffer.wrap(contents, offset,
+                                               tokenOffsets[i] - offset);
+            buffers[count++] = valueBytes[tokenIndexes[i]].duplicate();
+            offset = tokenOffsets[i] + tokenLengths[tokenIndexes[i]];
+        }
+        buffers[count++] = ByteBuffer.wrap(contents, offset,
+                                           contents.length - offset);
+
+        FileOutputStream out = new FileOutputStream(f);
+        try {
+            FileChannel channel = out.getChannel();
+            while(buffers[count - 1].hasRemaining()) {
+                channel.write(buffers);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private static boolean startsWith(byte[] contents, int offset,
+                                      byte[] token) {
+        if(offset + token.length > contents.length) {
+            return false;
+        }
+        for(int i = 0; i < token.length; i++) {
+            if(contents[offset + i] != token[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+} // class ResourceEmitter
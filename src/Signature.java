@@ -0,0 +1,227 @@
+/*******************************************************************************
+ * Copyright 2010 - 2011, 2013 Qualcomm Innovation Center, Inc.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ ******************************************************************************/
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A parsed AllJoyn signature holding exactly one complete type.  Each
+ * signature is parsed once: the trees are cached by their text and shared,
+ * including the trees of the members of containers, so the generators can
+ * ask what a signature is without scanning the string again.  The trees are
+ * immutable and the cache is safe to use from several threads.
+ *
+ * The kinds of types are:
+ *   BASIC   - y b n q i u x t d s o g h
+ *   VARIANT - v
+ *   ARRAY   - a followed by the element type
+ *   DICT    - an array of dictionary entries, a{ key value }
+ *   STRUCT  - ( one or more member types )
+ */
+class Signature {
+    public enum Kind { BASIC, VARIANT, ARRAY, DICT, STRUCT }
+
+    private static final String BASIC_TYPES = "ybnqiuxtdsogh";
+
+    // the basic types that have a C++ array type, see mapType()
+    private static final String BASIC_ARRAY_TYPES = "bdginoqstuxy";
+
+    private static final ConcurrentHashMap<String, Signature> cache =
+        new ConcurrentHashMap<String, Signature>();
+
+    // cached for text that is not one complete type
+    private static final Signature INVALID =
+        new Signature("", Kind.BASIC, Collections.<Signature>emptyList());
+
+    private final String text;
+    private final Kind kind;
+    private final List<Signature> members;
+
+    private Signature(String text, Kind kind, List<Signature> members) {
+        this.text = text;
+        this.kind = kind;
+        this.members = members;
+    }
+
+    /**
+     * @param text - the signature
+     * @return the parsed signature, or null if the text is not exactly one
+     * complete type (for instance part of a signature).
+     */
+    public static Signature get(String text) {
+        Signature sig = cache.get(text);
+        if(sig == null) {
+            int[] pos = {0};
+            sig = parseType(text, pos);
+            if(sig == null || pos[0] != text.length()) {
+                sig = INVALID;
+            }
+            sig = intern(sig == INVALID ? text : sig.text, sig);
+        }
+        return sig == INVALID ? null : sig;
+    }
+
+    private static Signature intern(String text, Signature sig) {
+        Signature previous = cache.putIfAbsent(text, sig);
+        return previous != null ? previous : sig;
+    }
+
+    /**
+     * Parse the complete type starting at pos[0] and move pos[0] past it.
+     * @return the type or null if there is not a complete type there.
+     */
+    private static Signature parseType(String text, int[] pos) {
+        if(pos[0] >= text.length()) {
+            return null;
+        }
+        int start = pos[0];
+        char c = text.charAt(pos[0]++);
+        Kind kind;
+        ArrayList<Signature> members = new ArrayList<Signature>(2);
+        if(BASIC_TYPES.indexOf(c) >= 0) {
+            kind = Kind.BASIC;
+        } else if(c == 'v') {
+            kind = Kind.VARIANT;
+        } else if(c == 'a' && pos[0] < text.length()
+                  && text.charAt(pos[0]) == '{') {
+            kind = Kind.DICT;
+            pos[0]++;
+            for(int i = 0; i < 2; i++) {
+                Signature member = parseType(text, pos);
+                if(member == null) {
+                    return null;
+                }
+                members.add(member);
+            }
+            if(pos[0] >= text.length() || text.charAt(pos[0]++) != '}') {
+                return null;
+            }
+        } else if(c == 'a') {
+            kind = Kind.ARRAY;
+            Signature element = parseType(text, pos);
+            if(element == null) {
+                return null;
+            }
+            members.add(element);
+        } else if(c == '(') {
+            kind = Kind.STRUCT;
+            while(pos[0] < text.length() && text.charAt(pos[0]) != ')') {
+                Signature member = parseType(text, pos);
+                if(member == null) {
+                    return null;
+                }
+                members.add(member);
+            }
+            if(members.isEmpty() || pos[0] >= text.length()) {
+                return null;
+            }
+            pos[0]++;
+        } else {
+            return null;
+        }
+
+        String sigText = text.substring(start, pos[0]);
+        Signature sig = cache.get(sigText);
+        if(sig == null) {
+            members.trimToSize();
+            sig = intern(sigText, new Signature(
+                sigText, kind, Collections.unmodifiableList(members)));
+        }
+        return sig;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return the first character of the signature, the type code of a basic
+     * type.
+     */
+    public char getCode() {
+        return text.charAt(0);
+    }
+
+    /**
+     * @return the element type of an array.
+     */
+    public Signature getElement() {
+        return members.get(0);
+    }
+
+    /**
+     * @return the key type of a dictionary.
+     */
+    public Signature getKey() {
+        return members.get(0);
+    }
+
+    /**
+     * @return the value type of a dictionary.
+     */
+    public Signature getValue() {
+        return members.get(1);
+    }
+
+    /**
+     * @return the member types of a struct.
+     */
+    public List<Signature> getMembers() {
+        return members;
+    }
+
+    /**
+     * @return true for the container types: STRUCT, ARRAY, DICT and VARIANT.
+     */
+    public boolean isContainer() {
+        return kind != Kind.BASIC;
+    }
+
+    /**
+     * @return true for an array of a basic type that has a C++ array type.
+     */
+    public boolean isBasicArray() {
+        return kind == Kind.ARRAY
+            && getElement().kind == Kind.BASIC
+            && BASIC_ARRAY_TYPES.indexOf(getElement().getCode()) >= 0;
+    }
+
+    /**
+     * @return true for an array, or an array of arrays, of structs or
+     * dictionaries.
+     */
+    public boolean isArrayOfContainers() {
+        if(kind != Kind.ARRAY) {
+            return false;
+        }
+        Signature element = getElement();
+        while(element.kind == Kind.ARRAY) {
+            element = element.getElement();
+        }
+        return element.kind == Kind.STRUCT || element.kind == Kind.DICT;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+} // class Signature
@@ -16,10 +16,20 @@
 
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.FileWriter;
-import java.io.InputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
 
 import org.xml.sax.SAXParseException;
 
@@ -36,34 +46,28 @@ import org.xml.sax.SAXParseException;
 public class WriteCode {
     protected String objName;
     protected String fileName;
-    protected static CodeGenConfig config;
-    protected static ObjectData objectData;
-    protected static InterfaceDescription inter;
-    protected static ArrayList<ArgDef> structArgList;
-    protected static ArrayList<ArgDef> printedStructList;
-    protected static boolean structArgListPopulated;
-    protected static ArrayList<ArgDef> dictEntryArgList;
-    protected static ArrayList<ArgDef> printedDictList;
-    protected static boolean dictEntryArgListPopulated;
-    protected static ArrayList<ArgDef> arrayContainerTypeArgList;
-    protected static boolean arrayContainerTypeArgListPopulated;
+    protected final WriteContext context;
+    protected final CodeGenConfig config;
+    protected final InterfaceDescription inter;
     protected static String indentDepth = FormatCode.indent(1);
     protected static String topBracket = "/*-----------------------------------------------------------------------------\n";
     protected static String bottomBracket = "-----------------------------------------------------------------------------*/\n";
-    protected static String structDefs  = "";
     protected FileWriter fWriter;
-    protected BufferedWriter fileOutput;
+    protected Writer fileOutput;
+    private StringWriter memoryOutput;
+    private File outputFile;
         
-    protected static LogOutput UIOutput;
+    // the writers are only created once the logger has been initialized
+    protected static final LogOutput UIOutput = new LogOutput("WriteCode");
     
     /**
      * CodeWriter constructor.
+     * @param context: the interface being generated and its container lists
      */
-    public WriteCode() {
-        printedStructList = new ArrayList<ArgDef>();
-        printedDictList = new ArrayList<ArgDef>();
-        structArgListPopulated = false;
-        UIOutput = new LogOutput("WriteCode");
+    public WriteCode(WriteContext context) {
+        this.context = context;
+        this.config = context.config;
+        this.inter = context.inter;
     }  
     
     /**
@@ -72,44 +76,50 @@ public class WriteCode {
      * @param fileType: the type of file to create: either ".h" or ".cc"
      */
     public void writeBusMgrFile(String fileType){
-        InputStream s =
-            this.getClass().getResourceAsStream("src/c++/BusAttachmentMgr" +
-                                                fileType);
-        File f = new File(config.outputPath + "BusAttachmentMgr" + fileType);
+        writeSupportFile("BusAttachmentMgr", fileType);
+    } // writeBusMgrFile()
+
+    /**
+     * Create and write the ServiceWorkerPool.h file, used by the service
+     * classes when their method handlers run on worker threads (-t), to the
+     * cmd line location.  Does nothing if the file already exists.
+     * @param fileType: the type of file to create: either ".h" or ".cc"
+     */
+    public void writeWorkerPoolFile(String fileType){
+        writeSupportFile("ServiceWorkerPool", fileType);
+    } // writeWorkerPoolFile()
+
+    /**
+     * Create and write the MsgArgViews.h file, used by the handlers that are
+     * given views of the received arrays (-z), to the cmd line location.
+     * Does nothing if the file already exists.
+     */
+    public void writeArrayViewsFile(){
+        writeSupportFile("MsgArgViews", ".h");
+    } // writeArrayViewsFile()
+
+    /**
+     * Copy one of the C++ files bundled in the JAR, inserting the license
+     * text.  Does nothing if the file already exists.
+     */
+    private void writeSupportFile(String name, String fileType){
+        File f = new File(config.outputPath + name + fileType);
         try {
             if(f.exists()){
-                UIOutput.LogWarning("BusAttachmentMgr" +
-                    fileType + " already exists.");
+                UIOutput.LogWarning(name + fileType + " already exists.");
             }
             else{
-                FileOutputStream fs = new FileOutputStream(f);
-                byte[] buffer = new byte[1024];
-
-                //insert the license text
-                int len = s.read(buffer,0, 200);
-                String withLicense = new String(buffer,
-                                            0,
-                                            len).replace("@License@",
-                                                         config.cLicense);
-                fs.write(withLicense.getBytes());
-
-                // get and copy the rest of the text.
-                len = s.read(buffer);
-                while(len > 0){
-                    fs.write(buffer, 0, len);
-                    len = s.read(buffer);
-                }
-			
-                fs.close();
-                s.close();
+                //copy the file, inserting the license text
+                ResourceEmitter.get("src/c++/" + name + fileType,
+                                    "@License@")
+                    .write(f, "", config.getCLicense());
             }
         }catch (Exception e) {
             UIOutput.LogError(e.getMessage());
-            e.printStackTrace();
-            UIOutput.LogFatal(
-                "could not write BusAttachmentMgr" + fileType, 0);
+            e.printStackTrace(LogOutput.GetErrStream());
+            UIOutput.LogFatal("could not write " + name + fileType, 0);
         }
-    } // writeBusMgrFile()
+    } // writeSupportFile()
 
     /**
      * Writes the sample makefiles.
@@ -120,82 +130,102 @@ public class WriteCode {
     }
 
     /**
-     * Writes a sample makefile.
+     * Writes a sample makefile.  An existing makefile is left alone unless
+     * its object lists no longer match the files being generated, e.g.
+     * after -t is added or the interfaces change.  Then it is written again
+     * with the overwrite, write-if-changed or incremental option, and a
+     * warning says it is out of date without them.
      */
     private void writeMakeFile(String makefileName, String suffix){
-        InputStream s = this.getClass().getResourceAsStream("src/c++/" + makefileName);
         File f = new File(config.outputPath + makefileName);
     	try {
-            if(f.exists()){
-                UIOutput.LogWarning(makefileName + " already exists.");
+            String variables = config.getSHLicense();
+            variables += "# AllJoyn variables: the class name, an "
+                + "indicator of whether ther service code\n# was generated, "
+                + "and the error message if AllJoyn path isn't defined."
+                + "\n";
+            if(!config.clientOnly){
+                variables += "SERVICE_GENERATED = true\n";
             }
-            else{
-                FileOutputStream fs = new FileOutputStream(f);
-                CodeGenConfig config = CodeGenConfig.getInstance();
-                fs.write(config.shLicense.getBytes());
-                String variables = "# AllJoyn variables: the class name, an "
-                    + "indicator of whether ther service code\n# was generated, "
-                    + "and the error message if AllJoyn path isn't defined."
-                    + "\n";
-                if(!config.clientOnly){
-                    variables += "SERVICE_GENERATED = true\n";
+            variables += "SVCOBJS = BusAttachmentMgr." + suffix +
+                         " ServiceMain." + suffix + " ";
+            if(config.workerThreads > 0){
+                variables += "ServiceWorkerPool." + suffix + " ";
+            }
+            for(InterfaceDescription tempInter : config.interfaces){ 
+                String className = "";
+                if(config.useFullNames) {
+                    className = tempInter.className;
                 }
-                variables += "SVCOBJS = BusAttachmentMgr." + suffix +
-                             " ServiceMain." + suffix + " ";
-                for(InterfaceDescription tempInter : config.interfaces){ 
-                    String className = "";
-                    if(ParseAJXML.useFullNames) {
-                        className = tempInter.className;
-                    }
-                    else {
-                        className = tempInter.getName();
-                    }
-                    variables += className + "Service." + suffix + " "
-                        + className + "ServiceMethods." + suffix + " ";
+                else {
+                    className = tempInter.getName();
                 }
-                variables += "\n";
+                variables += className + "Service." + suffix + " "
+                    + className + "ServiceMethods." + suffix + " ";
+            }
+            variables += "\n";
 
-                variables += "CLTOBJS = BusAttachmentMgr." + suffix +
-                             " ClientMain." + suffix + " ";
-                for(InterfaceDescription tempInter : config.interfaces){
-                   String className = "";
-                    if(ParseAJXML.useFullNames) {
-                        className = tempInter.className;
-                    }
-                    else {
-                        className = tempInter.getName();
-                    }
-                    variables += className + "Client." + suffix + " "
-                        + className + "ClientHandlers." + suffix + " ";
+            variables += "CLTOBJS = BusAttachmentMgr." + suffix +
+                         " ClientMain." + suffix + " ";
+            for(InterfaceDescription tempInter : config.interfaces){
+               String className = "";
+                if(config.useFullNames) {
+                    className = tempInter.className;
+                }
+                else {
+                    className = tempInter.getName();
+                }
+                variables += className + "Client." + suffix + " "
+                    + className + "ClientHandlers." + suffix + " ";
+            }
+            variables += "\n";
+
+            if(f.exists()){
+                if(startsWith(Files.readAllBytes(f.toPath()),
+                              variables.getBytes())){
+                    UIOutput.LogWarning(makefileName + " already exists.");
+                    return;
                 }
-                variables += "\n";
-
-                fs.write(variables.getBytes());
-				
-                byte[] buffer = new byte[256];
-                int len = s.read(buffer);
-                while(len > 0){
-                    fs.write(buffer, 0, len);
-                    len = s.read(buffer);
+                if(!config.overWrite && !config.writeIfChanged){
+                    UIOutput.LogWarning(makefileName + " is out of date, its"
+                        + " object lists do not match the generated files."
+                        + "  Delete it, or use -o, to have it written again.");
+                    return;
                 }
-			
-                fs.close();
-                s.close();
+                UIOutput.LogWarning("replacing " + makefileName
+                                    + ", its object lists have changed.");
             }
+            ResourceEmitter.get("src/c++/" + makefileName)
+                .write(f, variables);
         }catch (Exception e) {
             UIOutput.LogError(e.getMessage());
-            e.printStackTrace();
+            e.printStackTrace(LogOutput.GetErrStream());
             UIOutput.LogFatal("could not write makefile.", 0);
         }
     }  // writeMakeFile()
 
+    /**
+     * @return true if the bytes start with the prefix
+     */
+    private static boolean startsWith(byte[] bytes, byte[] prefix) {
+        if(bytes.length < prefix.length){
+            return false;
+        }
+        for(int i = 0; i < prefix.length; i++){
+            if(bytes[i] != prefix[i]){
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * strip the leading " * " from the cLicense string
      *
      * @return a string containing the license text without the leading " * "
      */
     public String licenseTextOnly() {
-        return config.cLicense.replaceAll(" \\* ", "") + "\n";
+        return config.getCLicense().replaceAll(" \\* ", "") + "\n";
     } // licenseTextOnly()
 
     /**
@@ -206,6 +236,14 @@ public class WriteCode {
     protected boolean openFile() {
         try {
             File f = new File(config.outputPath + fileName);
+            if(config.writeIfChanged){
+                //the code is kept in memory and only written out by
+                //closeFile() if it differs from the existing file
+                outputFile = f;
+                memoryOutput = new StringWriter(8192);
+                fileOutput = memoryOutput;
+                return true;
+            }
             //create a File object doesn't create the file in the filesystem
             if(f.exists()){
                 if(!config.overWrite){
@@ -214,9 +252,7 @@ public class WriteCode {
                                        + " already exists, choose to overwrite"
                                        + " or pick a new file name.");
                     return false;        			
-                }else if(fileName.contains("Methods") ||
-                         fileName.contains("Handlers") ||
-                         fileName.contains("Main")){
+                }else if(isDevFile()){
 
                     String temp = fileName.replace(".cc", "Copy.cc");
                     UIOutput.LogWarning("creating " +
@@ -230,27 +266,106 @@ public class WriteCode {
             fWriter = new FileWriter(f, false);
             fileOutput = new BufferedWriter(fWriter);        		
         } catch (Exception e) {
-            e.printStackTrace();
+            e.printStackTrace(LogOutput.GetErrStream());
             return false;
         }
         return true;
     } // openFile()
 
     /**
-     * Close output file
-     * 
-     * @return true for success, false for failure
+     * Close output file.  With the write-if-changed option this is where the
+     * file is written, so a failure here is fatal as a failure to open the
+     * file is without it.
+     *
+     * @return true for success
      */
     protected boolean closeFile() {
         try {
             fileOutput.close();
+            if(outputFile != null){
+                writeIfChanged(outputFile,
+                               memoryOutput.toString().getBytes());
+            }
         } catch (Exception e) {
-            UIOutput.LogError("COULD NOT CLOSE FILE, EXITING");
-            return false;
+            UIOutput.LogError(e.toString());
+            UIOutput.LogFatal("could not write " + fileName, 1);
+        } finally {
+            outputFile = null;
+            memoryOutput = null;
         }
         return true;
     } // closeFile()
 
+    /**
+     * @return true if the current file is one the developer fills in, which
+     * is never overwritten.
+     */
+    private boolean isDevFile() {
+        return fileName.contains("Methods") ||
+               fileName.contains("Handlers") ||
+               fileName.contains("Main");
+    }
+
+    /**
+     * Write the generated code to the file unless the file already holds
+     * exactly that code, in which case it is left alone so its timestamp
+     * does not change.  A developer file that differs is not overwritten, the
+     * code goes to a copy of it instead as with the overwrite option.  The
+     * file is replaced by renaming a temporary file over it so a partly
+     * written file is never seen.  The temporary file gets the default
+     * permissions, like the files written without -k, rather than the
+     * owner-only ones of Files.createTempFile().
+     * @param f - the file to write
+     * @param content - the generated code
+     * @throws IOException
+     */
+    private void writeIfChanged(File f, byte[] content) throws IOException {
+        if(hasContent(f, content)){
+            UIOutput.LogInform(fileName + " is unchanged.");
+            return;
+        }
+        if(f.exists() && isDevFile()){
+            String temp = fileName.replace(".cc", "Copy.cc");
+            f = new File(config.outputPath + temp);
+            if(hasContent(f, content)){
+                return;
+            }
+            UIOutput.LogWarning("creating " +
+                                temp +
+                                " instead of overwriting " +
+                                fileName);
+        }
+
+        Path target = f.getAbsoluteFile().toPath();
+        Path tempFile = target.resolveSibling(
+            f.getName() + Long.toHexString(new Random().nextLong()) + ".tmp");
+        try {
+            Files.write(tempFile, content, StandardOpenOption.CREATE_NEW);
+            try {
+                Files.move(tempFile, target,
+                           StandardCopyOption.REPLACE_EXISTING,
+                           StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, target,
+                           StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    } // writeIfChanged()
+
+    /**
+     * @return true if the file exists and holds exactly the given content.
+     * The sizes are compared before reading the file.
+     */
+    private static boolean hasContent(File f, byte[] content)
+        throws IOException {
+        if(!f.isFile() || f.length() != content.length){
+            return false;
+        }
+        return Arrays.equals(Files.readAllBytes(f.toPath()), content);
+    }
+
     /**
      * Write string to file
      * 
@@ -265,6 +380,22 @@ public class WriteCode {
         }
     } // writeCode()
 
+    /**
+     * Write the buffered code to file and empty the buffer so it can be
+     * reused.
+     *
+     * @param data
+     *            the buffered code to write to file
+     */
+    protected void writeCode(CodeBuffer data) {
+        try {
+            data.writeTo(fileOutput);
+        } catch (Exception e) {
+            UIOutput.LogFatal(e.toString(),1);
+        }
+        data.clear();
+    } // writeCode()
+
     /**
      * Writes the code for header file include statements, which are different
      * depending on if the file is a service, or is a main file.
@@ -284,7 +415,7 @@ public class WriteCode {
                 + "#include <alljoyn/version.h>\n";
                 for(InterfaceDescription tempInter : config.interfaces) {
                     String className = "";
-                    if(ParseAJXML.useFullNames) {
+                    if(config.useFullNames) {
                         className = tempInter.className;
                     }
                     else {
@@ -313,10 +444,16 @@ public class WriteCode {
             includes += "#include <alljoyn/BusObject.h>\n"
                 + "#include <alljoyn/DBusStd.h>\n"
                 + "#include \"BusAttachmentMgr.h\"\n";
+            if(config.workerThreads > 0){
+                includes += "#include \"ServiceWorkerPool.h\"\n";
+            }
         }else{
         	includes += "#include \"BusAttachmentMgr.h\"\n";
             includes += "#include <alljoyn/ProxyBusObject.h>\n";
         }
+        if(config.arrayViews){
+            includes += "#include \"MsgArgViews.h\"\n";
+        }
 
         includes += "#include <alljoyn/Status.h>\n"
               + "\n\nusing namespace ajn;\n\n";
@@ -357,126 +494,126 @@ public class WriteCode {
     	String inArgs, outArgs;
     	String access;
     	String flags;
-        String output = "";
+        CodeBuffer output = new CodeBuffer();
         
         for(int i = 0; i < iface.methods.size(); i++){
             tempMethod = iface.methods.get(i);
             inArgs = tempMethod.getParamNames();
             outArgs = tempMethod.getRetNames();
-            output += indentDepth
+            output.append(indentDepth
                 + "/* add the "
                 + tempMethod.getName()
                 + " method to the interface */\n"
                 + indentDepth
-                + indentDepth;
-            output += varName
+                + indentDepth);
+            output.append(varName
                 + "->AddMethod(\""
                 + tempMethod.getName()
-                + "\", ";
+                + "\", ");
         	
-            if(tempMethod.noReply){
+            if(tempMethod.isNoReply()){
                 flags = "MEMBER_ANNOTATE_NO_REPLY";
             }else{
                 flags = "0";
             }
 
             if (tempMethod.getParams().equals("NULL")) {
-                output += tempMethod.getParams() + ", ";
+                output.append(tempMethod.getParams() + ", ");
             } else {
-                output += "\"" + tempMethod.getParams() + "\", ";
+                output.append("\"" + tempMethod.getParams() + "\", ");
             }
 
             if (tempMethod.getRetType().equals("NULL")) {
-                output += tempMethod.getRetType() + ", ";
+                output.append(tempMethod.getRetType() + ", ");
             } else {
-                output += "\"" + tempMethod.getRetType() + "\", ";
+                output.append("\"" + tempMethod.getRetType() + "\", ");
             }
         	
             if(inArgs.equals("NULL") && outArgs.equals("NULL")){
-                output += "NULL, 0);\n" + indentDepth;
+                output.append("NULL, 0);\n" + indentDepth);
             }else if(inArgs.equals("NULL") && !outArgs.equals("NULL")){
-                output += "\""
+                output.append("\""
                     + outArgs
                     + "\" , "
                     + flags
                     + ");\n"
-                    + indentDepth;
+                    + indentDepth);
 
             }else if(!inArgs.equals("NULL") && outArgs.equals("NULL")){
-                output += "\""
+                output.append("\""
                     + inArgs
                     + "\" , "
                     + flags
                     + ");\n"
-                    + indentDepth;
+                    + indentDepth);
             }else{
-                output += "\""
+                output.append("\""
                     + inArgs
                     + ","
                     + outArgs
                     + "\" , 0);\n"
-                    + indentDepth;
+                    + indentDepth);
             }
         }
 
         for(int i = 0; i < iface.signals.size(); i++){
             tempSignal = iface.signals.get(i);
-            output += indentDepth
+            output.append(indentDepth
                 + "/* add the "
                 + tempSignal.getName()
                 + " signal to the interface */\n"
                 + indentDepth
-                + indentDepth;
-            output += varName
+                + indentDepth);
+            output.append(varName
                 + "->AddSignal(\""
                 + tempSignal.getName()
-                + "\", ";
+                + "\", ");
         	
             if (tempSignal.getParams().equals("NULL")) {
-                output += tempSignal.getParams() + ", ";
+                output.append(tempSignal.getParams() + ", ");
             } else {
-                output += "\"" + tempSignal.getParams() + "\", ";
+                output.append("\"" + tempSignal.getParams() + "\", ");
             }
         	
             if(tempSignal.getParamNames().equals("NULL")){
-                output += tempSignal.getParamNames()
+                output.append(tempSignal.getParamNames()
                     + " , 0);\n"
-                    + indentDepth;
+                    + indentDepth);
             }else{
-                output += "\""
+                output.append("\""
                     + tempSignal.getParamNames()
                     + "\" , 0);\n"
-                    + indentDepth;
+                    + indentDepth);
             }        		
         }
         
         for(int i = 0; i < iface.properties.size(); i++){
             tempProp = iface.properties.get(i);
-            output += indentDepth
+            output.append(indentDepth
                 + "/* add the "
                 + tempProp.getName()
                 + " property to the interface */\n"
                 + indentDepth
-                + indentDepth;
-            output += varName
+                + indentDepth);
+            output.append(varName
                 + "->AddProperty(\""
                 + tempProp.getName()
                 + "\", \""
                 + tempProp.getSignature()
-                + "\", PROP_ACCESS_";
+                + "\", PROP_ACCESS_");
         	
             access = tempProp.getAccess();
             if(access.equals("readwrite")){
-                output += "RW";
+                output.append("RW");
             }else if (access.equals("read")){
-                output += "READ";
+                output.append("READ");
             }else if(access.equals("write")){
-                output += "WRITE";
+                output.append("WRITE");
             }else{
                 //should not reach this case, taken care of in schema
             }//convert the access type to RW READ WRITE
         	
-            output += ");\n" + indentDepth;
+            output.append(");\n" + indentDepth);
         }
         writeCode(output);
     } // writeInterfaceMember()
@@ -755,23 +892,85 @@ public class WriteCode {
      * @param argList
      * @return String with the arguments.
      */
-    protected String generateArgs(ArrayList<ArgDef> argList) {
-    	String output = "";
+    protected String generateArgs(List<ArgDef> argList) {
+        return generateArgs(argList, false);
+    } // generateArgs()
+
+    /**
+     * Like generateArgs(), for the developer's handlers that are given the
+     * arguments received in a message: the service's method handlers and
+     * the client's signal handlers.  With -z their string arrays are views
+     * of the message.
+     * @see #isStringArrayView(ArgDef)
+     */
+    protected String generateHandlerArgs(List<ArgDef> argList) {
+        return generateArgs(argList, true);
+    } // generateHandlerArgs()
+
+    private String generateArgs(List<ArgDef> argList,
+                                boolean isReceived) {
+    	CodeBuffer output = new CodeBuffer();
     	ArgDef tempArg;
     	
     	for(int i = 0; i < argList.size(); i++){
             tempArg = argList.get(i);
-            if(tempArg.getArgDirection().equals("in")){
-                output += parseInArg(tempArg);
+            if(isReceived && isStringArrayView(tempArg)){
+                output.append("StringArrayView " + tempArg.getArgName()
+                              + ", size_t " + tempArg.getArgName()
+                              + "NumElements");
+            }else if(tempArg.getArgDirection().equals("in")){
+                output.append(parseInArg(tempArg));
             }else if(tempArg.getArgDirection().equals("out")){
-                output += parseOutArg(tempArg);
+                output.append(parseOutArg(tempArg));
             }
             if(i != argList.size() - 1){
-                output += ", ";
+                output.append(", ");
             }
     	}
-    	return output;
+    	return output.toString();
     } // generateArgs()
+
+    /**
+     * @param arg - a received argument
+     * @return true if the argument is an array of strings, object paths or
+     * signatures that is given to the developer's handler as a view of the
+     * message (-z) instead of being copied.
+     */
+    protected boolean isStringArrayView(ArgDef arg) {
+        String type = arg.getArgType();
+        return config.arrayViews
+            && arg.getArgDirection().equals("in")
+            && isBasicArrayContainerType(type)
+            && (type.charAt(1) == 's' ||
+                type.charAt(1) == 'o' ||
+                type.charAt(1) == 'g');
+    }
+
+    /**
+     * Generate the code that puts a view of the elements of a received array
+     * of strings, object paths or signatures in varName, with their number in
+     * varNameNumElements.  Nothing is copied.
+     * @param msgArgName - the MsgArg holding the array
+     * @param arg - the argument
+     * @param indentDepth - the indent level of the generated code
+     * @param output - the buffer the generated code is appended to
+     */
+    protected static void generateGetStringArrayView(CodeBuffer output,
+                                                     String msgArgName,
+                                                     ArgDef arg,
+                                                     int indentDepth) {
+        String varName = arg.getArgName();
+        output.line(String.format("const MsgArg *%sElements = NULL;",
+                                  varName), indentDepth);
+        output.line(String.format("size_t %sNumElements = 0;", varName),
+                    indentDepth);
+        output.line(String.format("%s.Get(\"%s\", &%sNumElements, "
+                                  + "&%sElements);",
+                                  msgArgName, arg.getArgType(), varName,
+                                  varName), indentDepth);
+        output.line(String.format("StringArrayView %1$s(%1$sElements);",
+                                  varName), indentDepth);
+    } // generateGetStringArrayView()
     
     /**
      * Creates a String containing the alljoyn code for declaring property
@@ -782,10 +981,9 @@ public class WriteCode {
      * double prop2;
      * 
      * @param propList list of properties, could be empty
-     * @return the String with the property variable declarations
+     * @param output - the buffer the generated code is appended to
      */
-    protected String generateProperties(ArrayList<PropertyDef> propList, int indentDepth) {
-    	String output = "";
+    protected void generateProperties(CodeBuffer output, ArrayList<PropertyDef> propList, int indentDepth) {
     	PropertyDef prop;
     	ArgDef tempArg = new ArgDef(null, null, null, null);
     	String commentStr;
@@ -797,15 +995,14 @@ public class WriteCode {
                 "The variable that stores the \"%1$s\" property specified by " +
                 "the interfaces.",
                 tempArg.argName);
-            output += FormatCode.blockComment(commentStr,indentDepth);
+            output.blockComment(commentStr,indentDepth);
             String tempStr;
             tempStr = parseInArg(tempArg);
             tempStr = tempStr.replace(", ", ";\n" + FormatCode.indent(indentDepth));
             tempStr = tempStr.replace("const ", ""); //remove the const modifier.
-            output += FormatCode.indent(indentDepth) + tempStr + ";\n";
+            output.indent(indentDepth).append(tempStr + ";\n");
     	}
 
-    	return output;
     } // generateProperties()
     
     /**
@@ -823,13 +1020,13 @@ public class WriteCode {
                 result += arg.getArgName() + "Struct& " + arg.getArgName();
             }else if(c == 'a'){
                 if(type.charAt(1) == '{' &&
-                   dictEntryArgList.contains(arg)){
+                   context.dictEntryArgList.contains(arg)){
                     result += arg.getArgName() + "DictEntry*& " + arg.getArgName();
                     result += ", size_t& "
                         + arg.getArgName()
                         + "NumElements";
                 }else if(type.charAt(1) == '(' && 
-                         arrayContainerTypeArgList.contains(arg)){
+                         context.arrayContainerTypeArgList.contains(arg)){
                     result += arg.getArgName() + "Struct*& " + arg.getArgName();
                     result += ", size_t& "
                         + arg.getArgName()
@@ -858,7 +1055,7 @@ public class WriteCode {
      * @param arg the argument whose type is being generated.
      * @return result the argument's type and the argument name in C++ syntax.
      */
-    protected static String parseInArg(ArgDef arg) {
+    protected String parseInArg(ArgDef arg) {
     	String result = "";
     	String type = arg.getArgType();
         char c = type.charAt(0);
@@ -866,7 +1063,7 @@ public class WriteCode {
             if(c == '('){
                 result += arg.getArgName() + "Struct " + arg.getArgName();
             } else if(c == 'a'){
-                if(type.charAt(1) == '{' && dictEntryArgList.contains(arg)){
+                if(type.charAt(1) == '{' && context.dictEntryArgList.contains(arg)){
                     result += arg.getArgName()
         	        + "DictEntry *"
         	        + arg.getArgName();
@@ -874,7 +1071,7 @@ public class WriteCode {
                 }else if(type.charAt(1) == 'a'){
                     result += "MsgArg " + arg.getArgName();
                 }else if(type.charAt(1) == '('
-                         && arrayContainerTypeArgList.contains(arg)){
+                         && context.arrayContainerTypeArgList.contains(arg)){
                     result += "const " 
                         + arg.getArgName() 
                         + "Struct *" 
@@ -902,7 +1099,7 @@ public class WriteCode {
      * @param arg - the argument to generate code for
      * @return string containing code that declares the argument.
      */
-    protected static String generateTempArg(ArgDef arg, int indentDepth){
+    protected String generateTempArg(ArgDef arg, int indentDepth){
     	String result = "";
     	String code;
     	String type = arg.getArgType();
@@ -910,7 +1107,7 @@ public class WriteCode {
         if(isArgContainerType(arg)){
             if(c == 'a'){
                 if(type.charAt(1) == '{' &&
-                   dictEntryArgList.contains(arg)){
+                   context.dictEntryArgList.contains(arg)){
                     code = String.format(
                         "%1$sDictEntry* %1$s;",
                         arg.getArgName());
@@ -919,7 +1116,7 @@ public class WriteCode {
                                          arg.getArgName());
                     result += FormatCode.indentln(code, indentDepth);
                 }else if(type.charAt(1) == '(' &&
-                         arrayContainerTypeArgList.contains(arg)){
+                         context.arrayContainerTypeArgList.contains(arg)){
                     code = String.format("%1$sStruct *%1$s;",
                                          arg.getArgName());
                     result += FormatCode.indentln(code, indentDepth);
@@ -964,14 +1161,13 @@ public class WriteCode {
      * 
      * @param varName the name used to access the varaible.
      * @param structSignature the full signature found inside a struct 
-     * @return 
+     * @param output - the buffer the generated code is appended to
      */
-    protected static String generateCommaSeparatedArgsFromStruct(
+    protected static void generateCommaSeparatedArgsFromStruct(CodeBuffer output,
         String varName,
         String structSignature,
         boolean isGet ) {
 
-    	String output = "";
     	int structCount = 0;
     	int memberCount = 0;
     	for(int i = 1; i < structSignature.length()-1; i++){
@@ -982,7 +1178,7 @@ public class WriteCode {
                     WriteCode.innerStructSignature(
                         structSignature.substring(i,
                                                   structSignature.length()-1));
-                output += generateCommaSeparatedArgsFromStruct(varName
+                generateCommaSeparatedArgsFromStruct(output, varName
                                                                + ".s"
                                                                + structCount, 
                                                                innerStructSig,
@@ -1003,14 +1199,14 @@ public class WriteCode {
     	        case 'o': //fall through OBJECT PATH type
     	        case 's': { //STRING type
     	            if(isGet){
-    	                output += String.format(", &%s.member%d", 
+    	                output.append(String.format(", &%s.member%d", 
     	                                        varName,
-    	                                        memberCount);
+    	                                        memberCount));
     	               
     	            } else {
-    	                output += String.format(", %s.member%d.c_str()", 
+    	                output.append(String.format(", %s.member%d.c_str()", 
                                                 varName,
-                                                memberCount);
+                                                memberCount));
     	            }
     	            break;
     	        }
@@ -1025,14 +1221,14 @@ public class WriteCode {
     	        case 'y': //fall through BITE type
     	        default: {
     	            if(isGet){
-                        output += String.format(", &%s.member%d", 
+                        output.append(String.format(", &%s.member%d", 
                                                 varName,
-                                                memberCount);
+                                                memberCount));
                        
                     } else {
-                        output += String.format(", %s.member%d", 
+                        output.append(String.format(", %s.member%d", 
                                                 varName,
-                                                memberCount);
+                                                memberCount));
                     }
                     break;
     	        }
@@ -1042,15 +1238,14 @@ public class WriteCode {
             }
     		
     	}
-    	return output;
     } // generateCommaSeparatedArgsFromStruct()
     
     protected void writeStructs(){
     	//if structDefs is empty, call lookForStruct
-        if(structDefs.equals("")){
-            structDefs = lookForStruct();
+        if(context.structDefs.equals("")){
+            context.structDefs = lookForStruct();
         }
-        writeCode(structDefs);
+        writeCode(context.structDefs);
     }
 
     /**
@@ -1065,46 +1260,43 @@ public class WriteCode {
      * 
      * @return String with the struct typedef's
      */
-    protected static String lookForStruct() {
-        String output = "";
+    protected String lookForStruct() {
+        CodeBuffer output = new CodeBuffer();
         populateStructArgList();
-        for(int i = 0; i < structArgList.size(); i++){
-            if(!printedStructList.contains(structArgList.get(i))) {
-                isStructNameTaken(structArgList.get(i));
-                output += generateStructs(structArgList.get(i).argType,
-                                          structArgList.get(i).argName);
-                printedStructList.add(structArgList.get(i));
+        for(int i = 0; i < context.structArgList.size(); i++){
+            if(!context.printedStructList.contains(context.structArgList.get(i))) {
+                isStructNameTaken(context.structArgList.get(i));
+                generateStructs(output, context.structArgList.get(i).argType,
+                                          context.structArgList.get(i).argName);
+                context.printedStructList.add(context.structArgList.get(i));
             }
         }
         
         populateDictArgList();
-        for(int i = 0; i < dictEntryArgList.size(); i++){
-            if(!printedDictList.contains(dictEntryArgList.get(i))) {
-                isDictNameTaken(dictEntryArgList.get(i));
-                output += generateDictStructs(dictEntryArgList.get(i).argType,
-                                              dictEntryArgList.get(i).argName);
-                printedDictList.add(dictEntryArgList.get(i));
+        for(int i = 0; i < context.dictEntryArgList.size(); i++){
+            if(!context.printedDictList.contains(context.dictEntryArgList.get(i))) {
+                isDictNameTaken(context.dictEntryArgList.get(i));
+                generateDictStructs(output, context.dictEntryArgList.get(i).argType,
+                                              context.dictEntryArgList.get(i).argName);
+                context.printedDictList.add(context.dictEntryArgList.get(i));
            }
         }
         populateArrayContainerTypeArgList();
-        for(int i = 0; i < arrayContainerTypeArgList.size(); i++){
-            output += generateArrayContainerStructs(
-                arrayContainerTypeArgList.get(i));
+        for(int i = 0; i < context.arrayContainerTypeArgList.size(); i++){
+            generateArrayContainerStructs(output,
+                context.arrayContainerTypeArgList.get(i));
         }
-        return output;
+        return output.toString();
     } // lookForStruct()
 
-    public static String getInterfaceBySignal(String signalName) {
+    public String getInterfaceBySignal(String signalName) {
         if(!inter.isDerived) {
             return inter.getFullName();
         }
 
-        for(InterfaceDescription parent : inter.parents) {
-            for(SignalDef signal : parent.signals) {
-                if(signal.getName().equals(signalName)) {
-                    return parent.getFullName();
-                }
-            }
+        InterfaceDescription parent = inter.getSignalOwner(signalName);
+        if(parent != null) {
+            return parent.getFullName();
         }
 
         return "";
@@ -1114,38 +1306,27 @@ public class WriteCode {
     /**
      * If the given struct name already exists, then print an error and exit.
      */
-    private static void isStructNameTaken(ArgDef struct)
+    private void isStructNameTaken(ArgDef struct)
     {
-        for(ArgDef other : structArgList)
-        {
-            checkName(other.getArgName(), other.getArgType(), struct.getArgName(), struct.getArgType());
-        }
-        for(ArgDef other : printedStructList)
-        {
-            checkName(other.getArgName(), other.getArgType(), struct.getArgName(), struct.getArgType());
-        }
+        checkName(context.structArgList, struct);
+        checkName(context.printedStructList, struct);
     }
 
     /**
      * If the given dict name already exists, then print an error and exit.
      */
-    private static void isDictNameTaken(ArgDef dict)
+    private void isDictNameTaken(ArgDef dict)
     {
-        for(ArgDef other : dictEntryArgList)
-        {
-            checkName(other.getArgName(), other.getArgType(), dict.getArgName(), dict.getArgType());
-        }
-        for(ArgDef other : printedDictList)
-        {
-            checkName(other.getArgName(), other.getArgType(), dict.getArgName(), dict.getArgType());
-        }
+        checkName(context.dictEntryArgList, dict);
+        checkName(context.printedDictList, dict);
     }
 
-    private static void checkName(String nameOne, String typeOne, String nameTwo, String typeTwo)
+    private static void checkName(ContainerArgList list, ArgDef arg)
     {
-        if(nameOne.equals(nameTwo) && !typeOne.equals(typeTwo))
+        String type = list.getTypeOf(arg.getArgName());
+        if(type != null && !type.equals(arg.getArgType()))
         {
-            UIOutput.LogFatal("Multiple containers with name '" + nameOne + "'.", 0);
+            UIOutput.LogFatal("Multiple containers with name '" + arg.getArgName() + "'.", 0);
         }
     }
 
@@ -1156,11 +1337,11 @@ public class WriteCode {
      * into an ArrayList 'structArgList' that contains all of the AllJoyn 
      * STRUCTS.  
      */
-    private static void populateStructArgList() {
-    	if (structArgListPopulated == true){
+    private void populateStructArgList() {
+    	if (context.structArgListPopulated == true){
             return;
     	}
-    	structArgList = new ArrayList<ArgDef>();
+    	context.structArgList = new ContainerArgList();
     	
     	ArrayList<MethodDef> meths;
         ArrayList<PropertyDef> props;
@@ -1176,12 +1357,12 @@ public class WriteCode {
             //check all methods for the existence of a struct
             for(int j = 0; j < meths.size(); j++){
                 meth = meths.get(j);
-                for(int k = 0; k < meth.argList.size(); k++){
-                    if(hasStruct(meth.argList.get(k).getArgType())){
+                for(int k = 0; k < meth.getArgList().size(); k++){
+                    if(hasStruct(meth.getArgList().get(k).getArgType())){
                         //If the struct is already in the list, do not add it again
-                        if(!structArgList.contains(meth.argList.get(k))) {
-                            isStructNameTaken(meth.argList.get(k));
-                            structArgList.add(meth.argList.get(k));
+                        if(!context.structArgList.contains(meth.getArgList().get(k))) {
+                            isStructNameTaken(meth.getArgList().get(k));
+                            context.structArgList.add(meth.getArgList().get(k));
                         }
                     }
                 }
@@ -1190,9 +1371,9 @@ public class WriteCode {
             for(int j = 0; j < props.size(); j++){
             	prop = props.get(j);
             	if(hasStruct(prop.getSignature())){
-                    if(!structArgList.contains(prop.getArg())) {
+                    if(!context.structArgList.contains(prop.getArg())) {
                         isStructNameTaken(prop.getArg());
-                        structArgList.add(prop.getArg());
+                        context.structArgList.add(prop.getArg());
                     }
             	}
             }
@@ -1200,16 +1381,16 @@ public class WriteCode {
             //check all signals for the existence of a struct
             for(int j = 0; j < sigs.size(); j++){
             	sig = sigs.get(j);
-            	for(int k = 0; k < sig.argList.size(); k++){
-                    if(hasStruct(sig.argList.get(k).getArgType())){
-                        if(!structArgList.contains(sig.argList.get(k))) {
-                            isStructNameTaken(sig.argList.get(k));
-                            structArgList.add(sig.argList.get(k));
+            	for(int k = 0; k < sig.getArgList().size(); k++){
+                    if(hasStruct(sig.getArgList().get(k).getArgType())){
+                        if(!context.structArgList.contains(sig.getArgList().get(k))) {
+                            isStructNameTaken(sig.getArgList().get(k));
+                            context.structArgList.add(sig.getArgList().get(k));
                         }
                     }
             	}
             }
-    	structArgListPopulated = true;
+    	context.structArgListPopulated = true;
     } // populateStructArgList()
     
     /**
@@ -1221,8 +1402,8 @@ public class WriteCode {
      * At this point this only looks at objects that are DICT type it will not
      * find a DICT type nested inside another container.
      */
-    private static void populateDictArgList() {
-        dictEntryArgList = new ArrayList<ArgDef>();
+    private void populateDictArgList() {
+        context.dictEntryArgList = new ContainerArgList();
         
         ArrayList<MethodDef> meths;
         ArrayList<PropertyDef> props;
@@ -1238,11 +1419,11 @@ public class WriteCode {
             //check all methods for the existence of a struct
             for(int j = 0; j < meths.size(); j++){
                 meth = meths.get(j);
-                for(int k = 0; k < meth.argList.size(); k++){
-                    if(hasDictEntry(meth.argList.get(k).getArgType())){
-                        if(!dictEntryArgList.contains(meth.argList.get(k))) {
-                            isDictNameTaken(meth.argList.get(k));
-                            dictEntryArgList.add(meth.argList.get(k));
+                for(int k = 0; k < meth.getArgList().size(); k++){
+                    if(hasDictEntry(meth.getArgList().get(k).getArgType())){
+                        if(!context.dictEntryArgList.contains(meth.getArgList().get(k))) {
+                            isDictNameTaken(meth.getArgList().get(k));
+                            context.dictEntryArgList.add(meth.getArgList().get(k));
                         }
                     }
                 }
@@ -1251,9 +1432,9 @@ public class WriteCode {
             for(int j = 0; j < props.size(); j++){
                 prop = props.get(j);
                 if(hasDictEntry(prop.getSignature())){
-                    if(!dictEntryArgList.contains(prop.getArg())) {
+                    if(!context.dictEntryArgList.contains(prop.getArg())) {
                         isDictNameTaken(prop.getArg());
-                        dictEntryArgList.add(prop.getArg());
+                        context.dictEntryArgList.add(prop.getArg());
                     }
                 }
             }
@@ -1261,16 +1442,16 @@ public class WriteCode {
             //check all signals for the existence of a struct
             for(int j = 0; j < sigs.size(); j++){
                 sig = sigs.get(j);
-                for(int k = 0; k < sig.argList.size(); k++){
-                    if(hasDictEntry(sig.argList.get(k).getArgType())){
-                        if(!dictEntryArgList.contains(sig.argList.get(k))) {
-                            isDictNameTaken(sig.argList.get(k));
-                            dictEntryArgList.add(sig.argList.get(k));
+                for(int k = 0; k < sig.getArgList().size(); k++){
+                    if(hasDictEntry(sig.getArgList().get(k).getArgType())){
+                        if(!context.dictEntryArgList.contains(sig.getArgList().get(k))) {
+                            isDictNameTaken(sig.getArgList().get(k));
+                            context.dictEntryArgList.add(sig.getArgList().get(k));
                         }
                     }
                 }
             }
-        dictEntryArgListPopulated = true;
+        context.dictEntryArgListPopulated = true;
     } // populateDictArgList()
     
     /**
@@ -1280,8 +1461,8 @@ public class WriteCode {
      * ArgDef object into an ArrayList 'arrayContainerTypeArgList' that
      * contains all of the AllJoyn arrays with a container type as its element.
      */
-    private static void populateArrayContainerTypeArgList() {
-    	arrayContainerTypeArgList = new ArrayList<ArgDef>();
+    private void populateArrayContainerTypeArgList() {
+    	context.arrayContainerTypeArgList = new ContainerArgList();
         
         ArrayList<MethodDef> meths;
         ArrayList<PropertyDef> props;
@@ -1297,9 +1478,9 @@ public class WriteCode {
             //check all methods for the existence of a struct
             for(int j = 0; j < meths.size(); j++){
                 meth = meths.get(j);
-                for(int k = 0; k < meth.argList.size(); k++){
-                    if(hasArrayContainerType(meth.argList.get(k).getArgType())){
-                        arrayContainerTypeArgList.add(meth.argList.get(k));
+                for(int k = 0; k < meth.getArgList().size(); k++){
+                    if(hasArrayContainerType(meth.getArgList().get(k).getArgType())){
+                        context.arrayContainerTypeArgList.add(meth.getArgList().get(k));
                     }
                 }
             }
@@ -1307,20 +1488,20 @@ public class WriteCode {
             for(int j = 0; j < props.size(); j++){
                 prop = props.get(j);
                 if(hasArrayContainerType(prop.getSignature())){
-                    arrayContainerTypeArgList.add(prop.getArg());
+                    context.arrayContainerTypeArgList.add(prop.getArg());
                 }
             }
             
             //check all signals for the existence of a struct
             for(int j = 0; j < sigs.size(); j++){
                 sig = sigs.get(j);
-                for(int k = 0; k < sig.argList.size(); k++){
-                    if(hasArrayContainerType(sig.argList.get(k).getArgType())){
-                        arrayContainerTypeArgList.add(sig.argList.get(k));
+                for(int k = 0; k < sig.getArgList().size(); k++){
+                    if(hasArrayContainerType(sig.getArgList().get(k).getArgType())){
+                        context.arrayContainerTypeArgList.add(sig.getArgList().get(k));
                     }
                 }
             }
-        dictEntryArgListPopulated = true;
+        context.dictEntryArgListPopulated = true;
 
     } // populateArrayContainerTypeArgList()
 
@@ -1331,6 +1512,11 @@ public class WriteCode {
      * @return true if signature is a AllJoyn STRUCT
      */
     private static boolean hasStruct(String signature) {
+        Signature sig = Signature.get(signature);
+        if(sig != null){
+            return sig.getKind() == Signature.Kind.STRUCT;
+        }
+        //not one complete type, check the text itself
     	if (signature.length() > 2 &&
             signature.startsWith("(") &&
             signature.endsWith(")")){
@@ -1350,6 +1536,10 @@ public class WriteCode {
      * @return true if this is an AllJoyn DICT type.
      */
     private static boolean hasDictEntry(String signature){
+        Signature sig = Signature.get(signature);
+        if(sig != null && sig.getKind() != Signature.Kind.DICT){
+            return false;
+        }
         if( signature.length() > 4 && 
             signature.charAt(0) == 'a' &&
             signature.charAt(1) == '{' &&
@@ -1375,6 +1565,11 @@ public class WriteCode {
      * @return true if the array contains one of the specified container types
      */
     private static boolean hasArrayContainerType(String signature){
+        Signature sig = Signature.get(signature);
+        if(sig != null){
+            return sig.isArrayOfContainers();
+        }
+        //not one complete type, check the text itself
     	if(signature.charAt(0) == 'a'){
             //this is a Dictionary entry not an array of other container types.
             if(signature.charAt(1) == '{'){
@@ -1425,13 +1620,13 @@ public class WriteCode {
                                            String type,
                                            String NumElements,
                                            int indentDepth) {
-    	String output = "";
+    	CodeBuffer output = new CodeBuffer();
     	String code = String.format("%s = new %s[%s];",
                                     varName,
                                     type,
                                     NumElements);
-    	output += FormatCode.indentln(code, indentDepth);
-    	return output;
+    	output.line(code, indentDepth);
+    	return output.toString();
     } // allocateArrayPtr()
 
     /**
@@ -1441,10 +1636,10 @@ public class WriteCode {
      *                     int indentDepth)
      * @param signature
      * @param name
-     * @return
+     * @param output - the buffer the generated code is appended to
      */
-    private static String generateStructs(String signature, String name) {
-    	return generateStructs(signature, name, 0);
+    private static void generateStructs(CodeBuffer output, String signature, String name) {
+    	generateStructs(output, signature, name, 0);
     } // generateStructs()
     
     /**
@@ -1455,12 +1650,12 @@ public class WriteCode {
      * @param signature
      * @param name
      * @param indentDepth
-     * @return
+     * @param output - the buffer the generated code is appended to
      */
-    private static String generateStructs(String signature,
+    private static void generateStructs(CodeBuffer output, String signature,
                                           String name,
                                           int indentDepth) {
-    	return generateStructs(signature, name, false, indentDepth);
+    	generateStructs(output, signature, name, false, indentDepth);
     }
     
     /**
@@ -1473,13 +1668,12 @@ public class WriteCode {
      * @param isInnerArray - if this is an array of structs inside another 
      *                       struct set this to true.
      * @param indentDepth the indentDepth of the struct being created.
-     * @return
+     * @param output - the buffer the generated code is appended to
      */
-    private static String generateStructs(String signature,
+    private static void generateStructs(CodeBuffer output, String signature,
                                           String name,
                                           boolean isInnerArray,
                                           int indentDepth){
-    	String output = "";
     	String code;
     	int innerStructCount = 0;
     	int innerDictCount = 0;
@@ -1489,12 +1683,12 @@ public class WriteCode {
                                + "32 has been exceeded", 0);
     	}
     	if (indentDepth == 0){
-            output += FormatCode.blockComment(name
+            output.blockComment(name
                                               + ": struct that is used as "
-                                              + "part of the client class.");
+                                              + "part of the client class.", 0);
     	}
-    	output += FormatCode.indent(indentDepth) + "struct " + name
-            + "Struct{\n";
+    	output.indent(indentDepth).append("struct " + name
+            + "Struct{\n");
     	for(int i=1; i < signature.length()-1; i++){
             String type = mapType(signature.charAt(i));
             if (type.contentEquals("nonBasic")){
@@ -1502,7 +1696,7 @@ public class WriteCode {
                 case '(': {
                     String innerSig = innerStructSignature(
                         signature.substring(i, signature.length()-1));
-                    output += generateStructs(innerSig,
+                    generateStructs(output, innerSig,
                                               "s"+innerStructCount,
                                               indentDepth+1);
                     innerStructCount++;
@@ -1522,30 +1716,30 @@ public class WriteCode {
                         code = String.format("%s *member%d;", 
                                              mapType(signature.charAt(i+1)),
                                              memberCount);
-                        output += FormatCode.indentln(code, indentDepth+1);
+                        output.line(code, indentDepth+1);
                         code = String.format("size_t member%dNumElements;", 
                                              memberCount);
-                        output += FormatCode.indentln(code, indentDepth+1);
+                        output.line(code, indentDepth+1);
                         memberCount++;
                         i++;
                     }else if(signature.charAt(i+1) == '{'){
                         String innerDict = innerDictSignature(
                             signature.substring(i));
-                        output += generateDictStruct(innerDict,
+                        generateDictStruct(output, innerDict,
                                                      "d"+innerDictCount,
                                                      indentDepth+1);
                         code = String.format("d%1$dDictEntry *d%1$d;", 
                                              innerDictCount);
-                        output += FormatCode.indentln(code, indentDepth+1);
+                        output.line(code, indentDepth+1);
                         code = String.format("size_t d%dNumElements;", 
                                              innerDictCount);
-                        output += FormatCode.indentln(code, indentDepth+1);
+                        output.line(code, indentDepth+1);
                         innerDictCount++;
                         i += innerDict.length()-1;
                     }else if(signature.charAt(i+1) == '('){
                         String innerSig = innerStructSignature(
                             signature.substring(i+1, signature.length()-1));
-                        output += generateStructs(innerSig,
+                        generateStructs(output, innerSig,
                                                   "s"+innerStructCount,
                                                   true,
                                                   indentDepth+1);
@@ -1561,24 +1755,23 @@ public class WriteCode {
                 code = String.format("%s member%d;", 
                                      type,
                                      memberCount);
-                output += FormatCode.indentln(code, indentDepth+1);
+                output.line(code, indentDepth+1);
                 memberCount++;
             }
         	
     	}
     	if (indentDepth == 0){
-            output += "};\n";
+            output.append("};\n");
     	} else if(isInnerArray){
-            output += FormatCode.indentln("};", indentDepth);
+            output.line("};", indentDepth);
             code = String.format("%sStruct *%s;", name, name);
-            output += FormatCode.indentln(code, indentDepth);
+            output.line(code, indentDepth);
             code = String.format("size_t %sNumElements;", name);
-            output += FormatCode.indentln(code, indentDepth);
+            output.line(code, indentDepth);
     	} else {
-            output += FormatCode.indentln("}" + name +";", indentDepth);
+            output.line("}" + name +";", indentDepth);
     	}
     	innerStructCount++;
-    	return output;
     } // generateStructs()
 
     /**
@@ -1656,49 +1849,48 @@ public class WriteCode {
      * 
      * @param signature - a Dictionary entry signature i.e. a{is}
      * @param name the name the struct will have.
-     * @return
+     * @param output - the buffer the generated code is appended to
      */
-    private static String generateDictStructs(String signature, String name) {
-        return generateDictStruct(signature, name, 0);
+    private static void generateDictStructs(CodeBuffer output, String signature, String name) {
+        generateDictStruct(output, signature, name, 0);
     } // generateDictStructs()
     
-    private static String generateDictStruct(String signature,
+    private static void generateDictStruct(CodeBuffer output, String signature,
                                              String name,
                                              int indentDepth) {
-        String output = "";
         String code;
         if (indentDepth == 0){
             String commentStr;
             commentStr = "DictEntry: a struct that is used as part of the " +
                 "client class to represent a dictionary entry.";
-            output += FormatCode.blockComment(name + "DictEntry" +commentStr);
+            output.blockComment(name + "DictEntry" +commentStr, 0);
         }
         
         code = String.format("struct %s{", 
                              name + "DictEntry");
-        output += FormatCode.indentln(code, indentDepth);
+        output.line(code, indentDepth);
         code = String.format("%s key;",
                              mapType(signature.charAt(2)));
-        output += FormatCode.indentln(code, indentDepth+1);
+        output.line(code, indentDepth+1);
         char c = signature.charAt(3);
         switch(c){
         case '(':{
             String innerStruct = innerStructSignature(signature.substring(3));
-            output += generateStructs(innerStruct, "value", indentDepth+1);	
+            generateStructs(output, innerStruct, "value", indentDepth+1);	
             break;
         }
         case 'a':{
             if(signature.charAt(4) == '{'){
                 String innerDict = innerDictSignature(signature.substring(2));
-                output += generateDictStruct(innerDict, "value", indentDepth+1);
-                output += FormatCode.indentln("valueDictEntry *value;",
+                generateDictStruct(output, innerDict, "value", indentDepth+1);
+                output.line("valueDictEntry *value;",
                                               indentDepth+1);
-                output += FormatCode.indentln("size_t valueNumElements;",
+                output.line("size_t valueNumElements;",
                                               indentDepth+1);
             }else if(signature.charAt(4) == '('){
                 String innerStruct = innerStructSignature
                     (signature.substring(4));
-                output += generateStructs(innerStruct,
+                generateStructs(output, innerStruct,
                                           "value",
                                           true,
                                           indentDepth+1);	
@@ -1706,20 +1898,19 @@ public class WriteCode {
             }else{
                 code = String.format("%s *value;",
                                      mapType(signature.charAt(4)));
-                output += FormatCode.indentln(code, indentDepth+1);
-                output += FormatCode.indentln("size_t valueNumElements;",
+                output.line(code, indentDepth+1);
+                output.line("size_t valueNumElements;",
                                               indentDepth+1);
             }
             
             break;
         }
         default:
-            output += String.format("%s%s value;\n",
+            output.append(String.format("%s%s value;\n",
                                     FormatCode.indent(indentDepth+1),
-                                    mapType(signature.charAt(3)));
+                                    mapType(signature.charAt(3))));
         }
-        output += FormatCode.indentln("};", indentDepth);
-        return output;
+        output.line("};", indentDepth);
         
     } //  generateDictStruct()
     
@@ -1727,34 +1918,32 @@ public class WriteCode {
      * parse out the container from the array and produce a struct for that
      * type of container.
      * @param arg an ArgDef that specifies an array of a container type. 
-     * @return
+     * @param output - the buffer the generated code is appended to
      */
-    private static String generateArrayContainerStructs(ArgDef arg){
-    	String output = "";
+    private void generateArrayContainerStructs(CodeBuffer output, ArgDef arg){
     	String signature = arg.getArgType();
     	for (int i = 1; i < signature.length(); i++){
             if(signature.charAt(i) == '('){
                 ArgDef tempArg = new ArgDef(arg.getArgName(), signature.substring(i), null, null);
-                if(!printedStructList.contains(tempArg)) {
+                if(!context.printedStructList.contains(tempArg)) {
                     isStructNameTaken(tempArg);
-                    output += generateStructs(signature.substring(i),
+                    generateStructs(output, signature.substring(i),
                                               arg.getArgName());
-                    printedStructList.add(tempArg);
+                    context.printedStructList.add(tempArg);
                 }
                 break;
             } else if(signature.charAt(i) == 'a' && 
                       signature.charAt(i+1) == '{'){
                 ArgDef tempArg = new ArgDef(arg.getArgName(), signature.substring(i), null, null);
-                if(!printedDictList.contains(tempArg)) {
+                if(!context.printedDictList.contains(tempArg)) {
                     isDictNameTaken(tempArg);
-                    output += generateDictStructs(signature.substring(i),
+                    generateDictStructs(output, signature.substring(i),
                                                   arg.getArgName() + "DictEntry");
-                    printedDictList.add(tempArg);
+                    context.printedDictList.add(tempArg);
                 }
                 break;
             }
     	}
-    	return output;
     }
     /**
      * Checks if the argument's signature a signature for a container type.
@@ -1770,6 +1959,11 @@ public class WriteCode {
     } // isArgContainerType()
     
     protected static boolean isBasicArrayContainerType(String signature) {
+        Signature sig = Signature.get(signature);
+        if(sig != null){
+            return sig.isBasicArray();
+        }
+        //not one complete type, check the text itself
         if(signature.length() > 1 && signature.length() < 3){
             if(signature.charAt(0) == 'a'){
                 switch(signature.charAt(1)){
@@ -1808,6 +2002,11 @@ public class WriteCode {
      * @return true if the signature a container type.
      */
     protected static boolean isSignatureContainerType(String signature) {
+        Signature sig = Signature.get(signature);
+        if(sig != null){
+            return sig.isContainer();
+        }
+        //not one complete type, check the text itself
     	if(signature.length() > 1){
             if(signature.charAt(0) == '('){
             	//STRUCT containerType
@@ -1861,26 +2060,24 @@ public class WriteCode {
      * 			the actual value could be used as the varName.
      * @param indentDepth - the indent level of the code generated by this
      *                      method
-     * @return
+     * @param output - the buffer the generated code is appended to
      */
-    public static String generateSetMsgArg(String msgArgName,
+    public static void generateSetMsgArg(CodeBuffer output, String msgArgName,
                                            String signature,
                                            String varName,
                                            int indentDepth) {
-    	String output = "";
     	if(isSignatureContainerType(signature)){
-            output += generateSetMsgArgContainerType(msgArgName,
+            generateSetMsgArgContainerType(output, msgArgName,
                                                      signature,
                                                      varName,
                                                      indentDepth);
     	} else {
             //all basic signature types should be a single letter
-            output += generateSetMsgArgBasicType(msgArgName,
+            generateSetMsgArgBasicType(output, msgArgName,
                                                  signature.charAt(0),
                                                  varName,
                                                  indentDepth);	
     	}    	
-    	return output;
     } // generateSetMsgArg() 
     
     /**
@@ -1896,22 +2093,21 @@ public class WriteCode {
      *                  Note the actual value could be used as the varName
      * @param indentDepth - the indent level of the code generated by this
      * method
-     * @return 
+     * @param output - the buffer the generated code is appended to
      */
-    public static String generateSetMsgArgBasicType(String msgArgName,
+    public static void generateSetMsgArgBasicType(CodeBuffer output, String msgArgName,
                                                     char signature,
                                                     String varName,
                                                     int indentDepth) {
-        String output = "";
         switch(signature){
         case 'g': //fall through SIGNATURE type
         case 'o': //fall through OBJECT PATH type
         case 's': { //STRING type
-            output += String.format("%s%s.Set(\"%c\", %s.c_str());\n", 
+            output.append(String.format("%s%s.Set(\"%c\", %s.c_str());\n", 
                                     FormatCode.indent(indentDepth),
                                     msgArgName,
                                     signature,
-                                    varName);
+                                    varName));
             break;
         }
         case 'd': //fall through DOUBLE type
@@ -1925,15 +2121,14 @@ public class WriteCode {
         case 'y':  //fall through BITE type
         
         default: {
-            output += String.format("%s%s.Set(\"%c\", %s);\n", 
+            output.append(String.format("%s%s.Set(\"%c\", %s);\n", 
                                     FormatCode.indent(indentDepth),
                                     msgArgName,
                                     signature,
-                                    varName);
+                                    varName));
             break;
         }
         }	
-        return output;
     } // generateSetMsgArgBasicType()
     
     /**
@@ -1952,17 +2147,16 @@ public class WriteCode {
      *                  Note the actual value could be used as the varName
      * @param indentDepth - the indent level of the code generated by this
      *                      method
-     * @return 
+     * @param output - the buffer the generated code is appended to
      */
-    public static String generateSetMsgArgContainerType(String msgArgName, 
+    public static void generateSetMsgArgContainerType(CodeBuffer output, String msgArgName, 
                                                         String signature, 
                                                         String varName, 
                                                         int indentDepth) {
-        String output = "";
         switch(signature.charAt(0)){
         case '(': { //STRUCT
 
-            output += generateSetMsgArgStructType(msgArgName,
+            generateSetMsgArgStructType(output, msgArgName,
                                                   signature,
                                                   varName,
                                                   indentDepth);
@@ -1970,25 +2164,25 @@ public class WriteCode {
         }
         case 'a': {
             if (signature.charAt(1) == '{'){
-                output += generateSetMsgArgDictEntryType(msgArgName,
+                generateSetMsgArgDictEntryType(output, msgArgName,
                                                          signature,
                                                          varName,
                                                          indentDepth);
             } else if(signature.charAt(1) == 'a'){
                 //Multi-dimensional arrays will be passed as MsgArgs
 
-            	output += String.format("%s%s = %s;\n",
+            	output.append(String.format("%s%s = %s;\n",
                                         FormatCode.indent(indentDepth),
                                         msgArgName,
-                                        varName);
+                                        varName));
             } else if(signature.charAt(1) == '('){
 
-            	output += generateSetMsgArgStructArray(msgArgName,
+            	generateSetMsgArgStructArray(output, msgArgName,
                                                        signature,
                                                        varName,
                                                        indentDepth);
             } else {
-                output += generateSetMsgArgSimpleArrayType(msgArgName,
+                generateSetMsgArgSimpleArrayType(output, msgArgName,
                                                            signature,
                                                            varName,
                                                            indentDepth);
@@ -2002,7 +2196,6 @@ public class WriteCode {
             //do nothing
             break;
         }
-        return output;
         
     } // generateSetMsgArgContainerType()
     
@@ -2020,38 +2213,35 @@ public class WriteCode {
      *                  Note the actual value could be used as the varName
      * @param indentDepth - the indent level of the code generated by this
      * method
-     * @return 
+     * @param output - the buffer the generated code is appended to
      */
-    public static String generateSetMsgArgStructType(String msgArgName, 
+    public static void generateSetMsgArgStructType(CodeBuffer output, String msgArgName, 
                                                      String signature, 
                                                      String varName, 
                                                      int indentDepth) {
-        String output = "";
-        output += generateStructArgsForInternalStructArrays(msgArgName,
+        generateStructArgsForInternalStructArrays(output, msgArgName,
                                                             signature,
                                                             varName,
                                                             indentDepth);
-        output += generateSetMsgArgForInternalDictEntrys(msgArgName,
+        generateSetMsgArgForInternalDictEntrys(output, msgArgName,
                                                          signature,
                                                          varName,
                                                          indentDepth);
         String listOfArgs = generateStructArgsForSetMsgArg(varName, 
                                                            signature);
 
-        output += String.format("%s%s.Set(\"%s\"%s);\n", 
+        output.append(String.format("%s%s.Set(\"%s\"%s);\n", 
                                 FormatCode.indent(indentDepth),
                                 msgArgName,
                                 signature,
-                                listOfArgs);
-        return output;
+                                listOfArgs));
     } // generateSetMsgArgStructType()
     
     /**
      * this will accept a signature of type (a(is)) or a{sa(is)}.  The are 
      * container types with another struct or dictonary inside of them 
      */
-    public static String generateStructArgsForInternalStructArrays(String msgArgName, String signature, String varName, int indentDepth){
-    	String output ="";
+    public static void generateStructArgsForInternalStructArrays(CodeBuffer output, String msgArgName, String signature, String varName, int indentDepth){
     	int dictCount = 0;
     	int structCount = 0;
     	int memberCount = 0;
@@ -2064,19 +2254,19 @@ public class WriteCode {
                 code = String.format("MsgArg * temp%s = new MsgArg[%sNumElements];",
                                      replaceChars(innerVarName),
                                      innerVarName);
-                output += FormatCode.indentln(code, indentDepth);
+                output.line(code, indentDepth);
                 char counter = GenerateRunnableCode.getCounterVar();
                 code = String.format("for(unsigned int " + counter + " = 0; " + counter + " < %sNumElements; " + counter + "++){", 
                                      innerVarName);
-                output += FormatCode.indentln(code, indentDepth);
+                output.line(code, indentDepth);
                 String tempMsgArgName = "temp"
                     + replaceChars(innerVarName)
                     + "[" + counter + "]";
-                output += generateSetMsgArgStructType(tempMsgArgName,
+                generateSetMsgArgStructType(output, tempMsgArgName,
                                                       innerSignature,
                                                       innerVarName + "[" + counter + "]",
                                                       indentDepth+1);
-                output += FormatCode.indentln("}", indentDepth);
+                output.line("}", indentDepth);
                 GenerateRunnableCode.endForLoop();
                 i += innerSignature.length() - 1;
                 structCount++;
@@ -2091,7 +2281,7 @@ public class WriteCode {
                      && (signature.charAt(i+1) == 's'
                          || signature.charAt(i+1) == 'g'
                          || signature.charAt(i+1) == 'o')){
-                output += generateCharPtrArray(varName+".member" + memberCount,
+                generateCharPtrArray(output, varName+".member" + memberCount,
                         signature.substring(i, i+2),
                         indentDepth);
                 memberCount++;
@@ -2100,7 +2290,7 @@ public class WriteCode {
                 String innerVarName = varName + ".s" + structCount;
                 String innerSignature = innerStructSignature(
                     signature.substring(i));
-                output += generateStructArgsForInternalStructArrays(
+                generateStructArgsForInternalStructArrays(output,
                     msgArgName,
                     innerSignature,
                     innerVarName,
@@ -2111,7 +2301,6 @@ public class WriteCode {
                 memberCount++;
             }
     	}
-    	return output;
     }
     /**
      * this will accept a signature of type (a{is}) or a{sa{is}} and it will
@@ -2120,14 +2309,13 @@ public class WriteCode {
      * @param signature
      * @param varName
      * @param indentDepth
-     * @return
+     * @param output - the buffer the generated code is appended to
      */
-    public static String generateSetMsgArgForInternalDictEntrys(
+    public static void generateSetMsgArgForInternalDictEntrys(CodeBuffer output,
         String msgArgName,
         String signature,
         String varName,
         int indentDepth){
-    	String output ="";
     	int dictCount = 0;
     	int structCount = 0;
     	for(int i = 1; i < signature.length(); i++){
@@ -2135,7 +2323,7 @@ public class WriteCode {
                 String innerSignature = innerDictSignature(
                     signature.substring(i));
                 String innerVarName = varName + ".d" + dictCount;
-                output += generateSetMsgArgArrayOfSingleDictEntryType(
+                generateSetMsgArgArrayOfSingleDictEntryType(output,
                     msgArgName,
                     innerSignature,
                     innerVarName,
@@ -2148,7 +2336,7 @@ public class WriteCode {
                 String innerVarName = varName + ".s" + structCount;
                 String innerSignature = innerStructSignature(
                     signature.substring(i));
-                output += generateSetMsgArgForInternalDictEntrys(msgArgName,
+                generateSetMsgArgForInternalDictEntrys(output, msgArgName,
                                                                  innerSignature,
                                                                  innerVarName,
                                                                  indentDepth);
@@ -2156,7 +2344,6 @@ public class WriteCode {
                 structCount++;
             }
     	}
-    	return output;
     }
     
     /**
@@ -2179,7 +2366,7 @@ public class WriteCode {
      */
     public static String generateStructArgsForSetMsgArg(String varName,
                                                         String structSignature){
-        String output = "";
+        CodeBuffer output = new CodeBuffer();
         int structCount = 0;
         int dictCount = 0;
         int memberCount = 0; 
@@ -2191,10 +2378,10 @@ public class WriteCode {
                     innerStructSignature(structSignature.substring(
                                              i,
                                              structSignature.length()-1));
-                output += generateStructArgsForSetMsgArg(varName
+                output.append(generateStructArgsForSetMsgArg(varName
                                                          + ".s"
                                                          + structCount, 
-                                                         innerStructSig);
+                                                         innerStructSig));
                 i += innerStructSig.length()-1;
                 structCount++;
                 break;
@@ -2205,18 +2392,18 @@ public class WriteCode {
             case 'a' :{
             	if (isBasicArrayContainerType(
                         structSignature.substring(i, i+2))){
-                    output += generateArrayArgsForSetMsgArg(
+                    output.append(generateArrayArgsForSetMsgArg(
                         varName + ".member"+ memberCount,
-                        structSignature.substring(i, i+2));
+                        structSignature.substring(i, i+2)));
                     memberCount++;
                     i++;
             	}else if(structSignature.charAt(i+1) == '{'){
-                    output += String.format(", %s.d%dNumElements,"
+                    output.append(String.format(", %s.d%dNumElements,"
                                             +" temp%s_d%dDictEntries",
                                             varName,
                                             dictCount,
                                             replaceChars(varName),
-                                            dictCount);
+                                            dictCount));
 /*
                     output += String.format(", %s.d%dNumElements,"
                                             +" %s.d%d",
@@ -2229,11 +2416,11 @@ public class WriteCode {
                         structSignature.substring(i)).length() - 1;
                     dictCount ++;
                 }else if(structSignature.charAt(i+1) == '('){
-                    output += String.format(", %s.s%dNumElements, temp%s_s%d",
+                    output.append(String.format(", %s.s%dNumElements, temp%s_s%d",
                                             varName,
                                             structCount,
                                             replaceChars(varName),
-                                            structCount);
+                                            structCount));
                     i += innerStructSignature(
                         structSignature.substring(i+1)).length() - 1;
                     structCount ++;
@@ -2246,9 +2433,9 @@ public class WriteCode {
                 case 'g': //fall through SIGNATURE type
                 case 'o': //fall through OBJECT PATH type
                 case 's': { //STRING type
-                    output += String.format(", %s.member%d.c_str()", 
+                    output.append(String.format(", %s.member%d.c_str()", 
                                             varName,
-                                            memberCount);
+                                            memberCount));
                     break;
                 }
                 case 'd': //fall through DOUBLE type
@@ -2261,9 +2448,9 @@ public class WriteCode {
                 case 'u': //fall through UINT_32 type
                 case 'y': //fall through BITE type
                 default: {
-                    output += String.format(", %s.member%d", 
+                    output.append(String.format(", %s.member%d", 
                                             varName,
-                                            memberCount);
+                                            memberCount));
                     break;
                 }
                 }
@@ -2273,7 +2460,7 @@ public class WriteCode {
             }
 
         }
-        return output;
+        return output.toString();
     } // generateStructArgsForSetMsgArg()
     
     /**
@@ -2293,26 +2480,25 @@ public class WriteCode {
      * @param varName - the name of the variable that holds the value.
      *                  Note the actual value could be used as the varName
      * @param indentDepth - the indent level of the code generated by this method
-     * @return 
+     * @param output - the buffer the generated code is appended to
      */
-    public static String generateSetMsgArgDictEntryType(String msgArgName,
+    public static void generateSetMsgArgDictEntryType(CodeBuffer output, String msgArgName,
                                                         String signature,
                                                         String varName,
                                                         int indentDepth){
-    	return generateSetMsgArgDictEntryType(msgArgName,
+    	generateSetMsgArgDictEntryType(output, msgArgName,
                                               signature,
                                               varName,
                                               0,
                                               indentDepth);
     }
-    public static String generateSetMsgArgDictEntryType(String msgArgName,
+    public static void generateSetMsgArgDictEntryType(CodeBuffer output, String msgArgName,
                                                         String signature,
                                                         String varName,
                                                         int loopDepth,
                                                         int indentDepth){
-        String output = "";
         String code;
-        output += generateSetMsgArgArrayOfSingleDictEntryType(msgArgName,
+        generateSetMsgArgArrayOfSingleDictEntryType(output, msgArgName,
                                                               signature,
                                                               varName,
                                                               loopDepth,
@@ -2323,8 +2509,7 @@ public class WriteCode {
             signature,
             varName,
             varName);
-        output += FormatCode.indentln(code, indentDepth);
-        return output;
+        output.line(code, indentDepth);
     }
     
     /**
@@ -2345,29 +2530,28 @@ public class WriteCode {
      *                  Note the actual value could be used as the varName
      * @param indentDepth - the indent level of the code generated by this
      *                      method
-     * @return 
+     * @param output - the buffer the generated code is appended to
      */
-    public static String generateSetMsgArgArrayOfSingleDictEntryType(
+    public static void generateSetMsgArgArrayOfSingleDictEntryType(CodeBuffer output,
         String msgArgName,
         String signature,
         String varName,
         int loopDepth,
         int indentDepth){
-    	String output = "";
     	String code;
     	String tempVarName = replaceChars(varName);
         code = String.format(
             "MsgArg *temp%sDictEntries = new MsgArg[%sNumElements];",
             tempVarName,
             varName);
-        output += FormatCode.indentln(code, indentDepth);
+        output.line(code, indentDepth);
         code = String.format(
             "for(unsigned int i%d = 0; i%d < %sNumElements; i%d++){",
             loopDepth,
             loopDepth,
             varName,
             loopDepth);
-        output += FormatCode.indentln(code, indentDepth);
+        output.line(code, indentDepth);
         String tempKey = "";
         switch(signature.charAt(2)){
         case 'g': //fall through SIGNATURE type
@@ -2405,7 +2589,7 @@ public class WriteCode {
         }
         case '(':{
             String innerStruct = innerStructSignature(signature.substring(3));
-            output += generateStructArgsForInternalStructArrays(
+            generateStructArgsForInternalStructArrays(output,
                   msgArgName,
                   innerStruct,
                   varName +"[i" + loopDepth +"].value",
@@ -2422,7 +2606,7 @@ public class WriteCode {
                                      tempVarName,
                                      varName,
                                      loopDepth);
-                output += FormatCode.indentln(code, indentDepth+1);
+                output.line(code, indentDepth+1);
                 code = String.format("for(unsigned int i%d = 0; i%d < %s[i%d]."
                                      + "valueNumElements; i%d++){",
                                      loopDepth + 1,
@@ -2430,11 +2614,11 @@ public class WriteCode {
                                      varName,
                                      loopDepth,
                                      loopDepth +1);
-                output += FormatCode.indentln(code, indentDepth+1);
+                output.line(code, indentDepth+1);
         		
                 String innerStruct = innerStructSignature(
                     signature.substring(4, signature.length()-1));
-                output += generateSetMsgArgStructType("temp"
+                generateSetMsgArgStructType(output, "temp"
                                                       + tempVarName
                                                       + "_value[i"
                                                       + (loopDepth+1)
@@ -2447,7 +2631,7 @@ public class WriteCode {
                                                       + (loopDepth+1)
                                                       + "]", 
                                                       indentDepth +2 );
-                output += FormatCode.indentln("}", indentDepth+1);
+                output.line("}", indentDepth+1);
                 tempValue = String.format(", %s[i%d].valueNumElements, "
                                           + "temp%s_value", 
                                           varName,
@@ -2455,7 +2639,7 @@ public class WriteCode {
                                           tempVarName);
             }else if(signature.charAt(4) == '{'){
                 String innerDict = innerDictSignature(signature.substring(3));
-                output += generateSetMsgArgArrayOfSingleDictEntryType(
+                generateSetMsgArgArrayOfSingleDictEntryType(output,
                     "temp"
                     + tempVarName + "DictEntries[i" + loopDepth +"]", 
                     innerDict ,
@@ -2473,7 +2657,7 @@ public class WriteCode {
                 case 'g':
                 case 'o':
                 case 's':{
-                	output += generateCharPtrArray(varName + "[i" + loopDepth + "]" + ".value",
+                	generateCharPtrArray(output, varName + "[i" + loopDepth + "]" + ".value",
                             signature.substring(3, 5),
                             indentDepth+1);
                 	String tempValueVarName = String.format("temp%si%d_value",
@@ -2519,9 +2703,8 @@ public class WriteCode {
             signature.substring(1),
             tempKey,
             tempValue);
-        output += FormatCode.indentln(code, indentDepth+1);
-        output += FormatCode.indentln("}", indentDepth);
-        return output;
+        output.line(code, indentDepth+1);
+        output.line("}", indentDepth);
     } // generateSetMsgArgDictEntryType()
 
     /**
@@ -2543,29 +2726,28 @@ public class WriteCode {
      *                  Note the actual value could be used as the varName
      * @param indentDepth - the indent level of the code generated by this
      *                      method
-     * @return 
+     * @param output - the buffer the generated code is appended to
      */
-    public static String generateSetMsgArgStructArray(String msgArgName,
+    public static void generateSetMsgArgStructArray(CodeBuffer output, String msgArgName,
                                                       String signature,
                                                       String varName,
                                                       int indentDepth){
-    	String output = "";
     	String code;
     	code = String.format(
             "MsgArg *temp%1$sArg = new MsgArg[%1$sNumElements];",
             varName);
-    	output += FormatCode.indentln(code, indentDepth);
+    	output.line(code, indentDepth);
         char counter = GenerateRunnableCode.getCounterVar();
     	code = String.format(
             "for(unsigned int " + counter + "=0; " + counter + " < %sNumElements; " + counter + "++){",
             varName);
-    	output += FormatCode.indentln(code, indentDepth);
+    	output.line(code, indentDepth);
         /* Need another temp arg */
-        output += generateStructArgsForInternalStructArrays(msgArgName,
+        generateStructArgsForInternalStructArrays(output, msgArgName,
                                                             signature.substring(1),
                                                             varName + "[" + counter + "]",
                                                             indentDepth+1);
-        output += generateSetMsgArgForInternalDictEntrys(msgArgName,
+        generateSetMsgArgForInternalDictEntrys(output, msgArgName,
                                                          signature.substring(1),
                                                          varName + "[" + counter + "]",
                                                          indentDepth+1);
@@ -2580,8 +2762,8 @@ public class WriteCode {
             signature.substring(1),
             generateStructArgsForSetMsgArg(varName+"[" + counter + "]",
                                            signature.substring(1)));
-    	output += FormatCode.indentln(code, indentDepth+1);
-    	output += FormatCode.indentln("}", indentDepth);
+    	output.line(code, indentDepth+1);
+    	output.line("}", indentDepth);
         GenerateRunnableCode.endForLoop();
     	code = String.format(
             "%s.Set(\"%s\", %sNumElements, temp%sArg);",
@@ -2589,8 +2771,7 @@ public class WriteCode {
             signature,
             varName,
             varName);
-    	output += FormatCode.indentln(code, indentDepth);
-    	return output;    			
+    	output.line(code, indentDepth);
     }
 
     /**
@@ -2611,21 +2792,19 @@ public class WriteCode {
      *                  Note the actual value could be used as the varName
      * @param indentDepth - the indent level of the code generated by this
      * method
-     * @return 
+     * @param output - the buffer the generated code is appended to
      */
-    public static String generateSetMsgArgSimpleArrayType(String msgArgName,
+    public static void generateSetMsgArgSimpleArrayType(CodeBuffer output, String msgArgName,
                                                           String signature,
                                                           String varName,
                                                           int indentDepth) {
-        String output = "";
-        output += generateCharPtrArray(varName, signature, indentDepth);
+        generateCharPtrArray(output, varName, signature, indentDepth);
         String arrayArgs = generateArrayArgsForSetMsgArg(varName, signature);
-        output += String.format("%s%s.Set(\"%s\"%s);\n",
+        output.append(String.format("%s%s.Set(\"%s\"%s);\n",
                                 FormatCode.indent(indentDepth),
                                 msgArgName,
                                 signature,
-                                arrayArgs);
-        return output;
+                                arrayArgs));
     }
     
     /**
@@ -2635,10 +2814,9 @@ public class WriteCode {
      * @param signature
      * @param indentDepth
      */
-    public static String generateCharPtrArray(String varName,
+    public static void generateCharPtrArray(CodeBuffer output, String varName,
                                               String signature,
                                               int indentDepth){
-    	String output = "";
     	String code;
     	char c = signature.charAt(1);
         switch(c){
@@ -2648,34 +2826,33 @@ public class WriteCode {
             code = String.format("const char *temp%s[%sNumElements];",
                                  replaceChars(varName), 
                                  varName);
-            output += FormatCode.indentln(code, indentDepth);
+            output.line(code, indentDepth);
             code = String.format("for(unsigned int i = 0; i < %sNumElements; i++){",
                                  varName);
-            output += FormatCode.indentln(code, indentDepth);
+            output.line(code, indentDepth);
             code = String.format("temp%s[i] = %s[i].c_str();",
                                  replaceChars(varName),
                                  varName);
-            output += FormatCode.indentln(code, indentDepth+1);
-            output += FormatCode.indentln("}", indentDepth);
+            output.line(code, indentDepth+1);
+            output.line("}", indentDepth);
             break;
         }
         default:
             break;
         }
-        return output;
     }
     
     public static String generateArrayArgsForSetMsgArg(String varName,
                                                        String signature){
-    	String output = "";
+    	CodeBuffer output = new CodeBuffer();
     	char c = signature.charAt(1);
         switch(c){
         case 'g': //fall through SIGNATURE type
         case 'o': //fall through OBJECT PATH type
         case 's': { //STRING type
-            output += String.format(", %sNumElements, temp%s",
+            output.append(String.format(", %sNumElements, temp%s",
                                     varName,
-                                    replaceChars(varName));
+                                    replaceChars(varName)));
             break;
         }
         case 'd': //fall through DOUBLE type
@@ -2688,13 +2865,13 @@ public class WriteCode {
         case 'u': //fall through UINT_32 type
         case 'y': //fall through BITE type
         default: {
-            output += String.format(", %sNumElements, %s",
+            output.append(String.format(", %sNumElements, %s",
                                     varName,
-                                    varName);
+                                    varName));
             break;
         }
         }
-    	return output;
+    	return output.toString();
     } // generateSetMsgArgSimpleArrayType()
 
     /**
@@ -2707,27 +2884,25 @@ public class WriteCode {
      * @param signature
      * @param varName
      * @param indentDepth
-     * @return
+     * @param output - the buffer the generated code is appended to
      */
-    public static String generateGetMsgArg(String msgArgName,
+    public static void generateGetMsgArg(CodeBuffer output, String msgArgName,
                                            String signature,
                                            String varName,
                                            int indentDepth) {
-    	String output = "";
     	if(isSignatureContainerType(signature)){
-            output += generateGetMsgArgContainerType(msgArgName,
+            generateGetMsgArgContainerType(output, msgArgName,
                                                      signature,
                                                      varName,
                                                      false,
                                                      indentDepth);
     	} else {
-    	    output += generateGetMsgArgBasicType(msgArgName,
+    	    generateGetMsgArgBasicType(output, msgArgName,
                                                  signature.charAt(0),
                                                  varName,
                                                  false,
                                                  indentDepth);	
     	} 
-    	return output;
     } // generateGetMsgArg()
     
     /**
@@ -2745,28 +2920,26 @@ public class WriteCode {
      *                         variable that that are set by the MsgArg.Get
      *                         call.
      * @param indentDepth
-     * @return
+     * @param output - the buffer the generated code is appended to
      */
-    public static String generateGetMsgArg(String msgArgName,
+    public static void generateGetMsgArg(CodeBuffer output, String msgArgName,
                                            String signature,
                                            String varName,
                                            boolean generateOutVar ,
                                            int indentDepth){
-    	String output = "";
     	if(isSignatureContainerType(signature)){
-            output += generateGetMsgArgContainerType(msgArgName,
+            generateGetMsgArgContainerType(output, msgArgName,
                                                      signature,
                                                      varName,
                                                      generateOutVar,
                                                      indentDepth);
     	} else {
-    	    output += generateGetMsgArgBasicType(msgArgName,
+    	    generateGetMsgArgBasicType(output, msgArgName,
                                                  signature.charAt(0),
                                                  varName,
                                                  generateOutVar,
                                                  indentDepth);	
     	}
-    	return output;
     }
     
     /**
@@ -2782,14 +2955,13 @@ public class WriteCode {
      *                  Note the actual value could be used as the varName
      * @param indentDepth - the indent level of the code generated by this
      * method
-     * @return 
+     * @param output - the buffer the generated code is appended to
      */
-    public static String generateGetMsgArgBasicType(String msgArgName,
+    public static void generateGetMsgArgBasicType(CodeBuffer output, String msgArgName,
                                                     char signature,
                                                     String varName,
                                                     boolean generateOutVar,
                                                     int indentDepth){
-        String output = "";
         String code;
         switch(signature){
         case 'g': //fall through SIGNATURE type
@@ -2798,16 +2970,16 @@ public class WriteCode {
             String tempVarName = replaceChars(varName);
             code = String.format("char *temp%s;", 
                                  tempVarName);
-            output += FormatCode.indentln(code, indentDepth);
+            output.line(code, indentDepth);
             code = String.format("%s.Get(\"%c\", &temp%s);", 
                                  msgArgName,
                                  signature,
                                  tempVarName);
-            output += FormatCode.indentln(code, indentDepth);
+            output.line(code, indentDepth);
             code = String.format("%s = temp%s;",  
                                  varName,
                                  tempVarName);
-            output += FormatCode.indentln(code, indentDepth);
+            output.line(code, indentDepth);
             break;
         }
         case 'd': //fall through DOUBLE type
@@ -2820,15 +2992,14 @@ public class WriteCode {
         case 'u': //fall through UINT_32 type
         case 'y': //fall through BITE type
         default: { //All of the types above are handled by the default case
-            output += String.format("%s%s.Get(\"%c\", &%s);\n", 
+            output.append(String.format("%s%s.Get(\"%c\", &%s);\n", 
                                     FormatCode.indent(indentDepth),
                                     msgArgName,
                                     signature,
-                                    varName);
+                                    varName));
             break;
         }
         }   
-        return output;
     } // generateGetMsgArgBasicType()
     
     /**
@@ -2846,43 +3017,42 @@ public class WriteCode {
      * @param varName - the name of the variable that holds the value.
      * @param indentDepth - the indent level of the code generated by this
      * method
-     * @return 
+     * @param output - the buffer the generated code is appended to
      */
-    public static String generateGetMsgArgContainerType(String msgArgName,
+    public static void generateGetMsgArgContainerType(CodeBuffer output, String msgArgName,
                                                         String signature,
                                                         String varName,
                                                         boolean generateOutVar,
                                                         int indentDepth){
-        String output = "";
         switch(signature.charAt(0)){
         case '(': { //STRUCT
-            output += generateGetMsgArgStructType(msgArgName,
+            output.append(generateGetMsgArgStructType(msgArgName,
                                                   signature,
                                                   varName,
                                                   generateOutVar,
-                                                  indentDepth);
+                                                  indentDepth));
             break;
         }
         case 'a': {
             if (signature.charAt(1) == '{'){
-                output += generateGetMsgArgDictEntryType(msgArgName,
+                generateGetMsgArgDictEntryType(output, msgArgName,
                                                          signature,
                                                          varName,
                                                          generateOutVar,
                                                          indentDepth);
             } else if(signature.charAt(1) == 'a'){
                 //Multi-dimensional arrays will be handled as MsgArgs
-            	output += String.format("%s%s = %s;\n",
+            	output.append(String.format("%s%s = %s;\n",
                                         FormatCode.indent(indentDepth),
-                                        varName, msgArgName);
+                                        varName, msgArgName));
             } else if(signature.charAt(1) == '('){
-            	output += generateGetMsgArgStructArray(msgArgName,
+            	generateGetMsgArgStructArray(output, msgArgName,
                                                        signature,
                                                        varName,
                                                        generateOutVar,
                                                        indentDepth);
             } else {
-                output += generateGetMsgArgBasicArrayType(msgArgName,
+                generateGetMsgArgBasicArrayType(output, msgArgName,
                                                           signature,
                                                           varName,
                                                           generateOutVar,
@@ -2897,7 +3067,6 @@ public class WriteCode {
             //do nothing
             break;
         }
-        return output;
     } // generateGetMsgArgContainerType()
     
     public static String generateGetMsgArgStructType(String msgArgName, 
@@ -2939,22 +3108,22 @@ public class WriteCode {
                                                      String indexVar,
                                                      boolean generateOutVar,
                                                      int indentDepth){
-        String output = "";
+        CodeBuffer output = new CodeBuffer();
         String code;
         if(generateOutVar){
             code = String.format(
                 "%1$sStruct %1$s;", 
                 varName);
-            output += FormatCode.indentln(code, indentDepth);
+            output.line(code, indentDepth);
 
         }
-        output += generateTempPointerCodeForGetMsgArg(varName, 
+        output.append(generateTempPointerCodeForGetMsgArg(varName, 
                                                       signature,
                                                       varName + "Struct",
                                                       false,
                                                       isStructArray,
                                                       indexVar,
-                                                      indentDepth);
+                                                      indentDepth));
         String listOfArgs = generateStructArgsForGetMsgArg(varName, 
                                                            signature,
                                                            isStructArray,
@@ -2971,15 +3140,15 @@ public class WriteCode {
                                  signature,
                                  listOfArgs);
         }
-        output += FormatCode.indentln(code, indentDepth);
-        output += generateTempPointerCodeForGetMsgArg(varName, 
+        output.line(code, indentDepth);
+        output.append(generateTempPointerCodeForGetMsgArg(varName, 
                                                       signature, 
                                                       varName + "Struct",
                                                       true, 
                                                       isStructArray,
                                                       indexVar,
-                                                      indentDepth);
-        return output;
+                                                      indentDepth));
+        return output.toString();
     } // generateGetMsgArgStructType()
     
     /**
@@ -3011,7 +3180,7 @@ public class WriteCode {
                                                         String structSignature, 
                                                         boolean isStructArray,
                                                         String indexVar){
-        String output = "";
+        CodeBuffer output = new CodeBuffer();
         int structCount = 0;
         int dictCount = 0;
         int memberCount = 0; 
@@ -3023,12 +3192,12 @@ public class WriteCode {
                     innerStructSignature(structSignature.substring(
                                              i,
                                              structSignature.length()-1));
-                output += generateStructArgsForGetMsgArg(varName
+                output.append(generateStructArgsForGetMsgArg(varName
                                                          + ".s"
                                                          + structCount, 
                                                          innerStructSig,
                                                          isStructArray,
-                                                         indexVar);
+                                                         indexVar));
                 i += innerStructSig.length()-1;
                 structCount++;
                 break;
@@ -3039,22 +3208,22 @@ public class WriteCode {
             case 'a' :{
             	if(structSignature.charAt(i+1) == '{'){
                     String tempVarName = replaceChars(varName);
-                    output += String.format(", &%s.d%dNumElements, &temp%s_d%d",
+                    output.append(String.format(", &%s.d%dNumElements, &temp%s_d%d",
                                             varName,
                                             dictCount,
                                             tempVarName,
-                                            dictCount);
+                                            dictCount));
                     int dictLength = innerDictSignature(
                         structSignature.substring(i)).length();
                     i +=  dictLength - 1;
                     dictCount++;
             	}else if(structSignature.charAt(i+1) == '('){
                     String tempVarName = replaceChars(varName);
-                    output += String.format(", &%s.s%dNumElements, &temp%s_s%d",
+                    output.append(String.format(", &%s.s%dNumElements, &temp%s_s%d",
                                             varName,
                                             structCount,
                                             tempVarName,
-                                            structCount);
+                                            structCount));
                     int structLength = innerStructSignature(
                         structSignature.substring(i+1)).length();
                     i += structLength -1;
@@ -3064,21 +3233,21 @@ public class WriteCode {
                     case 'g': //fall through SIGNATURE type
                     case 'o': //fall through OBJECT PATH type
                     case 's': {
-                        output += String.format(", &%s.member%dNumElements, "
+                        output.append(String.format(", &%s.member%dNumElements, "
                                                 + "&%s.member%d",
                     				varName,
                     				memberCount,
                     				varName,
-                    				memberCount);
+                    				memberCount));
                         break;
                     }
                     default:{
-                        output += String.format(", &%s.member%dNumElements,"
+                        output.append(String.format(", &%s.member%dNumElements,"
                                                 + " &%s.member%d",
                     				varName,
                     				memberCount,
                     				varName,
-                    				memberCount);
+                    				memberCount));
                         break;
                     }
                         	
@@ -3095,9 +3264,9 @@ public class WriteCode {
                 case 'g': //fall through SIGNATURE type
                 case 'o': //fall through OBJECT PATH type
                 case 's': { //STRING type
-                    output += String.format(", &temp%s_member%d",
+                    output.append(String.format(", &temp%s_member%d",
                                             replaceChars(varName),
-                                            memberCount);
+                                            memberCount));
                     break;
                 }
                 case 'd': //fall through DOUBLE type
@@ -3111,14 +3280,14 @@ public class WriteCode {
                 case 'y':  //fall through BITE type
                 default: {
                     if(isStructArray){
-                        output += String.format(", &%s[%s].member%d", 
+                        output.append(String.format(", &%s[%s].member%d", 
                                                 varName,
                                                 indexVar,
-                                                memberCount);
+                                                memberCount));
                     }else{
-                        output += String.format(", &%s.member%d", 
+                        output.append(String.format(", &%s.member%d", 
                                                 varName,
-                                                memberCount);
+                                                memberCount));
                     }
                     break;
                 }
@@ -3128,7 +3297,7 @@ public class WriteCode {
             }
 
         }
-        return output;
+        return output.toString();
     } // generateStructArgsForGetMsgArg()
     
     /**
@@ -3161,7 +3330,7 @@ public class WriteCode {
         boolean isStructArray,
         String indexVar,
         int indentDepth){
-        String output = "";
+        CodeBuffer output = new CodeBuffer();
         String code;
         int structCount = 0;
         int dictCount = 0;
@@ -3174,14 +3343,14 @@ public class WriteCode {
                     innerStructSignature(
                         structSignature.substring(i,
                                                   structSignature.length()-1));
-                output += generateTempPointerCodeForGetMsgArg(
+                output.append(generateTempPointerCodeForGetMsgArg(
                     varName + ".s" + structCount, 
                     innerStructSig,
                     dataType + "::s" + structCount + "Struct",
                     isAssignment,
                     isStructArray,
                     indexVar,
-                    indentDepth);
+                    indentDepth));
                 i += innerStructSig.length()-1;
                 structCount++;
                 break;
@@ -3196,17 +3365,17 @@ public class WriteCode {
                     String innerVarName = varName + ".d" + dictCount;
                     String innerMsgArgName = "temp" + replaceChars(innerVarName);
                     if(isAssignment){
-                        output += generateGetMsgArgIndividualDictEntryType(
+                        output.append(generateGetMsgArgIndividualDictEntryType(
                             innerMsgArgName, 
                             innerDictSig, 
                             innerVarName,
                             dataType + "::d" + dictCount + "DictEntry",
                             false,
                             0,
-                            indentDepth);
+                            indentDepth));
                     }else{
                         code = String.format("MsgArg *%s;", innerMsgArgName);
-                        output += FormatCode.indentln(code, indentDepth);
+                        output.line(code, indentDepth);
                     }
                     i += innerDictSig.length()-1;
                     dictCount++;
@@ -3216,31 +3385,31 @@ public class WriteCode {
                     String innerVarName = varName + ".s" + structCount;
                     String innerMsgArgName = "temp" + replaceChars(innerVarName);
                     if(isAssignment){
-                        output += allocateArrayPtr(innerVarName, 
+                        output.append(allocateArrayPtr(innerVarName, 
                                                    dataType
                                                    + "::s"
                                                    + structCount
                                                    + "Struct", 
                                                    innerVarName
                                                    + "NumElements", 
-                                                   indentDepth);
+                                                   indentDepth));
                         char counter = GenerateRunnableCode.getCounterVar();
                         code = String.format("for(unsigned int " + counter + " = 0; " + counter + " < %s; " + counter + "++){", 
                                              innerVarName + "NumElements");
-                        output += FormatCode.indentln(code, indentDepth);
-                        output += generateGetMsgArgStructType(
+                        output.line(code, indentDepth);
+                        output.append(generateGetMsgArgStructType(
                             innerMsgArgName,
                             innerStructSig,
                             innerVarName,
                             true,
                             String.valueOf(counter),
                             false,
-                            indentDepth+1);
-                        output += FormatCode.indentln("}", indentDepth);
+                            indentDepth+1));
+                        output.line("}", indentDepth);
                         GenerateRunnableCode.endForLoop();
                     }else{
                         code = String.format("MsgArg *%s;", innerMsgArgName);
-                        output += FormatCode.indentln(code, indentDepth); 
+                        output.line(code, indentDepth); 
                     }
                     i += innerStructSig.length()-1;
                     structCount++;
@@ -3256,14 +3425,14 @@ public class WriteCode {
                                                  memberCount,
                                                  varName,
                                                  memberCount);
-                            output += FormatCode.indentln(code, indentDepth);
+                            output.line(code, indentDepth);
                             char counter = GenerateRunnableCode.getCounterVar();
                             code = String.format("for(unsigned int " + counter + " = 0; " + counter + " < %s.member"
                                                  + "%dNumElements; " + counter + "++){",
                                                  varName,
                                                  memberCount);
-                            output += FormatCode.indentln(code, indentDepth);
-                            output += generateGetMsgArgBasicType(
+                            output.line(code, indentDepth);
+                            generateGetMsgArgBasicType(output,
                                 "temp"
                                 + replaceChars(varName)
                                 +"_member"
@@ -3273,13 +3442,13 @@ public class WriteCode {
                                 varName + ".member" + memberCount + "[" + counter + "]", 
                                 false, 
                                 indentDepth+1);
-                            output += FormatCode.indentln("}", indentDepth);
+                            output.line("}", indentDepth);
                             GenerateRunnableCode.endForLoop();
                         } else {
                             code = String.format("MsgArg *temp%s_member%d;",
                                                  replaceChars(varName),
                                                  memberCount);
-                            output += FormatCode.indentln(code, indentDepth);
+                            output.line(code, indentDepth);
                         }
                         break;
                     }
@@ -3310,7 +3479,7 @@ public class WriteCode {
                                                  memberCount,
                                                  tempVarName,
                                                  memberCount);
-                            output += FormatCode.indentln(code, indentDepth);
+                            output.line(code, indentDepth);
                     	}else{
                             code = String.format("%s.member%d = "
                                                  + "temp%s_member%d;",
@@ -3318,13 +3487,13 @@ public class WriteCode {
                                                  memberCount,
                                                  tempVarName,
                                                  memberCount);
-                            output += FormatCode.indentln(code, indentDepth);	
+                            output.line(code, indentDepth);	
                     	}
                     } else {
-                        output += String.format("%schar *temp%s_member%d;\n", 
+                        output.append(String.format("%schar *temp%s_member%d;\n", 
                                                 FormatCode.indent(indentDepth),
                                                 tempVarName,
-                                                memberCount);
+                                                memberCount));
                     }
                     break;
                 }
@@ -3337,7 +3506,7 @@ public class WriteCode {
             }
             }
         }
-        return output;
+        return output.toString();
     } // generateTempCharPointerCodeForGetMsgArg()
     
     /**
@@ -3351,35 +3520,34 @@ public class WriteCode {
      * @param varName
      * @param generateOutVar
      * @param indentDepth
-     * @return
+     * @param output - the buffer the generated code is appended to
      */
-    public static String generateGetMsgArgDictEntryType(String msgArgName, 
+    public static void generateGetMsgArgDictEntryType(CodeBuffer output, String msgArgName, 
                                                         String signature, 
                                                         String varName, 
                                                         boolean generateOutVar,
                                                         int indentDepth){
-        String output = "";
         String code;
         code = String.format("const MsgArg *%sDictEntries;", varName);
-        output += FormatCode.indentln(code, indentDepth);
+        output.line(code, indentDepth);
         if(generateOutVar){
             code = String.format("size_t %sNumElements;",
                                  varName);
-            output += FormatCode.indentln(code, indentDepth);
+            output.line(code, indentDepth);
         }
         code = String.format("%s.Get(\"%s\", &%sNumElements, &%sDictEntries);",
                              msgArgName,
                              signature,
                              varName,
                              varName);
-        output += FormatCode.indentln(code, indentDepth);
+        output.line(code, indentDepth);
         if(generateOutVar){
             code = String.format(
                 "%1$sDictEntry *%1$s;",
                 varName);
-            output += FormatCode.indentln(code, indentDepth);
+            output.line(code, indentDepth);
         }
-        output += generateGetMsgArgIndividualDictEntryType(varName
+        output.append(generateGetMsgArgIndividualDictEntryType(varName
                                                            + "DictEntries", 
                                                            signature, 
                                                            varName,
@@ -3387,8 +3555,7 @@ public class WriteCode {
                                                            + "DictEntry",
                                                            generateOutVar,
                                                            0,
-                                                           indentDepth);    
-        return output;
+                                                           indentDepth));    
     }
 
     /**
@@ -3419,28 +3586,28 @@ public class WriteCode {
         boolean generateOutVar,
         int loopDepth,
         int indentDepth){
-    	String output = "";
+    	CodeBuffer output = new CodeBuffer();
     	String valueGetMsgArg = "";
     	String assignTempStructStrings = "";
     	String getStructArray = "";
     	String code;
-    	output += allocateArrayPtr(varName, 
+    	output.append(allocateArrayPtr(varName, 
                                    dataTypeName, 
                                    varName + "NumElements", 
-                                   indentDepth);
+                                   indentDepth));
         code = String.format("for(unsigned int i%d = 0; i%d < %sNumElements; i%d++){",
                              loopDepth,
                              loopDepth,
                              varName,
                              loopDepth);
-        output += FormatCode.indentln(code, indentDepth);
+        output.line(code, indentDepth);
         
         String tempKey = "";
         switch(signature.charAt(2)){
         case 'g': //fall through SIGNATURE type
         case 'o': //fall through OBJECT PATH type
         case 's': { //STRING type
-            output += FormatCode.indent("char *tempKey;\n", indentDepth+1);
+            output.indent(indentDepth+1).append("char *tempKey;\n");
             tempKey = String.format(", &tempKey", varName);;
             break;
         }
@@ -3464,20 +3631,20 @@ public class WriteCode {
         case 'g':
         case 'o':
         case 's':{
-            output += FormatCode.indent("char *tempValue;\n", indentDepth+1);
+            output.indent(indentDepth+1).append("char *tempValue;\n");
             tempValue = String.format(", &tempValue", varName);
             break;
         }
         case '(':{
             String innerStruct = innerStructSignature(signature.substring(3));
-            output += generateTempPointerCodeForGetMsgArg(
+            output.append(generateTempPointerCodeForGetMsgArg(
                 varName + "[i" + loopDepth +"].value", 
                 innerStruct,
                 varName + "DictEntry::valueStruct",
                 false,
                 false,
                 "",
-                indentDepth+1);
+                indentDepth+1));
             tempValue = generateStructArgsForGetMsgArg(
                 varName +"[i" + loopDepth +"].value", 
                 innerStruct,
@@ -3495,7 +3662,7 @@ public class WriteCode {
         }
         case 'a':{
             if(signature.charAt(4) == '('){
-                output += FormatCode.indentln("MsgArg *tempValue;",
+                output.line("MsgArg *tempValue;",
                                               indentDepth+1);
                 tempValue = String.format(
                     ", &%s[i%d].valueNumElements, &tempValue", 
@@ -3530,7 +3697,7 @@ public class WriteCode {
                 getStructArray += FormatCode.indentln("}", indentDepth+1);
             }else if(signature.charAt(4) == '{'){
                 String innerDict = innerDictSignature(signature.substring(3));
-                output += FormatCode.indentln("const MsgArg *tempValueArg;",
+                output.line("const MsgArg *tempValueArg;",
                                               indentDepth+1);
                 tempValue = String.format(", &%s[i%d].valueNumElements, "
                                           + "&tempValueArg", 
@@ -3554,7 +3721,7 @@ public class WriteCode {
                 case 'g':
                 case 'o':
                 case 's':{
-                    output += FormatCode.indentln("char **tempValue;",
+                    output.line("char **tempValue;",
                                                   indentDepth +1);
                     tempValue = String.format(", &%s[i%d].valueNumElements, "
                                               + "&tempValue",
@@ -3596,7 +3763,7 @@ public class WriteCode {
                              signature.substring(1),
                              tempKey,
                              tempValue);
-        output += FormatCode.indentln(code, indentDepth+1);
+        output.line(code, indentDepth+1);
         switch(signature.charAt(2)){
         case 'g': //fall through SIGNATURE type
         case 'o': //fall through OBJECT PATH type
@@ -3604,7 +3771,7 @@ public class WriteCode {
             code = String.format("%s[i%d].key = tempKey;",
                                  varName,
                                  loopDepth);
-            output += FormatCode.indentln(code, indentDepth+1);
+            output.line(code, indentDepth+1);
             break;
         }
         default:
@@ -3617,19 +3784,19 @@ public class WriteCode {
             code = String.format("%s[i%d].value = tempValue;", 
                                  varName,
                                  loopDepth);
-            output += FormatCode.indentln(code, indentDepth+1);
+            output.line(code, indentDepth+1);
             break;
         }
         default:
             break;
         }
-        output += getStructArray;
+        output.append(getStructArray);
         //this will assign the temporary char* to a String from a struct
-        output += assignTempStructStrings;
+        output.append(assignTempStructStrings);
         //this will process the contents of an inner dictonary type
-        output += valueGetMsgArg; 
-        output += FormatCode.indentln("}", indentDepth);
-    	return output;    
+        output.append(valueGetMsgArg); 
+        output.line("}", indentDepth);
+    	return output.toString();    
     } // generateGetMsgArgDictEntryType()
 
     
@@ -3651,33 +3818,32 @@ public class WriteCode {
      *                  Note the actual value could be used as the varName
      * @param indentDepth - the indent level of the code generated by this
      *                      method
-     * @return 
+     * @param output - the buffer the generated code is appended to
      */
-    public static String generateGetMsgArgStructArray(String msgArgName, 
+    public static void generateGetMsgArgStructArray(CodeBuffer output, String msgArgName, 
                                                       String signature, 
                                                       String varName, 
                                                       boolean generateOutVar, 
                                                       int indentDepth){
-    	String output = "";
     	String code;
     	code = String.format(
             "MsgArg *temp%sArg;",
             varName);
-    	output += FormatCode.indentln(code, indentDepth);
+    	output.line(code, indentDepth);
     	if(generateOutVar){
             code = String.format(
                 "size_t %sNumElements;",
                 varName);
-            output += FormatCode.indentln(code, indentDepth); 
+            output.line(code, indentDepth); 
     	}
 
-        output += generateTempPointerCodeForGetMsgArg(varName + "[i]",
+        output.append(generateTempPointerCodeForGetMsgArg(varName + "[i]",
                                                       signature.substring(1, signature.length()-1),
                                                       varName + "Struct",
                                                       false,
                                                       true,
                                                       null,
-                                                      indentDepth);
+                                                      indentDepth));
 
 
     	code = String.format(
@@ -3686,7 +3852,7 @@ public class WriteCode {
             signature,
             varName,
             varName);
-    	output += FormatCode.indentln(code, indentDepth);
+    	output.line(code, indentDepth);
     	if(generateOutVar){
             code = String.format(
                 "%1$sStruct *%1$s = new %1$sStruct[%1$sNumElements];", 
@@ -3696,30 +3862,29 @@ public class WriteCode {
                 "%1$s = new %1$sStruct[%1$sNumElements];",
                 varName);
     	}
-    	output += FormatCode.indentln(code, indentDepth);
+    	output.line(code, indentDepth);
         char counter = GenerateRunnableCode.getCounterVar();
     	code = String.format(
             "for(unsigned int " + counter + "=0; " + counter + " < %sNumElements; " + counter + "++){", 
             varName);
-    	output += FormatCode.indentln(code, indentDepth);
+    	output.line(code, indentDepth);
     	code = String.format(
             "temp%sArg[" + counter + "].Get(\"%s\"%s);",
             varName,
             signature.substring(1),
             generateStructArgsForGetMsgArg(varName+"[" + counter + "]",
                                            signature.substring(1)));
-    	output += FormatCode.indentln(code, indentDepth+1);
-        output += generateTempPointerCodeForGetMsgArg(varName + "[" + counter + "]",
+    	output.line(code, indentDepth+1);
+        output.append(generateTempPointerCodeForGetMsgArg(varName + "[" + counter + "]",
                                                       signature.substring(1, signature.length()-1),
                                                       varName + "Struct",
                                                       true,
                                                       false,
                                                       null,
-                                                      indentDepth + 1);
+                                                      indentDepth + 1));
      
-    	output += FormatCode.indentln("}", indentDepth);
+    	output.line("}", indentDepth);
         GenerateRunnableCode.endForLoop();
-    	return output;
     }
 
     /**
@@ -3740,50 +3905,72 @@ public class WriteCode {
      *                  Note the actual value could be used as the varName
      * @param indentDepth - the indent level of the code generated by this
      *                      method
-     * @return 
+     * @param output - the buffer the generated code is appended to
      */
-    public static String generateGetMsgArgBasicArrayType(
+    public static void generateGetMsgArgBasicArrayType(CodeBuffer output,
         String msgArgName, 
         String signature, 
         String varName, 
         boolean generateOutVar, 
         int indentDepth){
-        String output = "";
+        generateGetMsgArgBasicArrayType(output, msgArgName, signature,
+                                        varName, generateOutVar, false,
+                                        indentDepth);
+    }
+
+    /**
+     * Generate the code to Get the contents of a basic array type MsgArg, as
+     * generateGetMsgArgBasicArrayType() above.
+     *
+     * @param allocateArray - if generateOutVar is false, allocate the array
+     *                        with new[] into the existing pointer varName,
+     *                        rather than filling the array it points to.
+     */
+    public static void generateGetMsgArgBasicArrayType(CodeBuffer output,
+        String msgArgName,
+        String signature,
+        String varName,
+        boolean generateOutVar,
+        boolean allocateArray,
+        int indentDepth){
         String code;
         char c = signature.charAt(1);
         switch(c){
         case 'g': //fall through SIGNATURE type
         case 'o': //fall through OBJECT PATH type
         case 's': { //STRING type
-            output += FormatCode.indentln("const MsgArg *stringArray;",
+            output.line("const MsgArg *stringArray;",
                                           indentDepth);
-            output += FormatCode.indentln("char* tempString;", indentDepth);
+            output.line("char* tempString;", indentDepth);
             if(generateOutVar){
             	code = String.format("size_t %sNumElements;", varName);
-            	output += FormatCode.indentln(code, indentDepth);
+            	output.line(code, indentDepth);
             }
-            output += String.format("%s%s.Get(\"%s\", &%sNumElements, "
+            output.append(String.format("%s%s.Get(\"%s\", &%sNumElements, "
                                     + "&stringArray);\n",
                                     FormatCode.indent(indentDepth),
                                     msgArgName,
                                     signature,
-                                    varName);
+                                    varName));
             if(generateOutVar){
             	code = String.format("qcc::String * %1$s = new qcc::String[%1$sNumElements];", varName);
-            	output += FormatCode.indentln(code, indentDepth);
+            	output.line(code, indentDepth);
+            }else if(allocateArray){
+                code = String.format("%1$s = new qcc::String[%1$sNumElements];", varName);
+                output.line(code, indentDepth);
             }
-            output += String.format(
+            output.append(String.format(
                 "%sfor(unsigned int i = 0; i < %sNumElements; i++){\n",
                 FormatCode.indent(indentDepth),
-                varName);
-            output += String.format(
+                varName));
+            output.append(String.format(
                 "%sstringArray[i].Get(\"%c\", &tempString);\n",
                 FormatCode.indent(indentDepth+1),
-                c);
-            output += String.format("%s%s[i] = tempString;\n",
+                c));
+            output.append(String.format("%s%s[i] = tempString;\n",
                                     FormatCode.indent(indentDepth+1),
-                                    varName);
-            output += FormatCode.indentln("}", indentDepth);
+                                    varName));
+            output.line("}", indentDepth);
             break;
         }
         case 'b': //fall through BOOLEAN type
@@ -3797,49 +3984,144 @@ public class WriteCode {
         case 'y': //fall through BITE type
         default: {
             code = String.format("%s * temp%sArray;", mapType(c), varName);
-            output += FormatCode.indentln(code, indentDepth);
-            output += String.format("%s%s.Get(\"%s\", &%sNumElements, &temp%sArray);\n",
+            output.line(code, indentDepth);
+            output.append(String.format("%s%s.Get(\"%s\", &%sNumElements, &temp%sArray);\n",
                                     FormatCode.indent(indentDepth),
                                     msgArgName,
                                     signature,
                                     varName,
-                                    varName);
+                                    varName));
             if(generateOutVar){
                 code = String.format("%s * %s = new %s[%sNumElements];", 
                                      mapType(c),
                                      varName,
                                      mapType(c),
                                      varName);
-                output += FormatCode.indentln(code, indentDepth);
+                output.line(code, indentDepth);
+            }else if(allocateArray){
+                code = String.format("%1$s = new %2$s[%1$sNumElements];",
+                                     varName,
+                                     mapType(c));
+                output.line(code, indentDepth);
             }
-            output += String.format(
+            output.append(String.format(
                 "%sfor(unsigned int i = 0; i < %sNumElements; i++){\n",
                 FormatCode.indent(indentDepth),
-                varName);
-            output += String.format("%s%s[i] = temp%sArray[i];\n",
+                varName));
+            output.append(String.format("%s%s[i] = temp%sArray[i];\n",
                                     FormatCode.indent(indentDepth+1),
                                     varName,
-                                    varName);
-            output += FormatCode.indentln("}", indentDepth);
+                                    varName));
+            output.line("}", indentDepth);
             break;
         }
         }
-        return output;
     } // generateGetMsgArgBasicArrayType()
 
     /**
      * Write the ifndef statements in the file.
      */
     protected void writeIfNDef() {
-        String output = "";
-        output += "#ifndef _" 
+        CodeBuffer output = new CodeBuffer();
+        output.append("#ifndef _" 
             + this.fileName.replace(".h", "_").toUpperCase() 
             + "H\n"
             
             + "#define _" 
             + this.fileName.replace(".h", "_").toUpperCase() 
-            + "H\n\n";    		
+            + "H\n\n");    		
         writeCode(output);
     } // writeIfNDef()
 
 } // class CodeWriter
+
+/**
+ * Holds the state used while generating the code for a single interface.
+ * The client and service writers for an interface share one context so the
+ * container lists and struct definitions are only worked out once, and
+ * writers for different interfaces share nothing so that they can be run at
+ * the same time.
+ */
+class WriteContext {
+    protected final CodeGenConfig config;
+    protected final InterfaceDescription inter;
+    protected ContainerArgList structArgList;
+    protected ContainerArgList printedStructList;
+    protected boolean structArgListPopulated;
+    protected ContainerArgList dictEntryArgList;
+    protected ContainerArgList printedDictList;
+    protected boolean dictEntryArgListPopulated;
+    protected ContainerArgList arrayContainerTypeArgList;
+    protected boolean arrayContainerTypeArgListPopulated;
+    protected String structDefs;
+
+    public WriteContext(CodeGenConfig config, InterfaceDescription inter) {
+        this.config = config;
+        this.inter = inter;
+        structArgList = new ContainerArgList();
+        printedStructList = new ContainerArgList();
+        structArgListPopulated = false;
+        dictEntryArgList = new ContainerArgList();
+        printedDictList = new ContainerArgList();
+        dictEntryArgListPopulated = false;
+        arrayContainerTypeArgList = new ContainerArgList();
+        arrayContainerTypeArgListPopulated = false;
+        structDefs = "";
+    }
+} // class WriteContext
+
+/**
+ * A list of container arguments in the order they were added, indexed by the
+ * arguments' names and types so that checking whether an argument is in the
+ * list, or whether its name is used by a container of another type, does not
+ * have to look through the whole list.
+ */
+class ContainerArgList {
+    private ArrayList<ArgDef> args;
+    // keyed by an ArgDef without a direction, which equals every argument
+    // with the same name and type; ArgDef.equals() decides within a bucket
+    private HashMap<ArgDef, ArrayList<ArgDef>> argsByKey;
+    private HashMap<String, String> typeByName;
+
+    public ContainerArgList() {
+        args = new ArrayList<ArgDef>();
+        argsByKey = new HashMap<ArgDef, ArrayList<ArgDef>>();
+        typeByName = new HashMap<String, String>();
+    }
+
+    public void add(ArgDef arg) {
+        args.add(arg);
+        ArgDef key = new ArgDef(arg.getArgName(), arg.getArgType(), null, null);
+        ArrayList<ArgDef> bucket = argsByKey.get(key);
+        if(bucket == null){
+            bucket = new ArrayList<ArgDef>(1);
+            argsByKey.put(key, bucket);
+        }
+        bucket.add(arg);
+        if(!typeByName.containsKey(arg.getArgName())){
+            typeByName.put(arg.getArgName(), arg.getArgType());
+        }
+    }
+
+    public boolean contains(ArgDef arg) {
+        ArrayList<ArgDef> bucket = argsByKey.get(
+            new ArgDef(arg.getArgName(), arg.getArgType(), null, null));
+        return bucket != null && bucket.contains(arg);
+    }
+
+    /**
+     * @return the type of the first argument added with the given name, or
+     * null if there is none.
+     */
+    public String getTypeOf(String name) {
+        return typeByName.get(name);
+    }
+
+    public ArgDef get(int i) {
+        return args.get(i);
+    }
+
+    public int size() {
+        return args.size();
+    }
+} // class ContainerArgList
@@ -14,7 +14,12 @@
  *    limitations under the License.
  ******************************************************************************/
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Child class of CodeWriter
@@ -24,12 +29,126 @@ import java.util.ArrayList;
  * methods specific to the service files.
  */
 class WriteServiceCode extends WriteCode{
+    // the templates in src/c++/ServiceCode.tmpl, parsed once
+    private static final CodeTemplates templates =
+        CodeTemplates.load("src/c++/ServiceCode.tmpl");
+    private static final CodeTemplate HEADER_COMMENT =
+        templates.get("headerComment");
+    private static final CodeTemplate CLASS_DEF_BEGIN =
+        templates.get("classDefBegin");
+    private static final CodeTemplate CLASS_DEF_METHOD_HANDLER =
+        templates.get("classDefMethodHandler");
+    private static final CodeTemplate CLASS_DEF_PUBLIC_END =
+        templates.get("classDefPublicEnd");
+    private static final CodeTemplate CLASS_DEF_METHOD =
+        templates.get("classDefMethod");
+    private static final CodeTemplate CLASS_DEF_SIGNAL =
+        templates.get("classDefSignal");
+    private static final CodeTemplate CLASS_DEF_MEMBERS =
+        templates.get("classDefMembers");
+    private static final CodeTemplate CLASS_DEF_SIGNAL_MEMBER =
+        templates.get("classDefSignalMember");
+    private static final CodeTemplate CLASS_DEF_METHOD_WORK =
+        templates.get("classDefMethodWork");
+    private static final CodeTemplate CLASS_DEF_WORKER_POOL =
+        templates.get("classDefWorkerPool");
+    private static final CodeTemplate CLASS_DEF_END =
+        templates.get("classDefEnd");
+    private static final CodeTemplate CC_COMMENT =
+        templates.get("ccComment");
+    private static final CodeTemplate CONSTRUCTOR_BEGIN =
+        templates.get("constructorBegin");
+    private static final CodeTemplate CONSTRUCTOR_INTERFACES =
+        templates.get("constructorInterfaces");
+    private static final CodeTemplate CONSTRUCTOR_INTERFACE_BEGIN =
+        templates.get("constructorInterfaceBegin");
+    private static final CodeTemplate CONSTRUCTOR_ACTIVATE =
+        templates.get("constructorActivate");
+    private static final CodeTemplate ADD_METHOD_HANDLER =
+        templates.get("addMethodHandler");
+    private static final CodeTemplate CONSTRUCTOR_ELSE =
+        templates.get("constructorElse");
+    private static final CodeTemplate CONSTRUCTOR_INTERFACE_END =
+        templates.get("constructorInterfaceEnd");
+    private static final CodeTemplate CONSTRUCTOR_SIGNALS =
+        templates.get("constructorSignals");
+    private static final CodeTemplate CONSTRUCTOR_SIGNAL_INTERFACE =
+        templates.get("constructorSignalInterface");
+    private static final CodeTemplate CONSTRUCTOR_SIGNAL_MEMBER =
+        templates.get("constructorSignalMember");
+    private static final CodeTemplate CONSTRUCTOR_END =
+        templates.get("constructorEnd");
+    private static final CodeTemplate METHOD_DISPATCH =
+        templates.get("methodDispatch");
+    private static final CodeTemplate METHOD_HANDLER_BEGIN =
+        templates.get("methodHandlerBegin");
+    private static final CodeTemplate METHOD_HANDLER_CALL =
+        templates.get("methodHandlerCall");
+    private static final CodeTemplate METHOD_REPLY_BEGIN =
+        templates.get("methodReplyBegin");
+    private static final CodeTemplate METHOD_REPLY_END =
+        templates.get("methodReplyEnd");
+    private static final CodeTemplate SIGNAL_BEGIN =
+        templates.get("signalBegin");
+    private static final CodeTemplate SIGNAL_END =
+        templates.get("signalEnd");
+    private static final CodeTemplate GET_BEGIN =
+        templates.get("getBegin");
+    private static final CodeTemplate SET_BEGIN =
+        templates.get("setBegin");
+    private static final CodeTemplate INTERFACE_CASE =
+        templates.get("interfaceCase");
+    private static final CodeTemplate LENGTH_CASE =
+        templates.get("lengthCase");
+    private static final CodeTemplate CHAR_SWITCH =
+        templates.get("charSwitch");
+    private static final CodeTemplate CHAR_CASE =
+        templates.get("charCase");
+    private static final CodeTemplate NAME_CASE =
+        templates.get("nameCase");
+    private static final CodeTemplate SET_CASE =
+        templates.get("setCase");
+    private static final CodeTemplate CASE_DENIED =
+        templates.get("caseDenied");
+    private static final CodeTemplate NAME_CASE_END =
+        templates.get("nameCaseEnd");
+    private static final CodeTemplate CHAR_CASE_END =
+        templates.get("charCaseEnd");
+    private static final CodeTemplate CHAR_SWITCH_END =
+        templates.get("charSwitchEnd");
+    private static final CodeTemplate LENGTH_CASE_END =
+        templates.get("lengthCaseEnd");
+    private static final CodeTemplate INTERFACE_CASE_END =
+        templates.get("interfaceCaseEnd");
+    private static final CodeTemplate PROPERTY_END =
+        templates.get("propertyEnd");
+    private static final CodeTemplate DEV_COMMENT =
+        templates.get("devComment");
+    private static final CodeTemplate METHOD_BEGIN =
+        templates.get("methodBegin");
+    private static final CodeTemplate METHOD_EMPTY =
+        templates.get("methodEmpty");
+    private static final CodeTemplate METHOD_END =
+        templates.get("methodEnd");
+    private static final CodeTemplate MAIN_COMMENT =
+        templates.get("mainComment");
+    private static final CodeTemplate MAIN_BEGIN =
+        templates.get("mainBegin");
+    private static final CodeTemplate MAIN_CREATE_OBJECT =
+        templates.get("mainCreateObject");
+    private static final CodeTemplate MAIN_REGISTER_BEGIN =
+        templates.get("mainRegisterBegin");
+    private static final CodeTemplate MAIN_REGISTER_OBJECT =
+        templates.get("mainRegisterObject");
+    private static final CodeTemplate MAIN_END =
+        templates.get("mainEnd");
 
     private boolean writeSetMethod;
     private boolean writeGetMethod;
 
-    public WriteServiceCode() {
-        if(ParseAJXML.useFullNames) {
+    public WriteServiceCode(WriteContext context) {
+        super(context);
+        if(config.useFullNames) {
             objName = inter.className;
         }
         else {
@@ -40,6 +159,18 @@ class WriteServiceCode extends WriteCode{
         writeGetMethod = false;
     }
 
+    /**
+     * @return the names of the files written for the interface by
+     * writeHeaderFile(), writeCCFile() and writeDevCCFile().
+     */
+    public ArrayList<String> getFileNames(){
+        ArrayList<String> fileNames = new ArrayList<String>();
+        fileNames.add(objName + ".h");
+        fileNames.add(objName + ".cc");
+        fileNames.add(objName + "Methods.cc");
+        return fileNames;
+    }
+
     /**
      * Creates the header file and write the generated service class definition
      * in it.
@@ -140,104 +271,28 @@ class WriteServiceCode extends WriteCode{
      * Writes the service main function to the service main file.
      */
     private void writeMainFunction(){
-        String output = "";
-		String commentStr;
-		String code;
-		
-        commentStr = "Static top level message bus manager - this is a static " +
-        		"global in this file as it needs to be accessible in both " +
-        		"main() and the signal handler for SIGINT.";
-        output += FormatCode.blockComment(commentStr);	
-        output += "static BusAttachmentMgr* AllJoynMgr = NULL;\n\n";
-        
-        commentStr = "SigintHandler()\n" +
-        		"This is the handler for the Int signal (i.e. Ctrl+C). With" +
-        		"out the signal handler the program will exit without " +
-        		"stopping the bus which may result in a memory leak.";
-        output += FormatCode.blockComment(commentStr);	
-        output += "static void SigIntHandler(int sig){\n"; 
-        output += FormatCode.indentln("AllJoynMgr->Stop();",1);
-        output +="} /* SigIntHandler() */\n\n";
-		
-        commentStr = "main()\n" +
-        		"The entry point for the executable.";
-        output += FormatCode.blockComment(commentStr);
-        output += "int main(int argc, char **argv, char**envArg){\n"; 
-        output += FormatCode.indentln("QStatus status = ER_OK;", 1); 
-        code = "printf(\"AllJoyn Library version: %s\\n\", ajn::GetVersion());";
-        output += FormatCode.indentln(code, 1); 
-        code = "printf(\"AllJoyn Library build info: %s\\n\", ajn::GetBuildInfo());\n";
-        	output += FormatCode.indentln(code, 1);
-        commentStr = "Install SIGINT handler so Ctrl + C deallocates " +
-        		"memory properly";
-        output += FormatCode.comment(commentStr, 1);
-        
-        output += FormatCode.indentln("signal(SIGINT, SigIntHandler);\n", 1); 
-        
-		commentStr = "Create the bus attachment manager that handles the " +
-				"interactions with the message bus.\n" +
-				"The second argument is a boolean indicating whether remote " +
-				"device discovery is enabled.";
-		output += FormatCode.blockComment(commentStr, 1);
-        
-        code = String.format(
-        		"AllJoynMgr = new BusAttachmentMgr(\"%sApp\", \"%s\", true);\n",
-        		config.className, config.wellKnownName);
-        output += FormatCode.indentln(code, 1); 
+        CodeBuffer output = new CodeBuffer();
+        MAIN_BEGIN.render(output, config.className, config.wellKnownName);
 
         for(ObjectData obj : config.objects) {
-            commentStr = String.format(
-                        "Create a %s object using the BusAttachment owned by the bus " +
-                        "manager and preferred path. If there were multiple services " +
-                        "to be started from this application then each service object " +
-                        "would be created here using the same bus attachment object."
-                        , obj.objName);
-            output += FormatCode.blockComment(commentStr, 1);
             String className = "";
-            if(ParseAJXML.useFullNames) {
+            if(config.useFullNames) {
                 className = obj.inter.className;
             }
             else {
                 className = obj.inter.getName();
             }
             className += "Service";
-            code = String.format("%s %s(*AllJoynMgr->GetBusAttachment(),", 
-                        className,
-            		obj.objName);
-            output += FormatCode.indentln(code, 1);
-            code = "*AllJoynMgr->GetBusListener(),";
-            output += FormatCode.indentln(code, 2);   
-            code = String.format("\"%s\");", obj.objPath);
-            output += FormatCode.indentln(code, 2);
+            MAIN_CREATE_OBJECT.render(output, obj.objName, className,
+                                      obj.objPath);
         }
 
-		
-        writeCode(output);
-        output = "";
-        commentStr = "Register the service object with the bus and start the " +
-                     "service. If there are multiple services that are going to " +
-                     "be hosted out of this application then calls to " +
-                     "RegisterBusObject should be made for each service object " +
-                     "BEFORE calling StartService(). Once the interrupt signal" +
-                     "has been received clean up by calling Delete().";
-        output += FormatCode.blockComment(commentStr, 1);
+        MAIN_REGISTER_BEGIN.render(output);
         for(ObjectData obj : config.objects) {
-            code = String.format(
-                    "status = AllJoynMgr->RegisterBusObject(%s);\n",
-		    obj.objName);
-            output += FormatCode.indentln(code, 1);
+            MAIN_REGISTER_OBJECT.render(output, obj.objName);
         }
-        
-        code = String.format("status = AllJoynMgr->StartService(\"%s\");\n", config.wellKnownName);
-        output += FormatCode.indentln(code, 1); 
+        MAIN_END.render(output, config.wellKnownName);
 
-        output += FormatCode.indentln("AllJoynMgr->WaitForSigInt();\n", 1);
-        output += FormatCode.indentln("AllJoynMgr->Delete();", 1);
-        output += FormatCode.indentln("delete AllJoynMgr;", 1);
-        output += FormatCode.indentln("AllJoynMgr = NULL;\n", 1);
-        output += FormatCode.indentln("return (int) status;", 1);
-        output += "} /* main() */\n";
-		
         writeCode(output);
     }
 	
@@ -246,179 +301,53 @@ class WriteServiceCode extends WriteCode{
      * header file
      */
     private void writeClassDef() {
-    	ArrayList<MethodDef> tempMethodList;
-    	ArrayList<SignalDef> tempSignalList;
-    	ArrayList<PropertyDef> tempPropList;
-    	MethodDef tempMeth;
-    	SignalDef tempSig;
-        String output = ""; 
-        String commentStr;
-        String code;
-        output += "\n";
-        commentStr = String.format(
-        		"CLASS: %s\n" +
-        		"This class is a child of the busObject class. This is " +
-        		"required so that it can interact directly with the bus.", 
-        		objName);
-        output += FormatCode.blockComment(commentStr);
-
-        output += String.format("class %s : public BusObject{\n\n", objName);
-
-        output += FormatCode.indentln("public:\n", 1);
-		commentStr = String.format(
-				"METHOD: %1$s()\n" +
-				"Constructor for the %1$s class. Takes in pointer to the " +
-				"BusAttacment it will register with and the desired path for " +
-				"the object.",
-				objName);
-		output += FormatCode.blockComment(commentStr, 2);
+        CodeBuffer output = new CodeBuffer();
+        CLASS_DEF_BEGIN.render(output, objName);
 
-        code = String.format("%s(BusAttachment &bus, MyBusListener &busListener, const char *path);\n", 
-        		objName);
-        output += FormatCode.indentln(code, 2); 
-		
-        writeCode(output);
-        output = "";
-		
-        tempMethodList = inter.getMethods();
-        tempSignalList = inter.getSignals();
-			
-        for(int j = 0; j < tempMethodList.size(); j++){
-            tempMeth = tempMethodList.get(j);
-            commentStr = String.format(
-            		"Method: %1$sHandler()\n" +
-               		"This is the method that gets called by AllJoyn when " +
-               		"the service receives a method call for the %1$s method.",
-               		tempMeth.getName());
-            output += FormatCode.blockComment(commentStr, 2);
-            code = String.format(
-             		"void %sHandler(const InterfaceDescription::Member* member, Message& msg);\n",
-               		tempMeth.getName());
-            output += FormatCode.indentln(code, 2);
+        for(MethodDef method : inter.getMethods()){
+            CLASS_DEF_METHOD_HANDLER.render(output, method.getName());
         }
-		
-        for(int j = 0; j < inter.getProperties().size(); j++){
-            if(inter.getProperties().get(j).getAccess().equals("read") ||
-                inter.getProperties().get(j).getAccess().equals("readwrite")){
-                commentStr = "METHOD: Get()\n" +
-				"Overwrites the Get method of the BusObject class " +
-				"to support the properties specified in the " +
-				"interfaces. Handles a GetProperty call.";
-		output += FormatCode.blockComment(commentStr, 2);
-                output += FormatCode.indentln("QStatus Get(const char " +
-                  		"*ifcName, const char *propName, MsgArg& val);\n", 2); 
+
+        for(PropertyDef prop : inter.getProperties()){
+            if(prop.getAccess().equals("read") ||
+               prop.getAccess().equals("readwrite")){
                 writeGetMethod = true;
-                break;
             }
-        }
-		
-        for(int j = 0; j < inter.getProperties().size(); j++){
-            if(inter.getProperties().get(j).getAccess().equals("write") ||
-               inter.getProperties().get(j).getAccess().equals("readwrite")){
-		commentStr = "METHOD: Set()\n" +
-				"Overwrites the Set method of the BusObject " +
-				"class to support the properties specified in " +
-				"the interfaces. Handles a SetProperty call.";
-		output += FormatCode.blockComment(commentStr, 2);
-                output += FormatCode.indentln("QStatus Set(const char " +
-                		"*ifcName, const char *propName, MsgArg& val);\n", 2); 
+            if(prop.getAccess().equals("write") ||
+               prop.getAccess().equals("readwrite")){
                 writeSetMethod = true;
-                break;
             }
         }
-		
-        writeCode(output);
-        output = "";
-        commentStr = String.format("METHOD: ~%1$s()\n" +
-        		"Destructor for %1$s.", objName);
-        output += FormatCode.blockComment(commentStr, 2);
-        code = String.format("~%s(){}\n", objName);
-        output += FormatCode.indentln(code, 2);
-        
-        tempMethodList = inter.methods;
-
-        output += FormatCode.indentln("private:", 1);
-        	
-        for(int j = 0; j < tempMethodList.size(); j++){
-            tempMeth = tempMethodList.get(j);
-            String methodName = tempMeth.getName();
-            commentStr = String.format("METHOD : %1$s()\n" +
-            		"This method is called by the %1$sHandler with the " +
-               		"corresponding input and output arguments. This " +
-               		"method is empty, the developer should fill it with " +
-               		"the developer's implementation of the %1$s method handler.\n", 
-               		methodName);
-            output += FormatCode.blockComment(commentStr, 2);
-            code = "";
-            if(tempMeth.argList.isEmpty()){
-            	code += String.format("void %s();\n", methodName);
-               	output += FormatCode.indentln(code, 2);
-            }else{
-              	code += String.format("void %s(%s);\n", 
-               			methodName,
-              			generateArgs(tempMeth.argList));
-              	output += FormatCode.indentln(code, 2);
-            }
- 	    commentStr = String.format("METHOD %1$sMethodReply()\n" +
-    					"Pass in the method call message and the processed " +
-    					"output to send a method reply message to the caller.\n" +
-    					"This method should be called in the %1$sHandler for " +
-    					"synchronous implementations.", 
-    					methodName); 
-    	    output += FormatCode.blockComment(commentStr, 2);
-            if(tempMeth.getRetType().equals("NULL")){
-              	code = String.format("QStatus %sMethodReply(Message& msg);\n",
-               			methodName);
-               	output += FormatCode.indentln(code, 2);
-            }else{
-               	code = String.format("QStatus %sMethodReply(Message& msg, %s);\n",
-               			methodName,
-               			generateMethodReplyArgs(tempMeth.argList, 
-               					tempMeth.outArgCount));
-              	output += FormatCode.indentln(code, 2);
+        CLASS_DEF_PUBLIC_END.render(output, objName, writeGetMethod,
+                                    writeSetMethod);
+
+        for(MethodDef method : inter.methods){
+            CLASS_DEF_METHOD.render(output, method.getName(),
+                                    generateHandlerArgs(method.getArgList()),
+                                    !method.getRetType().equals("NULL"),
+                                    generateMethodReplyArgs(method.getArgList(),
+                                                            method.outArgCount));
+            if(useWorkerPool()){
+                CLASS_DEF_METHOD_WORK.render(output, method.getName());
             }
         }
-        writeCode(output);
-        output = "";
 
-        tempSignalList = inter.getSignals();
-			
-        for(int j = 0; j < tempSignalList.size(); j++){
-            tempSig = tempSignalList.get(j);
-            commentStr = String.format("METHOD: Sent%1$s()\n" +
-               		"Sends out the \"%1$s\" signal with the specified " +
-               		"arguments. Leave the destination field as NULL for " +
-               		"broadcast or set it as the desired recipient's " +
-               		"unique or well-known name.", 
-               		tempSig.getName());
-            output += FormatCode.blockComment(commentStr, 2);
-            if(tempSig.argList.isEmpty()){
-               	code = String.format("QStatus Send%s(const char* destination=NULL);\n", 
-               			tempSig.getName());
-               	output += FormatCode.indentln(code, 2);
-            }else{
-               	code = String.format("QStatus Send%s(%s, const char* destination=NULL);\n", 
-               			tempSig.getName(),
-               			generateArgs(tempSig.argList));
-               	output += FormatCode.indentln(code, 2);
-            }
+        for(SignalDef signal : inter.getSignals()){
+            CLASS_DEF_SIGNAL.render(output, signal.getName(),
+                                    !signal.getArgList().isEmpty(),
+                                    generateArgs(signal.getArgList()));
         }
-		
-        commentStr = "MEMBER: myBusAttachment\n" +
-        		"Pointer to the busAttachment this service is registered with.";
-        output += FormatCode.blockComment(commentStr, 2);
-        output += FormatCode.indentln("BusAttachment* myBusAttachment;\n", 2); 
-        
-        commentStr = "MEMBER: myBusListener\n" +
-        		"Pointer to the busListener this service is registered with.";
-        output += FormatCode.blockComment(commentStr, 2);
-        output += FormatCode.indentln("MyBusListener* myBusListener;\n", 2); 
-        
-        tempPropList = inter.getProperties();
-        output += generateProperties(tempPropList, 2);
-		
-        output += "\n};\n\n#endif";
-		
+
+        CLASS_DEF_MEMBERS.render(output);
+        for(SignalDef signal : inter.getSignals()){
+            CLASS_DEF_SIGNAL_MEMBER.render(output, signal.getName());
+        }
+        generateProperties(output, inter.getProperties(), 2);
+        if(useWorkerPool()){
+            CLASS_DEF_WORKER_POOL.render(output);
+        }
+        CLASS_DEF_END.render(output);
+
         writeCode(output);
     }
 	
@@ -428,44 +357,28 @@ class WriteServiceCode extends WriteCode{
      */
     private void writeMethods(){
     	MethodDef tempMethod;
-    	String output = "";
-    	String code;
+    	CodeBuffer output = new CodeBuffer();
         for(int j = 0; j < inter.methods.size(); j++){
             tempMethod = inter.methods.get(j);
-            code = String.format(
-                "METHOD: %1$s()\n" +
-                "This method is called by the %1$sHandler with the " +
-                "corresponding input and output arguments. This method " +
-                "is empty, the developer should fill it with the " +
-                "developer's implementation of the %1$s method handler.", 
-                tempMethod.getName());
-            output += FormatCode.blockComment(code);
-            code = String.format("void %s::%s(%s){\n",
-                                 objName,
-                                 tempMethod.getName(),
-                                 generateArgs(tempMethod.argList));
-            output += code;
+            METHOD_BEGIN.render(output, objName, tempMethod.getName(),
+                                generateHandlerArgs(tempMethod.getArgList()));
                 
             /*
              * If the runnable flag is true, print out runnable code,
              * otherwise leave blank
              */
             if(config.runnable){
-                output += GenerateRunnableCode.generateMethodHandler(tempMethod);
+                GenerateRunnableCode.generateMethodHandler(output, tempMethod);
     				
                 if(j == inter.methods.size()-1){
-                    output += "\n\n\n";
-                    output +=
-                        GenerateRunnableCode.generateSendSignals(inter.signals);
+                    output.append("\n\n\n");
+                    GenerateRunnableCode.generateSendSignals(output, inter.signals);
                  }
             }else{
-                output += "/* Fill in method handler implementation"
-                    + " here. */\n";
+                METHOD_EMPTY.render(output);
             }
 
-            output += "}/* " 
-                + tempMethod.getName() 
-                + "() */\n\n";
+            METHOD_END.render(output, tempMethod.getName());
         }
     	writeCode(output);
     }
@@ -474,231 +387,92 @@ class WriteServiceCode extends WriteCode{
      * Writes the service object constructor code to the file.
      */
     private void writeConstructor(){
-        String output = "";
-        String varName;
-        String commentStr;
-        String code;
-        commentStr = String.format("METHOD: %1$s()\n" +
-                        "Constructor for the %1$s class. Takes in pointer to the " +
-                        "BusAttachment it will register with and the desired path for " +
-                        "the object",
-                        objName);
-        output += FormatCode.blockComment(commentStr);
-        output += String.format("%1$s::%1$s(BusAttachment &bus, MyBusListener &busListener, const char* path)\n",
-                        objName);
-
-        output += FormatCode.indentln(": BusObject(path, false)", 1);
-        output += "{\n"
-            + indentDepth;
-        output += "myBusAttachment = &bus;\n"
-            + indentDepth;
-
-        output += "myBusListener = &busListener;\n\n"
-            + indentDepth;
-
-        output += "/* This is where the developer should initialize any"
-            + " property variables. */\n";        // Generate property initialization for basic types
+        CodeBuffer output = new CodeBuffer();
+        CONSTRUCTOR_BEGIN.render(output, objName, useWorkerPool(),
+                                 config.workerThreads,
+                                 config.workerQueueDepth);
+        // Generate property initialization for basic types
         if(config.runnable){
             ArrayList<PropertyDef> tempPropList;
             tempPropList = inter.getProperties();
-            output += GenerateRunnableCode.generatePropertyInitialization(tempPropList, 1);
-            output += "\n";
+            GenerateRunnableCode.generatePropertyInitialization(output, tempPropList, 1);
+            output.append("\n");
         }
-        output += indentDepth;
+        CONSTRUCTOR_INTERFACES.render(output);
 
-        output += topBracket
-            + indentDepth
-            + "  The following code gets the specified interface, "
-            + "or creates it if it \n"
-            + indentDepth 
-            + "  doesn't exist, and populates it"
-            + " with the appropriate\n";
-        output += indentDepth
-            + "  content from the interface specified in the XML"
-            + " descriptions.\n"
-            + indentDepth
-            + bottomBracket
-            + indentDepth;
-
-        varName = inter.getFullName().replaceAll("\\.", "_");
         int numInterfaces = 1;
         if(inter.isDerived) {
             numInterfaces = inter.parents.size();
         }
         InterfaceDescription curInterface = inter;
-        output += "const InterfaceDescription* "
-            + "getIface = NULL;\n";
         for(int i = 0; i < numInterfaces; i++) {
             if(inter.isDerived) {
                 curInterface = inter.parents.get(i);
             }
-            output += indentDepth
-                + "getIface"
-                + " = bus.GetInterface(\""
-                + curInterface.getFullName()
-                + "\""
-                + ");\n"
-                 + indentDepth;
-            output += "if(!getIface) {\n"
-                + indentDepth + indentDepth;
-            output += "InterfaceDescription* "
-                    + "createIface"
-                    + " = NULL;\n"
-                    + indentDepth
-                    + indentDepth;
-            if(curInterface.isSecure){
-                output += "/* This interface is created as a secure"
-                    + " interface according to the XML file */\n"
-                    + indentDepth
-                    + indentDepth;
-                output += "bus.CreateInterface(\""
-                    + curInterface.getFullName()
-                    + "\", "
-                    + "createIface"
-                    + ", true);\n"
-                    + indentDepth;
-            }else{
-                output += "bus.CreateInterface(\""
-                    + curInterface.getFullName()
-                    + "\", "
-                    + "createIface"
-                    + ", false);\n"
-                    + indentDepth;
-            }
+            CONSTRUCTOR_INTERFACE_BEGIN.render(output,
+                                               curInterface.getFullName(),
+                                               curInterface.isSecure);
             writeCode(output);
-            output = "";
             this.writeInterfaceMember("createIface", curInterface);
-            output += indentDepth;
-            output += "/* Activate the interface which enables it to be"
-                    + " used/accessed by objects on the bus. */\n"
-                    + indentDepth
-                    + indentDepth;
-            output += "createIface"
-                    + "->Activate();\n"
-                    + indentDepth;
-            output += getAddInterfaceComment();
-            output += indentDepth
-                    + indentDepth
-                    + "AddInterface(*"
-                    + "createIface"
-                    + ");\n\n"
-                    + indentDepth;
-            output += getAddMethodHandlerComment();
-            output += generateAddMethods(curInterface, "createIface")
-                    + "}\n"
-                    + indentDepth;
-            output += "else {\n"
-                    + indentDepth;
-            output += getAddInterfaceComment();
-            output += indentDepth
-                    + indentDepth
-                    + "AddInterface(*"
-                    + "getIface"
-                    + ");\n\n"
-                    + indentDepth;
-            output += getAddMethodHandlerComment();
-            output += generateAddMethods(curInterface, "getIface")
-                + "}\n";
+            CONSTRUCTOR_ACTIVATE.render(output, objName);
+            generateAddMethods(output, curInterface, "createIface");
+            CONSTRUCTOR_ELSE.render(output, objName);
+            generateAddMethods(output, curInterface, "getIface");
+            CONSTRUCTOR_INTERFACE_END.render(output);
         }
-        output += "\n";
-        output += "} /* "
-            + objName
-            + "() */\n\n";
+
+        // look up the member of each signal once, for the Send methods
+        if(!inter.getSignals().isEmpty()){
+            CONSTRUCTOR_SIGNALS.render(output);
+            String interfaceName = null;
+            for(SignalDef signal : inter.getSignals()){
+                String signalInterface =
+                    getInterfaceBySignal(signal.getName());
+                if(!signalInterface.equals(interfaceName)){
+                    CONSTRUCTOR_SIGNAL_INTERFACE.render(output,
+                                                        signalInterface);
+                    interfaceName = signalInterface;
+                }
+                CONSTRUCTOR_SIGNAL_MEMBER.render(output, signal.getName());
+            }
+        }
+        CONSTRUCTOR_END.render(output, objName);
         writeCode(output);
     }
 
-    private String getAddInterfaceComment() {
-        String output = "";
-        output += indentDepth
-                + topBracket
-                + indentDepth
-                + indentDepth
-                + "  Add the interfaceDescription to the "
-                + objName
-                + " object so that it has a\n";
-        output += indentDepth
-                + indentDepth
-                + "  definition of the interface. This is required for"
-                + " adding method handlers to\n";
-        output += indentDepth
-                + indentDepth
-                + "  the object.\n"
-                + indentDepth
-                + indentDepth
-                + bottomBracket;
-        return output;
-    }
 
-    private String getAddMethodHandlerComment() {
-        String output = "";
-        output += indentDepth
-                + topBracket
-                + indentDepth
-                + indentDepth
-                + "  Add method handler(s) for the method(s) defined in the"
-                + " interface. A method\n";
-        output += indentDepth
-                + indentDepth
-                + "  handler calls the developer's implementation of the"
-                + " method.\n";
-        output += indentDepth
-                + indentDepth
-                + "  Note: The static_cast converts the handler function"
-                + " to the MethodHandler\n";
-        output += indentDepth
-                + indentDepth
-                + "  type so it can be called correctly by the AllJoyn API.\n"
-                + indentDepth
-                + indentDepth
-                + bottomBracket
-                + indentDepth;
-        return output;
-    }
     
     /**
      * Writes the internal method handlers that call the developer's method
-     * handler.
+     * handler.  With a worker pool, the handler queues the message and the
+     * arguments are extracted and the developer's method called by the
+     * <Method>Work() method on a worker thread.
      */
     private void writeMethodHandlers(){
-        String output = "";
+        CodeBuffer output = new CodeBuffer();
         String outArgNames;
-        String commentStr;
-        String code;
         MethodDef tempMethod;
         ArgDef arg;
 
         for(int j = 0; j < inter.getMethods().size(); j++){
                 outArgNames = "";
                 tempMethod = inter.getMethods().get(j);
-                commentStr = String.format(
-                    "METHOD: %1$sHandler()\n" +
-                    "This is the method that gets called by the AllJoyn API " +
-                    "when the service receives a method call for the %1$s method.",
-                    tempMethod.getName());
-                output += FormatCode.blockComment(commentStr);
-                output += String.format(
-                    "void %s::%sHandler(const InterfaceDescription::Member* member, " +
-                    "Message& msg){\n",
-                    objName,
-                    tempMethod.getName());
-                output += FormatCode.indentln("const ajn::MsgArg* args;", 1);
-                output += FormatCode.indentln("size_t numArgs;\n", 1);
-                output += FormatCode.comment("Extract the input arguments", 1);
-                output += FormatCode.indentln("msg->GetArgs(numArgs, args);\n", 1);
-                commentStr =
-                    "Make sure the number of arguments is correct before " +
-                    "passing them to the method handler.";
-                output += FormatCode.comment(commentStr, 1);
-                code = String.format("if(numArgs == %s){\n",
-                                     tempMethod.inArgCount);
-                output += FormatCode.indentln(code, 1);
+                if(useWorkerPool()){
+                    METHOD_DISPATCH.render(output, objName,
+                                           tempMethod.getName(),
+                                           !tempMethod.isNoReply());
+                }
+                METHOD_HANDLER_BEGIN.render(output, objName,
+                                            tempMethod.getName(),
+                                            tempMethod.inArgCount,
+                                            useWorkerPool());
 //get values from input arguments struct
                 int count = 0;
-                for(int k = 0; k < tempMethod.argList.size(); k++){
-                    arg = tempMethod.argList.get(k);
+                for(int k = 0; k < tempMethod.getArgList().size(); k++){
+                    arg = tempMethod.getArgList().get(k);
                     if(arg.getArgDirection().equals("in")){
-                        if(structArgList.contains(arg)){
-                            output += generateGetMsgArg("args[" + k + "]",
+                        if(context.structArgList.contains(arg)){
+                            generateGetMsgArg(output, "args[" + k + "]",
                                                         arg.getArgType(),
                                                         arg.getArgName(),
                                                         true,
@@ -707,22 +481,27 @@ class WriteServiceCode extends WriteCode{
                                  (arg.getArgType().charAt(1) == 's' ||
                                   arg.getArgType().charAt(1) == 'o' ||
                                   arg.getArgType().charAt(1) == 'g')){
-                            output += generateGetMsgArg("args["+ count +"]", arg.getArgType(), arg.argName, true, 2);
-                        }else if( dictEntryArgList.contains(arg) ||
-                                  arrayContainerTypeArgList.contains(arg)){
-                            output += generateGetMsgArg("args["+ count +"]", arg.getArgType(), arg.argName, true, 2);
+                            if(isStringArrayView(arg)){
+                                generateGetStringArrayView(output,
+                                    "args[" + count + "]", arg, 2);
+                            }else{
+                                generateGetMsgArg(output, "args["+ count +"]", arg.getArgType(), arg.argName, true, 2);
+                            }
+                        }else if( context.dictEntryArgList.contains(arg) ||
+                                  context.arrayContainerTypeArgList.contains(arg)){
+                            generateGetMsgArg(output, "args["+ count +"]", arg.getArgType(), arg.argName, true, 2);
                         }
                         count++;
                     }
                 }
-                for(int k = 0; k < tempMethod.argList.size(); k++){
-                    arg = tempMethod.argList.get(k);
+                for(int k = 0; k < tempMethod.getArgList().size(); k++){
+                    arg = tempMethod.getArgList().get(k);
                     if(arg.getArgDirection().equals("out")){
-                        output += generateTempArg(arg, 2);
+                        output.append(generateTempArg(arg, 2));
                         outArgNames += ", "
                             + arg.getArgName();
                         if(isBasicArrayContainerType(arg.getArgType()) ||
-                           dictEntryArgList.contains(arg) ||
+                           context.dictEntryArgList.contains(arg) ||
                            (arg.getArgType().charAt(0) == 'a' &&
                             arg.getArgType().charAt(1) == '(')){
                             outArgNames += ", "
@@ -731,108 +510,55 @@ class WriteServiceCode extends WriteCode{
                         }
                     }
                 }
-                output += "\n"
-                    + FormatCode.comment("Call the function the dev implemented "
-                                         + "for this method handler with the extracted arguments", 2);
-                code =String.format("%s(%s);\n",
-                                    tempMethod.getName(),
-                                    generateMethodWrapperArgs(tempMethod.argList));
-                output += FormatCode.indentln(code, 2);
-
-                if(!tempMethod.noReply){
-                    commentStr =
-                        "The variables should now contain the correct output " +
-                        "values, call the methodReply function.\n" +
-                        "Note: For asynchronous methods, comment out the call " +
-                        "below and call it when the service is ready to send " +
-                        "the reply.";
-                    output += FormatCode.comment(commentStr, 2);
-                    if(tempMethod.outArgCount == 0){
-                        code = String.format("%sMethodReply(msg);",
-                                             tempMethod.getName());
-                        output += FormatCode.indentln(code, 2);
-                    }else{
-                        code = String.format("%sMethodReply(msg%s);",
-                                             tempMethod.getName(),
-                                             outArgNames);
-                        output += FormatCode.indentln(code, 2);
-                    }
-                }
-
-                output += FormatCode.indentln("}", 1);
-                output += "} /* "
-                    + tempMethod.getName()
-                    + "Handler() */\n\n";
+                METHOD_HANDLER_CALL.render(output, tempMethod.getName(),
+                    generateMethodWrapperArgs(tempMethod.getArgList()),
+                    !tempMethod.isNoReply(),
+                    tempMethod.outArgCount == 0 ? "" : outArgNames,
+                    useWorkerPool());
         }
         writeCode(output);
     }
     
+    /**
+     * @return true if the method handlers run on a pool of worker threads
+     * (-t).  An interface without methods has no use for one.
+     */
+    private boolean useWorkerPool(){
+        return config.workerThreads > 0 && !inter.getMethods().isEmpty();
+    }
+
     /**
      *  Writes the method reply functions that are used to return method calls.
      */
     private void writeMethodReply(){
-        String output = "";
-        String commentStr = "";
+        CodeBuffer output = new CodeBuffer();
         MethodDef tempMethod;
 
         for(int j = 0; j < inter.getMethods().size(); j++){
                 tempMethod = inter.getMethods().get(j);
 
-                if(!tempMethod.noReply){
-                    commentStr = String.format(
-                        "METHOD: %1$sMethodReply()\n" +
-                        "Pass in the method call message and the processed " +
-                        "output to send a method reply message to the caller.\n" +
-                        "This method should be called in the %1$sHandler for " +
-                        "synchronous implementations.",
-                        tempMethod.getName());
-                    output += FormatCode.blockComment(commentStr);
-                    output += "QStatus "
-                        + objName
-                        + "::"
-                        + tempMethod.getName()
-                        + "MethodReply(Message& msg";
-                    if(tempMethod.outArgCount != 0){
-                        output += ", ";
-                    }
-                    output += generateMethodReplyArgs(tempMethod.argList,
-                                                      tempMethod.outArgCount)
-                        + "){\n"
-                        + indentDepth;
-                    output += "QStatus status = ER_OK;\n";
-
-                    commentStr =
-                        "Create the MsgArg array, populate it with the return " +
-                        "arguments then use it to send the method reply message.";
-                    output += FormatCode.blockComment(commentStr, 1);
-
-                    output += String.format(
-                        "%sMsgArg args[%d];\n",
-                        FormatCode.indent(1),
+                if(!tempMethod.isNoReply()){
+                    METHOD_REPLY_BEGIN.render(output, objName,
+                        tempMethod.getName(),
+                        tempMethod.outArgCount != 0,
+                        generateMethodReplyArgs(tempMethod.getArgList(),
+                                                tempMethod.outArgCount),
                         tempMethod.outArgCount);
                     ArgDef arg;
                     int count = 0;
-                    for(int k = 0; k < tempMethod.argList.size(); k++){
-                        arg = tempMethod.argList.get(k);
+                    for(int k = 0; k < tempMethod.getArgList().size(); k++){
+                        arg = tempMethod.getArgList().get(k);
                         if( arg.argDirection.equals("out")){
-                            output += generateSetMsgArg("args[" + count + "]",
+                            generateSetMsgArg(output, "args[" + count + "]",
                                                         arg.getArgType(),
                                                         arg.getArgName(),
                                                         1);
                             count++;
                         }
                     }
-                    output += indentDepth;
-                    output += "status = MethodReply(msg, args, "
-                        + tempMethod.outArgCount
-                        + ");\n\n"
-                        + indentDepth;
-                    output += "return status;\n} /* "
-                        + tempMethod.getName()
-                        + "MethodReply() */";
-                    output += "\n\n";
+                    METHOD_REPLY_END.render(output, tempMethod.getName(),
+                                            tempMethod.outArgCount);
                     writeCode(output);
-                    output = "";
                 }
         }
     }
@@ -844,124 +570,33 @@ class WriteServiceCode extends WriteCode{
         ArrayList<SignalDef> sigList;
         SignalDef tempSignal;
         String sigName;
-        String output = "";
+        CodeBuffer output = new CodeBuffer();
 
             sigList = inter.getSignals();
             for(int j = 0; j < sigList.size(); j++){
                 tempSignal = sigList.get(j);
                 sigName = tempSignal.getName();
-                output += topBracket
-                    + "  METHOD: Send"
-                    + sigName
-                    + "()\n";
-                output += "  Sends out the \""
-                    + sigName
-                    + "\" signal with the specified arguments.\n";
-                output += "  Leave the destination field as NULL for"
-                    + " broadcast or set it as the\n";
-                output += "  desired recipient's unique or well-known name.\n";
-                output += bottomBracket;
-
-                if(tempSignal.argList.isEmpty()){
-                    output += "QStatus "
-                        + objName
-                        + "::Send"
-                        + sigName
-                        + "(const char* destination){\n"
-                        + indentDepth;
-                }else{
-                    output += "QStatus "
-                        + objName
-                        + "::Send"
-                        + sigName
-                        + "("
-                        + generateArgs(tempSignal.argList)
-                        + ", const char* destination){\n"
-                        + indentDepth;
-                }
-                output += "/* get the interfaceDescription member of the "
-                    + sigName
-                    + " signal */\n"
-                    + indentDepth;
-                output += "const InterfaceDescription* iface = myBusAttachment->"
-                    + "GetInterface(\""
-                    + WriteCode.getInterfaceBySignal(sigName)
-                    + "\");\n"
-                    + indentDepth;
-                output += "const InterfaceDescription::Member* "
-                    + "my_signal_member = iface->GetMember(\""
-                    + sigName
-                    + "\");\n"
-                    + indentDepth;
-
-                output += "QStatus status = ER_OK;\n\n"
-                    + indentDepth;
-                if(tempSignal.argList.isEmpty()){
-                    output += "/* send the signal */\n"
-                        + indentDepth;
-                    if(tempSignal.isSecure){
-                        output += "/* This signal is encrypted because the"
-                            + " signal is marked as secure in the XML */\n"
-                            + indentDepth;
-                        output += "status = Signal(destination, "
-                            + "myBusListener->mySessionID, "
-                            + "*my_signal_member, NULL, 0, "
-                            + "ALLJOYN_FLAG_ENCRYPTED);\n"
-                            + indentDepth;
-                    }else{
-                        output += "status = Signal(destination, "
-                            + "myBusListener->mySessionID, "
-                            + "*my_signal_member, NULL, 0, 0);\n"
-                            + indentDepth;
-                    }
-                }else{
-                    output += "/* pack the arguments into MsgArg */\n"
-                        + indentDepth;
-                    output += "MsgArg args["
-                        + tempSignal.argList.size()
-                        + "];\n";
+                int argCount = tempSignal.getArgList().size();
+                SIGNAL_BEGIN.render(output, objName, sigName, argCount != 0,
+                                    generateArgs(tempSignal.getArgList()),
+                                    argCount);
 
-                    ArgDef arg;
-                    int count = 0;
-                    for(int k = 0; k < tempSignal.argList.size(); k++){
-                        arg = tempSignal.argList.get(k);
-                        if(arg.getArgDirection().equals("in")){
-                            output += generateSetMsgArg("args[" + count + "]",
-                                                        arg.getArgType(),
-                                                        arg.getArgName(),
-                                                        1);
-                            count++;
-                        }
-                    }
-                    output += indentDepth;
-                    output += "/* send the signal */\n"
-                        + indentDepth;
-                    if(tempSignal.isSecure){
-                        output += "/* This signal is encrypted because"
-                            + " the signal is marked as secure in the XML */\n"
-                            + indentDepth;
-                        output += "status = Signal(destination, "
-                            + "myBusListener->mySessionID, "
-                            + "*my_signal_member, args, "
-                            + tempSignal.argList.size()
-                            + ", 0, ALLJOYN_FLAG_ENCRYPTED);\n"
-                            + indentDepth;
-                    }else{
-                        output += "status = Signal(destination, "
-                            + "myBusListener->mySessionID, "
-                            + "*my_signal_member, args, "
-                            + tempSignal.argList.size()
-                            + ", 0, 0);\n"
-                            + indentDepth;
+                ArgDef arg;
+                int count = 0;
+                for(int k = 0; k < tempSignal.getArgList().size(); k++){
+                    arg = tempSignal.getArgList().get(k);
+                    if(arg.getArgDirection().equals("in")){
+                        generateSetMsgArg(output, "args[" + count + "]",
+                                                    arg.getArgType(),
+                                                    arg.getArgName(),
+                                                    1);
+                        count++;
                     }
                 }
-                output += "return status;\n";
-
-                output += "} /* Send"
-                    + sigName
-                    + "() */\n\n";
+                SIGNAL_END.render(output, sigName, tempSignal.isSecure(),
+                                  argCount == 0 ? "NULL, 0"
+                                                : "args, " + argCount + ", 0");
                 writeCode(output);
-                output = "";
         }
         writeCode(output);
      
@@ -970,166 +605,214 @@ class WriteServiceCode extends WriteCode{
     
     /**
      * Writes the Get and Set methods that are used to implement the properties
-     * interface.
+     * interface.  They compare the requested interface once, then switch on
+     * the length of the property's name and, when several properties have
+     * names of that length, on the first character where those names differ,
+     * so the name is only compared with the properties it could be.
      */
     private void writeGetSet(){
-        String output = "";
-        PropertyDef tempProp;
+        CodeBuffer output = new CodeBuffer();
+        LinkedHashMap<String, TreeMap<Integer, ArrayList<PropertyDef>>>
+            byInterface = groupProperties(inter.getProperties());
+
+        if(writeGetMethod){
+            GET_BEGIN.render(output, objName);
+            writePropertyCases(output, byInterface, true);
+            PROPERTY_END.render(output, "Get");
+            writeCode(output);
+        }
 
-            for(int j = 0; j < inter.getProperties().size(); j++){
-                tempProp = inter.getProperties().get(j);
-                output += "else if(0 == strcmp(\""
-                    + tempProp.getName()
-                    + "\", propName)){\n";
+        if(writeSetMethod){
+            SET_BEGIN.render(output, objName);
+            writePropertyCases(output, byInterface, false);
+            PROPERTY_END.render(output, "Set");
+            writeCode(output);
+        }
+    }
 
-                if(tempProp.getAccess().equals("write")){
-                    output += "status = ER_BUS_PROPERTY_ACCESS_DENIED;\n";
-                } else{
-                    output += generateSetMsgArg("val",
-                                                tempProp.getSignature(),
-                                                tempProp.getName(),
-                                                2);
+    /**
+     * Writes the cases of the Get or Set method for each interface and each
+     * length of the properties' names.
+     * @param output - the buffer the code is written to
+     * @param byInterface - the properties, see groupProperties()
+     * @param get - true for the Get method, false for the Set method
+     */
+    private void writePropertyCases(CodeBuffer output,
+        LinkedHashMap<String, TreeMap<Integer, ArrayList<PropertyDef>>>
+            byInterface,
+        boolean get){
+        boolean first = true;
+        for(Map.Entry<String, TreeMap<Integer, ArrayList<PropertyDef>>> ifc
+                : byInterface.entrySet()){
+            INTERFACE_CASE.render(output, first, ifc.getKey());
+            first = false;
+            for(Map.Entry<Integer, ArrayList<PropertyDef>> entry
+                    : ifc.getValue().entrySet()){
+                LENGTH_CASE.render(output, entry.getKey());
+                ArrayList<PropertyDef> props = entry.getValue();
+                int index = getSwitchIndex(props);
+                if(index < 0){
+                    writeNameCases(output, props, get, 3);
+                }else{
+                    CHAR_SWITCH.render(output, index);
+                    for(Map.Entry<Character, ArrayList<PropertyDef>> chars
+                            : groupByChar(props, index).entrySet()){
+                        CHAR_CASE.render(output, chars.getKey());
+                        writeNameCases(output, chars.getValue(), get, 4);
+                        CHAR_CASE_END.render(output);
+                    }
+                    CHAR_SWITCH_END.render(output);
                 }
-                output += indentDepth
-                    + "}";
+                LENGTH_CASE_END.render(output);
             }
-if(!output.equals("") && writeGetMethod){
-            output = topBracket
-                + "  METHOD: Get()\n"
+            INTERFACE_CASE_END.render(output);
+        }
+    }
 
-                + "  Overwrites the Get method of the BusObject class to"
-                + " support the properties\n"
-                + "  specified in the interfaces. Handles a GetProperty call.\n"
-                + bottomBracket
-                + "QStatus "
-                + objName
-                + "::Get(const char *ifcName, const char *propName,"
-                + " MsgArg& val){\n"
-                + indentDepth
-                + "QStatus status = ER_OK;\n"
-                + indentDepth
-                + "/* Check the requested property and return the value if"
-                + " it exists. */\n"
-                + indentDepth
-                + output.substring(5);
+    /**
+     * Writes the chain of name comparisons that gets or sets one of the
+     * properties.
+     * @param output - the buffer the code is written to
+     * @param props - the properties
+     * @param get - true for the Get method, false for the Set method
+     * @param indentDepth - the depth of the comparisons
+     */
+    private void writeNameCases(CodeBuffer output,
+        ArrayList<PropertyDef> props, boolean get, int indentDepth){
+        String indent = FormatCode.indent(indentDepth);
+        boolean first = true;
+        for(PropertyDef prop : props){
+            boolean denied = prop.getAccess().equals(get ? "write" : "read");
+            if(!get && !denied){
+                SET_CASE.render(output, indent, first, prop.getName(),
+                                getTypeId(prop));
+            }else{
+                NAME_CASE.render(output, indent, first, prop.getName());
+            }
+            if(denied){
+                CASE_DENIED.render(output, indent);
+            }else if(get){
+                generateSetMsgArg(output, "val", prop.getSignature(),
+                                  prop.getName(), indentDepth + 1);
+            }else{
+                generateGetMsgArg(output, "val", prop.getSignature(),
+                                  prop.getName(), indentDepth + 1);
+            }
+            first = false;
+        }
+        NAME_CASE_END.render(output, indent);
+    }
 
-            output += "else{\n"
-                + indentDepth
-                + indentDepth;
-            output += "/* if the requested property doesn't exist, return"
-                + " error. */\n"
-                + indentDepth
-                + indentDepth;
-            output += "status = ER_BUS_NO_SUCH_PROPERTY;\n"
-                + indentDepth;
-            output += "}\n"
-                + indentDepth
-                + "return status;\n} /* Get() */\n\n";
-            writeCode(output);
-            output = "";
+    /**
+     * @return the properties grouped by their interfaces, in the order the
+     * interfaces are first used, then by the length of their names in bytes,
+     * the same as strlen() in the generated code, each group in order.
+     */
+    private static
+    LinkedHashMap<String, TreeMap<Integer, ArrayList<PropertyDef>>>
+        groupProperties(ArrayList<PropertyDef> properties){
+        LinkedHashMap<String, TreeMap<Integer, ArrayList<PropertyDef>>>
+            byInterface =
+            new LinkedHashMap<String, TreeMap<Integer, ArrayList<PropertyDef>>>();
+        for(PropertyDef prop : properties){
+            TreeMap<Integer, ArrayList<PropertyDef>> byLength =
+                byInterface.get(prop.getInterfaceName());
+            if(byLength == null){
+                byLength = new TreeMap<Integer, ArrayList<PropertyDef>>();
+                byInterface.put(prop.getInterfaceName(), byLength);
+            }
+            Integer length = Integer.valueOf(
+                prop.getName().getBytes(StandardCharsets.UTF_8).length);
+            ArrayList<PropertyDef> props = byLength.get(length);
+            if(props == null){
+                props = new ArrayList<PropertyDef>();
+                byLength.put(length, props);
+            }
+            props.add(prop);
         }
-for(int j = 0; j < inter.getProperties().size(); j++){
-                tempProp = inter.getProperties().get(j);
-                if(tempProp.getAccess().equals("read")){
-                    output += "else if(0 == strcmp(\""
-                        + tempProp.getName()
-                        + "\", propName)){\n";
-                    output += indentDepth
-                        + indentDepth
-                        + "status = ER_BUS_PROPERTY_ACCESS_DENIED;\n";
-                }else{
-                    output += "else if((0 == strcmp(\""
-                        + tempProp.getName()
-                        + "\", propName)) && (val.typeId == ";
-                    if(isArgContainerType(tempProp.getArg())){
-                        if (tempProp.getSignature().charAt(0) == '(')
-                            output += "ALLJOYN_STRUCT";
-                        else if (tempProp.getSignature().charAt(0) == 'a'){
-                            output += mapALLJOYNArrayType(tempProp.getSignature().charAt(1));
-                        } else if (tempProp.getSignature().charAt(0) == 'v'){
-                            output += "ALLJOYN_VARIANT";
-                        }
-                    } else{
-                        output += mapALLJOYNtypeId(tempProp.getSignature().charAt(0));
-                    }
-                    output += ")){\n";
-                    output += generateGetMsgArg("val",
-                                                tempProp.getSignature(),
-                                                tempProp.getName(),
-                                                2);
+        return byInterface;
+    }
+
+    /**
+     * @return the index of the first byte where the names of the properties,
+     * which all have the same length, differ, or -1 if there is only one
+     * property or a switch on that byte cannot be written as a character.
+     */
+    private static int getSwitchIndex(ArrayList<PropertyDef> props){
+        if(props.size() < 2){
+            return -1;
+        }
+        byte[] first = props.get(0).getName().getBytes(StandardCharsets.UTF_8);
+        for(int i = 0; i < first.length; i++){
+            boolean differs = false;
+            for(PropertyDef prop : props){
+                byte b = prop.getName().getBytes(StandardCharsets.UTF_8)[i];
+                if(!(Character.isLetterOrDigit(b) || b == '_')){
+                    return -1;
                 }
-                output += indentDepth
-                    +"}";
+                differs |= b != first[i];
+            }
+            if(differs){
+                return i;
             }
-        if(!output.equals("") && writeSetMethod){
-            output = topBracket
-                + "  METHOD: Set()\n"
+        }
+        return -1;
+    }
 
-                + "  Overwrites the Set method of the BusObject class to"
-                + " support the properties\n"
-                + "  specified in the interfaces. Handles a SetProperty call.\n"
-                + bottomBracket
-                + "QStatus "
-                + objName
-                + "::Set(const char *ifcName, const char *propName,"
-                + " MsgArg& val){\n"
-                + indentDepth
-                + "QStatus status = ER_OK;\n"
-                + indentDepth
-                + "/* Check the requested property and set the value if it"
-                + " exists. */\n"
-                + indentDepth
-                + output.substring(5);
+    /**
+     * @return the properties grouped by the character at index in their
+     * names, each group in order.
+     */
+    private static TreeMap<Character, ArrayList<PropertyDef>> groupByChar(
+        ArrayList<PropertyDef> props, int index){
+        TreeMap<Character, ArrayList<PropertyDef>> byChar =
+            new TreeMap<Character, ArrayList<PropertyDef>>();
+        for(PropertyDef prop : props){
+            Character c = Character.valueOf(prop.getName().charAt(index));
+            ArrayList<PropertyDef> group = byChar.get(c);
+            if(group == null){
+                group = new ArrayList<PropertyDef>();
+                byChar.put(c, group);
+            }
+            group.add(prop);
+        }
+        return byChar;
+    }
 
-            output += "else{\n"
-                + indentDepth
-                + indentDepth;
-            output += "/* if the requested property doesn't exist, return"
-                + " error. */\n"
-                + indentDepth
-                + indentDepth;
-            output += "status = ER_BUS_NO_SUCH_PROPERTY;\n"
-                + indentDepth;
-            output += "}\n"
-                + indentDepth
-                + "return status;\n} /* Set() */\n\n";
-            writeCode(output);
-            output = "";
+    /**
+     * @return the AllJoyn type id a property's value must have to be set.
+     */
+    private String getTypeId(PropertyDef prop){
+        String typeId = "";
+        if(isArgContainerType(prop.getArg())){
+            if (prop.getSignature().charAt(0) == '(')
+                typeId = "ALLJOYN_STRUCT";
+            else if (prop.getSignature().charAt(0) == 'a'){
+                typeId = mapALLJOYNArrayType(prop.getSignature().charAt(1));
+            } else if (prop.getSignature().charAt(0) == 'v'){
+                typeId = "ALLJOYN_VARIANT";
+            }
+        } else{
+            typeId = mapALLJOYNtypeId(prop.getSignature().charAt(0));
         }
+        return typeId;
     }
     
     /**
      * Writes the ALLJOYN AddMethodHandler() calls for the service constructor.
+     * @param output the buffer the calls are written to.
      * @param interfaceDesc the interface for which the ALLJOYN
      * AddMethodHander() calls will be printed.
      * @param varName the name of the ALLJOYN interfaceDescription variable
      * name.
      */
-    private String generateAddMethods(InterfaceDescription interfaceDesc,
-                                      String varName){
-        MethodDef tempMethod;
-        String output = "";
-        for(int j = 0; j < interfaceDesc.getMethods().size(); j++){
-            tempMethod = interfaceDesc.getMethods().get(j);
-            output += indentDepth
-                + "AddMethodHandler("
-                + varName
-                + "->GetMember(\""
-                + tempMethod.getName()
-                + "\"),\n"
-                + indentDepth
-                + indentDepth
-                + indentDepth
-                + indentDepth
-                + indentDepth;
-            output += "static_cast<MessageReceiver::MethodHandler>(&"
-                + objName
-                + "::"
-                + tempMethod.getName()
-                + "Handler));\n\n"
-                + indentDepth;
+    private void generateAddMethods(CodeBuffer output,
+                                    InterfaceDescription interfaceDesc,
+                                    String varName){
+        for(MethodDef method : interfaceDesc.getMethods()){
+            ADD_METHOD_HANDLER.render(output, varName, objName,
+                                      method.getName());
         }
-        return output;
     }
     /**
      * Creates a string of all the arguments with their types for method
@@ -1138,26 +821,26 @@ for(int j = 0; j < inter.getProperties().size(); j++){
      * @param outCount, the number of output arguments
      * @return the generated arguments in a string.
      */
-    private String generateMethodReplyArgs(ArrayList<ArgDef> argList,
+    private String generateMethodReplyArgs(List<ArgDef> argList,
                                            int outCount){
-    	String output = "";
+    	CodeBuffer output = new CodeBuffer();
     	ArgDef tempArg;
         int j = outCount;
 
         for(int i = 0; i < argList.size(); i++){
             tempArg = argList.get(i);
             if(tempArg.getArgDirection().equals("out")){
-                output += parseInArg(tempArg);
+                output.append(parseInArg(tempArg));
                 j--;
                 if(j != 0){
-                    output += ", ";
+                    output.append(", ");
                 }
             }
         }
-    	return output;
+    	return output.toString();
     }
     
-    protected String generateMethodWrapperArgs(ArrayList<ArgDef> argList){
+    protected String generateMethodWrapperArgs(List<ArgDef> argList){
     	String result = "";
         ArgDef arg;
         String type;
@@ -1170,7 +853,7 @@ for(int j = 0; j < inter.getProperties().size(); j++){
             if(arg.getArgDirection().equals("in")){
                 if(isArgContainerType(arg)){
                     if(c == 'a'){
-                        if(dictEntryArgList.contains(arg)){
+                        if(context.dictEntryArgList.contains(arg)){
                             result += arg.getArgName();
                             result += ", "
                                 + arg.getArgName()
@@ -1245,17 +928,8 @@ for(int j = 0; j < inter.getProperties().size(); j++){
      * Write the file description for the service header file.
      */
     private void writeHeaderComments(){
-        String commentStr = licenseTextOnly();
-        commentStr +=  fileName
-            + "\nThis file defines the class "
-            + objName
-            + ".\nThis class extends the BusObject class and creates a"
-            + " BusObject that acts as a service that handles incoming"
-            + " method calls and has the ability to send out signals. This"
-            + " class contains more user friendly methods that hides some"
-            + " of the AllJoyn API from the user of this class.";
-
-        String output = FormatCode.blockComment(commentStr);
+        CodeBuffer output = new CodeBuffer();
+        HEADER_COMMENT.render(output, licenseTextOnly(), fileName, objName);
         writeCode(output);
     }
 
@@ -1263,12 +937,8 @@ for(int j = 0; j < inter.getProperties().size(); j++){
      * Write the file description for the serviceMethods.cc file.
      */
     private void writeDevComments(){
-        String commentStr = licenseTextOnly();
-        commentStr += fileName
-            + "\nThis file contains empty method handlers where the"
-            + " developer can fill in his/her own implementations.";
-
-        String output = FormatCode.blockComment(commentStr);
+        CodeBuffer output = new CodeBuffer();
+        DEV_COMMENT.render(output, licenseTextOnly(), fileName);
         writeCode(output);
     }
     
@@ -1276,15 +946,8 @@ for(int j = 0; j < inter.getProperties().size(); j++){
      * Write the file description for the service.cc file
      */
     private void writeCCComments(){
-        String commentStr = licenseTextOnly();
-        commentStr += fileName
-            + "\nThis file contains the implementation of the "
-            + objName
-            + " class, which extends the BusObject class from AllJoyn library."
-            + " Most of these methods deal with the alljoyn API to make it"
-            + " easier for the developer to use.";
-
-        String output = FormatCode.blockComment(commentStr);
+        CodeBuffer output = new CodeBuffer();
+        CC_COMMENT.render(output, licenseTextOnly(), fileName, objName);
         writeCode(output);
     }
 
@@ -1292,16 +955,9 @@ for(int j = 0; j < inter.getProperties().size(); j++){
      * Write the file description for the serviceMain.cc file
      */
     private void writeMainComments(){
-        String commentStr = licenseTextOnly();
-        commentStr += fileName
-            + "\nSample implementation of an alljoyn service."
-            + " This sample shows how to set up an alljoyn service that will"
-            + " register with the well known name: '"
-            + config.wellKnownName
-            + "'. The service keeps running until it is terminated externally"
-            + " or via an alljoyn call.";
-
-        String output = FormatCode.blockComment(commentStr);
+        CodeBuffer output = new CodeBuffer();
+        MAIN_COMMENT.render(output, licenseTextOnly(), fileName,
+                            config.wellKnownName);
         writeCode(output);
     }
 } // class ServiceCodeWriter
@@ -0,0 +1,81 @@
+#ifndef _MSG_ARG_VIEWS_H
+#define _MSG_ARG_VIEWS_H
+
+/******************************************************************************
+@License@
+ *
+ * MsgArgViews.h
+ * This file defines the classes "StringView" and "StringArrayView". With the
+ * -z option the generated method and signal handlers pass the arrays of
+ * strings, object paths and signatures they receive to the developer's code
+ * as a StringArrayView over the elements of the message, instead of copying
+ * each element into a new array of qcc::String. The arrays of basic types are
+ * already passed as a pointer into the message. Either way the data belongs
+ * to the message: it is only valid until the developer's handler returns, and
+ * must be copied to be kept any longer.
+ *
+ ******************************************************************************/
+
+#include <stddef.h>
+#include <alljoyn/MsgArg.h>
+
+using namespace ajn;
+
+class StringView {
+  public:
+    /*-------------------------------------------------------------------------
+      METHOD: StringView()
+      Constructor for a view of the len characters at str, which are followed
+      by a '\0'.
+    -------------------------------------------------------------------------*/
+    StringView(const char* str, size_t len) : str(str), len(len) { }
+
+    /*-------------------------------------------------------------------------
+      METHOD: c_str()
+      Returns the characters, ending with a '\0'.
+    -------------------------------------------------------------------------*/
+    const char* c_str() const { return str; }
+
+    /*-------------------------------------------------------------------------
+      METHOD: size()
+      Returns the number of characters, not counting the '\0'.
+    -------------------------------------------------------------------------*/
+    size_t size() const { return len; }
+
+    operator const char*() const { return str; }
+
+  private:
+    const char* str;
+    size_t len;
+};
+
+class StringArrayView {
+  public:
+    /*-------------------------------------------------------------------------
+      METHOD: StringArrayView()
+      Constructor for a view of the elements of an array of strings, object
+      paths or signatures, as returned by MsgArg::Get().
+    -------------------------------------------------------------------------*/
+    explicit StringArrayView(const MsgArg* elements) : elements(elements) { }
+
+    /*-------------------------------------------------------------------------
+      METHOD: operator[]()
+      Returns the element at index i.
+    -------------------------------------------------------------------------*/
+    StringView operator[](size_t i) const {
+        const MsgArg& element = elements[i];
+        switch(element.typeId){
+        case ALLJOYN_OBJECT_PATH:
+            return StringView(element.v_objPath.str, element.v_objPath.len);
+        case ALLJOYN_SIGNATURE:
+            return StringView(element.v_signature.sig, element.v_signature.len);
+        default:
+            return StringView(element.v_string.str, element.v_string.len);
+        }
+    }
+
+  private:
+    const MsgArg* elements;
+};
+
+#endif /* _MSG_ARG_VIEWS_H */
@@ -0,0 +1,102 @@
+/******************************************************************************
+@License@
+ *
+ * ServiceWorkerPool.cc
+ * This file contains implementation of the ServiceWorkerPool class.
+ *
+ *****************************************************************************/
+#include <stdio.h>
+#include "ServiceWorkerPool.h"
+
+/*-----------------------------------------------------------------------------
+  METHOD: ServiceWorkerPool()
+  Constructor for the worker pool.  Starts numThreads worker threads and
+  allows up to maxQueued method calls to wait for a free worker.
+-----------------------------------------------------------------------------*/
+ServiceWorkerPool::ServiceWorkerPool(size_t numThreads, size_t maxQueued):
+    maxQueued(maxQueued)
+{
+    for(size_t i = 0; i < numThreads; i++){
+        Worker* worker = new Worker(*this);
+        if(worker->Start() == ER_OK){
+            workers.push_back(worker);
+        }else{
+            printf("ServiceWorkerPool failed to start a worker thread\n");
+            delete worker;
+        }
+    }
+
+} /* ServiceWorkerPool() */
+
+/*-----------------------------------------------------------------------------
+  METHOD: Dispatch()
+  Queue a copy of the method call message to be passed to handler on obj by
+  the next free worker.  Returns false, without queueing the message, if the
+  queue is full.
+-----------------------------------------------------------------------------*/
+bool ServiceWorkerPool::Dispatch(BusObject* obj, Handler handler, Message& msg) {
+
+    lock.Lock();
+    if(workers.empty() || queue.size() >= maxQueued){
+        lock.Unlock();
+        return false;
+    }
+    queue.push_back(Work(obj, handler, msg));
+    workQueued.SetEvent();
+    lock.Unlock();
+    return true;
+
+} /* Dispatch() */
+
+/*-----------------------------------------------------------------------------
+  METHOD: ~ServiceWorkerPool()
+  Stop the worker threads and wait for them to finish the method calls they
+  are running.  The method calls still in the queue are dropped.
+-----------------------------------------------------------------------------*/
+ServiceWorkerPool::~ServiceWorkerPool() {
+
+    for(size_t i = 0; i < workers.size(); i++){
+        workers[i]->Stop();
+    }
+    for(size_t i = 0; i < workers.size(); i++){
+        workers[i]->Join();
+        delete workers[i];
+    }
+
+} /* ~ServiceWorkerPool() */
+
+/*-----------------------------------------------------------------------------
+  METHOD: Worker()
+  Constructor for a worker thread of pool.
+-----------------------------------------------------------------------------*/
+ServiceWorkerPool::Worker::Worker(ServiceWorkerPool& pool):
+    qcc::Thread("ServiceWorker"), pool(pool)
+{
+} /* Worker() */
+
+/*-----------------------------------------------------------------------------
+  METHOD: Run()
+  Take the method calls off the queue and run them until the thread is
+  stopped.  The event is only reset while the lock is held and the queue is
+  empty, so a call queued after that always wakes a worker.
+-----------------------------------------------------------------------------*/
+qcc::ThreadReturn STDCALL ServiceWorkerPool::Worker::Run(void* arg) {
+
+    while(!IsStopping()){
+        pool.lock.Lock();
+        if(pool.queue.empty()){
+            pool.workQueued.ResetEvent();
+            pool.lock.Unlock();
+            /* returns early when the thread is stopped */
+            qcc::Event::Wait(pool.workQueued);
+            continue;
+        }
+        Work work = pool.queue.front();
+        pool.queue.pop_front();
+        pool.lock.Unlock();
+
+        (work.obj->*work.handler)(work.msg);
+    }
+    return 0;
+
+} /* Run() */
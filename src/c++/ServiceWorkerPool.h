@@ -0,0 +1,103 @@
+#ifndef _SERVICE_WORKER_POOL_H
+#define _SERVICE_WORKER_POOL_H
+
+/******************************************************************************
+@License@
+ *
+ * ServiceWorkerPool.h
+ * This file defines the class "ServiceWorkerPool". The service classes
+ * generated with the -t option use it to run the developer's method handlers
+ * on a fixed number of worker threads rather than on the AllJoyn dispatcher
+ * thread, so a slow method does not hold up the other method calls and the
+ * signals of the bus attachment. A method call waits in a queue of bounded
+ * depth until a worker is free; when the queue is full the call is refused.
+ *
+ ******************************************************************************/
+
+#include <deque>
+#include <vector>
+#include <qcc/Thread.h>
+#include <qcc/Mutex.h>
+#include <qcc/Event.h>
+#include <alljoyn/BusObject.h>
+#include <alljoyn/Message.h>
+
+using namespace ajn;
+
+class ServiceWorkerPool {
+  public:
+    /*-------------------------------------------------------------------------
+      TYPE: Handler
+      A method of the bus object that handles a method call message on a
+      worker thread.
+    -------------------------------------------------------------------------*/
+    typedef void (BusObject::* Handler)(Message& msg);
+
+    /*-------------------------------------------------------------------------
+      METHOD: ServiceWorkerPool()
+      Constructor for the worker pool.  Starts numThreads worker threads and
+      allows up to maxQueued method calls to wait for a free worker.
+    -------------------------------------------------------------------------*/
+    ServiceWorkerPool(size_t numThreads, size_t maxQueued);
+
+    /*-------------------------------------------------------------------------
+      METHOD: Dispatch()
+      Queue a copy of the method call message to be passed to handler on obj
+      by the next free worker.  Returns false, without queueing the message,
+      if the queue is full.
+    -------------------------------------------------------------------------*/
+    bool Dispatch(BusObject* obj, Handler handler, Message& msg);
+
+    /*-------------------------------------------------------------------------
+      METHOD: ~ServiceWorkerPool()
+      Stop the worker threads and wait for them to finish the method calls
+      they are running.  The method calls still in the queue are dropped.
+    -------------------------------------------------------------------------*/
+    ~ServiceWorkerPool();
+
+  private:
+    /* A worker thread, which runs the queued method calls one by one. */
+    class Worker : public qcc::Thread {
+      public:
+        Worker(ServiceWorkerPool& pool);
+
+      protected:
+        qcc::ThreadReturn STDCALL Run(void* arg);
+
+      private:
+        ServiceWorkerPool& pool;
+    };
+
+    /* A queued method call.  Copying the message keeps it, and the
+       arguments read from it, alive until the handler has run. */
+    struct Work {
+        BusObject* obj;
+        Handler handler;
+        Message msg;
+
+        Work(BusObject* obj, Handler handler, const Message& msg) :
+            obj(obj), handler(handler), msg(msg) { }
+    };
+
+    /* The pool can't be copied. */
+    ServiceWorkerPool(const ServiceWorkerPool& other);
+    ServiceWorkerPool& operator=(const ServiceWorkerPool& other);
+
+    std::vector<Worker*> workers;
+    std::deque<Work> queue;
+    size_t maxQueued;
+
+    /*-------------------------------------------------------------------------
+      MEMBER: lock
+      Protects the queue.
+    -------------------------------------------------------------------------*/
+    qcc::Mutex lock;
+
+    /*-------------------------------------------------------------------------
+      MEMBER: workQueued
+      Set while the queue is not empty.  The workers wait on it.
+    -------------------------------------------------------------------------*/
+    qcc::Event workQueued;
+};
+
+#endif /* _SERVICE_WORKER_POOL_H */
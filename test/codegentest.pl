@@ -33,6 +33,8 @@
 use Test::More;;
 use IO::All;
 use File::Spec::Functions;
+use File::Basename;
+use File::Path qw(make_path remove_tree);
 use Cwd;
 use Cwd 'chdir';
 use Forks::Super;
@@ -668,6 +670,398 @@ test_error("b_tests/iop_base_node.xml",
            "(-b): IOP - XML: Different IOP Base",
            $objpath);
 
+# Generating the interfaces at the same time (-j) must give the same files,
+# and print the same messages, as generating them one after another
+my $serialoutdir = "codegenout_serial";
+unless (-e $serialoutdir) {
+    mkdir $serialoutdir or
+        die "unable to create $serialoutdir";
+}
+clear_directory($serialoutdir);
+foreach my $subDir ("classes_and_instances/*.xml", "methods/*.xml",
+                    "properties/*.xml", "signals/*.xml", "samples/*.xml") {
+    $filepath = catfile($UNIT_TEST_DIR, $subDir);
+    @files = <${filepath}>;
+    foreach $testfile (@files) {
+        @codegenargs = ("-p $serialoutdir", "-l", "-j 1", "-w $wkn",
+            $testfile);
+        my $serialout = get_codegen_output($ajngen, \@codegenargs);
+        @codegenargs = ("-p $codegenoutdir", "-l", "-j 4", "-w $wkn",
+            $testfile);
+        $codegenout = get_codegen_output($ajngen, \@codegenargs);
+        $testname = "$testfile - parallel (-j) matches serial";
+        ok( same_files($serialoutdir, $codegenoutdir), $testname);
+        $testname = "$testfile - parallel (-j) output matches serial";
+        is( join("", map { s/\Q$serialoutdir\E/$codegenoutdir/gr }
+                     @$serialout),
+            join("", @$codegenout), $testname);
+        clear_directory($serialoutdir);
+        clear_directory($codegenoutdir);
+    }
+}
+
+# Regenerating with -k must leave the files whose code is unchanged, and
+# their timestamps, alone and write a copy of a developer file that the
+# developer has changed
+$testfile = catfile($UNIT_TEST_DIR, "samples", "sample_1.xml");
+@codegenargs = ("-p $codegenoutdir", "-w $wkn", $testfile);
+get_codegen_output($ajngen, \@codegenargs);
+my $devfile = catfile($codegenoutdir, "SampleInterfaceServiceMethods.cc");
+open(my $devfh, ">>", $devfile) or die "cannot append to $devfile";
+print $devfh "/* developer code */\n";
+close($devfh);
+my $oldtime = time() - 3600;
+utime($oldtime, $oldtime, "$_") foreach (io($codegenoutdir)->all);
+@codegenargs = ("-p $codegenoutdir", "-k", "-w $wkn", $testfile);
+get_codegen_output($ajngen, \@codegenargs);
+my $devcopy = "SampleInterfaceServiceMethodsCopy.cc";
+$testname = "write if changed (-k) - unchanged files untouched";
+ok( !grep({ $_->filename ne $devcopy && (stat "$_")[9] != $oldtime }
+          io($codegenoutdir)->all), $testname);
+$testname = "write if changed (-k) - copy of changed developer file";
+ok( -e catfile($codegenoutdir, $devcopy), $testname);
+clear_directory($codegenoutdir);
+
+# A file that -k cannot write must end the run with an error, as it does
+# without -k
+my $blockedfile = catfile($codegenoutdir, "SampleInterfaceClient.h");
+make_path(catdir($blockedfile, "blocked"));
+@codegenargs = ("-p $codegenoutdir", "-k", "-w $wkn", $testfile);
+$codegenout = get_codegen_output($ajngen, \@codegenargs);
+$testname = "write if changed (-k) - failed write exit code";
+cmp_ok($? >> 8, "==", 1, $testname);
+$testname = "write if changed (-k) - failed write reported";
+ok( is_contained_in("could not write SampleInterfaceClient.h", $codegenout),
+    $testname);
+remove_tree($blockedfile);
+clear_directory($codegenoutdir);
+
+# A request sent to the daemon (-d) by ajgen-client.sh must give the same
+# exit code and files as running the tool directly
+my $ajgenclient = catfile(dirname($ajngen), "ajgen-client.sh");
+my $daemonport = 7199;
+my $tokenfile = catfile(getcwd(), "codegen_daemon.token");
+$ENV{AJGEN_PORT} = $daemonport;
+$ENV{AJGEN_TOKEN_FILE} = $tokenfile;
+unlink $tokenfile;
+my $daemonpid = fork { exec     => "$ajngen -d $daemonport",
+                       name     => "ajgen-daemon",
+                       child_fh => "join" };
+# the daemon writes the token file once it is listening
+for (my $i = 0; $i < 20 && !(-e $tokenfile); $i++) {
+    Forks::Super::pause(0.5);
+}
+foreach $testfile (catfile($UNIT_TEST_DIR, "samples", "sample_1.xml"),
+                   catfile($TEST_DIR, "arg_with_no_name.xml")) {
+    @codegenargs = ("-p $serialoutdir", "-w $wkn", $testfile);
+    get_codegen_output($ajngen, \@codegenargs);
+    my $directexit = $? >> 8;
+    @codegenargs = ("-p $codegenoutdir", "-w $wkn", $testfile);
+    get_codegen_output($ajgenclient, \@codegenargs);
+    $testname = "$testfile - daemon (-d) exit code matches direct run";
+    cmp_ok($? >> 8, "==", $directexit, $testname);
+    $testname = "$testfile - daemon (-d) files match direct run";
+    ok( is_empty($serialoutdir) ? is_empty($codegenoutdir)
+                                : same_files($serialoutdir, $codegenoutdir),
+        $testname);
+    clear_directory($serialoutdir);
+    clear_directory($codegenoutdir);
+}
+Forks::Super::kill "TERM", $daemonpid;
+while (-1 == waitpid $daemonpid, WNOHANG) {
+    Forks::Super::pause(1);
+}
+Forks::Super::Job::dispose($daemonpid);
+delete $ENV{AJGEN_PORT};
+delete $ENV{AJGEN_TOKEN_FILE};
+
+# The worker pool (-t) must be written with the service code, which must
+# still build
+$testfile = catfile($UNIT_TEST_DIR, "samples", "sample_1.xml");
+@codegenargs = ("-p $codegenoutdir", "-t 2", "-w $wkn", $testfile);
+get_codegen_output($ajngen, \@codegenargs);
+$testname = "worker threads (-t) - ServiceWorkerPool files";
+ok( -e catfile($codegenoutdir, "ServiceWorkerPool.h") &&
+    -e catfile($codegenoutdir, "ServiceWorkerPool.cc"), $testname);
+$testname = "worker threads (-t) - make";
+cmp_ok( run_make($codegenoutdir), "==", 0, $testname);
+clear_directory($codegenoutdir);
+
+# Adding -t to an existing output path must bring the makefiles up to date,
+# with -o and with -i
+foreach my $option ("-o", "-i") {
+    @codegenargs = ("-p $codegenoutdir", $option, "-w $wkn", $testfile);
+    get_codegen_output($ajngen, \@codegenargs);
+    @codegenargs = ("-p $codegenoutdir", $option, "-t 2", "-w $wkn",
+                    $testfile);
+    $codegenout = get_codegen_output($ajngen, \@codegenargs);
+    $testname = "worker threads (-t) - makefile replaced ($option)";
+    ok( is_contained_in("replacing makefile,", $codegenout) &&
+        io(catfile($codegenoutdir, "makefile"))->all =~
+            /^SVCOBJS = .*ServiceWorkerPool\.o/m, $testname);
+    $testname = "worker threads (-t) - make after adding -t ($option)";
+    cmp_ok( run_make($codegenoutdir), "==", 0, $testname);
+    unlink catfile($codegenoutdir, ".ajgen-manifest");
+    clear_directory($codegenoutdir);
+}
+
+# The handlers given string arrays as views of the message (-z) must build
+# against MsgArgViews.h
+$testfile = catfile($UNIT_TEST_DIR, "samples", "sample_array_args.xml");
+@codegenargs = ("-p $codegenoutdir", "-z", "-w $wkn", $testfile);
+get_codegen_output($ajngen, \@codegenargs);
+$testname = "array views (-z) - MsgArgViews.h";
+ok( -e catfile($codegenoutdir, "MsgArgViews.h"), $testname);
+$testname = "array views (-z) - make";
+cmp_ok( run_make($codegenoutdir), "==", 0, $testname);
+clear_directory($codegenoutdir);
+
+# The jobs of a batch (-B) are generated at the same time, each writing its
+# interfaces on several threads (-j).  A job failing on one of those threads
+# must fail only that job, with its messages in the job's output rather than
+# ending the tool.
+my $batchdir = catdir(getcwd(), "codegen_batch");
+remove_tree($batchdir);
+# a directory in place of one of the files makes the writing of the second
+# job fail
+make_path(map({ catdir($batchdir, $_) } ("one", "two", "three")),
+          catdir($batchdir, "two", "IntOneClient.h"));
+my $batchtestdir = File::Spec->rel2abs(
+    catdir($UNIT_TEST_DIR, "classes_and_instances"));
+my $batchxml = catfile($batchtestdir, "basic_derived_class.xml") . " " .
+               catfile($batchtestdir, "single_child.xml");
+my $manifest = catfile($batchdir, "manifest");
+io($manifest)->print(
+    "-j 4 -w $wkn -p one $batchxml\n",
+    "-j 4 -w $wkn -p two $batchxml\n",
+    "-j 4 -w $wkn -p three $batchxml\n");
+$codegenout = get_codegen_output($ajngen, ["-B $manifest", "-j 3"]);
+$testname = "parallel jobs (-B -j) - exit code";
+cmp_ok($? >> 8, "==", 1, $testname);
+$testname = "parallel jobs (-B -j) - summary";
+ok( is_contained_in("^3 jobs, 1 failed", $codegenout), $testname);
+my @joboutput = split(/^job line \d+ /m, join("", @$codegenout));
+$testname = "parallel jobs (-B -j) - failure in the job's output";
+ok( @joboutput == 4 && $joboutput[2] =~ /fatal/ &&
+    $joboutput[1] !~ /fatal/ && $joboutput[3] !~ /fatal/, $testname);
+$testname = "parallel jobs (-B -j) - other jobs generated";
+ok( same_files(catdir($batchdir, "one"), catdir($batchdir, "three")) &&
+    -e catfile($batchdir, "one", "IntOneClient.h"), $testname);
+remove_tree($batchdir);
+
+# Get and Set must compare the requested interface once and switch on the
+# first character of the properties' names that have the same length, and
+# must still build
+$testfile = catfile($TEST_DIR, "property_same_length.xml");
+@codegenargs = ("-p $codegenoutdir", "-w $wkn", $testfile);
+get_codegen_output($ajngen, \@codegenargs);
+my @getset =
+    io(catfile($codegenoutdir, "PropOne__PropTwoService.cc"))->slurp;
+$testname = "properties of the same length - interface compared once";
+cmp_ok( scalar(grep(/ifcName\)/, @getset)), "==", 4, $testname);
+$testname = "properties of the same length - switch on the first character";
+cmp_ok( scalar(grep(/switch\(propName\[0\]\)/, @getset)), "==", 4,
+        $testname);
+$testname = "properties of the same length - each name compared once";
+ok( !grep({ my $name = $_;
+            2 != grep(/strcmp\("$name", propName\)/, @getset) }
+          ("Alpha", "Bravo", "Delta", "Dummy", "Lima",
+           "Echo", "Golf", "Kilo")), $testname);
+$testname = "properties of the same length - make";
+cmp_ok( run_make($codegenoutdir), "==", 0, $testname);
+clear_directory($codegenoutdir);
+
+# The streaming parser (-s) must give the same messages, exit code and files
+# as the document parser, for each file and for several files read at the
+# same time (-j)
+my $multifiles = join(" ",
+    catfile($UNIT_TEST_DIR, "classes_and_instances", "single_child.xml"),
+    catfile($UNIT_TEST_DIR, "classes_and_instances",
+            "basic_derived_class.xml"),
+    catfile($UNIT_TEST_DIR, "samples", "sample_1.xml"));
+foreach $testfile (glob(catfile($UNIT_TEST_DIR, "*", "*.xml")),
+                   glob(catfile($TEST_DIR, "*.xml")),
+                   $multifiles) {
+    my $streamargs = $testfile eq $multifiles ? "-s -j 4" : "-s";
+    @codegenargs = ("-p $serialoutdir", "-j 1", "-w $wkn", $testfile);
+    my $treeout = get_codegen_output($ajngen, \@codegenargs);
+    my $treeexit = $? >> 8;
+    @codegenargs = ("-p $codegenoutdir", $streamargs, "-w $wkn", $testfile);
+    $codegenout = get_codegen_output($ajngen, \@codegenargs);
+    $testname = "$testfile - streaming parse ($streamargs) matches";
+    ok( $? >> 8 == $treeexit && "@$codegenout" eq "@$treeout" &&
+        (is_empty($serialoutdir) ? is_empty($codegenoutdir)
+                                 : same_files($serialoutdir, $codegenoutdir)),
+        $testname);
+    clear_directory($serialoutdir);
+    clear_directory($codegenoutdir);
+}
+
+# A service's signals must be sent with the members looked up when the
+# object is created, never looked up again for each signal, and must build
+foreach $testfile (catfile($UNIT_TEST_DIR, "classes_and_instances",
+                           "basic_derived_signals.xml"),
+                   catfile($UNIT_TEST_DIR, "signals", "signal_int_array.xml"),
+                   catfile($UNIT_TEST_DIR, "signals",
+                           "signal_struct_basic.xml")) {
+    @codegenargs = ("-p $codegenoutdir", "-w $wkn", $testfile);
+    get_codegen_output($ajngen, \@codegenargs);
+    my $sendcount = 0;
+    my $sendcached = 1;
+    foreach (glob(catfile($codegenoutdir, "*Service.cc"))) {
+        my $code = io($_)->all;
+        while ($code =~ /::Send(\w+)\(.*?\n(.*?)\} \/\* Send\1\(\) \*\//sg) {
+            my ($signal, $body) = ($1, $2);
+            $sendcached &&= $body !~ /GetMember/ &&
+                $body =~ /\*${signal}SignalMember\b/ &&
+                $code =~
+                    /\b${signal}SignalMember = \w+->GetMember\("$signal"\)/;
+            $sendcount++;
+        }
+    }
+    $testname = "$testfile - signals sent with the cached members";
+    ok( $sendcount > 0 && $sendcached, $testname);
+    $testname = "$testfile - signals make";
+    cmp_ok( run_make($codegenoutdir), "==", 0, $testname);
+    clear_directory($codegenoutdir);
+}
+
+# The reply handlers of the asynchronous method calls (-a) must give the
+# callback initialized output arguments, also when the reply is an error,
+# and must build
+foreach $testfile (catfile($UNIT_TEST_DIR, "methods",
+                           "method_int_array_out.xml"),
+                   catfile($UNIT_TEST_DIR, "methods",
+                           "method_array_struct_array.xml"),
+                   catfile($UNIT_TEST_DIR, "methods",
+                           "method_struct_basic.xml"),
+                   catfile($UNIT_TEST_DIR, "samples", "sample_1.xml")) {
+    @codegenargs = ("-p $codegenoutdir", "-a", "-w $wkn", $testfile);
+    get_codegen_output($ajngen, \@codegenargs);
+    my $replycount = 0;
+    my $replyinit = 1;
+    foreach (glob(catfile($codegenoutdir, "*Client.cc"))) {
+        my $code = io($_)->all;
+        while ($code =~ /Reply\(Message&\ msg,\ void\*\ context\)\{\n
+                          [^\n]*\n
+                          \s*QStatus\ status\ =\ ER_OK;\n
+                          ((?:[^\n]*\n)*?)
+                          \s*if\(msg->GetType/gx) {
+            $replyinit &&= !grep({ !/=|^\s*(qcc::String|MsgArg) / }
+                                 split(/\n/, $1));
+            $replycount++;
+        }
+    }
+    $testname = "$testfile - async (-a) reply arguments initialized";
+    ok( $replycount > 0 && $replyinit, $testname);
+    $testname = "$testfile - async (-a) make";
+    cmp_ok( run_make($codegenoutdir), "==", 0, $testname);
+    clear_directory($codegenoutdir);
+}
+
+# Generating with -i again must write nothing.  After one interface changes
+# only its files and the main files may be written, and after an option
+# changes every interface must be generated again.  A deleted support file
+# must be written again even though nothing changed, and so must an
+# interface whose files failed to be written.
+my $incrxml = catfile(getcwd(), "codegen_incremental.xml");
+my $incrnodes = join("\n",
+    '<node name="/">',
+    '   <node name="One">',
+    '      <interface name="com.qcom.test.One">',
+    '         <method name="Ping">',
+    '            <arg name="count" type="i" direction="in" />%s',
+    '         </method>',
+    '      </interface>',
+    '   </node>',
+    '   <node name="Two">',
+    '      <interface name="com.qcom.test.Two">',
+    '         <method name="Pong">',
+    '            <arg name="count" type="i" direction="in" />',
+    '         </method>',
+    '      </interface>',
+    '   </node>',
+    '</node>', "");
+my $incrmanifest = catfile($codegenoutdir, ".ajgen-manifest");
+my @incrwritten = ();
+my $incrrun = sub {
+    utime($oldtime, $oldtime, $incrmanifest,
+          map { "$_" } io($codegenoutdir)->all);
+    $codegenout = get_codegen_output($ajngen, ["-p $codegenoutdir", "-u i",
+                                               "-i", @_, "-w $wkn", $incrxml]);
+    @incrwritten = grep({ (stat catfile($codegenoutdir, $_))[9] != $oldtime }
+                        (".ajgen-manifest",
+                         map { $_->filename } io($codegenoutdir)->all));
+};
+io($incrxml)->print(sprintf($incrnodes, ""));
+get_codegen_output($ajngen, ["-p $codegenoutdir", "-i", "-w $wkn", $incrxml]);
+$incrrun->();
+$testname = "incremental (-i) - nothing written when nothing changed";
+ok( !@incrwritten &&
+    is_contained_in("com.qcom.test.One has not changed", $codegenout) &&
+    is_contained_in("com.qcom.test.Two has not changed", $codegenout) &&
+    is_contained_in("main files have not changed", $codegenout), $testname);
+io($incrxml)->print(sprintf($incrnodes,
+    "\n" . '            <arg name="size" type="u" direction="in" />'));
+$incrrun->();
+$testname = "incremental (-i) - only the changed interface generated";
+ok( !is_contained_in("com.qcom.test.One has not changed", $codegenout) &&
+    is_contained_in("com.qcom.test.Two has not changed", $codegenout) &&
+    grep({ $_ eq "OneClient.h" } @incrwritten) &&
+    !grep({ !/^(One|ClientMain|ServiceMain|BusAttachmentMgr|makefile|\.ajgen)/ }
+          @incrwritten), $testname);
+$incrrun->("-a");
+$testname = "incremental (-i) - everything generated when an option changes";
+ok( !is_contained_in("has not changed", $codegenout) &&
+    grep({ $_ eq "OneClient.h" } @incrwritten) &&
+    grep({ $_ eq "TwoClient.h" } @incrwritten), $testname);
+unlink catfile($codegenoutdir, "makefile"),
+       catfile($codegenoutdir, "BusAttachmentMgr.cc");
+$incrrun->("-a");
+$testname = "incremental (-i) - deleted support files written again";
+ok( is_contained_in("com.qcom.test.One has not changed", $codegenout) &&
+    is_contained_in("com.qcom.test.Two has not changed", $codegenout) &&
+    -e catfile($codegenoutdir, "makefile") &&
+    -e catfile($codegenoutdir, "BusAttachmentMgr.cc"), $testname);
+my $incrblocked = catfile($codegenoutdir, "OneClient.h");
+unlink $incrblocked;
+make_path(catdir($incrblocked, "blocked"));
+io($incrxml)->print(sprintf($incrnodes, ""));
+$incrrun->("-a");
+$testname = "incremental (-i) - failed write exit code";
+cmp_ok($? >> 8, "==", 1, $testname);
+remove_tree($incrblocked);
+$incrrun->("-a");
+$testname = "incremental (-i) - failed interface generated again";
+ok( !is_contained_in("com.qcom.test.One has not changed", $codegenout) &&
+    -f $incrblocked, $testname);
+unlink $incrxml, $incrmanifest;
+clear_directory($codegenoutdir);
+
+# A failing job in a batch (-B) must not stop the other jobs, and the
+# summary must list the jobs in the order of the manifest
+$testfile = File::Spec->rel2abs(
+    catfile($UNIT_TEST_DIR, "samples", "sample_1.xml"));
+$manifest = catfile($batchdir, "manifest");
+make_path(catdir($batchdir, "ok"));
+io($manifest)->print("# the first job fails\n",
+                     "-w $wkn -p ok no_such_file.xml\n",
+                     "\n",
+                     "-w $wkn -p ok $testfile\n");
+$codegenout = get_codegen_output($ajngen, ["-B $manifest"]);
+$testname = "batch (-B) - exit code";
+cmp_ok($? >> 8, "==", 1, $testname);
+$testname = "batch (-B) - summary in manifest order";
+my $summary = join("", @$codegenout);
+ok( $summary =~ /^batch summary:\n  failed .* line 2 .*\n/m &&
+    $summary =~ /^  failed .*\n  ok .* line 4 .*\n2 jobs, 1 failed/m,
+    $testname);
+$testname = "batch (-B) - other job generated";
+ok( -e catfile($batchdir, "ok", "SampleInterfaceClient.cc"), $testname);
+remove_tree($batchdir);
+rmdir $serialoutdir;
+
+
 # Start Running the Automated Unit Tests
 my $typetestclient = "Client";
 my $typetestservice = "Service";
@@ -926,6 +1320,20 @@ sub is_empty {
     $filecount > 0 ? 0 : 1;
 }
 
+# compare two output directories; true if they hold the same files with
+# the same contents
+sub same_files {
+    my ($dir1, $dir2) = @_;
+    my @files1 = sort map { $_->filename } io($dir1)->all;
+    my @files2 = sort map { $_->filename } io($dir2)->all;
+    return 0 unless (@files1 && "@files1" eq "@files2");
+    foreach (@files1) {
+        return 0 unless (io(catfile($dir1, $_))->all eq
+                         io(catfile($dir2, $_))->all);
+    }
+    return 1;
+}
+
 # examine the output directory and verify that all of the
 # source files were generated, as expected
 sub all_files_generated {